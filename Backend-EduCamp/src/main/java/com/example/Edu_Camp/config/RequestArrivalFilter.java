@@ -0,0 +1,37 @@
+package com.example.Edu_Camp.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Records when a request arrived, before its body is read. Multipart uploads are parsed
+ * before the controller runs, so on a slow connection the handler may start long after the
+ * student pressed submit; deadline checks use this time instead.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestArrivalFilter extends OncePerRequestFilter {
+
+    public static final String ARRIVED_AT = RequestArrivalFilter.class.getName() + ".arrivedAt";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        request.setAttribute(ARRIVED_AT, LocalDateTime.now());
+        filterChain.doFilter(request, response);
+    }
+
+    public static LocalDateTime arrivedAt(HttpServletRequest request) {
+        Object arrivedAt = request.getAttribute(ARRIVED_AT);
+        return arrivedAt instanceof LocalDateTime time ? time : LocalDateTime.now();
+    }
+}
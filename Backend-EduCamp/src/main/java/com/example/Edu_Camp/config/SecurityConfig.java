@@ -73,7 +73,11 @@ public class SecurityConfig {
                                 "/api/enrollments/class/**",
                                 "/admin-teachers",
                                 "/api/materials/**",
-                                "/api/materials"
+                                "/api/materials",
+                                "/api/autocomplete",
+                                "/api/schedule/feeds/**",
+                                "/api/files/**",
+                                "/api/images/**"
                         ).permitAll()
 
                         // Authenticated endpoints (any logged-in user)
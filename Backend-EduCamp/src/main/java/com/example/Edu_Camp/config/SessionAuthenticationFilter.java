@@ -60,7 +60,11 @@ public class SessionAuthenticationFilter extends OncePerRequestFilter {
             "/users/**",
             "/api/admin/**",
             "/admin/**",
-            "/admin/enrollments/**"
+            "/admin/enrollments/**",
+            "/api/autocomplete",
+            "/api/schedule/feeds/**",
+            "/api/files/**",
+            "/api/images/**"
     );
 
     private final SessionService sessionService;
@@ -0,0 +1,51 @@
+package com.example.Edu_Camp.config;
+
+import com.example.Edu_Camp.services.LocalDiskStorageBackend;
+import com.example.Edu_Camp.services.S3StorageBackend;
+import com.example.Edu_Camp.services.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+@Configuration
+public class StorageConfig {
+
+    @Value("${file.upload-dir:./uploads}")
+    private String uploadDir;
+
+    @Value("${file.storage.backend:local}")
+    private String backend;
+
+    @Value("${file.storage.s3.endpoint:}")
+    private String s3Endpoint;
+
+    @Value("${file.storage.s3.bucket:}")
+    private String s3Bucket;
+
+    @Value("${file.storage.s3.region:us-east-1}")
+    private String s3Region;
+
+    @Value("${file.storage.s3.access-key:}")
+    private String s3AccessKey;
+
+    @Value("${file.storage.s3.secret-key:}")
+    private String s3SecretKey;
+
+    @Bean
+    public StorageBackend storageBackend() {
+        switch (backend.trim().toLowerCase()) {
+            case "local":
+                return new LocalDiskStorageBackend(Paths.get(uploadDir), "tmp");
+            case "s3":
+                if (s3Endpoint.isBlank() || s3Bucket.isBlank()) {
+                    throw new IllegalStateException("file.storage.s3.endpoint and file.storage.s3.bucket must be set");
+                }
+                return new S3StorageBackend(URI.create(s3Endpoint), s3Bucket, s3Region, s3AccessKey, s3SecretKey);
+            default:
+                throw new IllegalStateException("Unknown file.storage.backend: " + backend);
+        }
+    }
+}
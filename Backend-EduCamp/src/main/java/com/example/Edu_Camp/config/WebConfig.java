@@ -1,8 +1,11 @@
 package com.example.Edu_Camp.config;
 
+import jakarta.persistence.EntityManagerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -20,5 +23,19 @@ public class WebConfig {
             }
         };
     }
-}
 
+    // Open-in-view as Spring Boot would register it (spring.jpa.open-in-view=false turns that off),
+    // minus endpoints that stream for as long as the client takes and must not hold a connection
+    @Bean
+    public WebMvcConfigurer openEntityManagerInViewConfigurer(EntityManagerFactory entityManagerFactory) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addWebRequestInterceptor(interceptor)
+                        .excludePathPatterns("/api/teachers/assignments/*/submissions.zip");
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.Edu_Camp.controller;
+
+import com.example.Edu_Camp.services.AutocompleteService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/autocomplete")
+@CrossOrigin(originPatterns = "*", allowCredentials = "true")
+public class AutocompleteController {
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 50;
+
+    private final AutocompleteService autocompleteService;
+
+    public AutocompleteController(AutocompleteService autocompleteService) {
+        this.autocompleteService = autocompleteService;
+    }
+
+    // Served from the in-memory prefix index - safe to call on every keystroke
+    @GetMapping
+    public ResponseEntity<?> suggest(@RequestParam String prefix,
+                                     @RequestParam(required = false) String type,
+                                     @RequestParam(required = false) Integer limit) {
+        int k = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        var suggestions = autocompleteService.suggest(prefix, type, k);
+        return ResponseEntity.ok(Map.of("success", true, "suggestions", suggestions));
+    }
+}
@@ -6,9 +6,14 @@ import com.example.Edu_Camp.models.Teacher;
 import com.example.Edu_Camp.repository.ClassRepository;
 import com.example.Edu_Camp.repository.SubjectRepository;
 import com.example.Edu_Camp.repository.TeacherRepository;
+import com.example.Edu_Camp.services.AutocompleteService;
+import com.example.Edu_Camp.services.TimetableIndexService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -19,13 +24,19 @@ public class ClassController {
     private final ClassRepository classRepository;
     private final TeacherRepository teacherRepository;
     private final SubjectRepository subjectRepository;
+    private final AutocompleteService autocompleteService;
+    private final TimetableIndexService timetableIndexService;
 
     public ClassController(ClassRepository classRepository,
                            TeacherRepository teacherRepository,
-                           SubjectRepository subjectRepository) {
+                           SubjectRepository subjectRepository,
+                           AutocompleteService autocompleteService,
+                           TimetableIndexService timetableIndexService) {
         this.classRepository = classRepository;
         this.teacherRepository = teacherRepository;
         this.subjectRepository = subjectRepository;
+        this.autocompleteService = autocompleteService;
+        this.timetableIndexService = timetableIndexService;
     }
 
     // Get all classes
@@ -42,33 +53,60 @@ public class ClassController {
 
     // Create new class
     @PostMapping
-    public ClassEntity createClass(@RequestBody ClassEntity classEntity) {
+    public ResponseEntity<?> createClass(@RequestBody ClassEntity classEntity) {
         // Fetch managed teacher
         Teacher teacher = teacherRepository.findById(classEntity.getTeacher().getId())
                 .orElseThrow(() -> new RuntimeException("Teacher not found"));
 
-        // Fetch managed subjects
-        List<Subject> managedSubjects = classEntity.getSubjects().stream()
-                .map(s -> subjectRepository.findById(s.getId())
-                        .orElseThrow(() -> new RuntimeException("Subject not found: " + s.getId())))
-                .collect(Collectors.toList());
+        // Reject timetables that overlap another class of the same teacher; the slots stay
+        // reserved until the class is in the index, so a concurrent write sees them
+        try (TimetableIndexService.Reservation reservation = timetableIndexService.reserveSlots(
+                TimetableIndexService.ROLE_TEACHER, teacher.getId(), null, classEntity.getTimetableSlots())) {
+            if (!reservation.conflicts().isEmpty()) {
+                return teacherConflict(reservation.conflicts());
+            }
 
-        classEntity.setTeacher(teacher);
-        classEntity.setSubjects(managedSubjects);
+            // Fetch managed subjects
+            List<Subject> managedSubjects = classEntity.getSubjects().stream()
+                    .map(s -> subjectRepository.findById(s.getId())
+                            .orElseThrow(() -> new RuntimeException("Subject not found: " + s.getId())))
+                    .collect(Collectors.toList());
+
+            classEntity.setTeacher(teacher);
+            classEntity.setSubjects(managedSubjects);
 
-        return classRepository.save(classEntity);
+            ClassEntity saved = classRepository.save(classEntity);
+            autocompleteService.indexClass(saved);
+            timetableIndexService.upsertClass(saved);
+            return ResponseEntity.ok(saved);
+        }
     }
 
     // Update class
     @PutMapping("/{id}")
-    public ClassEntity updateClass(@PathVariable Long id, @RequestBody ClassEntity updatedClass) {
-        return classRepository.findById(id).map(c -> {
+    public ResponseEntity<?> updateClass(@PathVariable Long id, @RequestBody ClassEntity updatedClass) {
+        ClassEntity c = classRepository.findById(id).orElse(null);
+        if (c == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "success", false, "message", "Class not found"));
+        }
+
+        // Keep the current teacher when the request does not name one
+        Teacher teacher = updatedClass.getTeacher() == null || updatedClass.getTeacher().getId() == null
+                ? c.getTeacher()
+                : teacherRepository.findById(updatedClass.getTeacher().getId())
+                        .orElseThrow(() -> new RuntimeException("Teacher not found"));
+
+        try (TimetableIndexService.Reservation reservation = timetableIndexService.reserveSlots(
+                TimetableIndexService.ROLE_TEACHER, teacher != null ? teacher.getId() : null, id,
+                updatedClass.getTimetableSlots())) {
+            if (!reservation.conflicts().isEmpty()) {
+                return teacherConflict(reservation.conflicts());
+            }
+
             c.setGrade(updatedClass.getGrade());
             c.setFee(updatedClass.getFee());
             c.setTimetable(updatedClass.getTimetable());
-
-            Teacher teacher = teacherRepository.findById(updatedClass.getTeacher().getId())
-                    .orElseThrow(() -> new RuntimeException("Teacher not found"));
             c.setTeacher(teacher);
 
             List<Subject> managedSubjects = updatedClass.getSubjects().stream()
@@ -77,13 +115,25 @@ public class ClassController {
                     .collect(Collectors.toList());
             c.setSubjects(managedSubjects);
 
-            return classRepository.save(c);
-        }).orElse(null);
+            ClassEntity saved = classRepository.save(c);
+            autocompleteService.indexClass(saved);
+            timetableIndexService.upsertClass(saved);
+            return ResponseEntity.ok(saved);
+        }
     }
 
     // Delete class
     @DeleteMapping("/{id}")
     public void deleteClass(@PathVariable Long id) {
         classRepository.deleteById(id);
+        autocompleteService.removeClass(id);
+        timetableIndexService.removeClass(id);
+    }
+
+    private ResponseEntity<?> teacherConflict(List<Long> conflictingClassIds) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "success", false,
+                "message", "Timetable overlaps other classes of this teacher",
+                "conflictingClassIds", conflictingClassIds));
     }
 }
\ No newline at end of file
@@ -4,11 +4,13 @@ import com.example.Edu_Camp.dto.EnrollmentDTO;
 import com.example.Edu_Camp.models.Enrollment;
 import com.example.Edu_Camp.repository.EnrollmentRepository;
 import com.example.Edu_Camp.services.EnrollmentService;
+import com.example.Edu_Camp.services.TimetableConflictException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/enrollments")
@@ -55,6 +57,11 @@ public class EnrollmentController {
         try {
             Enrollment created = enrollmentService.createEnrollment(dto);
             return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        } catch (TimetableConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "success", false,
+                    "message", e.getMessage(),
+                    "conflictingClassIds", e.getConflictingClassIds()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (IllegalStateException e) {
@@ -72,6 +79,11 @@ public class EnrollmentController {
         try {
             Enrollment updated = enrollmentService.updateEnrollment(id, dto);
             return ResponseEntity.ok(updated);
+        } catch (TimetableConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "success", false,
+                    "message", e.getMessage(),
+                    "conflictingClassIds", e.getConflictingClassIds()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (IllegalStateException e) {
@@ -2,13 +2,23 @@ package com.example.Edu_Camp.controller;
 
 import com.example.Edu_Camp.dto.MaterialDTO;
 import com.example.Edu_Camp.models.TeacherMaterial;
-import com.example.Edu_Camp.repository.MaterialRepository;
+import com.example.Edu_Camp.models.User;
+import com.example.Edu_Camp.services.AuthService;
+import com.example.Edu_Camp.services.FileResponseWriter;
+import com.example.Edu_Camp.services.MaterialService;
+import com.example.Edu_Camp.services.SignedUrlService;
+import com.example.Edu_Camp.services.StoredFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
-import java.util.Base64;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -17,58 +27,83 @@ import java.util.Optional;
 public class MaterialController {
 
     @Autowired
-    private MaterialRepository materialRepository;
+    private MaterialService materialService;
 
-    // Get all materials (without sending the file data)
-    @GetMapping
-    public ResponseEntity<List<MaterialDTO>> getAllMaterials() {
-        List<TeacherMaterial> materials = materialRepository.findAll();
-
-        // Map to DTO to avoid sending large byte arrays
-        List<MaterialDTO> response = materials.stream().map(m -> {
-            MaterialDTO dto = new MaterialDTO();
-            dto.setId(m.getId());
-            dto.setTitle(m.getTitle());
-            dto.setDescription(m.getDescription());
-            dto.setSubject(m.getSubject());
-            dto.setClassName(m.getClassName());
-            dto.setFileName(m.getFileName());
-            return dto;
-        }).toList();
+    @Autowired
+    private FileResponseWriter fileResponseWriter;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private SignedUrlService signedUrlService;
 
+    // List materials (metadata only), optionally filtered by subject and class. With limit the
+    // list is paged: pass the X-Next-After-Id header of one page as afterId for the next.
+    @GetMapping
+    public ResponseEntity<List<MaterialDTO>> getAllMaterials(@RequestParam(value = "subject", required = false) String subject,
+                                                             @RequestParam(value = "className", required = false) String className,
+                                                             @RequestParam(value = "afterId", required = false) Long afterId,
+                                                             @RequestParam(value = "limit", required = false) Integer limit) {
+        List<MaterialDTO> response = materialService.listMaterials(subject, className, afterId, limit);
+
+        if (limit != null && !response.isEmpty() && response.size() >= Math.min(limit, MaterialService.MAX_PAGE_SIZE)) {
+            return ResponseEntity.ok()
+                    .header("X-Next-After-Id", String.valueOf(response.get(response.size() - 1).getId()))
+                    .body(response);
+        }
         return ResponseEntity.ok(response);
     }
 
-    // Upload material via JSON body
-    @PostMapping
+    // Upload material as multipart form data; the file is streamed to storage. A completed
+    // chunked upload can be given as uploadId instead of file.
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadMaterialFile(@RequestParam("title") String title,
+                                                @RequestParam(value = "description", required = false) String description,
+                                                @RequestParam(value = "subject", required = false) String subject,
+                                                @RequestParam(value = "className", required = false) String className,
+                                                @RequestParam(value = "fileName", required = false) String fileName,
+                                                @RequestParam(value = "file", required = false) MultipartFile file,
+                                                @RequestParam(value = "uploadId", required = false) String uploadId,
+                                                HttpServletRequest request) {
+        try {
+            Long teacherId = null;
+            if (uploadId != null && !uploadId.isBlank()) {
+                User teacher = authService.getAuthenticatedUser(extractSessionId(request));
+                if (teacher == null || !"TEACHER".equals(teacher.getRole())) {
+                    return ResponseEntity.status(403).body("Access denied");
+                }
+                teacherId = teacher.getId();
+            }
+
+            MaterialDTO details = new MaterialDTO();
+            details.setTitle(title);
+            details.setDescription(description);
+            details.setSubject(subject);
+            details.setClassName(className);
+            details.setFileName(fileName);
+
+            TeacherMaterial material = materialService.createMaterial(details, file, uploadId, teacherId);
+            MaterialDTO dto = toDto(material);
+            dto.setFileUrl("http://localhost:8080/api/materials/download/" + material.getId());
+            return ResponseEntity.ok(dto);
+
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Failed to save material: " + e.getMessage());
+        }
+    }
+
+    // Upload material via JSON body (Base64 file data); kept for existing clients
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> uploadMaterial(@RequestBody MaterialDTO request) {
         try {
             if (request.getFileData() == null || request.getFileData().isEmpty()) {
                 return ResponseEntity.badRequest().body("fileData is required");
             }
 
-            byte[] fileBytes = Base64.getDecoder().decode(request.getFileData());
-
-            TeacherMaterial material = new TeacherMaterial(
-                    request.getTitle(),
-                    request.getDescription(),
-                    request.getSubject(),
-                    request.getClassName(),
-                    request.getFileName(),
-                    fileBytes
-            );
-
-            materialRepository.save(material);
-
-            MaterialDTO dto = new MaterialDTO();
-            dto.setId(material.getId());
-            dto.setTitle(material.getTitle());
-            dto.setDescription(material.getDescription());
-            dto.setSubject(material.getSubject());
-            dto.setClassName(material.getClassName());
-            dto.setFileName(material.getFileName());
+            TeacherMaterial material = materialService.createMaterialFromBase64(request);
+            MaterialDTO dto = toDto(material);
             dto.setFileUrl("http://localhost:8080/api/materials/download/" + material.getId());
-
             return ResponseEntity.ok(dto);
 
         } catch (IllegalArgumentException e) {
@@ -83,45 +118,90 @@ public class MaterialController {
     // Delete material by ID
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteMaterial(@PathVariable Long id) {
-        Optional<TeacherMaterial> materialOptional = materialRepository.findById(id);
-        if (materialOptional.isEmpty()) {
+        if (!materialService.deleteMaterial(id)) {
             return ResponseEntity.notFound().build();
         }
-
-        materialRepository.delete(materialOptional.get());
         return ResponseEntity.ok("Material deleted successfully");
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getMaterial(@PathVariable Long id) {
-        Optional<TeacherMaterial> materialOptional = materialRepository.findById(id);
+    public void getMaterial(@PathVariable Long id,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        writeMaterialFile(id, request, response);
+    }
+
+    @GetMapping("/download/{id}")
+    public void downloadMaterial(@PathVariable Long id,
+                                 HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        writeMaterialFile(id, request, response);
+    }
 
+    // Short-lived signed link to the material file
+    @GetMapping("/{id}/download-url")
+    public ResponseEntity<?> getMaterialDownloadUrl(@PathVariable Long id) {
+        Optional<TeacherMaterial> materialOptional = materialService.getMaterial(id);
         if (materialOptional.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        TeacherMaterial material = materialOptional.get();
-
-        // Return file as downloadable attachment
-        return ResponseEntity.ok()
-                .header("Content-Disposition", "attachment; filename=\"" + material.getFileName() + "\"")
-                .header("Content-Type", "application/octet-stream")
-                .body(material.getFileData());
+        try {
+            TeacherMaterial material = materialOptional.get();
+            StoredFile file = materialService.openFile(material);
+            var signed = signedUrlService.sign(file, material.getFileName(), MediaType.APPLICATION_OCTET_STREAM, false);
+            return ResponseEntity.ok(Map.of("url", signed.url(), "expiresAt", signed.expiresAt()));
+        } catch (IOException e) {
+            return ResponseEntity.notFound().build();
+        }
     }
-    @GetMapping("/download/{id}")
-    public ResponseEntity<?> downloadMaterial(@PathVariable Long id) {
-        Optional<TeacherMaterial> materialOptional = materialRepository.findById(id);
 
+    // Return file as downloadable attachment, streamed from storage
+    private void writeMaterialFile(Long id, HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        Optional<TeacherMaterial> materialOptional = materialService.getMaterial(id);
         if (materialOptional.isEmpty()) {
-            return ResponseEntity.notFound().build();
+            response.setStatus(404);
+            return;
         }
 
         TeacherMaterial material = materialOptional.get();
+        StoredFile file;
+        try {
+            file = materialService.openFile(material);
+        } catch (IOException e) {
+            response.setStatus(404);
+            return;
+        }
+
+        fileResponseWriter.write(request, response, file, MediaType.APPLICATION_OCTET_STREAM, false,
+                material.getFileName());
+    }
 
-        return ResponseEntity.ok()
-                .header("Content-Disposition", "attachment; filename=\"" + material.getFileName() + "\"")
-                .header("Content-Type", "application/octet-stream")
-                .body(material.getFileData());
+    private MaterialDTO toDto(TeacherMaterial material) {
+        MaterialDTO dto = new MaterialDTO();
+        dto.setId(material.getId());
+        dto.setTitle(material.getTitle());
+        dto.setDescription(material.getDescription());
+        dto.setSubject(material.getSubject());
+        dto.setClassName(material.getClassName());
+        dto.setFileName(material.getFileName());
+        dto.setFileSize(material.getFileSize());
+        return dto;
     }
 
-}
\ No newline at end of file
+    private String extractSessionId(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (var cookie : request.getCookies()) {
+                if ("sessionId".equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return request.getHeader("X-Session-Id");
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.Edu_Camp.controller;
+
+import com.example.Edu_Camp.services.FileResponseWriter;
+import com.example.Edu_Camp.services.ProfileImageService;
+import com.example.Edu_Camp.services.StoredFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Serves profile pictures and teacher images. Public, like the teacher listing that links
+ * to them: a URL names the SHA-256 of the image, so it cannot be guessed and its content
+ * never changes, which lets browsers and proxies cache it for a year.
+ */
+@RestController
+@RequestMapping("/api/images")
+@CrossOrigin(originPatterns = "*", allowCredentials = "true")
+public class ProfileImageController {
+
+    private final ProfileImageService profileImageService;
+    private final FileResponseWriter fileResponseWriter;
+
+    public ProfileImageController(ProfileImageService profileImageService,
+                                  FileResponseWriter fileResponseWriter) {
+        this.profileImageService = profileImageService;
+        this.fileResponseWriter = fileResponseWriter;
+    }
+
+    // variant is one of small, medium, large
+    @GetMapping("/{reference}/{variant}")
+    public void getImage(@PathVariable String reference,
+                         @PathVariable String variant,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        Optional<StoredFile> file = profileImageService.open(reference, variant);
+        if (file.isEmpty()) {
+            response.setStatus(404);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        fileResponseWriter.write(request, response, file.get(), MediaType.IMAGE_JPEG, true, null);
+    }
+}
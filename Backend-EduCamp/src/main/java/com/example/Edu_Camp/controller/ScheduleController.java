@@ -0,0 +1,128 @@
+package com.example.Edu_Camp.controller;
+
+import com.example.Edu_Camp.models.User;
+import com.example.Edu_Camp.services.AuthService;
+import com.example.Edu_Camp.services.CalendarFeedService;
+import com.example.Edu_Camp.services.ScheduleService;
+import com.example.Edu_Camp.services.TimetableIndexService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/schedule")
+@CrossOrigin(originPatterns = "*", allowCredentials = "true")
+public class ScheduleController {
+
+    private final ScheduleService scheduleService;
+    private final AuthService authService;
+    private final CalendarFeedService calendarFeedService;
+
+    public ScheduleController(ScheduleService scheduleService, AuthService authService,
+                              CalendarFeedService calendarFeedService) {
+        this.scheduleService = scheduleService;
+        this.authService = authService;
+        this.calendarFeedService = calendarFeedService;
+    }
+
+    // Schedule of the logged-in student or teacher: scope = now | today | week
+    @GetMapping
+    public ResponseEntity<?> getSchedule(@RequestParam(defaultValue = "today") String scope,
+                                         HttpServletRequest request) {
+        try {
+            String sessionId = extractSessionId(request);
+            User user = authService.getAuthenticatedUser(sessionId);
+
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("success", false, "message", "Not authenticated"));
+            }
+
+            if (!TimetableIndexService.ROLE_STUDENT.equals(user.getRole())
+                    && !TimetableIndexService.ROLE_TEACHER.equals(user.getRole())) {
+                return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
+            }
+
+            var entries = scheduleService.getSchedule(user.getRole(), user.getId(), scope);
+            return ResponseEntity.ok(Map.of("success", true, "scope", scope, "classes", entries));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    // Subscription URL for the logged-in user's iCalendar feed
+    @GetMapping("/feed-url")
+    public ResponseEntity<?> getFeedUrl(HttpServletRequest request) {
+        String sessionId = extractSessionId(request);
+        User user = authService.getAuthenticatedUser(sessionId);
+
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("success", false, "message", "Not authenticated"));
+        }
+
+        if (!TimetableIndexService.ROLE_STUDENT.equals(user.getRole())
+                && !TimetableIndexService.ROLE_TEACHER.equals(user.getRole())) {
+            return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
+        }
+
+        String url = "/api/schedule/feeds/" + user.getRole().toLowerCase() + "/" + user.getId() + ".ics?token="
+                + calendarFeedService.feedToken(user.getRole(), user.getId());
+        return ResponseEntity.ok(Map.of("success", true, "url", url));
+    }
+
+    // Public (token-protected) feed polled by calendar apps
+    @GetMapping("/feeds/{role}/{userId}.ics")
+    public ResponseEntity<String> getFeed(@PathVariable String role,
+                                          @PathVariable Long userId,
+                                          @RequestParam(required = false) String token,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String normalizedRole = role.toUpperCase();
+        if (!TimetableIndexService.ROLE_STUDENT.equals(normalizedRole)
+                && !TimetableIndexService.ROLE_TEACHER.equals(normalizedRole)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!calendarFeedService.isValidToken(normalizedRole, userId, token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        CalendarFeedService.Feed feed = calendarFeedService.getFeed(normalizedRole, userId);
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+
+        if (ifNoneMatch != null && (ifNoneMatch.contains(feed.etag()) || "*".equals(ifNoneMatch.trim()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(feed.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "calendar", StandardCharsets.UTF_8))
+                .eTag(feed.etag())
+                .cacheControl(cacheControl)
+                .body(feed.body());
+    }
+
+    private String extractSessionId(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (var cookie : request.getCookies()) {
+                if ("sessionId".equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+
+        return request.getHeader("X-Session-Id");
+    }
+}
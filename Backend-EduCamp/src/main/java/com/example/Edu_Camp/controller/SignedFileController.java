@@ -0,0 +1,62 @@
+package com.example.Edu_Camp.controller;
+
+import com.example.Edu_Camp.services.FileResponseWriter;
+import com.example.Edu_Camp.services.FileStorageService;
+import com.example.Edu_Camp.services.SignedUrlService;
+import com.example.Edu_Camp.services.StoredFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Serves files behind signed URLs issued by the download-url endpoints. Public: the
+ * signature is the authorization, checked in memory without a session or database lookup.
+ */
+@RestController
+@RequestMapping("/api/files")
+@CrossOrigin(originPatterns = "*", allowCredentials = "true")
+public class SignedFileController {
+
+    private final SignedUrlService signedUrlService;
+    private final FileStorageService fileStorageService;
+    private final FileResponseWriter fileResponseWriter;
+
+    public SignedFileController(SignedUrlService signedUrlService,
+                                FileStorageService fileStorageService,
+                                FileResponseWriter fileResponseWriter) {
+        this.signedUrlService = signedUrlService;
+        this.fileStorageService = fileStorageService;
+        this.fileResponseWriter = fileResponseWriter;
+    }
+
+    @GetMapping("/{token}")
+    public void getFile(@PathVariable String token,
+                        HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        Optional<SignedUrlService.SignedFile> signed = signedUrlService.verify(token);
+        if (signed.isEmpty()) {
+            response.setStatus(403);
+            return;
+        }
+
+        SignedUrlService.SignedFile granted = signed.get();
+        StoredFile file;
+        try {
+            file = fileStorageService.openFile(granted.key(), granted.sha256());
+        } catch (IOException | SecurityException e) {
+            response.setStatus(404);
+            return;
+        }
+
+        // The URL itself is the credential, so shared caches may keep the file until it expires
+        long maxAge = Math.max(0, Duration.between(Instant.now(), granted.expiresAt()).getSeconds());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=" + maxAge);
+        fileResponseWriter.write(request, response, file, granted.mediaType(), granted.inline(), granted.fileName());
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.Edu_Camp.controller;
+
+import com.example.Edu_Camp.models.User;
+import com.example.Edu_Camp.services.AuthService;
+import com.example.Edu_Camp.services.ColdStorageTierService;
+import com.example.Edu_Camp.services.HotFileCache;
+import com.example.Edu_Camp.services.MaterialBlobMigrationService;
+import com.example.Edu_Camp.services.StorageMigrationService;
+import com.example.Edu_Camp.services.StorageScrubService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/storage")
+@CrossOrigin(originPatterns = "*", allowCredentials = "true")
+public class StorageAdminController {
+
+    private final StorageMigrationService storageMigrationService;
+    private final MaterialBlobMigrationService materialBlobMigrationService;
+    private final HotFileCache hotFileCache;
+    private final ColdStorageTierService coldStorageTierService;
+    private final StorageScrubService storageScrubService;
+    private final AuthService authService;
+
+    public StorageAdminController(StorageMigrationService storageMigrationService,
+                                  MaterialBlobMigrationService materialBlobMigrationService,
+                                  HotFileCache hotFileCache,
+                                  ColdStorageTierService coldStorageTierService,
+                                  StorageScrubService storageScrubService,
+                                  AuthService authService) {
+        this.storageMigrationService = storageMigrationService;
+        this.materialBlobMigrationService = materialBlobMigrationService;
+        this.hotFileCache = hotFileCache;
+        this.coldStorageTierService = coldStorageTierService;
+        this.storageScrubService = storageScrubService;
+        this.authService = authService;
+    }
+
+    // Start re-sharding / uploading existing files in the background (Admin only)
+    @PostMapping("/migrate")
+    public ResponseEntity<?> startMigration(HttpServletRequest request) {
+        ResponseEntity<?> denied = requireAdmin(request);
+        if (denied != null) return denied;
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(Map.of("success", true, "status", storageMigrationService.start()));
+    }
+
+    // Progress of the current or last migration (Admin only)
+    @GetMapping("/migrate")
+    public ResponseEntity<?> getMigrationStatus(HttpServletRequest request) {
+        ResponseEntity<?> denied = requireAdmin(request);
+        if (denied != null) return denied;
+
+        return ResponseEntity.ok(Map.of("success", true, "status", storageMigrationService.status()));
+    }
+
+    // Move material files still held in the database into upload storage (Admin only)
+    @PostMapping("/materials/migrate")
+    public ResponseEntity<?> startMaterialMigration(HttpServletRequest request) {
+        ResponseEntity<?> denied = requireAdmin(request);
+        if (denied != null) return denied;
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(Map.of("success", true, "status", materialBlobMigrationService.start()));
+    }
+
+    @GetMapping("/materials/migrate")
+    public ResponseEntity<?> getMaterialMigrationStatus(HttpServletRequest request) {
+        ResponseEntity<?> denied = requireAdmin(request);
+        if (denied != null) return denied;
+
+        return ResponseEntity.ok(Map.of("success", true, "status", materialBlobMigrationService.status()));
+    }
+
+    // Compress files of long-graded submissions now instead of waiting for the weekly run (Admin only)
+    @PostMapping("/tiering")
+    public ResponseEntity<?> startTiering(HttpServletRequest request) {
+        ResponseEntity<?> denied = requireAdmin(request);
+        if (denied != null) return denied;
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(Map.of("success", true, "status", coldStorageTierService.start()));
+    }
+
+    // Progress of the current or last run, and bytes saved by compression overall (Admin only)
+    @GetMapping("/tiering")
+    public ResponseEntity<?> getTieringStatus(HttpServletRequest request) {
+        ResponseEntity<?> denied = requireAdmin(request);
+        if (denied != null) return denied;
+
+        return ResponseEntity.ok(Map.of("success", true, "status", coldStorageTierService.status()));
+    }
+
+    // Look for orphaned and corrupt upload files; quarantine=false only reports the orphans (Admin only)
+    @PostMapping("/scrub")
+    public ResponseEntity<?> startScrub(@RequestParam(defaultValue = "true") boolean quarantine,
+                                        HttpServletRequest request) {
+        ResponseEntity<?> denied = requireAdmin(request);
+        if (denied != null) return denied;
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(Map.of("success", true, "report", storageScrubService.start(quarantine)));
+    }
+
+    // Findings of the current or last scrub (Admin only)
+    @GetMapping("/scrub")
+    public ResponseEntity<?> getScrubReport(HttpServletRequest request) {
+        ResponseEntity<?> denied = requireAdmin(request);
+        if (denied != null) return denied;
+
+        return ResponseEntity.ok(Map.of("success", true, "report", storageScrubService.report()));
+    }
+
+    // Hit rate and memory use of the download cache (Admin only)
+    @GetMapping("/cache")
+    public ResponseEntity<?> getCacheStats(HttpServletRequest request) {
+        ResponseEntity<?> denied = requireAdmin(request);
+        if (denied != null) return denied;
+
+        return ResponseEntity.ok(Map.of("success", true, "cache", hotFileCache.stats()));
+    }
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<?> clearCache(HttpServletRequest request) {
+        ResponseEntity<?> denied = requireAdmin(request);
+        if (denied != null) return denied;
+
+        hotFileCache.clear();
+        return ResponseEntity.ok(Map.of("success", true, "cache", hotFileCache.stats()));
+    }
+
+    private ResponseEntity<?> requireAdmin(HttpServletRequest request) {
+        User user = authService.getAuthenticatedUser(extractSessionId(request));
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("success", false, "message", "Not authenticated"));
+        }
+        if (!"ADMIN".equals(user.getRole())) {
+            return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied. Admin role required."));
+        }
+        return null;
+    }
+
+    private String extractSessionId(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (var cookie : request.getCookies()) {
+                if ("sessionId".equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return request.getHeader("X-Session-Id");
+    }
+}
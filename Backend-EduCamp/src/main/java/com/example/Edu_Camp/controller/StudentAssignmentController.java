@@ -1,5 +1,6 @@
 package com.example.Edu_Camp.controller;
 
+import com.example.Edu_Camp.config.RequestArrivalFilter;
 import com.example.Edu_Camp.dto.AssignmentDto;
 import com.example.Edu_Camp.dto.SubmissionDto;
 import com.example.Edu_Camp.models.Assignment;
@@ -8,13 +9,21 @@ import com.example.Edu_Camp.repository.AssignmentRepository;
 import com.example.Edu_Camp.repository.EnrollmentRepository;
 import com.example.Edu_Camp.services.AssignmentService;
 import com.example.Edu_Camp.services.AuthService;
+import com.example.Edu_Camp.services.FileResponseWriter;
+import com.example.Edu_Camp.services.ImageVariantService;
+import com.example.Edu_Camp.services.SignedUrlService;
+import com.example.Edu_Camp.services.StoredFile;
+import com.example.Edu_Camp.services.SubmissionIngestService;
+import com.example.Edu_Camp.services.SubmissionQueueFullException;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -27,16 +36,28 @@ public class StudentAssignmentController {
     private final AuthService authService;
     private final AssignmentRepository assignmentRepository;
     private final EnrollmentRepository enrollmentRepository;
+    private final FileResponseWriter fileResponseWriter;
+    private final SubmissionIngestService submissionIngestService;
+    private final SignedUrlService signedUrlService;
+    private final ImageVariantService imageVariantService;
 
     @Autowired
     public StudentAssignmentController(AssignmentService assignmentService,
                                        AuthService authService,
                                        AssignmentRepository assignmentRepository,
-                                       EnrollmentRepository enrollmentRepository) {
+                                       EnrollmentRepository enrollmentRepository,
+                                       FileResponseWriter fileResponseWriter,
+                                       SubmissionIngestService submissionIngestService,
+                                       SignedUrlService signedUrlService,
+                                       ImageVariantService imageVariantService) {
         this.assignmentService = assignmentService;
         this.authService = authService;
         this.assignmentRepository = assignmentRepository;
         this.enrollmentRepository = enrollmentRepository;
+        this.fileResponseWriter = fileResponseWriter;
+        this.submissionIngestService = submissionIngestService;
+        this.signedUrlService = signedUrlService;
+        this.imageVariantService = imageVariantService;
     }
 
     @GetMapping("/assignments")
@@ -93,8 +114,10 @@ public class StudentAssignmentController {
 
     @PostMapping("/assignments/{assignmentId}/submit")
     public ResponseEntity<?> submitAssignment(@PathVariable Long assignmentId,
-                                              @RequestParam("file") MultipartFile file,
+                                              @RequestParam(value = "file", required = false) MultipartFile file,
+                                              @RequestParam(value = "uploadId", required = false) String uploadId,
                                               @RequestParam(value = "comments", required = false) String comments,
+                                              @RequestParam(value = "arrivalToken", required = false) String arrivalToken,
                                               HttpServletRequest request) {
         try {
             String sessionId = extractSessionId(request);
@@ -104,13 +127,21 @@ public class StudentAssignmentController {
                 return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
             }
 
-            var submission = assignmentService.submitAssignment(
-                    assignmentId, student.getId(), file, comments
+            var submission = submissionIngestService.submit(
+                    assignmentId, student.getId(), file, uploadId, comments,
+                    RequestArrivalFilter.arrivedAt(request), arrivalToken
             );
 
             var submissionDto = assignmentService.convertToSubmissionDto(submission);
             return ResponseEntity.ok(Map.of("success", true, "submission", submissionDto));
 
+        } catch (SubmissionQueueFullException e) {
+            return ResponseEntity.status(503)
+                    .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("success", false, "message", e.getMessage(),
+                            "queuePosition", e.getQueuePosition(),
+                            "retryAfterSeconds", e.getRetryAfterSeconds(),
+                            "arrivalToken", e.getArrivalToken()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
         }
@@ -127,10 +158,7 @@ public class StudentAssignmentController {
                 return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
             }
 
-            var submissions = assignmentService.getStudentSubmissions(student.getId());
-            var submissionDtos = submissions.stream()
-                    .map(assignmentService::convertToSubmissionDto)
-                    .collect(Collectors.toList());
+            var submissionDtos = assignmentService.getStudentSubmissionSummaries(student.getId());
 
             return ResponseEntity.ok(Map.of("success", true, "submissions", submissionDtos));
 
@@ -140,53 +168,78 @@ public class StudentAssignmentController {
     }
 
     @GetMapping("/assignments/{assignmentId}/download")
-    public ResponseEntity<byte[]> downloadAssignmentFile(@PathVariable Long assignmentId,
-                                                         HttpServletRequest request) {
+    public void downloadAssignmentFile(@PathVariable Long assignmentId,
+                                       HttpServletRequest request,
+                                       HttpServletResponse response) throws IOException {
+        writeAssignmentFile(assignmentId, false, "original", request, response);
+    }
+
+    @GetMapping("/assignments/{assignmentId}/preview")
+    public void previewAssignmentFile(@PathVariable Long assignmentId,
+                                      @RequestParam(value = "size", defaultValue = "preview") String size,
+                                      HttpServletRequest request,
+                                      HttpServletResponse response) throws IOException {
+        writeAssignmentFile(assignmentId, true, size, request, response);
+    }
+
+    // Short-lived signed link to the assignment file; fetching it needs no session
+    @GetMapping("/assignments/{assignmentId}/download-url")
+    public ResponseEntity<?> getAssignmentDownloadUrl(@PathVariable Long assignmentId,
+                                                      @RequestParam(value = "inline", defaultValue = "false") boolean inline,
+                                                      HttpServletRequest request) {
         try {
             String sessionId = extractSessionId(request);
             User student = authService.getAuthenticatedUser(sessionId);
 
             if (student == null || !"STUDENT".equals(student.getRole())) {
-                return ResponseEntity.status(403).build();
+                return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
             }
 
-            byte[] fileContent = assignmentService.downloadAssignmentFile(assignmentId, student.getId());
+            StoredFile file = assignmentService.downloadAssignmentFile(assignmentId, student.getId());
             Assignment assignment = assignmentRepository.findById(assignmentId).orElseThrow();
+            MediaType mediaType = inline
+                    ? assignmentService.getMediaTypeForFile(assignment.getFileName())
+                    : MediaType.APPLICATION_OCTET_STREAM;
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .header("Content-Disposition", "attachment; filename=\"" + assignment.getFileName() + "\"")
-                    .body(fileContent);
+            var signed = signedUrlService.sign(file, assignment.getFileName(), mediaType, inline);
+            return ResponseEntity.ok(Map.of("success", true, "url", signed.url(), "expiresAt", signed.expiresAt()));
 
         } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
         }
     }
 
-    @GetMapping("/assignments/{assignmentId}/preview")
-    public ResponseEntity<byte[]> previewAssignmentFile(@PathVariable Long assignmentId,
-                                                        HttpServletRequest request) {
-        try {
-            String sessionId = extractSessionId(request);
-            User student = authService.getAuthenticatedUser(sessionId);
-
-            if (student == null || !"STUDENT".equals(student.getRole())) {
-                return ResponseEntity.status(403).build();
-            }
-
-            byte[] fileContent = assignmentService.downloadAssignmentFile(assignmentId, student.getId());
-            Assignment assignment = assignmentRepository.findById(assignmentId).orElseThrow();
-
-            MediaType mediaType = assignmentService.getMediaTypeForFile(assignment.getFileName());
-
-            return ResponseEntity.ok()
-                    .contentType(mediaType)
-                    .header("Content-Disposition", "inline; filename=\"" + assignment.getFileName() + "\"")
-                    .body(fileContent);
+    // Streams the file from disk; nothing is buffered on the heap
+    // Inline images are sent as a downscaled variant unless size is "original"
+    private void writeAssignmentFile(Long assignmentId, boolean inline, String size,
+                                     HttpServletRequest request,
+                                     HttpServletResponse response) throws IOException {
+        String sessionId = extractSessionId(request);
+        User student = authService.getAuthenticatedUser(sessionId);
+
+        if (student == null || !"STUDENT".equals(student.getRole())) {
+            response.setStatus(403);
+            return;
+        }
 
+        StoredFile file;
+        Assignment assignment;
+        try {
+            file = assignmentService.downloadAssignmentFile(assignmentId, student.getId());
+            assignment = assignmentRepository.findById(assignmentId).orElseThrow();
         } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+            response.setStatus(400);
+            return;
         }
+
+        MediaType mediaType = inline
+                ? assignmentService.getMediaTypeForFile(assignment.getFileName())
+                : MediaType.APPLICATION_OCTET_STREAM;
+        ImageVariantService.Rendition rendition = inline
+                ? imageVariantService.select(file, assignment.getFileName(), mediaType, size)
+                : new ImageVariantService.Rendition(file, mediaType, assignment.getFileName());
+        fileResponseWriter.write(request, response, rendition.file(), rendition.mediaType(), inline,
+                rendition.fileName());
     }
 
     private String extractSessionId(HttpServletRequest request) {
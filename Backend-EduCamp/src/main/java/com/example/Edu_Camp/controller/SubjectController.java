@@ -2,6 +2,7 @@ package com.example.Edu_Camp.controller;
 
 import com.example.Edu_Camp.models.Subject;
 import com.example.Edu_Camp.repository.SubjectRepository;
+import com.example.Edu_Camp.services.AutocompleteService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,9 +14,11 @@ import java.util.List;
 public class SubjectController {
 
     private final SubjectRepository subjectRepository;
+    private final AutocompleteService autocompleteService;
 
-    public SubjectController(SubjectRepository subjectRepository) {
+    public SubjectController(SubjectRepository subjectRepository, AutocompleteService autocompleteService) {
         this.subjectRepository = subjectRepository;
+        this.autocompleteService = autocompleteService;
     }
 
     // GET all subjects - Public access
@@ -28,6 +31,8 @@ public class SubjectController {
     // POST new subject (optional)
     @PostMapping
     public Subject createSubject(@RequestBody Subject subject) {
-        return subjectRepository.save(subject);
+        Subject saved = subjectRepository.save(subject);
+        autocompleteService.indexSubject(saved);
+        return saved;
     }
 }
\ No newline at end of file
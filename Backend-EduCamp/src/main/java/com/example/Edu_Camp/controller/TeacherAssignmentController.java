@@ -1,6 +1,8 @@
 package com.example.Edu_Camp.controller;
 
+import com.example.Edu_Camp.dto.AssignmentDashboardDto;
 import com.example.Edu_Camp.dto.AssignmentDto;
+import com.example.Edu_Camp.dto.BatchGradeDto;
 import com.example.Edu_Camp.dto.SubmissionDto;
 import com.example.Edu_Camp.models.Assignment;
 import com.example.Edu_Camp.models.Submission;
@@ -9,13 +11,24 @@ import com.example.Edu_Camp.repository.AssignmentRepository;
 import com.example.Edu_Camp.repository.SubmissionRepository;
 import com.example.Edu_Camp.services.AssignmentService;
 import com.example.Edu_Camp.services.AuthService;
+import com.example.Edu_Camp.services.FileResponseWriter;
+import com.example.Edu_Camp.services.ImageVariantService;
+import com.example.Edu_Camp.services.SignedUrlService;
+import com.example.Edu_Camp.services.StoredFile;
+import com.example.Edu_Camp.services.SubmissionArchiveService;
+import com.example.Edu_Camp.services.SubmissionSimilarityService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -29,16 +42,31 @@ public class TeacherAssignmentController {
     private final AuthService authService;
     private final AssignmentRepository assignmentRepository;
     private final SubmissionRepository submissionRepository;
+    private final FileResponseWriter fileResponseWriter;
+    private final SubmissionArchiveService submissionArchiveService;
+    private final SignedUrlService signedUrlService;
+    private final SubmissionSimilarityService submissionSimilarityService;
+    private final ImageVariantService imageVariantService;
 
     @Autowired
     public TeacherAssignmentController(AssignmentService assignmentService,
                                        AuthService authService,
                                        AssignmentRepository assignmentRepository,
-                                       SubmissionRepository submissionRepository) {
+                                       SubmissionRepository submissionRepository,
+                                       FileResponseWriter fileResponseWriter,
+                                       SubmissionArchiveService submissionArchiveService,
+                                       SignedUrlService signedUrlService,
+                                       SubmissionSimilarityService submissionSimilarityService,
+                                       ImageVariantService imageVariantService) {
         this.assignmentService = assignmentService;
         this.authService = authService;
         this.assignmentRepository = assignmentRepository;
         this.submissionRepository = submissionRepository;
+        this.fileResponseWriter = fileResponseWriter;
+        this.submissionArchiveService = submissionArchiveService;
+        this.signedUrlService = signedUrlService;
+        this.submissionSimilarityService = submissionSimilarityService;
+        this.imageVariantService = imageVariantService;
     }
 
     // NEW: Get all assignments for a teacher
@@ -64,6 +92,31 @@ public class TeacherAssignmentController {
         }
     }
 
+    // Per-assignment submission counts and average grade, from the materialized counters
+    @GetMapping("/dashboard")
+    public ResponseEntity<?> getDashboard(HttpServletRequest request) {
+        try {
+            String sessionId = extractSessionId(request);
+            User teacher = authService.getAuthenticatedUser(sessionId);
+
+            if (teacher == null || !"TEACHER".equals(teacher.getRole())) {
+                return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
+            }
+
+            List<AssignmentDashboardDto> assignments = assignmentService.getTeacherDashboard(teacher.getId());
+            long submitted = assignments.stream().mapToLong(AssignmentDashboardDto::getSubmitted).sum();
+            long graded = assignments.stream().mapToLong(AssignmentDashboardDto::getGraded).sum();
+            long late = assignments.stream().mapToLong(AssignmentDashboardDto::getLate).sum();
+
+            return ResponseEntity.ok(Map.of("success", true, "assignments", assignments,
+                    "totals", Map.of("submitted", submitted, "graded", graded, "late", late,
+                            "ungraded", submitted - graded)));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
     // NEW: Get all submissions for a teacher
     @GetMapping("/submissions")
     public ResponseEntity<?> getTeacherSubmissions(HttpServletRequest request) {
@@ -75,10 +128,7 @@ public class TeacherAssignmentController {
                 return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
             }
 
-            List<Submission> submissions = assignmentService.getSubmissionsForTeacher(teacher.getId());
-            List<SubmissionDto> submissionDtos = submissions.stream()
-                    .map(assignmentService::convertToSubmissionDto)
-                    .collect(Collectors.toList());
+            List<SubmissionDto> submissionDtos = assignmentService.getSubmissionSummariesForTeacher(teacher.getId());
 
             return ResponseEntity.ok(Map.of("success", true, "submissions", submissionDtos));
 
@@ -96,6 +146,7 @@ public class TeacherAssignmentController {
             @RequestParam("maxPoints") Integer maxPoints,
             @RequestParam("classId") Long classId,
             @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "uploadId", required = false) String uploadId,
             HttpServletRequest request) {
         try {
             String sessionId = extractSessionId(request);
@@ -112,7 +163,7 @@ public class TeacherAssignmentController {
             assignmentDto.setMaxPoints(maxPoints);
             assignmentDto.setClassId(classId);
 
-            Assignment assignment = assignmentService.createAssignment(assignmentDto, teacher.getId(), file);
+            Assignment assignment = assignmentService.createAssignment(assignmentDto, teacher.getId(), file, uploadId);
             AssignmentDto createdAssignmentDto = assignmentService.convertToAssignmentDto(assignment);
 
             return ResponseEntity.ok(Map.of("success", true, "assignment", createdAssignmentDto));
@@ -134,10 +185,8 @@ public class TeacherAssignmentController {
                 return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
             }
 
-            List<Submission> submissions = assignmentService.getSubmissionsForAssignment(assignmentId, teacher.getId());
-            List<SubmissionDto> submissionDtos = submissions.stream()
-                    .map(assignmentService::convertToSubmissionDto)
-                    .collect(Collectors.toList());
+            List<SubmissionDto> submissionDtos =
+                    assignmentService.getSubmissionSummariesForAssignment(assignmentId, teacher.getId());
 
             return ResponseEntity.ok(Map.of("success", true, "submissions", submissionDtos));
 
@@ -146,6 +195,62 @@ public class TeacherAssignmentController {
         }
     }
 
+    // Pairs of text/docx submissions of an assignment that are nearly the same
+    @GetMapping("/assignments/{assignmentId}/similarity")
+    public ResponseEntity<?> getSimilarSubmissions(@PathVariable Long assignmentId,
+                                                   HttpServletRequest request) {
+        try {
+            String sessionId = extractSessionId(request);
+            User teacher = authService.getAuthenticatedUser(sessionId);
+
+            if (teacher == null || !"TEACHER".equals(teacher.getRole())) {
+                return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
+            }
+
+            SubmissionSimilarityService.SimilarityReport report =
+                    submissionSimilarityService.report(assignmentId, teacher.getId());
+
+            return ResponseEntity.ok(Map.of("success", true, "similarity", report));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    // Download every submission of an assignment as one ZIP, streamed while it is built.
+    // Excluded from open-in-view (see WebConfig), so a slow download keeps no pooled connection
+    @GetMapping("/assignments/{assignmentId}/submissions.zip")
+    public void downloadSubmissionsArchive(@PathVariable Long assignmentId,
+                                           HttpServletRequest request,
+                                           HttpServletResponse response) throws IOException {
+        String sessionId = extractSessionId(request);
+        User teacher = authService.getAuthenticatedUser(sessionId);
+
+        if (teacher == null || !"TEACHER".equals(teacher.getRole())) {
+            response.setStatus(403);
+            return;
+        }
+
+        // Everything the archive needs is read up front; no entity or connection is held while it streams
+        List<SubmissionDto> submissions;
+        try {
+            submissions = assignmentService.getSubmissionSummariesForAssignment(assignmentId, teacher.getId());
+        } catch (Exception e) {
+            response.setStatus(400);
+            return;
+        }
+
+        String fileName = assignmentRepository.findTitleById(assignmentId).orElse("assignment-" + assignmentId)
+                + "-submissions.zip";
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(fileName, StandardCharsets.UTF_8)
+                .build()
+                .toString());
+        // Length is unknown until the archive is finished, so the response is chunked
+        submissionArchiveService.writeArchive(submissions, response.getOutputStream());
+    }
+
     // NEW: Grade submission
     @PutMapping("/submissions/{submissionId}/grade")
     public ResponseEntity<?> gradeSubmission(@PathVariable Long submissionId,
@@ -172,11 +277,10 @@ public class TeacherAssignmentController {
         }
     }
 
-    // Existing methods below...
-
-    @GetMapping("/submissions/{submissionId}")
-    public ResponseEntity<?> getSubmission(@PathVariable Long submissionId,
-                                           HttpServletRequest request) {
+    // Grade many submissions in one request; each entry gets its own result
+    @PutMapping("/submissions/grades")
+    public ResponseEntity<?> gradeSubmissions(@RequestBody BatchGradeDto body,
+                                              HttpServletRequest request) {
         try {
             String sessionId = extractSessionId(request);
             User teacher = authService.getAuthenticatedUser(sessionId);
@@ -185,64 +289,113 @@ public class TeacherAssignmentController {
                 return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
             }
 
-            var submission = assignmentService.getSubmissionById(submissionId, teacher.getId());
-            var submissionDto = assignmentService.convertToSubmissionDto(submission);
+            List<BatchGradeDto.Result> results = assignmentService.gradeSubmissions(body.getGrades(), teacher.getId());
+            long graded = results.stream().filter(BatchGradeDto.Result::isSuccess).count();
 
-            return ResponseEntity.ok(Map.of("success", true, "submission", submissionDto));
+            return ResponseEntity.ok(Map.of("success", true, "graded", graded,
+                    "failed", results.size() - graded, "results", results));
 
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
         }
     }
 
-    @GetMapping("/submissions/{submissionId}/download")
-    public ResponseEntity<byte[]> downloadSubmissionFile(@PathVariable Long submissionId,
-                                                         HttpServletRequest request) {
+    // Existing methods below...
+
+    @GetMapping("/submissions/{submissionId}")
+    public ResponseEntity<?> getSubmission(@PathVariable Long submissionId,
+                                           HttpServletRequest request) {
         try {
             String sessionId = extractSessionId(request);
             User teacher = authService.getAuthenticatedUser(sessionId);
 
             if (teacher == null || !"TEACHER".equals(teacher.getRole())) {
-                return ResponseEntity.status(403).build();
+                return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
             }
 
-            byte[] fileContent = assignmentService.downloadSubmissionFile(submissionId, teacher.getId());
-            Submission submission = submissionRepository.findById(submissionId).orElseThrow();
+            var submission = assignmentService.getSubmissionById(submissionId, teacher.getId());
+            var submissionDto = assignmentService.convertToSubmissionDto(submission);
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .header("Content-Disposition", "attachment; filename=\"" + submission.getFileName() + "\"")
-                    .body(fileContent);
+            return ResponseEntity.ok(Map.of("success", true, "submission", submissionDto));
 
         } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
         }
     }
 
+    @GetMapping("/submissions/{submissionId}/download")
+    public void downloadSubmissionFile(@PathVariable Long submissionId,
+                                       HttpServletRequest request,
+                                       HttpServletResponse response) throws IOException {
+        writeSubmissionFile(submissionId, false, "original", request, response);
+    }
+
     @GetMapping("/submissions/{submissionId}/preview")
-    public ResponseEntity<byte[]> previewSubmissionFile(@PathVariable Long submissionId,
-                                                        HttpServletRequest request) {
+    public void previewSubmissionFile(@PathVariable Long submissionId,
+                                      @RequestParam(value = "size", defaultValue = "preview") String size,
+                                      HttpServletRequest request,
+                                      HttpServletResponse response) throws IOException {
+        writeSubmissionFile(submissionId, true, size, request, response);
+    }
+
+    // Short-lived signed link to the submission file; fetching it needs no session
+    @GetMapping("/submissions/{submissionId}/download-url")
+    public ResponseEntity<?> getSubmissionDownloadUrl(@PathVariable Long submissionId,
+                                                      @RequestParam(value = "inline", defaultValue = "false") boolean inline,
+                                                      HttpServletRequest request) {
         try {
             String sessionId = extractSessionId(request);
             User teacher = authService.getAuthenticatedUser(sessionId);
 
             if (teacher == null || !"TEACHER".equals(teacher.getRole())) {
-                return ResponseEntity.status(403).build();
+                return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
             }
 
-            byte[] fileContent = assignmentService.downloadSubmissionFile(submissionId, teacher.getId());
+            StoredFile file = assignmentService.downloadSubmissionFile(submissionId, teacher.getId());
             Submission submission = submissionRepository.findById(submissionId).orElseThrow();
+            MediaType mediaType = inline
+                    ? assignmentService.getMediaTypeForFile(submission.getFileName())
+                    : MediaType.APPLICATION_OCTET_STREAM;
 
-            MediaType mediaType = assignmentService.getMediaTypeForFile(submission.getFileName());
+            var signed = signedUrlService.sign(file, submission.getFileName(), mediaType, inline);
+            return ResponseEntity.ok(Map.of("success", true, "url", signed.url(), "expiresAt", signed.expiresAt()));
 
-            return ResponseEntity.ok()
-                    .contentType(mediaType)
-                    .header("Content-Disposition", "inline; filename=\"" + submission.getFileName() + "\"")
-                    .body(fileContent);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
 
+    // Streams the file from disk; nothing is buffered on the heap
+    // Inline images are sent as a downscaled variant unless size is "original"
+    private void writeSubmissionFile(Long submissionId, boolean inline, String size,
+                                     HttpServletRequest request,
+                                     HttpServletResponse response) throws IOException {
+        String sessionId = extractSessionId(request);
+        User teacher = authService.getAuthenticatedUser(sessionId);
+
+        if (teacher == null || !"TEACHER".equals(teacher.getRole())) {
+            response.setStatus(403);
+            return;
+        }
+
+        StoredFile file;
+        Submission submission;
+        try {
+            file = assignmentService.downloadSubmissionFile(submissionId, teacher.getId());
+            submission = submissionRepository.findById(submissionId).orElseThrow();
         } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+            response.setStatus(400);
+            return;
         }
+
+        MediaType mediaType = inline
+                ? assignmentService.getMediaTypeForFile(submission.getFileName())
+                : MediaType.APPLICATION_OCTET_STREAM;
+        ImageVariantService.Rendition rendition = inline
+                ? imageVariantService.select(file, submission.getFileName(), mediaType, size)
+                : new ImageVariantService.Rendition(file, mediaType, submission.getFileName());
+        fileResponseWriter.write(request, response, rendition.file(), rendition.mediaType(), inline,
+                rendition.fileName());
     }
 
     private String extractSessionId(HttpServletRequest request) {
@@ -1,10 +1,13 @@
 package com.example.Edu_Camp.controller;
 
+import com.example.Edu_Camp.dto.ProfileImageUrls;
 import com.example.Edu_Camp.dto.TeacherDto;
 import com.example.Edu_Camp.models.Teacher;
 import com.example.Edu_Camp.models.User;
 import com.example.Edu_Camp.repository.TeacherRepository;
 import com.example.Edu_Camp.services.AuthService;
+import com.example.Edu_Camp.services.AutocompleteService;
+import com.example.Edu_Camp.services.ProfileImageService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,10 +24,15 @@ public class TeacherController {
 
     private final TeacherRepository teacherRepository;
     private final AuthService authService;
+    private final AutocompleteService autocompleteService;
+    private final ProfileImageService profileImageService;
 
-    public TeacherController(TeacherRepository teacherRepository, AuthService authService) {
+    public TeacherController(TeacherRepository teacherRepository, AuthService authService,
+                             AutocompleteService autocompleteService, ProfileImageService profileImageService) {
         this.teacherRepository = teacherRepository;
         this.authService = authService;
+        this.autocompleteService = autocompleteService;
+        this.profileImageService = profileImageService;
     }
 
     @GetMapping
@@ -108,6 +116,7 @@ public class TeacherController {
             }
 
             Teacher teacher = teacherOptional.get();
+            String previousImage = teacher.getImage();
 
             // Update fields
             if (updatedTeacher.getPhoneNumber() != null) {
@@ -117,13 +126,22 @@ public class TeacherController {
                 teacher.setQualification(updatedTeacher.getQualification());
             }
             if (updatedTeacher.getImage() != null) {
-                teacher.setImage(updatedTeacher.getImage());
+                teacher.setImage(profileImageService.normalize(updatedTeacher.getImage(), previousImage));
             }
             if (updatedTeacher.getSubjectName() != null) {
                 teacher.setSubjectName(updatedTeacher.getSubjectName());
             }
 
-            Teacher savedTeacher = teacherRepository.save(teacher);
+            Teacher savedTeacher;
+            try {
+                savedTeacher = teacherRepository.save(teacher);
+            } catch (RuntimeException e) {
+                // Hand back the reference normalize took on the new image
+                profileImageService.release(teacher.getImage(), previousImage);
+                throw e;
+            }
+            profileImageService.release(previousImage, savedTeacher.getImage());
+            autocompleteService.indexTeacher(savedTeacher);
             TeacherDto teacherDTO = convertToDTO(savedTeacher);
 
             return ResponseEntity.ok(Map.of("success", true, "message", "Teacher updated successfully", "teacher", teacherDTO));
@@ -175,11 +193,14 @@ public class TeacherController {
                 return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied. Admin role required."));
             }
 
-            if (!teacherRepository.existsById(id)) {
+            Optional<Teacher> teacher = teacherRepository.findById(id);
+            if (teacher.isEmpty()) {
                 return ResponseEntity.status(404).body(Map.of("success", false, "message", "Teacher not found"));
             }
 
             teacherRepository.deleteById(id);
+            profileImageService.release(teacher.get().getImage(), null);
+            autocompleteService.removeTeacher(id);
             return ResponseEntity.ok(Map.of("success", true, "message", "Teacher deleted successfully"));
 
         } catch (Exception e) {
@@ -197,7 +218,7 @@ public class TeacherController {
         dto.setPhoneNumber(teacher.getPhoneNumber());
         dto.setQualification(teacher.getQualification());
         dto.setDateOfBirth(teacher.getDateOfBirth());
-        dto.setImage(teacher.getImage());
+        dto.setImage(ProfileImageUrls.url(teacher.getImage(), "medium"));
         dto.setSubjectName(teacher.getSubjectName());
         dto.setTeacherNumber(teacher.getTeacherNumber());
         dto.setJoinDate(teacher.getJoinDate());
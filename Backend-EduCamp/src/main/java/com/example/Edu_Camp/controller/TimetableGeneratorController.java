@@ -0,0 +1,95 @@
+package com.example.Edu_Camp.controller;
+
+import com.example.Edu_Camp.dto.TimetableGenerationRequestDto;
+import com.example.Edu_Camp.dto.TimetableProposalDto;
+import com.example.Edu_Camp.models.ClassEntity;
+import com.example.Edu_Camp.models.User;
+import com.example.Edu_Camp.services.AuthService;
+import com.example.Edu_Camp.services.TimetableConflictException;
+import com.example.Edu_Camp.services.TimetableGenerationService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/timetables")
+@CrossOrigin(originPatterns = "*", allowCredentials = "true")
+public class TimetableGeneratorController {
+
+    private final TimetableGenerationService timetableGenerationService;
+    private final AuthService authService;
+
+    public TimetableGeneratorController(TimetableGenerationService timetableGenerationService,
+                                        AuthService authService) {
+        this.timetableGenerationService = timetableGenerationService;
+        this.authService = authService;
+    }
+
+    // Propose clash-free timetables (Admin only); nothing is saved
+    @PostMapping("/generate")
+    public ResponseEntity<?> generate(@RequestBody(required = false) TimetableGenerationRequestDto body,
+                                      HttpServletRequest request) {
+        ResponseEntity<?> denied = requireAdmin(request);
+        if (denied != null) return denied;
+
+        try {
+            TimetableProposalDto proposal = timetableGenerationService.generate(body);
+            return ResponseEntity.ok(Map.of("success", true, "proposal", proposal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("success", false, "message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    // Write a (possibly edited) proposal to the classes in one batch (Admin only)
+    @PostMapping("/apply")
+    public ResponseEntity<?> apply(@RequestBody TimetableProposalDto proposal, HttpServletRequest request) {
+        ResponseEntity<?> denied = requireAdmin(request);
+        if (denied != null) return denied;
+
+        try {
+            List<ClassEntity> updated = timetableGenerationService.apply(proposal);
+            return ResponseEntity.ok(Map.of("success", true, "updated", updated.size(), "classes", updated));
+        } catch (TimetableConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "success", false,
+                    "message", e.getMessage(),
+                    "conflictingClassIds", e.getConflictingClassIds()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("success", false, "message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> requireAdmin(HttpServletRequest request) {
+        User user = authService.getAuthenticatedUser(extractSessionId(request));
+        if (user == null) {
+            return ResponseEntity.status(401).body(Map.of("success", false, "message", "Not authenticated"));
+        }
+        if (!"ADMIN".equals(user.getRole())) {
+            return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied. Admin role required."));
+        }
+        return null;
+    }
+
+    private String extractSessionId(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (var cookie : request.getCookies()) {
+                if ("sessionId".equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return request.getHeader("X-Session-Id");
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.Edu_Camp.controller;
+
+import com.example.Edu_Camp.models.User;
+import com.example.Edu_Camp.services.AuthService;
+import com.example.Edu_Camp.services.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Resumable chunked uploads. The id of a completed upload is passed as uploadId to the
+ * assignment, submission or material endpoint in place of a multipart file.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+@CrossOrigin(originPatterns = "*", allowCredentials = "true")
+public class UploadController {
+
+    private final UploadSessionService uploadSessionService;
+    private final AuthService authService;
+
+    public UploadController(UploadSessionService uploadSessionService,
+                            AuthService authService) {
+        this.uploadSessionService = uploadSessionService;
+        this.authService = authService;
+    }
+
+    // Start an upload: {"purpose": "ASSIGNMENT" | "SUBMISSION" | "MATERIAL", "fileName": ..., "size": ...}
+    @PostMapping
+    public ResponseEntity<?> createUpload(@RequestBody Map<String, Object> body,
+                                          HttpServletRequest request) {
+        try {
+            User user = authService.getAuthenticatedUser(extractSessionId(request));
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("success", false, "message", "Not authenticated"));
+            }
+
+            String purpose = body.get("purpose") != null ? body.get("purpose").toString().toUpperCase() : null;
+            String role = UploadSessionService.roleFor(purpose);
+            if (role != null && !role.equals(user.getRole())) {
+                return ResponseEntity.status(403).body(Map.of("success", false, "message", "Access denied"));
+            }
+            if (!(body.get("size") instanceof Number size)) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "size is required"));
+            }
+
+            var upload = uploadSessionService.create(user.getId(), purpose,
+                    (String) body.get("fileName"), size.longValue());
+            return ResponseEntity.ok(Map.of("success", true, "upload", upload));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    // Upload one chunk as the raw request body, with its SHA-256 in the X-Chunk-SHA256 header
+    @PutMapping(value = "/{uploadId}/chunks", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> uploadChunk(@PathVariable String uploadId,
+                                         @RequestParam("offset") long offset,
+                                         @RequestHeader(value = UploadSessionService.CHUNK_SHA256_HEADER, required = false) String sha256,
+                                         HttpServletRequest request) {
+        try {
+            User user = authService.getAuthenticatedUser(extractSessionId(request));
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("success", false, "message", "Not authenticated"));
+            }
+
+            var upload = uploadSessionService.writeChunk(uploadId, user.getId(), offset, sha256,
+                    request.getInputStream());
+            return ResponseEntity.ok(Map.of("success", true, "upload", upload));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    // Which chunks have arrived, and the first offset still to send
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<?> getUpload(@PathVariable String uploadId, HttpServletRequest request) {
+        try {
+            User user = authService.getAuthenticatedUser(extractSessionId(request));
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("success", false, "message", "Not authenticated"));
+            }
+
+            return ResponseEntity.ok(Map.of("success", true, "upload",
+                    uploadSessionService.status(uploadId, user.getId())));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable String uploadId, HttpServletRequest request) {
+        try {
+            User user = authService.getAuthenticatedUser(extractSessionId(request));
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("success", false, "message", "Not authenticated"));
+            }
+
+            return ResponseEntity.ok(Map.of("success", true, "upload",
+                    uploadSessionService.complete(uploadId, user.getId())));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<?> cancelUpload(@PathVariable String uploadId, HttpServletRequest request) {
+        try {
+            User user = authService.getAuthenticatedUser(extractSessionId(request));
+            if (user == null) {
+                return ResponseEntity.status(401).body(Map.of("success", false, "message", "Not authenticated"));
+            }
+
+            uploadSessionService.cancel(uploadId, user.getId());
+            return ResponseEntity.ok(Map.of("success", true, "message", "Upload cancelled"));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    private String extractSessionId(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (var cookie : request.getCookies()) {
+                if ("sessionId".equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return request.getHeader("X-Session-Id");
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.Edu_Camp.dto;
+
+import java.time.LocalDateTime;
+
+/** One row of the teacher dashboard, read from the materialized assignment_stats counters. */
+public class AssignmentDashboardDto {
+    private Long assignmentId;
+    private String title;
+    private Long classId;
+    private LocalDateTime dueDate;
+    private Integer maxPoints;
+    private long submitted;
+    private long graded;
+    private long late;
+    private long ungraded;
+    private Double averageGrade;
+
+    public AssignmentDashboardDto() {}
+
+    public AssignmentDashboardDto(Long assignmentId, String title, Long classId, LocalDateTime dueDate,
+                                  Integer maxPoints, Long submitted, Long graded, Long late, Long gradeSum) {
+        this.assignmentId = assignmentId;
+        this.title = title;
+        this.classId = classId;
+        this.dueDate = dueDate;
+        this.maxPoints = maxPoints;
+        this.submitted = submitted != null ? submitted : 0;
+        this.graded = graded != null ? graded : 0;
+        this.late = late != null ? late : 0;
+        this.ungraded = Math.max(0, this.submitted - this.graded);
+        this.averageGrade = this.graded > 0 && gradeSum != null ? (double) gradeSum / this.graded : null;
+    }
+
+    public Long getAssignmentId() { return assignmentId; }
+    public void setAssignmentId(Long assignmentId) { this.assignmentId = assignmentId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public Long getClassId() { return classId; }
+    public void setClassId(Long classId) { this.classId = classId; }
+
+    public LocalDateTime getDueDate() { return dueDate; }
+    public void setDueDate(LocalDateTime dueDate) { this.dueDate = dueDate; }
+
+    public Integer getMaxPoints() { return maxPoints; }
+    public void setMaxPoints(Integer maxPoints) { this.maxPoints = maxPoints; }
+
+    public long getSubmitted() { return submitted; }
+    public void setSubmitted(long submitted) { this.submitted = submitted; }
+
+    public long getGraded() { return graded; }
+    public void setGraded(long graded) { this.graded = graded; }
+
+    public long getLate() { return late; }
+    public void setLate(long late) { this.late = late; }
+
+    public long getUngraded() { return ungraded; }
+    public void setUngraded(long ungraded) { this.ungraded = ungraded; }
+
+    public Double getAverageGrade() { return averageGrade; }
+    public void setAverageGrade(Double averageGrade) { this.averageGrade = averageGrade; }
+}
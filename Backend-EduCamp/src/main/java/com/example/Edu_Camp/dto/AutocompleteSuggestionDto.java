@@ -0,0 +1,24 @@
+package com.example.Edu_Camp.dto;
+
+public class AutocompleteSuggestionDto {
+    private String type; // TEACHER, SUBJECT or CLASS
+    private Long id;
+    private String label;
+
+    public AutocompleteSuggestionDto() {}
+
+    public AutocompleteSuggestionDto(String type, Long id, String label) {
+        this.type = type;
+        this.id = id;
+        this.label = label;
+    }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getLabel() { return label; }
+    public void setLabel(String label) { this.label = label; }
+}
@@ -0,0 +1,53 @@
+package com.example.Edu_Camp.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body of PUT /api/teachers/submissions/grades; the response carries one Result per entry,
+ * in request order.
+ */
+public class BatchGradeDto {
+    private List<Entry> grades = new ArrayList<>();
+
+    public static class Entry {
+        private Long submissionId;
+        private Integer grade;
+        private String feedback;
+
+        public Long getSubmissionId() { return submissionId; }
+        public void setSubmissionId(Long submissionId) { this.submissionId = submissionId; }
+
+        public Integer getGrade() { return grade; }
+        public void setGrade(Integer grade) { this.grade = grade; }
+
+        public String getFeedback() { return feedback; }
+        public void setFeedback(String feedback) { this.feedback = feedback; }
+    }
+
+    public static class Result {
+        private Long submissionId;
+        private boolean success;
+        private String message;
+
+        public Result() {}
+
+        public Result(Long submissionId, boolean success, String message) {
+            this.submissionId = submissionId;
+            this.success = success;
+            this.message = message;
+        }
+
+        public Long getSubmissionId() { return submissionId; }
+        public void setSubmissionId(Long submissionId) { this.submissionId = submissionId; }
+
+        public boolean isSuccess() { return success; }
+        public void setSuccess(boolean success) { this.success = success; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+
+    public List<Entry> getGrades() { return grades; }
+    public void setGrades(List<Entry> grades) { this.grades = grades; }
+}
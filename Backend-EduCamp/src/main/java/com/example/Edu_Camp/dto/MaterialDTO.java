@@ -9,6 +9,21 @@ public class MaterialDTO {
     private String fileName;
     private String fileData; // Base64-encoded file content for upload
     private String fileUrl;  // Optional URL or download link
+    private Long fileSize;
+
+    public MaterialDTO() {}
+
+    // Listing projection (MaterialRepository.LISTING_SELECT)
+    public MaterialDTO(Long id, String title, String description, String subject, String className,
+                       String fileName, Long fileSize) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.subject = subject;
+        this.className = className;
+        this.fileName = fileName;
+        this.fileSize = fileSize;
+    }
 
     // Getters & Setters
     public Long getId() {
@@ -66,4 +81,11 @@ public class MaterialDTO {
     public void setFileUrl(String fileUrl) {
         this.fileUrl = fileUrl;
     }
-}
\ No newline at end of file
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+}
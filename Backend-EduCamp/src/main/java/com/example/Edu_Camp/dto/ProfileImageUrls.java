@@ -0,0 +1,46 @@
+package com.example.Edu_Camp.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * URLs of stored profile pictures and teacher images. Entities keep the SHA-256 reference of
+ * an image (see ProfileImageService); clients get the URL of one of its variants instead.
+ */
+public final class ProfileImageUrls {
+
+    private static final Pattern REFERENCE = Pattern.compile("^[0-9a-f]{64}$");
+
+    private ProfileImageUrls() {
+    }
+
+    public static boolean isReference(String value) {
+        return value != null && REFERENCE.matcher(value).matches();
+    }
+
+    /**
+     * Absolute URL of a variant for a stored reference, built against the current request so
+     * it works from the frontend's origin; links and legacy values are returned unchanged.
+     */
+    public static String url(String value, String variant) {
+        if (!isReference(value)) return value;
+        String path = "/api/images/" + value + "/" + variant;
+        return RequestContextHolder.getRequestAttributes() != null
+                ? ServletUriComponentsBuilder.fromCurrentContextPath().path(path).toUriString()
+                : path;
+    }
+
+    /** Writes an entity's image reference as the URL of its medium variant. */
+    public static class Serializer extends JsonSerializer<String> {
+        @Override
+        public void serialize(String value, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            generator.writeString(url(value, "medium"));
+        }
+    }
+}
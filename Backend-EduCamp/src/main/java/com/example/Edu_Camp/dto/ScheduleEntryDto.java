@@ -0,0 +1,39 @@
+package com.example.Edu_Camp.dto;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+public class ScheduleEntryDto {
+    private Long classId;
+    private String grade;
+    private String teacherName;
+    private List<String> subjects;
+    private String timetable;
+    private DayOfWeek dayOfWeek;
+    private String startTime;
+    private String endTime;
+
+    public Long getClassId() { return classId; }
+    public void setClassId(Long classId) { this.classId = classId; }
+
+    public String getGrade() { return grade; }
+    public void setGrade(String grade) { this.grade = grade; }
+
+    public String getTeacherName() { return teacherName; }
+    public void setTeacherName(String teacherName) { this.teacherName = teacherName; }
+
+    public List<String> getSubjects() { return subjects; }
+    public void setSubjects(List<String> subjects) { this.subjects = subjects; }
+
+    public String getTimetable() { return timetable; }
+    public void setTimetable(String timetable) { this.timetable = timetable; }
+
+    public DayOfWeek getDayOfWeek() { return dayOfWeek; }
+    public void setDayOfWeek(DayOfWeek dayOfWeek) { this.dayOfWeek = dayOfWeek; }
+
+    public String getStartTime() { return startTime; }
+    public void setStartTime(String startTime) { this.startTime = startTime; }
+
+    public String getEndTime() { return endTime; }
+    public void setEndTime(String endTime) { this.endTime = endTime; }
+}
@@ -1,5 +1,7 @@
 package com.example.Edu_Camp.dto;
 
+import com.example.Edu_Camp.models.Submission;
+
 import java.time.LocalDateTime;
 
 public class SubmissionDto {
@@ -9,6 +11,7 @@ public class SubmissionDto {
     private String filePath;
     private String fileName;
     private Long fileSize;
+    private String fileHash;
     private String comments;
     private LocalDateTime submittedAt;
     private LocalDateTime gradedAt;
@@ -22,6 +25,36 @@ public class SubmissionDto {
     private Boolean isPreviewable;
     private String assignmentTitle; // ADD THIS FIELD
 
+    public SubmissionDto() {}
+
+    // Used by the SubmissionRepository list queries, which select exactly these columns in one statement
+    public SubmissionDto(Long id, Long assignmentId, Long enrollmentId, String filePath, String fileName,
+                         Long fileSize, String fileHash, String comments, LocalDateTime submittedAt, LocalDateTime gradedAt,
+                         String status, Integer grade, String feedback, String studentFirstName,
+                         String studentLastName, String studentNumber, String assignmentTitle) {
+        this.id = id;
+        this.assignmentId = assignmentId;
+        this.enrollmentId = enrollmentId;
+        this.filePath = filePath;
+        this.fileName = fileName;
+        this.fileSize = fileSize;
+        this.fileHash = fileHash;
+        this.comments = comments;
+        this.submittedAt = submittedAt;
+        this.gradedAt = gradedAt;
+        this.status = status;
+        this.grade = grade;
+        this.feedback = feedback;
+        this.studentName = studentFirstName != null || studentLastName != null
+                ? studentFirstName + " " + studentLastName
+                : null;
+        this.studentNumber = studentNumber;
+        this.assignmentTitle = assignmentTitle;
+        this.hasFile = filePath != null && !filePath.trim().isEmpty();
+        this.fileExtension = Submission.fileExtensionOf(fileName);
+        this.isPreviewable = this.hasFile && Submission.isPreviewableExtension(this.fileExtension);
+    }
+
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -41,6 +74,9 @@ public class SubmissionDto {
     public Long getFileSize() { return fileSize; }
     public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
 
+    public String getFileHash() { return fileHash; }
+    public void setFileHash(String fileHash) { this.fileHash = fileHash; }
+
     public String getComments() { return comments; }
     public void setComments(String comments) { this.comments = comments; }
 
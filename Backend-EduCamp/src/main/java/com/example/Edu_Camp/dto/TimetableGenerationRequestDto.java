@@ -0,0 +1,63 @@
+package com.example.Edu_Camp.dto;
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Input for the timetable generator. Everything is optional; by default all classes are
+ * rescheduled into one-hour lessons between 08:00 and 18:00, Monday to Friday.
+ */
+public class TimetableGenerationRequestDto {
+    private List<Long> classIds;                       // classes to reschedule, null = all
+    private List<DayOfWeek> days;
+    private String dayStart;                           // "HH:mm"
+    private String dayEnd;                             // "HH:mm"
+    private Integer lessonMinutes;
+    private Integer defaultSessionsPerWeek;            // used when a class has no current slots
+    private Map<Long, Integer> sessionsPerWeek;        // classId -> lessons per week
+    private Map<Long, String> teacherAvailability;     // teacherId -> timetable text, e.g. "MON-FRI: 8AM-1PM"
+    private Map<String, GradeConstraint> gradeConstraints;
+    private Long timeBudgetMillis;
+
+    public static class GradeConstraint {
+        private String allowedHours;                   // timetable text the grade's lessons must fall in
+        private Integer maxSessionsPerDay;
+
+        public String getAllowedHours() { return allowedHours; }
+        public void setAllowedHours(String allowedHours) { this.allowedHours = allowedHours; }
+
+        public Integer getMaxSessionsPerDay() { return maxSessionsPerDay; }
+        public void setMaxSessionsPerDay(Integer maxSessionsPerDay) { this.maxSessionsPerDay = maxSessionsPerDay; }
+    }
+
+    public List<Long> getClassIds() { return classIds; }
+    public void setClassIds(List<Long> classIds) { this.classIds = classIds; }
+
+    public List<DayOfWeek> getDays() { return days; }
+    public void setDays(List<DayOfWeek> days) { this.days = days; }
+
+    public String getDayStart() { return dayStart; }
+    public void setDayStart(String dayStart) { this.dayStart = dayStart; }
+
+    public String getDayEnd() { return dayEnd; }
+    public void setDayEnd(String dayEnd) { this.dayEnd = dayEnd; }
+
+    public Integer getLessonMinutes() { return lessonMinutes; }
+    public void setLessonMinutes(Integer lessonMinutes) { this.lessonMinutes = lessonMinutes; }
+
+    public Integer getDefaultSessionsPerWeek() { return defaultSessionsPerWeek; }
+    public void setDefaultSessionsPerWeek(Integer defaultSessionsPerWeek) { this.defaultSessionsPerWeek = defaultSessionsPerWeek; }
+
+    public Map<Long, Integer> getSessionsPerWeek() { return sessionsPerWeek; }
+    public void setSessionsPerWeek(Map<Long, Integer> sessionsPerWeek) { this.sessionsPerWeek = sessionsPerWeek; }
+
+    public Map<Long, String> getTeacherAvailability() { return teacherAvailability; }
+    public void setTeacherAvailability(Map<Long, String> teacherAvailability) { this.teacherAvailability = teacherAvailability; }
+
+    public Map<String, GradeConstraint> getGradeConstraints() { return gradeConstraints; }
+    public void setGradeConstraints(Map<String, GradeConstraint> gradeConstraints) { this.gradeConstraints = gradeConstraints; }
+
+    public Long getTimeBudgetMillis() { return timeBudgetMillis; }
+    public void setTimeBudgetMillis(Long timeBudgetMillis) { this.timeBudgetMillis = timeBudgetMillis; }
+}
@@ -0,0 +1,66 @@
+package com.example.Edu_Camp.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a timetable generation run. The same object can be posted back to
+ * /api/admin/timetables/apply to write the proposed timetables in one batch.
+ */
+public class TimetableProposalDto {
+    private boolean clashFree;
+    private int hardConflicts;      // pairs of lessons that still double-book a teacher, student or class
+    private int softPenalty;        // grade per-day limits exceeded + repeated lessons on one day
+    private long elapsedMillis;
+    private long iterations;
+    private int workers;
+    private List<ClassTimetable> classes = new ArrayList<>();
+    private List<Long> unschedulableClassIds = new ArrayList<>();
+
+    public static class ClassTimetable {
+        private Long classId;
+        private String grade;
+        private Long teacherId;
+        private String currentTimetable;
+        private String timetable;
+
+        public Long getClassId() { return classId; }
+        public void setClassId(Long classId) { this.classId = classId; }
+
+        public String getGrade() { return grade; }
+        public void setGrade(String grade) { this.grade = grade; }
+
+        public Long getTeacherId() { return teacherId; }
+        public void setTeacherId(Long teacherId) { this.teacherId = teacherId; }
+
+        public String getCurrentTimetable() { return currentTimetable; }
+        public void setCurrentTimetable(String currentTimetable) { this.currentTimetable = currentTimetable; }
+
+        public String getTimetable() { return timetable; }
+        public void setTimetable(String timetable) { this.timetable = timetable; }
+    }
+
+    public boolean isClashFree() { return clashFree; }
+    public void setClashFree(boolean clashFree) { this.clashFree = clashFree; }
+
+    public int getHardConflicts() { return hardConflicts; }
+    public void setHardConflicts(int hardConflicts) { this.hardConflicts = hardConflicts; }
+
+    public int getSoftPenalty() { return softPenalty; }
+    public void setSoftPenalty(int softPenalty) { this.softPenalty = softPenalty; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+
+    public long getIterations() { return iterations; }
+    public void setIterations(long iterations) { this.iterations = iterations; }
+
+    public int getWorkers() { return workers; }
+    public void setWorkers(int workers) { this.workers = workers; }
+
+    public List<ClassTimetable> getClasses() { return classes; }
+    public void setClasses(List<ClassTimetable> classes) { this.classes = classes; }
+
+    public List<Long> getUnschedulableClassIds() { return unschedulableClassIds; }
+    public void setUnschedulableClassIds(List<Long> unschedulableClassIds) { this.unschedulableClassIds = unschedulableClassIds; }
+}
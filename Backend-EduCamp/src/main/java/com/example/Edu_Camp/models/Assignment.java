@@ -36,6 +36,10 @@ public class Assignment {
     @Column(name = "file_type")
     private String fileType;
 
+    // SHA-256 of the stored file, hex encoded; used as the download ETag
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -88,6 +92,9 @@ public class Assignment {
     public Long getFileSize() { return fileSize; }
     public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
 
+    public String getFileHash() { return fileHash; }
+    public void setFileHash(String fileHash) { this.fileHash = fileHash; }
+
     public String getFileType() { return fileType; }
     public void setFileType(String fileType) { this.fileType = fileType; }
 
@@ -0,0 +1,54 @@
+package com.example.Edu_Camp.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Submission counters of one assignment, kept up to date by AssignmentService on submit and
+ * grade so the teacher dashboard does not have to read every submission. Reconciled with the
+ * submissions table by AssignmentStatsService.
+ */
+@Entity
+@Table(name = "assignment_stats")
+public class AssignmentStats {
+
+    @Id
+    @Column(name = "assignment_id")
+    private Long assignmentId;
+
+    @Column(name = "submitted_count", nullable = false)
+    private long submittedCount;
+
+    @Column(name = "graded_count", nullable = false)
+    private long gradedCount;
+
+    @Column(name = "late_count", nullable = false)
+    private long lateCount;
+
+    // Sum of grades of graded submissions; average = gradeSum / gradedCount
+    @Column(name = "grade_sum", nullable = false)
+    private long gradeSum;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public AssignmentStats() {}
+
+    public Long getAssignmentId() { return assignmentId; }
+    public void setAssignmentId(Long assignmentId) { this.assignmentId = assignmentId; }
+
+    public long getSubmittedCount() { return submittedCount; }
+    public void setSubmittedCount(long submittedCount) { this.submittedCount = submittedCount; }
+
+    public long getGradedCount() { return gradedCount; }
+    public void setGradedCount(long gradedCount) { this.gradedCount = gradedCount; }
+
+    public long getLateCount() { return lateCount; }
+    public void setLateCount(long lateCount) { this.lateCount = lateCount; }
+
+    public long getGradeSum() { return gradeSum; }
+    public void setGradeSum(long gradeSum) { this.gradeSum = gradeSum; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -2,7 +2,9 @@ package com.example.Edu_Camp.models;
 
 import com.example.Edu_Camp.models.Subject;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*; //map java objects to database tables
+import java.util.ArrayList;
 import java.util.List;
 import com.example.Edu_Camp.models.Teacher;
 import com.example.Edu_Camp.models.Subject;
@@ -25,6 +27,12 @@ public class ClassEntity {
     @Column(nullable=false, length=1000)
     private String timetable;
 
+    // Structured form of the timetable text, re-parsed whenever the text is set
+    @ElementCollection
+    @CollectionTable(name="class_timetable_slots", joinColumns=@JoinColumn(name="class_id"))
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private List<TimetableSlot> timetableSlots = new ArrayList<>();
+
     // Many classes can have the same teacher
     @ManyToOne
     @JoinColumn(name="teacher_id", nullable=false)
@@ -52,7 +60,14 @@ public class ClassEntity {
     public void setFee(double fee) { this.fee = fee; }
 
     public String getTimetable() { return timetable; }
-    public void setTimetable(String timetable) { this.timetable = timetable; }
+    public void setTimetable(String timetable) {
+        this.timetable = timetable;
+        // keep the managed collection instance so Hibernate can diff it
+        this.timetableSlots.clear();
+        this.timetableSlots.addAll(TimetableParser.parse(timetable));
+    }
+
+    public List<TimetableSlot> getTimetableSlots() { return timetableSlots; }
 
     public Teacher getTeacher() { return teacher; }
     public void setTeacher(Teacher teacher) { this.teacher = teacher; }
@@ -0,0 +1,63 @@
+package com.example.Edu_Camp.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One unique file in content-addressed upload storage. Rows that point at the file
+ * (Assignment.filePath, Submission.filePath, TeacherMaterial.filePath, and completed
+ * upload sessions not yet claimed) each hold one reference.
+ */
+@Entity
+@Table(name = "stored_objects")
+public class StoredObject {
+
+    // Hex SHA-256 of the content
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    // Path relative to the upload directory
+    @Column(nullable = false)
+    private String path;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // null until the cold tier has looked at the object, then "deflate" or "identity" (kept as is)
+    @Column(length = 16)
+    private String codec;
+
+    // Bytes actually held by storage when compressed
+    @Column(name = "stored_size")
+    private Long storedSize;
+
+    public StoredObject() {}
+
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public int getRefCount() { return refCount; }
+    public void setRefCount(int refCount) { this.refCount = refCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getCodec() { return codec; }
+    public void setCodec(String codec) { this.codec = codec; }
+
+    public Long getStoredSize() { return storedSize; }
+    public void setStoredSize(Long storedSize) { this.storedSize = storedSize; }
+}
@@ -1,5 +1,7 @@
 package com.example.Edu_Camp.models;
 
+import com.example.Edu_Camp.dto.ProfileImageUrls;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.*;
 import org.jspecify.annotations.Nullable;
 
@@ -18,6 +20,8 @@ public class Student extends User {
     private String address;
     private String emergencyContact;
     private String grade;
+    // SHA-256 reference of a stored image (see ProfileImageService), or an http(s) link
+    @JsonSerialize(using = ProfileImageUrls.Serializer.class)
     private String profilePicture;
 
     @Column(name = "date_of_birth")
@@ -30,6 +30,10 @@ public class Submission {
     @Column(name = "file_size")
     private Long fileSize;
 
+    // SHA-256 of the stored file, hex encoded; used as the download ETag
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
     @Column(columnDefinition = "TEXT")
     private String comments;
 
@@ -83,6 +87,9 @@ public class Submission {
     public Long getFileSize() { return fileSize; }
     public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
 
+    public String getFileHash() { return fileHash; }
+    public void setFileHash(String fileHash) { this.fileHash = fileHash; }
+
     public String getComments() { return comments; }
     public void setComments(String comments) { this.comments = comments; }
 
@@ -107,20 +114,26 @@ public class Submission {
     }
 
     public String getFileExtension() {
+        return fileExtensionOf(fileName);
+    }
+
+    public boolean isPreviewable() {
+        return hasFile() && isPreviewableExtension(getFileExtension());
+    }
+
+    // Shared with SubmissionDto, which is built from query columns without an entity
+    public static String fileExtensionOf(String fileName) {
         if (fileName == null) return null;
         int lastDotIndex = fileName.lastIndexOf(".");
         return lastDotIndex > 0 ? fileName.substring(lastDotIndex + 1).toLowerCase() : null;
     }
 
-    public boolean isPreviewable() {
-        String extension = getFileExtension();
-        return hasFile() && (
-                "pdf".equals(extension) ||
-                        "txt".equals(extension) ||
-                        "jpg".equals(extension) || "jpeg".equals(extension) ||
-                        "png".equals(extension) ||
-                        "doc".equals(extension) || "docx".equals(extension)
-        );
+    public static boolean isPreviewableExtension(String extension) {
+        return "pdf".equals(extension) ||
+                "txt".equals(extension) ||
+                "jpg".equals(extension) || "jpeg".equals(extension) ||
+                "png".equals(extension) ||
+                "doc".equals(extension) || "docx".equals(extension);
     }
 
     public Long getAssignmentId() {
@@ -0,0 +1,58 @@
+package com.example.Edu_Camp.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * MinHash signature of the text of one submission, used by SubmissionSimilarityService to
+ * find near-duplicate submissions of an assignment. A row without a signature marks a file
+ * with no usable text (an unsupported format, or too short), so it is not extracted again.
+ */
+@Entity
+@Table(name = "submission_fingerprints", indexes = {
+        @Index(name = "idx_fingerprint_assignment", columnList = "assignment_id")
+})
+public class SubmissionFingerprint {
+
+    @Id
+    @Column(name = "submission_id")
+    private Long submissionId;
+
+    @Column(name = "assignment_id", nullable = false)
+    private Long assignmentId;
+
+    // MinHash.SIZE big-endian ints
+    @Column(columnDefinition = "VARBINARY(512)")
+    private byte[] signature;
+
+    @Column(name = "shingle_count", nullable = false)
+    private int shingleCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public SubmissionFingerprint() {}
+
+    public SubmissionFingerprint(Long submissionId, Long assignmentId, byte[] signature, int shingleCount) {
+        this.submissionId = submissionId;
+        this.assignmentId = assignmentId;
+        this.signature = signature;
+        this.shingleCount = shingleCount;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getSubmissionId() { return submissionId; }
+    public void setSubmissionId(Long submissionId) { this.submissionId = submissionId; }
+
+    public Long getAssignmentId() { return assignmentId; }
+    public void setAssignmentId(Long assignmentId) { this.assignmentId = assignmentId; }
+
+    public byte[] getSignature() { return signature; }
+    public void setSignature(byte[] signature) { this.signature = signature; }
+
+    public int getShingleCount() { return shingleCount; }
+    public void setShingleCount(int shingleCount) { this.shingleCount = shingleCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -1,5 +1,7 @@
 package com.example.Edu_Camp.models;
 
+import com.example.Edu_Camp.dto.ProfileImageUrls;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -20,6 +22,8 @@ public class Teacher extends User {
     @Column(name = "date_of_birth")
     private LocalDate dateOfBirth;
 
+    // SHA-256 reference of a stored image (see ProfileImageService), or an http(s) link
+    @JsonSerialize(using = ProfileImageUrls.Serializer.class)
     private String image;
 
     @Column(name = "subject_name")
@@ -3,7 +3,10 @@ package com.example.Edu_Camp.models;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "material")
+@Table(name = "material", indexes = {
+        @Index(name = "idx_material_subject", columnList = "subject, id"),
+        @Index(name = "idx_material_class_name", columnList = "class_name, id")
+})
 public class TeacherMaterial {
 
     @Id
@@ -16,19 +19,25 @@ public class TeacherMaterial {
     private String className;
     private String fileName;
 
-    @Lob
-    @Column(columnDefinition = "MEDIUMBLOB")
-    private byte[] fileData;
+    // The file lives in upload storage; rows from before that still have it in the legacy
+    // file_data column, which is no longer mapped and is emptied by MaterialBlobMigrationService
+    @Column(name = "file_path")
+    private String filePath;
+
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
+    @Column(name = "file_size")
+    private Long fileSize;
 
     public TeacherMaterial() {}
 
-    public TeacherMaterial(String title, String description, String subject, String className, String fileName, byte[] fileData) {
+    public TeacherMaterial(String title, String description, String subject, String className, String fileName) {
         this.title = title;
         this.description = description;
         this.subject = subject;
         this.className = className;
         this.fileName = fileName;
-        this.fileData = fileData;
     }
 
     // --- Getters & Setters ---
@@ -50,6 +59,12 @@ public class TeacherMaterial {
     public String getFileName() { return fileName; }
     public void setFileName(String fileName) { this.fileName = fileName; }
 
-    public byte[] getFileData() { return fileData; }
-    public void setFileData(byte[] fileData) { this.fileData = fileData; }
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+
+    public String getFileHash() { return fileHash; }
+    public void setFileHash(String fileHash) { this.fileHash = fileHash; }
+
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.example.Edu_Camp.models;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the free-text ClassEntity.timetable into weekly slots.
+ *
+ * Accepts entries separated by ';' or new lines, each naming one or more days
+ * followed by one or more time ranges, for example:
+ *   "MONDAY: 8-10AM; TUESDAY: 1-3PM"
+ *   "Mon, Wed 8:30am - 10:00am"
+ *   "MONDAY-FRIDAY: 16:00-17:30"
+ * Entries that do not contain both a day and a valid time range are ignored.
+ */
+public final class TimetableParser {
+
+    private static final Pattern DAY = Pattern.compile(
+            "\\b(MON|TUE|WED|THU|FRI|SAT|SUN)[A-Z]*\\b");
+
+    private static final Pattern DAY_RANGE = Pattern.compile(
+            "\\b(MON|TUE|WED|THU|FRI|SAT|SUN)[A-Z]*\\s*(?:-|–|TO)\\s*(MON|TUE|WED|THU|FRI|SAT|SUN)[A-Z]*\\b");
+
+    private static final Pattern TIME_RANGE = Pattern.compile(
+            "(\\d{1,2})(?:[:.](\\d{2}))?\\s*(AM|PM)?\\s*(?:-|–|TO)\\s*(\\d{1,2})(?:[:.](\\d{2}))?\\s*(AM|PM)?");
+
+    private TimetableParser() {}
+
+    public static List<TimetableSlot> parse(String timetable) {
+        List<TimetableSlot> slots = new ArrayList<>();
+        if (timetable == null || timetable.isBlank()) {
+            return slots;
+        }
+
+        for (String entry : timetable.toUpperCase(Locale.ROOT).split("[;\\n|]")) {
+            Set<DayOfWeek> days = parseDays(entry);
+            if (days.isEmpty()) continue;
+
+            // Strip day names so "MON-FRI" is not mistaken for a time range
+            String times = DAY.matcher(entry).replaceAll(" ");
+            Matcher m = TIME_RANGE.matcher(times);
+            while (m.find()) {
+                int[] range = toMinutes(m);
+                if (range == null) continue;
+                for (DayOfWeek day : days) {
+                    TimetableSlot slot = new TimetableSlot(day, range[0], range[1]);
+                    if (!slots.contains(slot)) {
+                        slots.add(slot);
+                    }
+                }
+            }
+        }
+        return slots;
+    }
+
+    private static Set<DayOfWeek> parseDays(String entry) {
+        Set<DayOfWeek> days = new LinkedHashSet<>();
+        Matcher range = DAY_RANGE.matcher(entry);
+        while (range.find()) {
+            DayOfWeek from = toDay(range.group(1));
+            DayOfWeek to = toDay(range.group(2));
+            for (DayOfWeek d = from; ; d = d.plus(1)) {
+                days.add(d);
+                if (d == to) break;
+            }
+        }
+        Matcher single = DAY.matcher(DAY_RANGE.matcher(entry).replaceAll(" "));
+        while (single.find()) {
+            days.add(toDay(single.group(1)));
+        }
+        return days;
+    }
+
+    private static DayOfWeek toDay(String prefix) {
+        return switch (prefix) {
+            case "MON" -> DayOfWeek.MONDAY;
+            case "TUE" -> DayOfWeek.TUESDAY;
+            case "WED" -> DayOfWeek.WEDNESDAY;
+            case "THU" -> DayOfWeek.THURSDAY;
+            case "FRI" -> DayOfWeek.FRIDAY;
+            case "SAT" -> DayOfWeek.SATURDAY;
+            default -> DayOfWeek.SUNDAY;
+        };
+    }
+
+    private static int[] toMinutes(Matcher m) {
+        int startHour = Integer.parseInt(m.group(1));
+        int startMin = m.group(2) != null ? Integer.parseInt(m.group(2)) : 0;
+        String startMeridiem = m.group(3);
+        int endHour = Integer.parseInt(m.group(4));
+        int endMin = m.group(5) != null ? Integer.parseInt(m.group(5)) : 0;
+        String endMeridiem = m.group(6);
+
+        if (startHour > 24 || endHour > 24 || startMin > 59 || endMin > 59) {
+            return null;
+        }
+
+        int start;
+        int end;
+        if (startMeridiem == null && endMeridiem == null) {
+            // 24-hour clock; bare afternoon hours like "1-3" are read as PM
+            start = startHour * 60 + startMin;
+            end = endHour * 60 + endMin;
+            if (startHour >= 1 && startHour < 7 && endHour < 12) {
+                start += 12 * 60;
+                end += 12 * 60;
+            }
+        } else if (startMeridiem == null) {
+            // "8-10AM" shares the meridiem; "11-1PM" crosses noon
+            end = applyMeridiem(endHour, endMin, endMeridiem);
+            start = applyMeridiem(startHour, startMin, endMeridiem);
+            if (start >= end) {
+                start = applyMeridiem(startHour, startMin, "PM".equals(endMeridiem) ? "AM" : "PM");
+            }
+        } else {
+            start = applyMeridiem(startHour, startMin, startMeridiem);
+            end = applyMeridiem(endHour, endMin, endMeridiem != null ? endMeridiem : startMeridiem);
+        }
+
+        if (start < 0 || end > TimetableSlot.MINUTES_PER_DAY || start >= end) {
+            return null;
+        }
+        return new int[] {start, end};
+    }
+
+    private static int applyMeridiem(int hour, int minute, String meridiem) {
+        if (hour > 12) return hour * 60 + minute; // already 24-hour
+        int h = hour % 12;
+        if ("PM".equals(meridiem)) h += 12;
+        return h * 60 + minute;
+    }
+}
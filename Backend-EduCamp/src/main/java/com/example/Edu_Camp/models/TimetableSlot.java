@@ -0,0 +1,86 @@
+package com.example.Edu_Camp.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.time.DayOfWeek;
+import java.util.Objects;
+
+/**
+ * One weekly occurrence of a class, parsed from ClassEntity.timetable.
+ * Times are stored as minute-of-day, end exclusive.
+ */
+@Embeddable
+public class TimetableSlot {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "day_of_week", nullable = false, length = 9)
+    private DayOfWeek dayOfWeek;
+
+    @Column(name = "start_minute", nullable = false)
+    private int startMinute;
+
+    @Column(name = "end_minute", nullable = false)
+    private int endMinute;
+
+    public TimetableSlot() {}
+
+    public TimetableSlot(DayOfWeek dayOfWeek, int startMinute, int endMinute) {
+        this.dayOfWeek = dayOfWeek;
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+    }
+
+    public DayOfWeek getDayOfWeek() { return dayOfWeek; }
+    public void setDayOfWeek(DayOfWeek dayOfWeek) { this.dayOfWeek = dayOfWeek; }
+
+    public int getStartMinute() { return startMinute; }
+    public void setStartMinute(int startMinute) { this.startMinute = startMinute; }
+
+    public int getEndMinute() { return endMinute; }
+    public void setEndMinute(int endMinute) { this.endMinute = endMinute; }
+
+    public String getStartTime() { return formatMinute(startMinute); }
+
+    public String getEndTime() { return formatMinute(endMinute); }
+
+    // Position of the slot on a Monday-based week, used as the interval index key
+    @JsonIgnore
+    public int getStartOfWeek() {
+        return (dayOfWeek.getValue() - 1) * MINUTES_PER_DAY + startMinute;
+    }
+
+    @JsonIgnore
+    public int getEndOfWeek() {
+        return (dayOfWeek.getValue() - 1) * MINUTES_PER_DAY + endMinute;
+    }
+
+    public boolean overlaps(TimetableSlot other) {
+        return other != null && dayOfWeek == other.dayOfWeek
+                && startMinute < other.endMinute && other.startMinute < endMinute;
+    }
+
+    public static String formatMinute(int minuteOfDay) {
+        return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TimetableSlot that)) return false;
+        return startMinute == that.startMinute && endMinute == that.endMinute && dayOfWeek == that.dayOfWeek;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dayOfWeek, startMinute, endMinute);
+    }
+
+    @Override
+    public String toString() {
+        return dayOfWeek + ": " + getStartTime() + "-" + getEndTime();
+    }
+}
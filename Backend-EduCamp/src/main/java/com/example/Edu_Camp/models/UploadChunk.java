@@ -0,0 +1,48 @@
+package com.example.Edu_Camp.models;
+
+import jakarta.persistence.*;
+
+/**
+ * A chunk of an upload session that has been written and verified against the checksum the
+ * client sent with it.
+ */
+@Entity
+@Table(name = "upload_chunks", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_upload_chunks_session_index", columnNames = {"session_id", "chunk_index"})
+})
+public class UploadChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false, length = 36)
+    private String sessionId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private int chunkIndex;
+
+    @Column(nullable = false)
+    private long size;
+
+    // Hex SHA-256 of the chunk
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    public UploadChunk() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getSessionId() { return sessionId; }
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+
+    public int getChunkIndex() { return chunkIndex; }
+    public void setChunkIndex(int chunkIndex) { this.chunkIndex = chunkIndex; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+}
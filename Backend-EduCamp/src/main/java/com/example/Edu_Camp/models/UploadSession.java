@@ -0,0 +1,102 @@
+package com.example.Edu_Camp.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A resumable upload in progress. Chunks are written into a preallocated part file under
+ * the upload temp directory; once every chunk is in, the file is moved into content-addressed
+ * storage and the session holds that reference until an assignment, submission or material
+ * claims it.
+ */
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_sessions_expires", columnList = "expires_at")
+})
+public class UploadSession {
+
+    public static final String OPEN = "OPEN";
+    public static final String COMPLETING = "COMPLETING";
+    public static final String COMPLETE = "COMPLETE";
+    public static final String CLAIMED = "CLAIMED";
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // ASSIGNMENT, SUBMISSION or MATERIAL
+    @Column(nullable = false, length = 20)
+    private String purpose;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "total_size", nullable = false)
+    private long totalSize;
+
+    @Column(name = "chunk_size", nullable = false)
+    private int chunkSize;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    // Set once complete: the stored object this session holds a reference on
+    @Column(name = "file_path")
+    private String filePath;
+
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public UploadSession() {}
+
+    public int getChunkCount() {
+        return totalSize == 0 ? 0 : (int) ((totalSize + chunkSize - 1) / chunkSize);
+    }
+
+    // Bytes the chunk at this index must hold; the last one may be short
+    public long getChunkLength(int index) {
+        return Math.min(chunkSize, totalSize - (long) index * chunkSize);
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getPurpose() { return purpose; }
+    public void setPurpose(String purpose) { this.purpose = purpose; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public long getTotalSize() { return totalSize; }
+    public void setTotalSize(long totalSize) { this.totalSize = totalSize; }
+
+    public int getChunkSize() { return chunkSize; }
+    public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+
+    public String getFileHash() { return fileHash; }
+    public void setFileHash(String fileHash) { this.fileHash = fileHash; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
@@ -17,6 +18,16 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     @Query("SELECT a FROM Assignment a WHERE a.classEntity.teacher.id = :teacherId")
     List<Assignment> findByTeacherId(@Param("teacherId") Long teacherId);
 
+    @Query("SELECT a.id FROM Assignment a")
+    List<Long> findAllIds();
+
+    // Ownership check without loading the assignment and its class
+    @Query("SELECT a.classEntity.teacher.id FROM Assignment a WHERE a.id = :assignmentId")
+    Optional<Long> findTeacherIdById(@Param("assignmentId") Long assignmentId);
+
+    @Query("SELECT a.title FROM Assignment a WHERE a.id = :assignmentId")
+    Optional<String> findTitleById(@Param("assignmentId") Long assignmentId);
+
     @Query("SELECT a FROM Assignment a WHERE a.classEntity.class_id IN " +
             "(SELECT e.classEntity.class_id FROM Enrollment e WHERE e.student.id = :studentId)")
     List<Assignment> findAssignmentsForStudent(@Param("studentId") Long studentId);
@@ -0,0 +1,45 @@
+package com.example.Edu_Camp.repository;
+
+import com.example.Edu_Camp.dto.AssignmentDashboardDto;
+import com.example.Edu_Camp.models.AssignmentStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AssignmentStatsRepository extends JpaRepository<AssignmentStats, Long> {
+
+    // Applies deltas, creating the row on first use; locks the row until commit
+    @Modifying
+    @Query(value = "INSERT INTO assignment_stats " +
+            "(assignment_id, submitted_count, graded_count, late_count, grade_sum, updated_at) " +
+            "VALUES (:assignmentId, :submitted, :graded, :late, :gradeSum, NOW()) " +
+            "ON DUPLICATE KEY UPDATE submitted_count = submitted_count + :submitted, " +
+            "graded_count = graded_count + :graded, late_count = late_count + :late, " +
+            "grade_sum = grade_sum + :gradeSum, updated_at = NOW()", nativeQuery = true)
+    void addCounts(@Param("assignmentId") Long assignmentId, @Param("submitted") long submitted,
+                   @Param("graded") long graded, @Param("late") long late, @Param("gradeSum") long gradeSum);
+
+    @Modifying
+    @Query("UPDATE AssignmentStats st SET st.submittedCount = :submitted, st.gradedCount = :graded, " +
+            "st.lateCount = :late, st.gradeSum = :gradeSum, st.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE st.assignmentId = :assignmentId")
+    int setCounts(@Param("assignmentId") Long assignmentId, @Param("submitted") long submitted,
+                  @Param("graded") long graded, @Param("late") long late, @Param("gradeSum") long gradeSum);
+
+    @Modifying
+    @Query("DELETE FROM AssignmentStats st WHERE st.assignmentId NOT IN (SELECT a.id FROM Assignment a)")
+    int deleteOrphans();
+
+    // One row per assignment of the teacher; assignments without a stats row count as empty
+    @Query("SELECT new com.example.Edu_Camp.dto.AssignmentDashboardDto(" +
+            "a.id, a.title, a.classEntity.class_id, a.dueDate, a.maxPoints, " +
+            "st.submittedCount, st.gradedCount, st.lateCount, st.gradeSum) " +
+            "FROM Assignment a LEFT JOIN AssignmentStats st ON st.assignmentId = a.id " +
+            "WHERE a.classEntity.teacher.id = :teacherId ORDER BY a.dueDate DESC")
+    List<AssignmentDashboardDto> findDashboardByTeacherId(@Param("teacherId") Long teacherId);
+}
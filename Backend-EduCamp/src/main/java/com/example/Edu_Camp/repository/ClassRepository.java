@@ -2,10 +2,15 @@ package com.example.Edu_Camp.repository;
 
 import com.example.Edu_Camp.models.ClassEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.List;
 
 //JPA autamatically generate SQL
 public interface ClassRepository extends JpaRepository<ClassEntity, Long> {
     List<ClassEntity> findByGradeContainingIgnoreCase(String grade); //SELECT * FROM class_entity WHERE grade=?
     List<ClassEntity> findBySubjects_NameContainingIgnoreCase(String name);
+
+    // Loads classes together with their parsed timetable slots in one query
+    @Query("SELECT DISTINCT c FROM ClassEntity c LEFT JOIN FETCH c.timetableSlots")
+    List<ClassEntity> findAllWithTimetableSlots();
 }
\ No newline at end of file
@@ -31,6 +31,10 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     List<Enrollment> findByStudentNumber(@Param("studentNumber") String studentNumber);
 
 
+    // (studentId, classId) pairs only - avoids loading the eager associations of every enrollment
+    @Query("SELECT e.student.id, e.classEntity.class_id FROM Enrollment e")
+    List<Object[]> findStudentClassPairs();
+
     @Query("SELECT e FROM Enrollment e WHERE e.student.id = :studentId AND e.classEntity.class_id = :classId")
     Optional<Enrollment> findByStudentIdAndClassId(@Param("studentId") Long studentId,
                                                    @Param("classId") Long classId);
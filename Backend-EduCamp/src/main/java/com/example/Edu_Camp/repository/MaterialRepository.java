@@ -1,10 +1,37 @@
 package com.example.Edu_Camp.repository;
 
+import com.example.Edu_Camp.dto.MaterialDTO;
 import com.example.Edu_Camp.models.TeacherMaterial;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface MaterialRepository extends JpaRepository<TeacherMaterial, Long> {
-}
 
+    // Listing columns only, in id order after a keyset cursor (0 for the first page).
+    // One query per filter combination so each can use its index, (subject, id) or (class_name, id).
+    String LISTING_SELECT = "SELECT new com.example.Edu_Camp.dto.MaterialDTO(" +
+            "m.id, m.title, m.description, m.subject, m.className, m.fileName, m.fileSize) " +
+            "FROM TeacherMaterial m WHERE m.id > :afterId ";
+
+    @Query(LISTING_SELECT + "ORDER BY m.id")
+    List<MaterialDTO> findListing(@Param("afterId") long afterId, Pageable page);
+
+    @Query(LISTING_SELECT + "AND m.subject = :subject ORDER BY m.id")
+    List<MaterialDTO> findListingBySubject(@Param("subject") String subject,
+                                           @Param("afterId") long afterId, Pageable page);
+
+    @Query(LISTING_SELECT + "AND m.className = :className ORDER BY m.id")
+    List<MaterialDTO> findListingByClassName(@Param("className") String className,
+                                             @Param("afterId") long afterId, Pageable page);
+
+    @Query(LISTING_SELECT + "AND m.subject = :subject AND m.className = :className ORDER BY m.id")
+    List<MaterialDTO> findListingBySubjectAndClassName(@Param("subject") String subject,
+                                                       @Param("className") String className,
+                                                       @Param("afterId") long afterId, Pageable page);
+}
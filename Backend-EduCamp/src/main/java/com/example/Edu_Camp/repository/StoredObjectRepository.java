@@ -0,0 +1,54 @@
+package com.example.Edu_Camp.repository;
+
+import com.example.Edu_Camp.models.StoredObject;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StoredObjectRepository extends JpaRepository<StoredObject, String> {
+
+    // Creates the object with one reference, or adds a reference; locks the row until commit
+    @Modifying
+    @Query(value = "INSERT INTO stored_objects (hash, path, size, ref_count, created_at) " +
+            "VALUES (:hash, :path, :size, 1, NOW()) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1", nativeQuery = true)
+    void addReference(@Param("hash") String hash, @Param("path") String path, @Param("size") long size);
+
+    // Only while the object still has a reference, so it cannot be on its way out
+    @Modifying
+    @Query("UPDATE StoredObject o SET o.refCount = o.refCount + 1 WHERE o.hash = :hash AND o.refCount > 0")
+    int addExistingReference(@Param("hash") String hash);
+
+    @Modifying
+    @Query("UPDATE StoredObject o SET o.refCount = o.refCount - 1 WHERE o.hash = :hash AND o.refCount > 0")
+    int removeReference(@Param("hash") String hash);
+
+    @Modifying
+    @Query("DELETE FROM StoredObject o WHERE o.hash = :hash AND o.refCount = 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+
+    // Objects not yet examined by the cold tier that back a submission graded before the cutoff, by hash
+    @Query("SELECT o FROM StoredObject o WHERE o.codec IS NULL AND o.hash > :afterHash " +
+            "AND EXISTS (SELECT s.id FROM Submission s WHERE s.fileHash = o.hash " +
+            "AND s.status = 'GRADED' AND s.gradedAt < :gradedBefore) " +
+            "ORDER BY o.hash")
+    List<StoredObject> findColdCandidates(@Param("gradedBefore") LocalDateTime gradedBefore,
+                                          @Param("afterHash") String afterHash,
+                                          Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE StoredObject o SET o.codec = :codec, o.storedSize = :storedSize " +
+            "WHERE o.hash = :hash AND o.codec IS NULL")
+    int recordCodec(@Param("hash") String hash, @Param("codec") String codec, @Param("storedSize") Long storedSize);
+
+    @Query("SELECT COUNT(o), COALESCE(SUM(o.size), 0), COALESCE(SUM(o.storedSize), 0) " +
+            "FROM StoredObject o WHERE o.codec = :codec")
+    List<Object[]> summarizeCodec(@Param("codec") String codec);
+}
@@ -0,0 +1,20 @@
+package com.example.Edu_Camp.repository;
+
+import com.example.Edu_Camp.models.SubmissionFingerprint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SubmissionFingerprintRepository extends JpaRepository<SubmissionFingerprint, Long> {
+
+    List<SubmissionFingerprint> findByAssignmentId(Long assignmentId);
+
+    // Submissions with a file that have not been fingerprinted yet
+    @Query("SELECT s.id FROM Submission s WHERE s.assignment.id = :assignmentId AND s.filePath IS NOT NULL " +
+            "AND NOT EXISTS (SELECT f.submissionId FROM SubmissionFingerprint f WHERE f.submissionId = s.id)")
+    List<Long> findUnfingerprintedSubmissionIds(@Param("assignmentId") Long assignmentId);
+}
@@ -1,17 +1,36 @@
 package com.example.Edu_Camp.repository;
 
+import com.example.Edu_Camp.dto.SubmissionDto;
 import com.example.Edu_Camp.models.Submission;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
 
+    // Submission list rows with the student and assignment columns joined in, one statement per list
+    String SUMMARY_SELECT = "SELECT new com.example.Edu_Camp.dto.SubmissionDto(" +
+            "s.id, a.id, e.id, s.filePath, s.fileName, s.fileSize, s.fileHash, s.comments, s.submittedAt, s.gradedAt, " +
+            "s.status, s.grade, s.feedback, st.firstName, st.lastName, st.studentNumber, a.title) " +
+            "FROM Submission s JOIN s.assignment a JOIN s.enrollment e LEFT JOIN e.student st ";
+
+    @Query(SUMMARY_SELECT + "WHERE a.classEntity.teacher.id = :teacherId")
+    List<SubmissionDto> findSummariesByTeacherId(@Param("teacherId") Long teacherId);
+
+    @Query(SUMMARY_SELECT + "WHERE a.id = :assignmentId")
+    List<SubmissionDto> findSummariesByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    @Query(SUMMARY_SELECT + "WHERE st.id = :studentId")
+    List<SubmissionDto> findSummariesByStudentId(@Param("studentId") Long studentId);
+
     @Query("SELECT s FROM Submission s WHERE s.assignment.id = :assignmentId AND s.enrollment.id = :enrollmentId")
     Optional<Submission> findByAssignmentIdAndEnrollmentId(@Param("assignmentId") Long assignmentId,
                                                            @Param("enrollmentId") Long enrollmentId);
@@ -25,6 +44,27 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     @Query("SELECT s FROM Submission s WHERE s.assignment.classEntity.teacher.id = :teacherId")
     List<Submission> findByTeacherId(@Param("teacherId") Long teacherId);
 
+    // Locks the row until commit, so the status and grade read stay current while grading
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Submission s WHERE s.id = :id")
+    Optional<Submission> findByIdForUpdate(@Param("id") Long id);
+
+    // Ownership check for batch grading: the given submissions that belong to the teacher, as
+    // (id, max points, assignment id, status, grade); locks them until commit, in id order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s.id, a.maxPoints, a.id, s.status, s.grade FROM Submission s JOIN s.assignment a " +
+            "WHERE s.id IN :ids AND a.classEntity.teacher.id = :teacherId ORDER BY s.id")
+    List<Object[]> findGradableByIdsAndTeacherId(@Param("ids") Collection<Long> ids,
+                                                 @Param("teacherId") Long teacherId);
+
+    // (submitted, graded, late, grade sum) of one assignment, for reconciling assignment_stats
+    @Query("SELECT COUNT(s), " +
+            "COALESCE(SUM(CASE WHEN s.status = 'GRADED' THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN s.submittedAt > a.dueDate THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN s.status = 'GRADED' THEN COALESCE(s.grade, 0) ELSE 0 END), 0) " +
+            "FROM Submission s JOIN s.assignment a WHERE a.id = :assignmentId")
+    List<Object[]> aggregateByAssignmentId(@Param("assignmentId") Long assignmentId);
+
     // Option 2: Add this method if you want to use the derived query method
     List<Submission> findByAssignmentClassEntityTeacherId(Long teacherId);
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.example.Edu_Camp.repository;
+
+import com.example.Edu_Camp.models.UploadChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UploadChunkRepository extends JpaRepository<UploadChunk, Long> {
+
+    // A re-sent chunk replaces the earlier record
+    @Modifying
+    @Query(value = "INSERT INTO upload_chunks (session_id, chunk_index, size, sha256) " +
+            "VALUES (:sessionId, :chunkIndex, :size, :sha256) " +
+            "ON DUPLICATE KEY UPDATE size = VALUES(size), sha256 = VALUES(sha256)", nativeQuery = true)
+    void recordChunk(@Param("sessionId") String sessionId, @Param("chunkIndex") int chunkIndex,
+                     @Param("size") long size, @Param("sha256") String sha256);
+
+    @Query("SELECT c.chunkIndex FROM UploadChunk c WHERE c.sessionId = :sessionId ORDER BY c.chunkIndex")
+    List<Integer> findChunkIndexesBySessionId(@Param("sessionId") String sessionId);
+
+    long countBySessionId(String sessionId);
+
+    @Modifying
+    @Query("DELETE FROM UploadChunk c WHERE c.sessionId = :sessionId")
+    int deleteBySessionId(@Param("sessionId") String sessionId);
+}
@@ -0,0 +1,47 @@
+package com.example.Edu_Camp.repository;
+
+import com.example.Edu_Camp.models.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Read straight from the table, not from an entity the request may have loaded earlier
+    @Query("SELECT u.status FROM UploadSession u WHERE u.id = :id")
+    String findStatus(@Param("id") String id);
+
+    // Moves a session between states; 0 when another request got there first
+    @Modifying
+    @Query("UPDATE UploadSession u SET u.status = :to WHERE u.id = :id AND u.status = :from")
+    int transition(@Param("id") String id, @Param("from") String from, @Param("to") String to);
+
+    @Modifying
+    @Query("UPDATE UploadSession u SET u.status = :to, u.filePath = :filePath, u.fileHash = :fileHash " +
+            "WHERE u.id = :id AND u.status = :from")
+    int complete(@Param("id") String id, @Param("from") String from, @Param("to") String to,
+                 @Param("filePath") String filePath, @Param("fileHash") String fileHash);
+
+    // Hands a completed, unexpired session over; 0 when it expired, was discarded or is already claimed
+    @Modifying
+    @Query("UPDATE UploadSession u SET u.status = 'CLAIMED' " +
+            "WHERE u.id = :id AND u.status = 'COMPLETE' AND u.expiresAt > :now")
+    int claim(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    // Deletes a session only while it is still in the given state; 0 when another request moved it first
+    @Modifying
+    @Query("DELETE FROM UploadSession u WHERE u.id = :id AND u.status = :status")
+    int deleteInStatus(@Param("id") String id, @Param("status") String status);
+
+    List<UploadSession> findTop100ByExpiresAtBeforeAndStatusNot(LocalDateTime time, String status);
+
+    @Modifying
+    @Query("DELETE FROM UploadSession u WHERE u.status = 'CLAIMED' AND u.expiresAt < :time")
+    int deleteClaimedBefore(@Param("time") LocalDateTime time);
+}
@@ -1,19 +1,28 @@
 package com.example.Edu_Camp.services;
 
+import com.example.Edu_Camp.dto.AssignmentDashboardDto;
 import com.example.Edu_Camp.dto.AssignmentDto;
+import com.example.Edu_Camp.dto.BatchGradeDto;
 import com.example.Edu_Camp.dto.SubmissionDto;
 import com.example.Edu_Camp.models.*;
 import com.example.Edu_Camp.repository.*;
 import com.example.Edu_Camp.services.FileStorageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,23 +33,42 @@ public class AssignmentService {
     private final ClassRepository classRepository;
     private final EnrollmentRepository enrollmentRepository;
     private final FileStorageService fileStorageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final AssignmentStatsRepository assignmentStatsRepository;
+    private final UploadSessionService uploadSessionService;
+    private final SubmissionSimilarityService submissionSimilarityService;
+    private final ImageVariantService imageVariantService;
+
+    // Upper bound on entries per batch grading request
+    static final int MAX_BATCH_GRADES = 500;
 
     @Autowired
     public AssignmentService(AssignmentRepository assignmentRepository,
                              SubmissionRepository submissionRepository,
                              ClassRepository classRepository,
                              EnrollmentRepository enrollmentRepository,
-                             FileStorageService fileStorageService) {
+                             FileStorageService fileStorageService,
+                             JdbcTemplate jdbcTemplate,
+                             AssignmentStatsRepository assignmentStatsRepository,
+                             UploadSessionService uploadSessionService,
+                             SubmissionSimilarityService submissionSimilarityService,
+                             ImageVariantService imageVariantService) {
         this.assignmentRepository = assignmentRepository;
         this.submissionRepository = submissionRepository;
         this.classRepository = classRepository;
         this.enrollmentRepository = enrollmentRepository;
         this.fileStorageService = fileStorageService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.assignmentStatsRepository = assignmentStatsRepository;
+        this.uploadSessionService = uploadSessionService;
+        this.submissionSimilarityService = submissionSimilarityService;
+        this.imageVariantService = imageVariantService;
     }
 
+    // uploadId names a completed chunked upload to attach instead of a multipart file
     @Transactional
     public Assignment createAssignment(AssignmentDto assignmentDto, Long teacherId,
-                                       MultipartFile file) throws IOException {
+                                       MultipartFile file, String uploadId) throws IOException {
         ClassEntity classEntity = classRepository.findById(assignmentDto.getClassId())
                 .orElseThrow(() -> new RuntimeException("Class not found"));
 
@@ -60,19 +88,31 @@ public class AssignmentService {
                 throw new RuntimeException("File size too large. Maximum size is 10MB.");
             }
 
-            String filePath = fileStorageService.storeFile(file, "assignments");
-            assignment.setFilePath(filePath);
+            StoredUpload stored = fileStorageService.storeFile(file);
+            assignment.setFilePath(stored.filePath());
+            assignment.setFileHash(stored.sha256());
             assignment.setFileName(file.getOriginalFilename());
             assignment.setFileSize(file.getSize());
             assignment.setFileType(getFileExtension(file.getOriginalFilename()));
+        } else if (uploadId != null && !uploadId.isBlank()) {
+            UploadSessionService.ClaimedUpload upload = uploadSessionService.claim(uploadId, teacherId, "ASSIGNMENT");
+            assignment.setFilePath(upload.stored().filePath());
+            assignment.setFileHash(upload.stored().sha256());
+            assignment.setFileName(upload.fileName());
+            assignment.setFileSize(upload.stored().size());
+            assignment.setFileType(getFileExtension(upload.fileName()));
         }
 
-        return assignmentRepository.save(assignment);
+        Assignment saved = assignmentRepository.save(assignment);
+        imageVariantService.generateLater(saved.getFilePath(), saved.getFileHash(), saved.getFileType());
+        return saved;
     }
 
-    @Transactional
-    public Submission submitAssignment(Long assignmentId, Long studentId,
-                                       MultipartFile file, String comments) throws IOException {
+    /**
+     * The checks a submission must pass before its file is stored. Runs without a
+     * transaction; {@link #recordSubmission} repeats the duplicate check when it writes.
+     */
+    public void validateSubmission(Long assignmentId, Long studentId) {
         Assignment assignment = assignmentRepository.findById(assignmentId)
                 .orElseThrow(() -> new RuntimeException("Assignment not found"));
 
@@ -82,25 +122,40 @@ public class AssignmentService {
 
         submissionRepository.findByAssignmentIdAndEnrollmentId(assignmentId, enrollment.getId())
                 .ifPresent(s -> { throw new RuntimeException("Assignment already submitted"); });
+    }
 
-        String filePath = null;
-        String fileName = null;
-        Long fileSize = null;
+    /**
+     * Writes the submission row for a file that is already in storage (or none). submittedAt
+     * is the time the request arrived, not the time this transaction runs, so a queued
+     * submission is not marked late for time spent waiting.
+     */
+    @Transactional
+    public Submission recordSubmission(Long assignmentId, Long studentId, StoredUpload stored,
+                                       String fileName, Long fileSize, String comments,
+                                       LocalDateTime submittedAt) {
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
 
-        if (file != null && !file.isEmpty()) {
-            if (file.getSize() > 10 * 1024 * 1024) {
-                throw new RuntimeException("File size too large. Maximum size is 10MB.");
-            }
+        Enrollment enrollment = enrollmentRepository
+                .findByStudentIdAndClassId(studentId, assignment.getClassEntity().getClass_id())
+                .orElseThrow(() -> new RuntimeException("You are not enrolled in this class"));
 
-            filePath = fileStorageService.storeFile(file, "submissions");
-            fileName = file.getOriginalFilename();
-            fileSize = file.getSize();
-        }
+        submissionRepository.findByAssignmentIdAndEnrollmentId(assignmentId, enrollment.getId())
+                .ifPresent(s -> { throw new RuntimeException("Assignment already submitted"); });
 
-        Submission submission = new Submission(assignment, enrollment, filePath, fileName, fileSize, comments);
+        Submission submission = new Submission(assignment, enrollment,
+                stored != null ? stored.filePath() : null, fileName, fileSize, comments);
+        submission.setFileHash(stored != null ? stored.sha256() : null);
+        if (submittedAt != null) {
+            submission.setSubmittedAt(submittedAt);
+        }
         submission.setStatus("SUBMITTED");
 
-        return submissionRepository.save(submission);
+        Submission saved = submissionRepository.save(submission);
+        assignmentStatsRepository.addCounts(assignmentId, 1, 0, saved.isLate() ? 1 : 0, 0);
+        submissionSimilarityService.fingerprintLater(saved);
+        imageVariantService.generateLater(saved.getFilePath(), saved.getFileHash(), saved.getFileExtension());
+        return saved;
     }
 
     public List<Assignment> getTeacherAssignments(Long teacherId) {
@@ -126,15 +181,43 @@ public class AssignmentService {
         return submissionRepository.findByTeacherId(teacherId);
     }
 
+    // List views below read DTO rows straight from one query instead of converting entities
+
+    public List<SubmissionDto> getSubmissionSummariesForAssignment(Long assignmentId, Long teacherId) {
+        Long ownerId = assignmentRepository.findTeacherIdById(assignmentId)
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+
+        if (!ownerId.equals(teacherId)) {
+            throw new RuntimeException("You can only view submissions for your own assignments");
+        }
+
+        return submissionRepository.findSummariesByAssignmentId(assignmentId);
+    }
+
+    public List<SubmissionDto> getSubmissionSummariesForTeacher(Long teacherId) {
+        return submissionRepository.findSummariesByTeacherId(teacherId);
+    }
+
+    public List<SubmissionDto> getStudentSubmissionSummaries(Long studentId) {
+        return submissionRepository.findSummariesByStudentId(studentId);
+    }
+
     @Transactional
     public Submission gradeSubmission(Long submissionId, Integer grade, String feedback, Long teacherId) {
-        Submission submission = submissionRepository.findById(submissionId)
+        // Locked, so a concurrent grade of the same submission cannot apply its delta to the same old grade
+        Submission submission = submissionRepository.findByIdForUpdate(submissionId)
                 .orElseThrow(() -> new RuntimeException("Submission not found"));
 
         if (!submission.getAssignment().getClassEntity().getTeacher().getId().equals(teacherId)) {
             throw new RuntimeException("You can only grade submissions for your own assignments");
         }
 
+        // A regrade replaces the old grade in the sum but does not count twice
+        boolean wasGraded = "GRADED".equals(submission.getStatus());
+        long previousGrade = wasGraded && submission.getGrade() != null ? submission.getGrade() : 0;
+        assignmentStatsRepository.addCounts(submission.getAssignmentId(), 0, wasGraded ? 0 : 1, 0,
+                (grade != null ? grade : 0) - previousGrade);
+
         submission.setGrade(grade);
         submission.setFeedback(feedback);
         submission.setStatus("GRADED");
@@ -143,6 +226,84 @@ public class AssignmentService {
         return submissionRepository.save(submission);
     }
 
+    /**
+     * Grades many submissions at once. Ownership and max points for all of them come from one
+     * query that also locks them, so the counter deltas are computed from grades nobody else
+     * can change before commit; the valid entries are then written as a single JDBC batch in
+     * this transaction. Invalid entries are reported in the results and do not stop the others.
+     */
+    @Transactional
+    public List<BatchGradeDto.Result> gradeSubmissions(List<BatchGradeDto.Entry> entries, Long teacherId) {
+        if (entries == null || entries.isEmpty()) {
+            throw new RuntimeException("No grades given");
+        }
+        if (entries.size() > MAX_BATCH_GRADES) {
+            throw new RuntimeException("At most " + MAX_BATCH_GRADES + " grades can be submitted at once");
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (BatchGradeDto.Entry entry : entries) {
+            if (entry != null && entry.getSubmissionId() != null) ids.add(entry.getSubmissionId());
+        }
+        Map<Long, Object[]> gradable = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Object[] row : submissionRepository.findGradableByIdsAndTeacherId(ids, teacherId)) {
+                gradable.put((Long) row[0], row);
+            }
+        }
+
+        List<BatchGradeDto.Result> results = new ArrayList<>(entries.size());
+        List<Object[]> updates = new ArrayList<>();
+        // assignment id -> {newly graded, grade sum delta}
+        Map<Long, long[]> statDeltas = new HashMap<>();
+        Set<Long> seen = new HashSet<>();
+        Timestamp gradedAt = Timestamp.valueOf(LocalDateTime.now());
+
+        for (BatchGradeDto.Entry entry : entries) {
+            Long id = entry != null ? entry.getSubmissionId() : null;
+            Object[] row = id != null ? gradable.get(id) : null;
+            Integer maxPoints = row != null ? (Integer) row[1] : null;
+            String error = null;
+            if (id == null) {
+                error = "Submission id is required";
+            } else if (row == null) {
+                error = "Submission not found or not one of your assignments";
+            } else if (!seen.add(id)) {
+                error = "Submission appears more than once in this batch";
+            } else if (entry.getGrade() == null || entry.getGrade() < 0) {
+                error = "Grade must be zero or more";
+            } else if (maxPoints != null && entry.getGrade() > maxPoints) {
+                error = "Grade exceeds the maximum of " + maxPoints + " points";
+            }
+
+            if (error != null) {
+                results.add(new BatchGradeDto.Result(id, false, error));
+            } else {
+                updates.add(new Object[]{entry.getGrade(), entry.getFeedback(), gradedAt, id});
+                results.add(new BatchGradeDto.Result(id, true, null));
+
+                boolean wasGraded = "GRADED".equals(row[3]);
+                long previousGrade = wasGraded && row[4] != null ? (Integer) row[4] : 0;
+                long[] delta = statDeltas.computeIfAbsent((Long) row[2], k -> new long[2]);
+                delta[0] += wasGraded ? 0 : 1;
+                delta[1] += entry.getGrade() - previousGrade;
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE submissions SET grade = ?, feedback = ?, status = 'GRADED', graded_at = ? WHERE id = ?",
+                    updates);
+            statDeltas.forEach((assignmentId, delta) ->
+                    assignmentStatsRepository.addCounts(assignmentId, 0, delta[0], 0, delta[1]));
+        }
+        return results;
+    }
+
+    public List<AssignmentDashboardDto> getTeacherDashboard(Long teacherId) {
+        return assignmentStatsRepository.findDashboardByTeacherId(teacherId);
+    }
+
     public List<Submission> getStudentSubmissions(Long studentId) {
         return submissionRepository.findByStudentId(studentId);
     }
@@ -163,7 +324,7 @@ public class AssignmentService {
         return submission;
     }
 
-    public byte[] downloadAssignmentFile(Long assignmentId, Long studentId) throws IOException {
+    public StoredFile downloadAssignmentFile(Long assignmentId, Long studentId) throws IOException {
         Assignment assignment = getAssignmentById(assignmentId);
 
         boolean isEnrolled = enrollmentRepository
@@ -178,17 +339,18 @@ public class AssignmentService {
             throw new RuntimeException("No file attached to this assignment");
         }
 
-        return fileStorageService.loadFile(assignment.getFilePath());
+        // Files stored before hashing have no hash until FileHashBackfillService reaches them
+        return fileStorageService.openFile(assignment.getFilePath(), assignment.getFileHash());
     }
 
-    public byte[] downloadSubmissionFile(Long submissionId, Long teacherId) throws IOException {
+    public StoredFile downloadSubmissionFile(Long submissionId, Long teacherId) throws IOException {
         Submission submission = getSubmissionById(submissionId, teacherId);
 
         if (!submission.hasFile()) {
             throw new RuntimeException("No file attached to this submission");
         }
 
-        return fileStorageService.loadFile(submission.getFilePath());
+        return fileStorageService.openFile(submission.getFilePath(), submission.getFileHash());
     }
 
     public MediaType getMediaTypeForFile(String fileName) {
@@ -230,6 +392,7 @@ public class AssignmentService {
         dto.setFilePath(submission.getFilePath());
         dto.setFileName(submission.getFileName());
         dto.setFileSize(submission.getFileSize());
+        dto.setFileHash(submission.getFileHash());
         dto.setComments(submission.getComments());
         dto.setSubmittedAt(submission.getSubmittedAt());
         dto.setGradedAt(submission.getGradedAt());
@@ -0,0 +1,98 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.models.AssignmentStats;
+import com.example.Edu_Camp.repository.AssignmentRepository;
+import com.example.Edu_Camp.repository.AssignmentStatsRepository;
+import com.example.Edu_Camp.repository.SubmissionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reconciles the assignment_stats counters with the submissions table, catching drift from
+ * rows changed outside AssignmentService and seeding the table for existing data.
+ *
+ * Each assignment is recomputed in its own short transaction that first locks its stats row.
+ * A submit or grade running at the same time either committed before the lock (and is
+ * counted by the recompute) or applies its delta after it, so no update is lost.
+ */
+@Service
+public class AssignmentStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssignmentStatsService.class);
+
+    private final AssignmentRepository assignmentRepository;
+    private final SubmissionRepository submissionRepository;
+    private final AssignmentStatsRepository assignmentStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public AssignmentStatsService(AssignmentRepository assignmentRepository,
+                                  SubmissionRepository submissionRepository,
+                                  AssignmentStatsRepository assignmentStatsRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.assignmentRepository = assignmentRepository;
+        this.submissionRepository = submissionRepository;
+        this.assignmentStatsRepository = assignmentStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "${assignment-stats.rebuild-cron:0 30 3 * * *}")
+    public void rebuildNightly() {
+        rebuild();
+    }
+
+    /** Recomputes every assignment's counters; returns how many rows had drifted. */
+    public int rebuild() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<Long> assignmentIds = assignmentRepository.findAllIds();
+            int drifted = 0;
+            for (Long assignmentId : assignmentIds) {
+                Boolean changed = transactionTemplate.execute(status -> reconcile(assignmentId));
+                if (Boolean.TRUE.equals(changed)) drifted++;
+            }
+            Integer orphans = transactionTemplate.execute(status -> assignmentStatsRepository.deleteOrphans());
+            logger.info("Rebuilt assignment stats for {} assignments in {} ms ({} drifted, {} orphaned rows removed)",
+                    assignmentIds.size(), System.currentTimeMillis() - start, drifted, orphans);
+            return drifted;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private boolean reconcile(Long assignmentId) {
+        // Zero delta: creates the row if needed and holds its lock for the rest of the transaction
+        assignmentStatsRepository.addCounts(assignmentId, 0, 0, 0, 0);
+        AssignmentStats current = assignmentStatsRepository.findById(assignmentId).orElseThrow();
+
+        Object[] row = submissionRepository.aggregateByAssignmentId(assignmentId).get(0);
+        long submitted = ((Number) row[0]).longValue();
+        long graded = ((Number) row[1]).longValue();
+        long late = ((Number) row[2]).longValue();
+        long gradeSum = ((Number) row[3]).longValue();
+
+        if (current.getSubmittedCount() == submitted && current.getGradedCount() == graded
+                && current.getLateCount() == late && current.getGradeSum() == gradeSum) {
+            return false;
+        }
+        assignmentStatsRepository.setCounts(assignmentId, submitted, graded, late, gradeSum);
+        return true;
+    }
+}
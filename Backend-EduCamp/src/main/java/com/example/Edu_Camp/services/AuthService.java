@@ -27,6 +27,8 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final SessionService sessionService;
     private final EmailService emailService;
+    private final AutocompleteService autocompleteService;
+    private final ProfileImageService profileImageService;
 
     @Autowired
     public AuthService(UserRepository userRepository,
@@ -35,7 +37,9 @@ public class AuthService {
                        AdminRepository adminRepository,
                        PasswordEncoder passwordEncoder,
                        SessionService sessionService,
-                       @Autowired(required = false) EmailService emailService) {
+                       @Autowired(required = false) EmailService emailService,
+                       AutocompleteService autocompleteService,
+                       ProfileImageService profileImageService) {
         this.userRepository = userRepository;
         this.studentRepository = studentRepository;
         this.teacherRepository = teacherRepository;
@@ -43,6 +47,8 @@ public class AuthService {
         this.passwordEncoder = passwordEncoder;
         this.sessionService = sessionService;
         this.emailService = emailService;
+        this.autocompleteService = autocompleteService;
+        this.profileImageService = profileImageService;
     }
 
     public Map<String, String> validateStudentRegistration(StudentRegistrationDto registrationDto) {
@@ -148,11 +154,12 @@ public class AuthService {
                     registrationDto.getPhoneNumber(),
                     registrationDto.getQualification(),
                     registrationDto.getDateOfBirth(),
-                    registrationDto.getImage(),
+                    profileImageService.normalize(registrationDto.getImage(), null),
                     registrationDto.getSubjectName()
             );
 
             Teacher savedTeacher = teacherRepository.save(teacher);
+            autocompleteService.indexTeacher(savedTeacher);
 
             // Console log the temporary password for debugging/reference
             System.out.println("=== TEACHER REGISTRATION SUCCESSFUL ===");
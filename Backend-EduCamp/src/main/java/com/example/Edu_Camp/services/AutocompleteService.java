@@ -0,0 +1,174 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.AutocompleteSuggestionDto;
+import com.example.Edu_Camp.models.ClassEntity;
+import com.example.Edu_Camp.models.Subject;
+import com.example.Edu_Camp.models.Teacher;
+import com.example.Edu_Camp.repository.ClassRepository;
+import com.example.Edu_Camp.repository.SubjectRepository;
+import com.example.Edu_Camp.repository.TeacherRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory prefix index over teacher names, subject names and class grades.
+ *
+ * Terms are kept in a sorted skip list, so a prefix lookup is a range scan
+ * (O(log n + k)) and never touches the database. The index is built once at
+ * startup and kept current by the write paths that create, update or delete
+ * teachers, subjects and classes.
+ */
+@Service
+public class AutocompleteService {
+
+    public static final String TYPE_TEACHER = "TEACHER";
+    public static final String TYPE_SUBJECT = "SUBJECT";
+    public static final String TYPE_CLASS = "CLASS";
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteService.class);
+
+    // Separates the term from the entity key so equal terms of different entities stay distinct
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final char RANGE_END = '\uffff';
+
+    private final TeacherRepository teacherRepository;
+    private final SubjectRepository subjectRepository;
+    private final ClassRepository classRepository;
+
+    // "<term>\0<TYPE>:<id>" -> suggestion
+    private final ConcurrentSkipListMap<String, AutocompleteSuggestionDto> index = new ConcurrentSkipListMap<>();
+    // "<TYPE>:<id>" -> index keys currently owned by that entity
+    private final Map<String, List<String>> keysByEntity = new ConcurrentHashMap<>();
+
+    public AutocompleteService(TeacherRepository teacherRepository,
+                               SubjectRepository subjectRepository,
+                               ClassRepository classRepository) {
+        this.teacherRepository = teacherRepository;
+        this.subjectRepository = subjectRepository;
+        this.classRepository = classRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        teacherRepository.findAll().forEach(this::indexTeacher);
+        subjectRepository.findAll().forEach(this::indexSubject);
+        classRepository.findAll().forEach(this::indexClass);
+        logger.info("Autocomplete index built with {} terms", index.size());
+    }
+
+    public List<AutocompleteSuggestionDto> suggest(String prefix, String type, int limit) {
+        String normalizedPrefix = normalize(prefix);
+        if (normalizedPrefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        String typeFilter = type != null && !type.isBlank() ? type.trim().toUpperCase(Locale.ROOT) : null;
+        Set<String> seen = new HashSet<>();
+        List<AutocompleteSuggestionDto> result = new ArrayList<>(limit);
+
+        for (var entry : index.subMap(normalizedPrefix, true, normalizedPrefix + RANGE_END, false).entrySet()) {
+            AutocompleteSuggestionDto suggestion = entry.getValue();
+            if (typeFilter != null && !typeFilter.equals(suggestion.getType())) {
+                continue;
+            }
+            // A teacher is indexed under both full name and last name; return it once
+            if (seen.add(suggestion.getType() + ":" + suggestion.getId())) {
+                result.add(suggestion);
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    public void indexTeacher(Teacher teacher) {
+        if (teacher == null || teacher.getId() == null) return;
+        String fullName = joinNonBlank(" ", teacher.getFirstName(), teacher.getLastName());
+        Set<String> terms = new LinkedHashSet<>();
+        terms.add(fullName);
+        terms.add(teacher.getLastName());
+        put(TYPE_TEACHER, teacher.getId(), fullName, terms);
+    }
+
+    public void removeTeacher(Long teacherId) {
+        remove(TYPE_TEACHER, teacherId);
+    }
+
+    public void indexSubject(Subject subject) {
+        if (subject == null || subject.getId() == null) return;
+        put(TYPE_SUBJECT, subject.getId(), subject.getName(), Set.of(nullToEmpty(subject.getName())));
+    }
+
+    public void indexClass(ClassEntity classEntity) {
+        if (classEntity == null || classEntity.getClass_id() == null) return;
+        String subjects = classEntity.getSubjects() == null ? "" : classEntity.getSubjects().stream()
+                .map(Subject::getName)
+                .collect(Collectors.joining(", "));
+        String label = joinNonBlank(" - ", classEntity.getGrade(), subjects);
+        put(TYPE_CLASS, classEntity.getClass_id(), label, Set.of(nullToEmpty(classEntity.getGrade())));
+    }
+
+    public void removeClass(Long classId) {
+        remove(TYPE_CLASS, classId);
+    }
+
+    private synchronized void put(String type, Long id, String label, Set<String> terms) {
+        remove(type, id);
+
+        AutocompleteSuggestionDto suggestion = new AutocompleteSuggestionDto(type, id, label);
+        String entityKey = type + ":" + id;
+        List<String> keys = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            String normalized = normalize(term);
+            if (normalized.isEmpty()) continue;
+            String key = normalized + KEY_SEPARATOR + entityKey;
+            index.put(key, suggestion);
+            keys.add(key);
+        }
+        keysByEntity.put(entityKey, keys);
+    }
+
+    private synchronized void remove(String type, Long id) {
+        if (id == null) return;
+        List<String> keys = keysByEntity.remove(type + ":" + id);
+        if (keys != null) {
+            keys.forEach(index::remove);
+        }
+    }
+
+    private static String normalize(String term) {
+        if (term == null) return "";
+        return term.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String joinNonBlank(String separator, String... parts) {
+        List<String> nonBlank = new ArrayList<>();
+        for (String part : parts) {
+            if (part != null && !part.isBlank()) {
+                nonBlank.add(part.trim());
+            }
+        }
+        return String.join(separator, nonBlank);
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.ScheduleEntryDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders a user's weekly timetable as an iCalendar (RFC 5545) feed.
+ *
+ * Rendered feeds are cached per user under the schedule version reported by the
+ * timetable index, so a feed is only re-rendered after the user's enrollments or
+ * classes change. The version doubles as the feed's ETag. Only the most recently
+ * requested feeds are kept.
+ *
+ * Times are local to the server's zone, which the feed defines in a VTIMEZONE, so a
+ * weekly class keeps its wall-clock time across daylight saving changes.
+ */
+@Service
+public class CalendarFeedService {
+
+    private static final DateTimeFormatter LOCAL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UTC_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final int MAX_LINE_OCTETS = 75;
+    private static final int MAX_CACHED_FEEDS = 1024;
+    // Years of zone transitions written into the VTIMEZONE
+    private static final int TIMEZONE_YEARS = 10;
+
+    public record Feed(String etag, String body) {}
+
+    private record CachedFeed(String version, Feed feed) {}
+
+    private final ScheduleService scheduleService;
+    private final TimetableIndexService timetableIndexService;
+    private final TokenSigner signer;
+    private final ZoneId zone;
+    // Access-ordered, so the least recently requested feed is dropped first
+    private final Map<String, CachedFeed> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedFeed> eldest) {
+            return size() > MAX_CACHED_FEEDS;
+        }
+    };
+
+    @Autowired
+    public CalendarFeedService(ScheduleService scheduleService,
+                               TimetableIndexService timetableIndexService,
+                               @Value("${calendar.feed-secret:}") String feedSecret) {
+        this(scheduleService, timetableIndexService, feedSecret, ZoneId.systemDefault());
+    }
+
+    CalendarFeedService(ScheduleService scheduleService, TimetableIndexService timetableIndexService,
+                        String feedSecret, ZoneId zone) {
+        this.scheduleService = scheduleService;
+        this.timetableIndexService = timetableIndexService;
+        this.zone = zone;
+        this.signer = new TokenSigner(feedSecret,
+                "calendar.feed-secret is not set; calendar feed URLs will change on every restart");
+    }
+
+    public Feed getFeed(String role, Long userId) {
+        String key = role + ":" + userId;
+        String version = timetableIndexService.getScheduleVersion(role, userId);
+
+        CachedFeed cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null && cached.version().equals(version)) {
+            return cached.feed();
+        }
+
+        Feed feed = new Feed("\"" + version + "\"", render(role, userId));
+        synchronized (cache) {
+            cache.put(key, new CachedFeed(version, feed));
+        }
+        return feed;
+    }
+
+    /** Token embedded in the feed URL, since calendar clients cannot send the session cookie. */
+    public String feedToken(String role, Long userId) {
+        return signer.signToUrl(role + ":" + userId);
+    }
+
+    public boolean isValidToken(String role, Long userId, String token) {
+        return TokenSigner.matches(feedToken(role, userId), token);
+    }
+
+    private String render(String role, Long userId) {
+        List<ScheduleEntryDto> entries = scheduleService.getSchedule(role, userId, "week");
+        LocalDate monday = LocalDate.now(zone).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        String stamp = ZonedDateTime.now(ZoneOffset.UTC).format(UTC_DATE_TIME);
+
+        StringBuilder ics = new StringBuilder(256 + entries.size() * 256);
+        line(ics, "BEGIN:VCALENDAR");
+        line(ics, "VERSION:2.0");
+        line(ics, "PRODID:-//EduCamp//Timetable//EN");
+        line(ics, "CALSCALE:GREGORIAN");
+        line(ics, "METHOD:PUBLISH");
+        line(ics, "X-WR-CALNAME:EduCamp classes");
+        line(ics, "X-WR-TIMEZONE:" + zone.getId());
+        timezone(ics, zone, monday);
+
+        for (ScheduleEntryDto entry : entries) {
+            LocalDate date = monday.plusDays(entry.getDayOfWeek().getValue() - 1L);
+            String start = date.atTime(LocalTime.parse(entry.getStartTime())).format(LOCAL_DATE_TIME);
+            String end = "24:00".equals(entry.getEndTime())
+                    ? date.plusDays(1).atStartOfDay().format(LOCAL_DATE_TIME)
+                    : date.atTime(LocalTime.parse(entry.getEndTime())).format(LOCAL_DATE_TIME);
+
+            String summary = entry.getGrade() + (entry.getSubjects() == null || entry.getSubjects().isEmpty()
+                    ? "" : " - " + String.join(", ", entry.getSubjects()));
+
+            line(ics, "BEGIN:VEVENT");
+            line(ics, "UID:class-" + entry.getClassId() + "-" + entry.getDayOfWeek() + "-"
+                    + entry.getStartTime().replace(":", "") + "@educamp");
+            line(ics, "DTSTAMP:" + stamp);
+            line(ics, "DTSTART;TZID=" + zone.getId() + ":" + start);
+            line(ics, "DTEND;TZID=" + zone.getId() + ":" + end);
+            line(ics, "RRULE:FREQ=WEEKLY;BYDAY=" + entry.getDayOfWeek().name().substring(0, 2));
+            line(ics, "SUMMARY:" + escape(summary));
+            if (entry.getTeacherName() != null) {
+                line(ics, "DESCRIPTION:" + escape("Teacher: " + entry.getTeacherName()));
+            }
+            line(ics, "END:VEVENT");
+        }
+
+        line(ics, "END:VCALENDAR");
+        return ics.toString();
+    }
+
+    /**
+     * VTIMEZONE (RFC 5545 section 3.6.5) for the zone from the given date on: the observance
+     * in effect then, followed by every transition over the next TIMEZONE_YEARS years.
+     */
+    private static void timezone(StringBuilder ics, ZoneId zone, LocalDate from) {
+        ZoneRules rules = zone.getRules();
+        Instant start = from.atStartOfDay(zone).toInstant();
+        Instant end = from.plusYears(TIMEZONE_YEARS).atStartOfDay(zone).toInstant();
+
+        line(ics, "BEGIN:VTIMEZONE");
+        line(ics, "TZID:" + zone.getId());
+        ZoneOffsetTransition current = rules.previousTransition(start);
+        if (current != null) {
+            observance(ics, rules, current);
+        } else {
+            // Fixed offset
+            ZoneOffset offset = rules.getOffset(start);
+            line(ics, "BEGIN:STANDARD");
+            line(ics, "DTSTART:19700101T000000");
+            line(ics, "TZOFFSETFROM:" + offset(offset));
+            line(ics, "TZOFFSETTO:" + offset(offset));
+            line(ics, "END:STANDARD");
+        }
+        for (ZoneOffsetTransition next = rules.nextTransition(start);
+             next != null && next.getInstant().isBefore(end);
+             next = rules.nextTransition(next.getInstant())) {
+            observance(ics, rules, next);
+        }
+        line(ics, "END:VTIMEZONE");
+    }
+
+    private static void observance(StringBuilder ics, ZoneRules rules, ZoneOffsetTransition transition) {
+        String type = rules.isDaylightSavings(transition.getInstant()) ? "DAYLIGHT" : "STANDARD";
+        line(ics, "BEGIN:" + type);
+        line(ics, "DTSTART:" + transition.getDateTimeBefore().format(LOCAL_DATE_TIME));
+        line(ics, "TZOFFSETFROM:" + offset(transition.getOffsetBefore()));
+        line(ics, "TZOFFSETTO:" + offset(transition.getOffsetAfter()));
+        line(ics, "END:" + type);
+    }
+
+    // UTC offset as [+-]HHMM[SS]
+    private static String offset(ZoneOffset offset) {
+        int seconds = Math.abs(offset.getTotalSeconds());
+        String text = (offset.getTotalSeconds() < 0 ? "-" : "+")
+                + String.format("%02d%02d", seconds / 3600, seconds / 60 % 60);
+        return seconds % 60 == 0 ? text : text + String.format("%02d", seconds % 60);
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n");
+    }
+
+    // Content lines are folded at 75 octets with CRLF + space (RFC 5545 section 3.1)
+    private static void line(StringBuilder out, String content) {
+        int octets = 0;
+        for (int i = 0; i < content.length(); ) {
+            int codePoint = content.codePointAt(i);
+            int width = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8).length;
+            if (octets + width > MAX_LINE_OCTETS) {
+                out.append("\r\n ");
+                octets = 1;
+            }
+            out.appendCodePoint(codePoint);
+            octets += width;
+            i += Character.charCount(codePoint);
+        }
+        out.append("\r\n");
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.models.StoredObject;
+import com.example.Edu_Camp.repository.StoredObjectRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Compresses the files of submissions graded long ago, which are rarely read again. Each
+ * object is replaced by a deflated copy under the same key plus ".deflate"; reads find the
+ * copy and decompress it on the fly, so nothing else needs to know. The codec is recorded on
+ * the stored object, "identity" for files left as they are.
+ *
+ * Whether a file is worth compressing is decided by deflating its first few hundred
+ * kilobytes: PDFs with compressed streams, Office documents (already ZIPs), images and
+ * archives barely shrink and are skipped after reading only that sample.
+ */
+@Service
+public class ColdStorageTierService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColdStorageTierService.class);
+
+    static final String IDENTITY = "identity";
+
+    private static final int BATCH_SIZE = 100;
+    private static final int SAMPLE_BYTES = 256 * 1024;
+    private static final long MIN_SIZE = 4 * 1024;
+    // Compressed size, as a fraction of the original, above which the file is kept as it is
+    private static final double MAX_RATIO = 0.9;
+
+    public record TierStatus(boolean running, long examined, long compressed, long skipped, long failed,
+                             long bytesBefore, long bytesAfter, Instant startedAt, Instant finishedAt,
+                             long totalCompressed, long totalBytesSaved) {}
+
+    private final FileStorageService fileStorageService;
+    private final StoredObjectRepository storedObjectRepository;
+    private final TransactionTemplate required;
+    private final long coldAfterDays;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cold-storage-tier");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong examined = new AtomicLong();
+    private final AtomicLong compressed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong bytesBefore = new AtomicLong();
+    private final AtomicLong bytesAfter = new AtomicLong();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    public ColdStorageTierService(FileStorageService fileStorageService,
+                                  StoredObjectRepository storedObjectRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${file.tiering.cold-after-days:180}") long coldAfterDays) {
+        this.fileStorageService = fileStorageService;
+        this.storedObjectRepository = storedObjectRepository;
+        this.required = new TransactionTemplate(transactionManager);
+        this.coldAfterDays = coldAfterDays;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(cron = "${file.tiering.cron:0 0 4 * * SUN}")
+    public void scheduledRun() {
+        start();
+    }
+
+    /** Starts a pass in the background; does nothing when one is already running. */
+    public TierStatus start() {
+        if (!running.compareAndSet(false, true)) {
+            return status();
+        }
+        examined.set(0);
+        compressed.set(0);
+        skipped.set(0);
+        failed.set(0);
+        bytesBefore.set(0);
+        bytesAfter.set(0);
+        startedAt = Instant.now();
+        finishedAt = null;
+
+        executor.execute(() -> {
+            try {
+                tierAll();
+            } catch (Exception e) {
+                logger.error("Cold storage tiering aborted", e);
+            } finally {
+                finishedAt = Instant.now();
+                running.set(false);
+                logger.info("Cold storage tiering finished: {}", status());
+            }
+        });
+        return status();
+    }
+
+    /** Counters of the current or last pass, and the totals over everything compressed so far. */
+    public TierStatus status() {
+        Object[] totals = storedObjectRepository.summarizeCodec(DeflateCodec.NAME).get(0);
+        long count = ((Number) totals[0]).longValue();
+        long saved = ((Number) totals[1]).longValue() - ((Number) totals[2]).longValue();
+        return new TierStatus(running.get(), examined.get(), compressed.get(), skipped.get(), failed.get(),
+                bytesBefore.get(), bytesAfter.get(), startedAt, finishedAt, count, saved);
+    }
+
+    private void tierAll() {
+        LocalDateTime gradedBefore = LocalDateTime.now().minusDays(coldAfterDays);
+        String afterHash = "";
+        List<StoredObject> batch;
+        do {
+            batch = storedObjectRepository.findColdCandidates(gradedBefore, afterHash, PageRequest.of(0, BATCH_SIZE));
+            for (StoredObject object : batch) {
+                if (Thread.currentThread().isInterrupted()) return;
+                examined.incrementAndGet();
+                try {
+                    tier(object);
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    logger.warn("Could not compress object {}: {}", object.getHash(), e.getMessage());
+                }
+                afterHash = object.getHash();
+            }
+        } while (batch.size() == BATCH_SIZE);
+    }
+
+    void tier(StoredObject object) throws IOException {
+        String hash = object.getHash();
+        String key = FileStorageService.objectPath(hash);
+        StoredFile file = fileStorageService.openFile(key, hash);
+        StorageBackend backend = file.backend();
+
+        if (file.codec() != null) {
+            // Compressed by a pass that stopped before recording it
+            long stored = backend.stat(key + DeflateCodec.SUFFIX).orElseThrow().size();
+            recordCodec(hash, DeflateCodec.NAME, stored);
+            return;
+        }
+        if (file.size() < MIN_SIZE || !compressible(file)) {
+            recordCodec(hash, IDENTITY, null);
+            skipped.incrementAndGet();
+            return;
+        }
+
+        Path temp = Files.createTempFile(fileStorageService.tempDir(), "tier-", ".deflate");
+        try {
+            try (InputStream in = file.openStream();
+                 OutputStream out = DeflateCodec.compress(Files.newOutputStream(temp), file.size())) {
+                in.transferTo(out);
+            }
+            long stored = Files.size(temp);
+            if (stored > file.size() * MAX_RATIO) {
+                recordCodec(hash, IDENTITY, null);
+                skipped.incrementAndGet();
+                return;
+            }
+
+            // Copy in place, then drop the original: reads switch to the copy as soon as it is gone
+            backend.put(key + DeflateCodec.SUFFIX, temp);
+            backend.delete(key);
+            if (!recordCodec(hash, DeflateCodec.NAME, stored)) {
+                // The object was released meanwhile; nothing references the copy either
+                backend.delete(key + DeflateCodec.SUFFIX);
+                return;
+            }
+            compressed.incrementAndGet();
+            bytesBefore.addAndGet(file.size());
+            bytesAfter.addAndGet(stored);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Deflates a sample from the start of the file and checks that it shrinks enough
+    private static boolean compressible(StoredFile file) throws IOException {
+        byte[] sample;
+        try (InputStream in = file.openStream(0, Math.min(file.size(), SAMPLE_BYTES))) {
+            sample = in.readAllBytes();
+        }
+        CountingOutputStream counter = new CountingOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(counter, deflater)) {
+            out.write(sample);
+        } finally {
+            deflater.end();
+        }
+        return counter.count <= sample.length * MAX_RATIO;
+    }
+
+    private boolean recordCodec(String hash, String codec, Long storedSize) {
+        Integer updated = required.execute(status -> storedObjectRepository.recordCodec(hash, codec, storedSize));
+        return updated != null && updated > 0;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.Edu_Camp.services;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Layout of a compressed object: stored under its usual key plus SUFFIX, as a 4-byte magic
+ * and the original length, followed by a zlib stream. Keeping the length in the object
+ * means a read can report the real size without looking anything up in the database.
+ */
+final class DeflateCodec {
+
+    static final String NAME = "deflate";
+    static final String SUFFIX = ".deflate";
+    static final int HEADER_LENGTH = 12;
+
+    private static final int MAGIC = 0x45444331; // "EDC1"
+
+    private DeflateCodec() {}
+
+    static DeflaterOutputStream compress(OutputStream out, long originalSize) throws IOException {
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeLong(originalSize);
+        header.flush();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        return new DeflaterOutputStream(out, deflater, 64 * 1024) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    static long readOriginalSize(InputStream header) throws IOException {
+        DataInputStream in = new DataInputStream(header);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a compressed object");
+        }
+        return in.readLong();
+    }
+
+    /** Bytes [start, end) of the original content, given the stream after the header. */
+    static InputStream decompress(InputStream compressed, long start, long end) throws IOException {
+        Inflater inflater = new Inflater();
+        InputStream in = new InflaterInputStream(compressed, inflater, 64 * 1024) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+        try {
+            in.skipNBytes(start);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new FilterInputStream(in) {
+            private long remaining = end - start;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) return -1;
+                int b = super.read();
+                if (b >= 0) remaining--;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (remaining <= 0) return -1;
+                int n = super.read(buffer, offset, (int) Math.min(length, remaining));
+                if (n > 0) remaining -= n;
+                return n;
+            }
+        };
+    }
+}
@@ -28,6 +28,7 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -50,19 +51,22 @@ public class EnrollmentService {
     private final ClassRepository classRepository;
     private final PaymentRepository paymentRepository;
     private final UserRepository userRepository;
+    private final TimetableIndexService timetableIndexService;
 
     public EnrollmentService(
             EnrollmentRepository enrollmentRepository,
             StudentRepository studentRepository,
             ClassRepository classRepository,
             PaymentRepository paymentRepository,
-            UserRepository userRepository
+            UserRepository userRepository,
+            TimetableIndexService timetableIndexService
     ) {
         this.enrollmentRepository = enrollmentRepository;
         this.studentRepository = studentRepository;
         this.classRepository = classRepository;
         this.paymentRepository = paymentRepository;
         this.userRepository = userRepository;
+        this.timetableIndexService = timetableIndexService;
     }
 
     // Read operations (used by controller)
@@ -91,6 +95,10 @@ public class EnrollmentService {
      * Accepts EnrollmentDTO which may contain studentId, studentNumber, userId, classId, paymentId, status, enrolledAt.
      */
     public Enrollment createEnrollment(EnrollmentDTO dto) {
+        return createEnrollment(dto, true);
+    }
+
+    private Enrollment createEnrollment(EnrollmentDTO dto, boolean enforceTimetable) {
         // validate minimal required fields
         if (dto == null) {
             throw new IllegalStateException("Missing enrollment payload");
@@ -129,6 +137,8 @@ public class EnrollmentService {
             }
         }
 
+        checkTimetableClash(student, classEntity, enforceTimetable);
+
         // resolve User (optional) - used to populate Enrollment.user if provided
         User user = null;
         if (dto.getUserId() != null) {
@@ -178,6 +188,7 @@ public class EnrollmentService {
         }
 
         Enrollment saved = enrollmentRepository.save(enrollment);
+        timetableIndexService.addEnrollment(saved.getStudentId(), saved.getClassId());
         LOGGER.info("Created enrollment id={} studentId={} classId={} paymentId={}", saved.getId(),
                 saved.getStudentId(), saved.getClassId(), saved.getPaymentId());
         return saved;
@@ -238,7 +249,8 @@ public class EnrollmentService {
         LOGGER.debug("No existing enrollment found; creating new enrollment with userId={}, studentId={}, classId={}, paymentId={}",
                 userId, dto.getStudentId(), classId, paymentId);
 
-        return createEnrollment(dto);
+        // The class is already paid for at this point, so a clash is logged rather than rejected
+        return createEnrollment(dto, false);
     }
 
     public Enrollment createFromPayment(Long paymentId) {
@@ -296,6 +308,9 @@ public class EnrollmentService {
             throw new IllegalStateException("Missing enrollment payload");
         }
 
+        Long previousStudentId = existing.getStudentId();
+        Long previousClassId = existing.getClassId();
+
         // update student if provided (either by id or by studentNumber)
         if (dto.getStudentId() != null) {
             Student student = studentRepository.findById(dto.getStudentId())
@@ -349,7 +364,17 @@ public class EnrollmentService {
             }
         }
 
+        if (!Objects.equals(previousStudentId, existing.getStudentId())
+                || !Objects.equals(previousClassId, existing.getClassId())) {
+            checkTimetableClash(existing.getStudent(), existing.getClassEntity(), true);
+        }
+
         Enrollment saved = enrollmentRepository.save(existing);
+        if (!Objects.equals(previousStudentId, saved.getStudentId())
+                || !Objects.equals(previousClassId, saved.getClassId())) {
+            timetableIndexService.removeEnrollment(previousStudentId, previousClassId);
+            timetableIndexService.addEnrollment(saved.getStudentId(), saved.getClassId());
+        }
         LOGGER.info("Updated enrollment id={}", saved.getId());
         return saved;
     }
@@ -358,13 +383,38 @@ public class EnrollmentService {
      * Delete an enrollment by id.
      */
     public void deleteEnrollment(Long id) {
-        if (!enrollmentRepository.existsById(id)) {
-            throw new IllegalArgumentException("Enrollment not found: " + id);
-        }
-        enrollmentRepository.deleteById(id);
+        Enrollment existing = enrollmentRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Enrollment not found: " + id));
+        enrollmentRepository.delete(existing);
+        timetableIndexService.removeEnrollment(existing.getStudentId(), existing.getClassId());
         LOGGER.info("Deleted enrollment id={}", id);
     }
 
+    /**
+     * Rejects (or, when enforce is false, only logs) an enrollment whose class overlaps
+     * another class already on the student's timetable. The class's slots stay reserved
+     * for the student until this transaction ends, so a concurrent enrollment sees them.
+     */
+    private void checkTimetableClash(Student student, ClassEntity classEntity, boolean enforce) {
+        if (student == null || student.getId() == null || classEntity == null) {
+            return;
+        }
+        TimetableIndexService.Reservation reservation = timetableIndexService.reserveSlots(
+                TimetableIndexService.ROLE_STUDENT, student.getId(), classEntity.getClass_id(),
+                classEntity.getTimetableSlots());
+        List<Long> conflicts = reservation.conflicts();
+        if (conflicts.isEmpty()) {
+            return;
+        }
+        if (enforce) {
+            reservation.close();
+            throw new TimetableConflictException(
+                    "Class " + classEntity.getClass_id() + " overlaps the student's classes", conflicts);
+        }
+        LOGGER.warn("Enrollment of studentId={} in classId={} overlaps classes {}",
+                student.getId(), classEntity.getClass_id(), conflicts);
+    }
+
     /**
      * Helper to parse status strings like "true","false","1","0","active","inactive"
      */
@@ -0,0 +1,91 @@
+package com.example.Edu_Camp.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Records the SHA-256 of files stored before uploads were hashed, in the background after
+ * startup, so downloads never hash on the request path. Until a row is reached its file is
+ * served with a weak ETag built from size and modification time (see FileResponseWriter).
+ *
+ * Rows are taken in id order, a batch at a time; each hash is written with a conditional
+ * UPDATE, so a row whose file was replaced meanwhile keeps the hash of its new upload.
+ */
+@Service
+public class FileHashBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileHashBackfillService.class);
+
+    private static final List<String> TABLES = List.of("assignments", "submissions", "material");
+    private static final int BATCH = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FileStorageService fileStorageService;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "file-hash-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FileHashBackfillService(JdbcTemplate jdbcTemplate, FileStorageService fileStorageService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fileStorageService = fileStorageService;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillLegacyHashes() {
+        executor.execute(() -> {
+            for (String table : TABLES) {
+                try {
+                    backfill(table);
+                } catch (Exception e) {
+                    logger.warn("Could not backfill file hashes in {}: {}", table, e.getMessage());
+                }
+            }
+        });
+    }
+
+    // Returns the number of rows that got their hash
+    long backfill(String table) {
+        long hashed = 0;
+        long afterId = 0;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbcTemplate.queryForList("SELECT id, file_path FROM " + table +
+                    " WHERE id > ? AND file_path IS NOT NULL AND file_hash IS NULL ORDER BY id LIMIT " + BATCH, afterId);
+            for (Map<String, Object> row : rows) {
+                if (Thread.currentThread().isInterrupted()) return hashed;
+                long id = ((Number) row.get("id")).longValue();
+                String filePath = (String) row.get("file_path");
+                afterId = id;
+                try {
+                    String hash = fileStorageService.hashFile(filePath);
+                    hashed += jdbcTemplate.update("UPDATE " + table + " SET file_hash = ? " +
+                            "WHERE id = ? AND file_path = ? AND file_hash IS NULL", hash, id, filePath);
+                } catch (Exception e) {
+                    // Missing files are reported by the storage scrub; the row keeps its weak ETag
+                    logger.warn("Could not hash file of {} {}: {}", table, id, e.getMessage());
+                }
+            }
+        } while (rows.size() == BATCH);
+        if (hashed > 0) {
+            logger.info("Recorded the hash of {} files in {}", hashed, table);
+        }
+        return hashed;
+    }
+}
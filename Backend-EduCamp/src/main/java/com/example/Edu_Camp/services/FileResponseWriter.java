@@ -0,0 +1,373 @@
+package com.example.Edu_Camp.services;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes a StoredFile to the servlet response without buffering it on the heap.
+ *
+ * When the connector supports sendfile (Tomcat NIO does by default) the file is handed to the
+ * container and copied by the kernel after the handler returns. Otherwise the bytes are moved
+ * with FileChannel.transferTo into the response stream. Files on a remote backend are piped
+ * through from the backend's stream, or served from HotFileCache once they are popular.
+ *
+ * Supports conditional requests (If-Match, If-None-Match, If-Modified-Since, If-Range) and
+ * byte ranges (RFC 9110): one range is answered with a plain 206, several with
+ * multipart/byteranges. The ETag is the stored SHA-256, so it is strong and stable across
+ * restarts and copies of the file. A file stored before uploads were hashed gets a weak ETag
+ * from its size and modification time instead, good for revalidation but never for If-Range.
+ *
+ * Behind nginx (or Apache/lighttpd) file.serve.delegation can hand local files to the proxy
+ * instead: the response carries only headers plus X-Accel-Redirect (a URI under an internal
+ * location aliased to the upload directory) or X-Sendfile (the absolute path), and the proxy
+ * streams the bytes and answers range requests itself.
+ */
+@Component
+public class FileResponseWriter {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // More ranges than this (after merging) are answered with the whole file
+    private static final int MAX_RANGES = 16;
+
+    static final String X_ACCEL_REDIRECT = "X-Accel-Redirect";
+    static final String X_SENDFILE = "X-Sendfile";
+
+    private final HotFileCache hotFileCache;
+    // "none", "x-accel-redirect" or "x-sendfile"
+    private final String delegation;
+    private final String accelPrefix;
+
+    public FileResponseWriter(HotFileCache hotFileCache,
+                              @Value("${file.serve.delegation:none}") String delegation,
+                              @Value("${file.serve.accel-prefix:/protected-uploads/}") String accelPrefix) {
+        this.hotFileCache = hotFileCache;
+        this.delegation = delegation.trim().toLowerCase();
+        this.accelPrefix = accelPrefix.endsWith("/") ? accelPrefix : accelPrefix + "/";
+    }
+
+    /** Byte range [start, end) of the file. */
+    record Range(long start, long end) {
+        long length() { return end - start; }
+
+        String contentRange(long size) {
+            return "bytes " + start + "-" + (end - 1) + "/" + size;
+        }
+    }
+
+    public void write(HttpServletRequest request, HttpServletResponse response, StoredFile file,
+                      MediaType mediaType, boolean inline, String fileName) throws IOException {
+        long lastModified = file.lastModified().toEpochMilli();
+        String etag = etag(file);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch != null && !matches(ifMatch, etag, false)) {
+            response.setStatus(HttpServletResponse.SC_PRECONDITION_FAILED);
+            return;
+        }
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            if (matches(ifNoneMatch, etag, true)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        } else {
+            long ifModifiedSince = parseDateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+            // HTTP dates have second precision
+            if (ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        if (fileName != null) {
+            ContentDisposition disposition = (inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+                    .filename(fileName, StandardCharsets.UTF_8)
+                    .build();
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+        }
+
+        if (delegate(response, file, mediaType)) return;
+
+        long size = file.size();
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        List<Range> ranges = rangeHeader != null && ifRangeHolds(request, etag, lastModified)
+                ? parseRanges(rangeHeader, size)
+                : null;
+
+        if (ranges != null && ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return;
+        }
+
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(mediaType.toString());
+            response.setContentLengthLong(size);
+            if (!head) send(request, response, file, new Range(0, size));
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            Range range = ranges.get(0);
+            response.setContentType(mediaType.toString());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, range.contentRange(size));
+            response.setContentLengthLong(range.length());
+            if (!head) send(request, response, file, range);
+            return;
+        }
+
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (Range range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + mediaType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + range.contentRange(size) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (head) return;
+
+        ServletOutputStream out = response.getOutputStream();
+        ByteBuffer cached = hotFileCache.content(file);
+        if (cached != null) {
+            WritableByteChannel channel = Channels.newChannel(out);
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                write(cached, ranges.get(i), channel);
+            }
+        } else if (file.isLocal()) {
+            WritableByteChannel channel = Channels.newChannel(out);
+            try (FileChannel source = file.openChannel()) {
+                for (int i = 0; i < ranges.size(); i++) {
+                    out.write(partHeaders.get(i));
+                    transfer(source, ranges.get(i), channel, file);
+                }
+            }
+        } else {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                copy(file, ranges.get(i), out);
+            }
+        }
+        out.write(closing);
+    }
+
+    // Leaves the body to the front proxy; only local files can be delegated
+    private boolean delegate(HttpServletResponse response, StoredFile file, MediaType mediaType) {
+        if (!file.isLocal()) return false;
+        String header;
+        String target;
+        switch (delegation) {
+            case "x-accel-redirect" -> {
+                if (!(file.backend() instanceof LocalDiskStorageBackend disk)) return false;
+                String relative = disk.root().relativize(file.path().toAbsolutePath().normalize()).toString()
+                        .replace(File.separatorChar, '/');
+                header = X_ACCEL_REDIRECT;
+                target = accelPrefix + UriUtils.encodePath(relative, StandardCharsets.UTF_8);
+            }
+            case "x-sendfile" -> {
+                header = X_SENDFILE;
+                target = file.path().toAbsolutePath().toString();
+            }
+            default -> {
+                return false;
+            }
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(mediaType.toString());
+        response.setHeader(header, target);
+        return true;
+    }
+
+    // Streams one range, through sendfile when the container offers it
+    private void send(HttpServletRequest request, HttpServletResponse response, StoredFile file,
+                      Range range) throws IOException {
+        if (!file.isLocal()) {
+            ByteBuffer cached = hotFileCache.content(file);
+            if (cached != null) {
+                write(cached, range, Channels.newChannel(response.getOutputStream()));
+            } else {
+                copy(file, range, response.getOutputStream());
+            }
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end());
+            return;
+        }
+
+        try (FileChannel source = file.openChannel()) {
+            transfer(source, range, Channels.newChannel(response.getOutputStream()), file);
+        }
+    }
+
+    private static void transfer(FileChannel source, Range range, WritableByteChannel out,
+                                 StoredFile file) throws IOException {
+        long position = range.start();
+        while (position < range.end()) {
+            long sent = source.transferTo(position, range.end() - position, out);
+            if (sent <= 0 && position >= source.size()) {
+                throw new IOException("File shrank while it was being sent: " + file.key());
+            }
+            position += sent;
+        }
+    }
+
+    private static void write(ByteBuffer content, Range range, WritableByteChannel out) throws IOException {
+        ByteBuffer slice = content.duplicate().limit((int) range.end()).position((int) range.start());
+        while (slice.hasRemaining()) {
+            out.write(slice);
+        }
+    }
+
+    // Remote objects: the range is fetched from the backend and piped through
+    private static void copy(StoredFile file, Range range, OutputStream out) throws IOException {
+        try (InputStream in = file.openStream(range.start(), range.end())) {
+            long copied = in.transferTo(out);
+            if (copied != range.length()) {
+                throw new IOException("File shrank while it was being sent: " + file.key());
+            }
+        }
+    }
+
+    /**
+     * Parses "bytes=0-99,200-,-50". Returns null when the header is malformed or asks for too
+     * many ranges (the whole file is sent), and an empty list when no range is satisfiable.
+     * Overlapping and adjacent ranges are merged.
+     */
+    static List<Range> parseRanges(String header, long size) {
+        if (!header.startsWith("bytes=") || size == 0) return null;
+
+        List<Range> ranges = new ArrayList<>();
+        for (String spec : header.substring(6).split(",")) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) return null;
+            try {
+                String first = spec.substring(0, dash).trim();
+                String last = spec.substring(dash + 1).trim();
+                long start;
+                long end;
+                if (first.isEmpty()) {
+                    // suffix range: the last N bytes
+                    long suffix = Long.parseLong(last);
+                    if (suffix <= 0) continue;
+                    start = Math.max(0, size - suffix);
+                    end = size;
+                } else {
+                    start = Long.parseLong(first);
+                    if (last.isEmpty()) {
+                        end = size;
+                    } else {
+                        long lastByte = Long.parseLong(last);
+                        if (lastByte < start) return null;
+                        end = Math.min(size, lastByte + 1);
+                    }
+                }
+                if (start >= size || start < 0) continue;
+                ranges.add(new Range(start, end));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        ranges.sort(Comparator.comparingLong(Range::start));
+        List<Range> merged = new ArrayList<>();
+        for (Range range : ranges) {
+            Range previous = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (previous != null && range.start() <= previous.end()) {
+                merged.set(merged.size() - 1, new Range(previous.start(), Math.max(previous.end(), range.end())));
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged.size() > MAX_RANGES ? null : merged;
+    }
+
+    // Strong from the content hash when there is one, otherwise weak from size and modification time
+    static String etag(StoredFile file) {
+        if (file.sha256() != null) return "\"" + file.sha256() + "\"";
+        return "W/\"" + Long.toHexString(file.size()) + "-" + Long.toHexString(file.lastModified().toEpochMilli()) + "\"";
+    }
+
+    // If-Range: serve the range only if the representation is unchanged, otherwise the whole file
+    private static boolean ifRangeHolds(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range requires a strong comparison, which a weak ETag never passes
+            return !etag.startsWith("W/") && etag.equals(ifRange);
+        }
+        long date = parseDateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    // Matches an If-Match / If-None-Match list against the current ETag; a strong comparison
+    // (If-Match) fails if either side is weak, a weak one (If-None-Match) ignores the W/
+    private static boolean matches(String header, String etag, boolean weak) {
+        if (header.trim().equals("*")) return true;
+        if (!weak && etag.startsWith("W/")) return false;
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                if (!weak) continue;
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(opaque)) return true;
+        }
+        return false;
+    }
+
+    private static long parseDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
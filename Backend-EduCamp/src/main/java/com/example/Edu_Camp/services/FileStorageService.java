@@ -1,59 +1,238 @@
 package com.example.Edu_Camp.services;
 
+import com.example.Edu_Camp.repository.StoredObjectRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class FileStorageService {
 
-    @Value("${file.upload-dir:./uploads}")
-    private String uploadDir;
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
 
-    public String storeFile(MultipartFile file, String subDirectory) throws IOException {
-        Path uploadPath = Paths.get(uploadDir, subDirectory).toAbsolutePath().normalize();
+    static final String OBJECTS_DIR = "objects";
+    static final String TEMP_DIR = "tmp";
+    // Files derived from an object, stored under its key plus one of these and deleted with it
+    static final List<String> DERIVED_SUFFIXES = Stream.concat(
+            Stream.of(DeflateCodec.SUFFIX, ImageVariantService.THUMBNAIL_SUFFIX, ImageVariantService.PREVIEW_SUFFIX),
+            ProfileImageService.VARIANTS.keySet().stream().map(ProfileImageService::suffix)).toList();
 
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
+    private final StoredObjectRepository storedObjectRepository;
+    private final TransactionTemplate required;
+    private final TransactionTemplate requiresNew;
+    private final StorageBackend storage;
+    // Uploads are staged here; also holds files written before a remote backend was configured
+    private final LocalDiskStorageBackend local;
+    private final HotFileCache hotFileCache;
+
+    public FileStorageService(StoredObjectRepository storedObjectRepository,
+                              PlatformTransactionManager transactionManager,
+                              StorageBackend storage,
+                              HotFileCache hotFileCache,
+                              @Value("${file.upload-dir:./uploads}") String uploadDir) {
+        this.storedObjectRepository = storedObjectRepository;
+        this.required = new TransactionTemplate(transactionManager);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.storage = storage;
+        this.hotFileCache = hotFileCache;
+        Path root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.local = storage instanceof LocalDiskStorageBackend disk && disk.root().equals(root)
+                ? disk
+                : new LocalDiskStorageBackend(root, TEMP_DIR);
+    }
+
+    /**
+     * Stores an upload in content-addressed storage and takes one reference on it.
+     *
+     * The content is hashed while it streams to a local temp file, then handed to the storage
+     * backend as objects/{sha256}. If that object already exists the temp file is dropped, so
+     * a duplicate upload costs only the reference.
+     *
+     * The copy and the upload to the backend run before any transaction is touched; the key
+     * is content-addressed, so writing it again is harmless. Only taking the reference runs
+     * in a transaction: the caller's if there is one, so the reference is rolled back with it,
+     * otherwise a short one of its own, in which case the caller must release() the reference
+     * if it does not end up using the file.
+     */
+    public StoredUpload storeFile(MultipartFile file) throws IOException {
+        Path temp = Files.createTempFile(tempDir(), "upload-", ".part");
 
-        String originalFileName = file.getOriginalFilename();
-        String fileExtension = "";
-        if (originalFileName != null && originalFileName.contains(".")) {
-            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            return place(temp, hash, size, file.getOriginalFilename());
+        } finally {
+            Files.deleteIfExists(temp);
         }
+    }
 
-        String fileName = UUID.randomUUID().toString() + fileExtension;
-        Path targetLocation = uploadPath.resolve(fileName);
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Stores a file already written under {@link #tempDir()}, such as an assembled chunked
+     * upload, the same way as {@link #storeFile(MultipartFile)}. The file is moved into place
+     * rather than copied, and is gone afterwards either way.
+     */
+    public StoredUpload storeFile(Path source, String label) throws IOException {
+        try {
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(source)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            return place(source, hash, Files.size(source), label);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
 
-        return subDirectory + "/" + fileName;
+    // Staging area on local disk, on the same file system as the local object store
+    Path tempDir() throws IOException {
+        return Files.createDirectories(local.root().resolve(TEMP_DIR));
     }
 
-    public byte[] loadFile(String filePath) throws IOException {
-        if (filePath == null || filePath.trim().isEmpty()) {
-            throw new IOException("File path is empty");
+    // Moves the temp file into place unless the object already exists, then takes a reference on it
+    private StoredUpload place(Path temp, String hash, long size, String label) throws IOException {
+        String relativePath = objectPath(hash);
+        if (isStored(relativePath, size)) {
+            logger.debug("Upload {} deduplicated to {}", label, relativePath);
+        } else {
+            // New content, or an object left truncated by a crash: the temp copy replaces it
+            storage.put(relativePath, temp);
         }
+        try {
+            required.executeWithoutResult(status -> {
+                try {
+                    // The row lock keeps a concurrent release or scrub from removing the object from here on,
+                    // but one may have removed it before we got the lock
+                    storedObjectRepository.addReference(hash, relativePath, size);
+                    if (isStored(relativePath, size)) return;
+                    if (!Files.exists(temp)) {
+                        throw new IOException("Stored object " + relativePath + " was removed during the upload, please retry");
+                    }
+                    storage.put(relativePath, temp);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return new StoredUpload(relativePath, size, hash);
+    }
 
-        Path fullPath = Paths.get(uploadDir).resolve(filePath).toAbsolutePath().normalize();
-        Path uploadRoot = Paths.get(uploadDir).toAbsolutePath().normalize();
+    // The object, or its compressed copy, is present with the expected size
+    private boolean isStored(String key, long size) throws IOException {
+        Optional<StorageBackend.ObjectInfo> existing = storage.stat(key);
+        if (existing.isPresent()) return existing.get().size() == size;
+        return compressedSize(storage, key).orElse(-1L) == size;
+    }
 
-        if (!fullPath.startsWith(uploadRoot)) {
-            throw new SecurityException("Cannot access files outside upload directory");
+    /**
+     * Takes one more reference on an object that is already stored, for a row that points at
+     * it by hash. False when there is no such object, or its last reference is already gone.
+     */
+    @Transactional
+    public boolean retain(String hash) {
+        return storedObjectRepository.addExistingReference(hash) > 0;
+    }
+
+    /**
+     * Drops one reference taken by storeFile or retain. Once no reference is left, the row and the file
+     * are deleted after the caller commits, in a transaction of their own that holds the row
+     * lock while deleting, so a concurrent upload of the same content either keeps the object
+     * or recreates it afterwards.
+     */
+    @Transactional
+    public void release(String hash) {
+        if (hash == null || storedObjectRepository.removeReference(hash) == 0) return;
+        TransactionHooks.afterCommit(() -> deleteIfUnreferenced(hash));
+    }
+
+    private void deleteIfUnreferenced(String hash) {
+        requiresNew.executeWithoutResult(status -> {
+            if (storedObjectRepository.deleteIfUnreferenced(hash) == 0) return;
+            hotFileCache.invalidate(hash);
+            try {
+                storage.delete(objectPath(hash));
+                for (String suffix : DERIVED_SUFFIXES) storage.delete(objectPath(hash) + suffix);
+                if (local != storage) {
+                    local.delete(objectPath(hash));
+                    for (String suffix : DERIVED_SUFFIXES) local.delete(objectPath(hash) + suffix);
+                }
+            } catch (IOException e) {
+                logger.warn("Could not delete unreferenced object {}: {}", hash, e.getMessage());
+                status.setRollbackOnly();
+            }
+        });
+    }
+
+    static String objectPath(String hash) {
+        return OBJECTS_DIR + "/" + hash;
+    }
+
+    /** SHA-256 of an already stored file, streamed; used to backfill rows stored before hashing. */
+    public String hashFile(String filePath) throws IOException {
+        StoredFile stored = openFile(filePath);
+        MessageDigest digest = sha256();
+        try (InputStream in = stored.openStream()) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
         }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Metadata of a stored file without reading it; size and modification time come from
+     * the storage backend so downloads can be streamed with an exact Content-Length.
+     */
+    public StoredFile openFile(String filePath) throws IOException {
+        return openFile(filePath, null);
+    }
 
-        if (!Files.exists(fullPath)) {
-            throw new IOException("File not found: " + filePath);
+    public StoredFile openFile(String filePath, String sha256) throws IOException {
+        if (filePath == null || filePath.trim().isEmpty()) {
+            throw new IOException("File path is empty");
         }
+        return locate(filePath, sha256)
+                .orElseThrow(() -> new IOException("File not found: " + filePath));
+    }
 
-        return Files.readAllBytes(fullPath);
+    /** Like openFile, but empty when there is no such file. */
+    public Optional<StoredFile> findFile(String filePath, String sha256) throws IOException {
+        if (filePath == null || filePath.trim().isEmpty()) return Optional.empty();
+        return locate(filePath, sha256);
     }
 
     public boolean fileExists(String filePath) {
@@ -61,14 +240,68 @@ public class FileStorageService {
             return false;
         }
         try {
-            Path fullPath = Paths.get(uploadDir).resolve(filePath).toAbsolutePath().normalize();
-            Path uploadRoot = Paths.get(uploadDir).toAbsolutePath().normalize();
-
-            return fullPath.startsWith(uploadRoot) &&
-                    Files.exists(fullPath) &&
-                    Files.isReadable(fullPath);
+            return locate(filePath, null).isPresent();
         } catch (Exception e) {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    // Active backend first, then local disk for files stored before a remote backend was configured
+    private Optional<StoredFile> locate(String key, String sha256) throws IOException {
+        checkKey(key);
+        Optional<StoredFile> found = locate(storage, key, sha256);
+        if (found.isEmpty() && local != storage) {
+            found = locate(local, key, sha256);
+        }
+        return found;
+    }
+
+    // Falls back to the compressed copy of an object moved to the cold tier
+    private static Optional<StoredFile> locate(StorageBackend backend, String key, String sha256) throws IOException {
+        Optional<StorageBackend.ObjectInfo> info = backend.stat(key);
+        if (info.isPresent()) {
+            return Optional.of(new StoredFile(key, info.get().size(), info.get().lastModified(), sha256,
+                    backend.localPath(key), backend));
+        }
+        if (!key.startsWith(OBJECTS_DIR + "/")) return Optional.empty();
+
+        Optional<StorageBackend.ObjectInfo> compressed = backend.stat(key + DeflateCodec.SUFFIX);
+        if (compressed.isEmpty()) return Optional.empty();
+        long size;
+        try (InputStream in = backend.openStream(key + DeflateCodec.SUFFIX, 0, DeflateCodec.HEADER_LENGTH)) {
+            size = DeflateCodec.readOriginalSize(in);
+        }
+        return Optional.of(new StoredFile(key, size, compressed.get().lastModified(), sha256,
+                null, backend, DeflateCodec.NAME));
+    }
+
+    // Original size recorded in the header of the compressed copy of key, if there is one
+    static Optional<Long> compressedSize(StorageBackend backend, String key) throws IOException {
+        if (backend.stat(key + DeflateCodec.SUFFIX).isEmpty()) return Optional.empty();
+        try (InputStream in = backend.openStream(key + DeflateCodec.SUFFIX, 0, DeflateCodec.HEADER_LENGTH)) {
+            return Optional.of(DeflateCodec.readOriginalSize(in));
+        }
+    }
+
+    private static void checkKey(String key) {
+        if (key.startsWith("/") || key.contains("\\") || key.contains("..")) {
+            throw new SecurityException("Cannot access files outside upload directory");
+        }
+    }
+
+    StorageBackend storage() {
+        return storage;
+    }
+
+    LocalDiskStorageBackend localStorage() {
+        return local;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
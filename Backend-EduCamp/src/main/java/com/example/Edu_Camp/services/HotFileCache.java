@@ -0,0 +1,151 @@
+package com.example.Edu_Camp.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the content of popular remote files in off-heap memory, keyed by SHA-256, so a
+ * handout every student in a class downloads is fetched from the storage backend once
+ * rather than once per student. Files on local disk are not cached here: they are sent
+ * with sendfile from the OS page cache, which already serves that purpose.
+ *
+ * The cache holds at most max-bytes, evicting least recently used entries. A file is only
+ * admitted on its admit-after'th request within the recent-miss window, so a burst of
+ * one-off downloads cannot flush the files that are actually hot. Content is immutable per
+ * hash, so entries never go stale; they are dropped when the object is deleted.
+ */
+@Component
+public class HotFileCache {
+
+    public record CacheStats(long hits, long misses, double hitRate, long bytes, long maxBytes,
+                             int entries, long admissions, long evictions) {}
+
+    // Misses remembered for admission counting
+    private static final int CANDIDATE_LIMIT = 4096;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final int admitAfter;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final LinkedHashMap<String, Integer> candidates = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > CANDIDATE_LIMIT;
+        }
+    };
+    private final Set<String> loading = new HashSet<>();
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong admissions = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public HotFileCache(@Value("${file.cache.max-bytes:134217728}") long maxBytes,
+                        @Value("${file.cache.max-entry-bytes:16777216}") long maxEntryBytes,
+                        @Value("${file.cache.admit-after:2}") int admitAfter) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, Math.min(maxBytes, Integer.MAX_VALUE));
+        this.admitAfter = Math.max(1, admitAfter);
+    }
+
+    /**
+     * The cached content of a remote file, loading it if it has become hot; null when the
+     * file should be streamed from its backend as usual. The buffer is a read-only view.
+     */
+    public ByteBuffer content(StoredFile file) throws IOException {
+        if (file.isLocal() || file.sha256() == null || maxBytes <= 0) return null;
+        String hash = file.sha256();
+
+        synchronized (this) {
+            ByteBuffer cached = entries.get(hash);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached.asReadOnlyBuffer();
+            }
+            misses.incrementAndGet();
+            if (file.size() > maxEntryBytes) return null;
+            int seen = candidates.merge(hash, 1, Integer::sum);
+            // Someone else is already fetching it; stream this request directly
+            if (seen < admitAfter || !loading.add(hash)) return null;
+            candidates.remove(hash);
+        }
+
+        try {
+            ByteBuffer content = read(file);
+            synchronized (this) {
+                if (!entries.containsKey(hash)) {
+                    entries.put(hash, content);
+                    bytes += content.capacity();
+                    admissions.incrementAndGet();
+                    evict();
+                }
+            }
+            return content.asReadOnlyBuffer();
+        } finally {
+            synchronized (this) {
+                loading.remove(hash);
+            }
+        }
+    }
+
+    public synchronized void invalidate(String hash) {
+        if (hash == null) return;
+        ByteBuffer removed = entries.remove(hash);
+        if (removed != null) bytes -= removed.capacity();
+        candidates.remove(hash);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        candidates.clear();
+        bytes = 0;
+    }
+
+    public synchronized CacheStats stats() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return new CacheStats(hitCount, misses.get(), total == 0 ? 0 : (double) hitCount / total,
+                bytes, maxBytes, entries.size(), admissions.get(), evictions.get());
+    }
+
+    private void evict() {
+        Iterator<ByteBuffer> iterator = entries.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= iterator.next().capacity();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // Whole object into a direct buffer, off the Java heap
+    private static ByteBuffer read(StoredFile file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) file.size());
+        byte[] chunk = new byte[64 * 1024];
+        try (InputStream in = file.openStream()) {
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                if (read > buffer.remaining()) {
+                    throw new IOException("File is larger than recorded: " + file.key());
+                }
+                buffer.put(chunk, 0, read);
+            }
+        }
+        if (buffer.hasRemaining()) {
+            throw new IOException("File is smaller than recorded: " + file.key());
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.Edu_Camp.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downscaled JPEG variants of uploaded images: a thumbnail for gallery views and a
+ * web-sized preview, stored next to the original object (objects/{sha256}.thumb.jpg and
+ * .preview.jpg) and deleted with it. They are generated on a small bounded pool after an
+ * image is uploaded, or the first time one is asked for; until then the original is served.
+ *
+ * Large scans are decoded with source subsampling, so a 40-megapixel photo never has to be
+ * held in memory at full resolution.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    static final String THUMBNAIL_SUFFIX = ".thumb.jpg";
+    static final String PREVIEW_SUFFIX = ".preview.jpg";
+    static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+
+    private static final float JPEG_QUALITY = 0.82f;
+    // Undecodable objects remembered at once, and for how long before they are tried again
+    private static final int MAX_FAILED = 10_000;
+    private static final long FAILED_RETRY_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    /** The stream to send for a preview request: a variant, or the original when there is none yet. */
+    public record Rendition(StoredFile file, MediaType mediaType, String fileName) {}
+
+    private final FileStorageService fileStorageService;
+    private final int thumbnailSize;
+    private final int previewSize;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    // Objects queued or being rendered
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // Objects that could not be decoded, with when; the oldest are forgotten first
+    private final Map<String, Long> failed = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_FAILED;
+        }
+    };
+
+    public ImageVariantService(FileStorageService fileStorageService,
+                               @Value("${image.variants.thumbnail-size:320}") int thumbnailSize,
+                               @Value("${image.variants.preview-size:1600}") int previewSize,
+                               @Value("${image.variants.max-pixels:100000000}") long maxPixels,
+                               @Value("${image.variants.threads:2}") int threads,
+                               @Value("${image.variants.queue-size:200}") int queueSize) {
+        this.fileStorageService = fileStorageService;
+        this.thumbnailSize = thumbnailSize;
+        this.previewSize = previewSize;
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static boolean isImage(String extension) {
+        return extension != null && IMAGE_EXTENSIONS.contains(extension.toLowerCase());
+    }
+
+    /** Queues the variants of an uploaded image once the caller's transaction commits. */
+    public void generateLater(String filePath, String sha256, String extension) {
+        if (!isImage(extension) || sha256 == null || !isObject(filePath)) return;
+        TransactionHooks.afterCommit(() -> enqueue(filePath, sha256));
+    }
+
+    /**
+     * What to send for a preview of the given size ("thumbnail", "preview" or "original").
+     * Anything other than an image, and images whose variants are not ready, get the original.
+     */
+    public Rendition select(StoredFile original, String fileName, MediaType mediaType, String size) throws IOException {
+        String suffix = switch (size != null ? size.toLowerCase() : "") {
+            case "thumbnail" -> THUMBNAIL_SUFFIX;
+            case "preview" -> PREVIEW_SUFFIX;
+            default -> null;
+        };
+        String extension = fileName != null && fileName.lastIndexOf('.') > 0
+                ? fileName.substring(fileName.lastIndexOf('.') + 1) : null;
+        if (suffix == null || !isImage(extension) || original.sha256() == null || !isObject(original.key())) {
+            return new Rendition(original, mediaType, fileName);
+        }
+
+        // Tagged apart from the original so ETags and cache entries differ
+        StoredFile variant = fileStorageService.findFile(original.key() + suffix, original.sha256() + suffix).orElse(null);
+        if (variant == null) {
+            // Uploaded before variants existed, or dropped from a full queue
+            enqueue(original.key(), original.sha256());
+            return new Rendition(original, mediaType, fileName);
+        }
+        String baseName = fileName.substring(0, fileName.lastIndexOf('.'));
+        return new Rendition(variant, MediaType.IMAGE_JPEG, baseName + suffix);
+    }
+
+    private void enqueue(String key, String sha256) {
+        if (hasFailed(key) || !pending.add(key)) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(key, sha256);
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Busy: the next preview request queues it again
+            pending.remove(key);
+        }
+    }
+
+    void generate(String key, String sha256) {
+        try {
+            StoredFile original = fileStorageService.openFile(key, sha256);
+            BufferedImage image;
+            try (InputStream in = original.openStream()) {
+                image = decode(in, previewSize, maxPixels);
+            }
+            if (image == null) {
+                synchronized (failed) {
+                    failed.put(key, System.currentTimeMillis());
+                }
+                return;
+            }
+            BufferedImage preview = scale(image, previewSize);
+            store(key + PREVIEW_SUFFIX, preview);
+            store(key + THUMBNAIL_SUFFIX, scale(preview, thumbnailSize));
+        } catch (Exception e) {
+            // Storage trouble or a damaged file: the next preview request tries again
+            logger.warn("Could not render image variants of {}: {}", key, e.getMessage());
+        }
+    }
+
+    boolean hasFailed(String key) {
+        synchronized (failed) {
+            Long failedAt = failed.get(key);
+            if (failedAt == null) return false;
+            if (System.currentTimeMillis() - failedAt < FAILED_RETRY_MILLIS) return true;
+            failed.remove(key);
+            return false;
+        }
+    }
+
+    /**
+     * Reads an image, subsampled to no more than twice the given box; null when it is not an
+     * image ImageIO can read or has more than maxPixels pixels.
+     */
+    static BufferedImage decode(InputStream in, int box, long maxPixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    logger.info("Not decoding a {}x{} image: too large", width, height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (box * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Fits the image in a box of the given size, halving first so large reductions stay smooth
+    static BufferedImage scale(BufferedImage source, int box) {
+        double ratio = Math.min(1.0, (double) box / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            // Opaque RGB: JPEG has no alpha, so transparent areas become white
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private void store(String key, BufferedImage image) throws IOException {
+        Path temp = Files.createTempFile(fileStorageService.tempDir(), "variant-", ".jpg");
+        try {
+            writeJpeg(image, temp);
+            fileStorageService.storage().put(key, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // Variants hang off content-addressed objects only, so they can be shared and cleaned up by hash
+    private static boolean isObject(String key) {
+        return key != null && key.startsWith(FileStorageService.OBJECTS_DIR + "/");
+    }
+}
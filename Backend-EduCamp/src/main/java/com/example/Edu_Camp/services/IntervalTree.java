@@ -0,0 +1,162 @@
+package com.example.Edu_Camp.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Augmented interval tree over half-open integer intervals [start, end).
+ *
+ * Implemented as a treap ordered by (start, end) where every node also keeps the
+ * largest end in its subtree, so insert, remove and overlap queries run in
+ * O(log n + k). Not thread-safe; callers guard it with their own lock.
+ */
+final class IntervalTree<T> {
+
+    record Interval<T>(int start, int end, T value) {}
+
+    private static final class Node<T> {
+        final int start;
+        final int end;
+        final T value;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        int maxEnd;
+        Node<T> left;
+        Node<T> right;
+
+        Node(int start, int end, T value) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node<T> root;
+    private int size;
+    private boolean removed;
+
+    int size() { return size; }
+
+    boolean isEmpty() { return size == 0; }
+
+    void insert(int start, int end, T value) {
+        root = insert(root, new Node<>(start, end, value));
+        size++;
+    }
+
+    boolean remove(int start, int end, T value) {
+        removed = false;
+        root = remove(root, start, end, value);
+        if (removed) size--;
+        return removed;
+    }
+
+    /** All intervals overlapping [start, end), ordered by start. */
+    List<Interval<T>> findOverlapping(int start, int end) {
+        List<Interval<T>> result = new ArrayList<>();
+        collect(root, start, end, result);
+        return result;
+    }
+
+    boolean overlapsAny(int start, int end) {
+        Node<T> node = root;
+        while (node != null) {
+            if (node.start < end && start < node.end) return true;
+            // If the left subtree reaches past start but holds no overlap, the right one cannot either
+            node = node.left != null && node.left.maxEnd > start ? node.left : node.right;
+        }
+        return false;
+    }
+
+    List<Interval<T>> all() {
+        return findOverlapping(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    private static int compare(int start, int end, Node<?> node) {
+        int c = Integer.compare(start, node.start);
+        return c != 0 ? c : Integer.compare(end, node.end);
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> n) {
+        if (node == null) return n;
+        if (compare(n.start, n.end, node) < 0) {
+            node.left = insert(node.left, n);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, n);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> remove(Node<T> node, int start, int end, T value) {
+        if (node == null) return null;
+        int c = compare(start, end, node);
+        if (c < 0) {
+            node.left = remove(node.left, start, end, value);
+        } else if (c > 0) {
+            node.right = remove(node.right, start, end, value);
+        } else if (!removed && Objects.equals(node.value, value)) {
+            removed = true;
+            node = merge(node.left, node.right);
+        } else {
+            // Equal keys may sit on either side after rotations
+            node.left = remove(node.left, start, end, value);
+            if (!removed) node.right = remove(node.right, start, end, value);
+        }
+        if (node != null) update(node);
+        return node;
+    }
+
+    private void collect(Node<T> node, int start, int end, List<Interval<T>> out) {
+        if (node == null || node.maxEnd <= start) return;
+        collect(node.left, start, end, out);
+        if (node.start < end && start < node.end) {
+            out.add(new Interval<>(node.start, node.end, node.value));
+        }
+        if (node.start < end) {
+            collect(node.right, start, end, out);
+        }
+    }
+
+    private Node<T> merge(Node<T> a, Node<T> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private Node<T> rotateRight(Node<T> x) {
+        Node<T> y = x.left;
+        x.left = y.right;
+        y.right = x;
+        update(x);
+        update(y);
+        return y;
+    }
+
+    private Node<T> rotateLeft(Node<T> x) {
+        Node<T> y = x.right;
+        x.right = y.left;
+        y.left = x;
+        update(x);
+        update(y);
+        return y;
+    }
+
+    private static <T> void update(Node<T> node) {
+        int max = node.end;
+        if (node.left != null && node.left.maxEnd > max) max = node.left.maxEnd;
+        if (node.right != null && node.right.maxEnd > max) max = node.right.maxEnd;
+        node.maxEnd = max;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.Edu_Camp.services;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Stores objects under the upload directory, fanned out into two levels of sub-directories
+ * so no single directory grows past a few thousand entries:
+ *   objects/3fa94c...   ->  objects/3f/a9/3fa94c...
+ *   submissions/x.pdf   ->  submissions/{first 4 hex of sha256("x.pdf")}/x.pdf
+ * Names that already start with four hex digits (content hashes, UUIDs) are sharded by
+ * those digits. Files still at their old flat location are found as a fallback until the
+ * storage migration has moved them.
+ */
+public class LocalDiskStorageBackend implements StorageBackend {
+
+    private static final Pattern HEX_PREFIX = Pattern.compile("^[0-9a-fA-F]{4}");
+
+    private final Path root;
+    private final String tempDir;
+
+    public LocalDiskStorageBackend(Path root, String tempDir) {
+        this.root = root.toAbsolutePath().normalize();
+        this.tempDir = tempDir;
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    @Override
+    public Optional<ObjectInfo> stat(String key) throws IOException {
+        Path path = localPath(key);
+        if (path == null) return Optional.empty();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return Optional.of(new ObjectInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = shardedPath(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // source on another file system: copy next to the target, then rename into place
+            Path staging = Files.createTempFile(target.getParent(), ".put-", ".part");
+            try {
+                Files.copy(source, staging, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Files.deleteIfExists(source);
+            } finally {
+                Files.deleteIfExists(staging);
+            }
+        }
+    }
+
+    @Override
+    public InputStream openStream(String key, long start, long end) throws IOException {
+        Path path = localPath(key);
+        if (path == null) throw new NoSuchFileException(key);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ).position(start);
+        return new FilterInputStream(Channels.newInputStream(channel)) {
+            private long remaining = end - start;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) return -1;
+                int b = super.read();
+                if (b >= 0) remaining--;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (remaining <= 0) return -1;
+                int n = super.read(buffer, offset, (int) Math.min(length, remaining));
+                if (n > 0) remaining -= n;
+                return n;
+            }
+        };
+    }
+
+    @Override
+    public Path localPath(String key) throws IOException {
+        Path sharded = shardedPath(key);
+        if (Files.isRegularFile(sharded)) return sharded;
+        Path flat = flatPath(key);
+        if (Files.isRegularFile(flat)) return flat;
+        // moved by the migration between the two checks
+        return Files.isRegularFile(sharded) ? sharded : null;
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        boolean deleted = Files.deleteIfExists(shardedPath(key));
+        return Files.deleteIfExists(flatPath(key)) || deleted;
+    }
+
+    @Override
+    public Stream<ObjectInfo> list() throws IOException {
+        return files().map(path -> {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return new ObjectInfo(keyOf(path), attributes.size(), attributes.lastModifiedTime().toInstant());
+            } catch (IOException e) {
+                return null; // deleted while listing
+            }
+        }).filter(info -> info != null);
+    }
+
+    /** Every stored file, sharded or not, excluding in-flight uploads. The stream must be closed. */
+    public Stream<Path> files() throws IOException {
+        if (!Files.isDirectory(root)) return Stream.empty();
+        Path temp = root.resolve(tempDir);
+        return Files.walk(root)
+                .filter(path -> !path.startsWith(temp))
+                .filter(path -> !path.getFileName().toString().startsWith(".put-"))
+                .filter(Files::isRegularFile);
+    }
+
+    /** Logical key of a file found by files(). */
+    public String keyOf(Path file) {
+        Path relative = root.relativize(file);
+        String name = file.getFileName().toString();
+        int count = relative.getNameCount();
+        if (count >= 3) {
+            String shard = shardOf(name);
+            if (relative.getName(count - 3).toString().equals(shard.substring(0, 2))
+                    && relative.getName(count - 2).toString().equals(shard.substring(2, 4))) {
+                Path parent = count == 3 ? null : relative.subpath(0, count - 3);
+                return parent == null ? name : toKey(parent.resolve(name));
+            }
+        }
+        return toKey(relative);
+    }
+
+    public boolean isSharded(Path file) {
+        return file.toAbsolutePath().normalize().equals(shardedPath(keyOf(file)));
+    }
+
+    public Path shardedPath(String key) {
+        Path flat = flatPath(key);
+        String shard = shardOf(flat.getFileName().toString());
+        return flat.getParent().resolve(shard.substring(0, 2)).resolve(shard.substring(2, 4))
+                .resolve(flat.getFileName());
+    }
+
+    private Path flatPath(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new SecurityException("Cannot access files outside upload directory");
+        }
+        return path;
+    }
+
+    private static String shardOf(String name) {
+        if (HEX_PREFIX.matcher(name).find()) {
+            return name.substring(0, 4).toLowerCase();
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(name.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toKey(Path relative) {
+        return relative.toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.Edu_Camp.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves material files out of the legacy material.file_data MEDIUMBLOB column into upload
+ * storage while the application keeps serving. Rows are taken in id order, a batch of ids at
+ * a time, and each blob is copied to a temp file, stored, and then the row is switched to
+ * the stored file and its blob cleared in one conditional UPDATE. A download of a row that
+ * has not been reached yet migrates that row on the spot, so no request waits for the job.
+ *
+ * Starts by itself when legacy rows are found at startup; progress is on the admin API.
+ */
+@Service
+public class MaterialBlobMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MaterialBlobMigrationService.class);
+
+    public record MigrationStatus(boolean running, long migrated, long failed,
+                                  Instant startedAt, Instant finishedAt) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FileStorageService fileStorageService;
+    private final int batchSize;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "material-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong migrated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    // Fresh databases never had the blob column
+    private volatile Boolean legacyColumn;
+
+    public MaterialBlobMigrationService(JdbcTemplate jdbcTemplate,
+                                        FileStorageService fileStorageService,
+                                        @Value("${material.migration.batch-size:20}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fileStorageService = fileStorageService;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startIfNeeded() {
+        try {
+            if (hasLegacyColumn() && jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM material WHERE file_path IS NULL AND file_data IS NOT NULL",
+                    Long.class) > 0) {
+                start();
+            }
+        } catch (Exception e) {
+            logger.warn("Could not check for material blobs to migrate: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Starts a migration in the background; does nothing when one is already running. */
+    public MigrationStatus start() {
+        if (!running.compareAndSet(false, true)) {
+            return status();
+        }
+        migrated.set(0);
+        failed.set(0);
+        startedAt = Instant.now();
+        finishedAt = null;
+
+        executor.execute(() -> {
+            try {
+                migrateAll();
+            } catch (Exception e) {
+                logger.error("Material blob migration aborted", e);
+            } finally {
+                finishedAt = Instant.now();
+                running.set(false);
+                logger.info("Material blob migration finished: {}", status());
+            }
+        });
+        return status();
+    }
+
+    public MigrationStatus status() {
+        return new MigrationStatus(running.get(), migrated.get(), failed.get(), startedAt, finishedAt);
+    }
+
+    private void migrateAll() {
+        if (!hasLegacyColumn()) return;
+        long lastId = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            // Ids only; each blob is read on its own below
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM material WHERE file_path IS NULL AND file_data IS NOT NULL AND id > ? " +
+                            "ORDER BY id LIMIT ?", Long.class, lastId, batchSize);
+            if (ids.isEmpty()) return;
+
+            for (Long id : ids) {
+                try {
+                    if (migrate(id) != null) migrated.incrementAndGet();
+                } catch (Exception e) {
+                    // Left in place; the next run or a download retries it
+                    failed.incrementAndGet();
+                    logger.warn("Could not migrate material {}: {}", id, e.getMessage());
+                }
+                lastId = id;
+            }
+        }
+    }
+
+    /**
+     * Moves one material's blob into storage, or returns where it already is. Null when the
+     * row is gone or has no file. Safe to run concurrently for the same row: the loser of
+     * the conditional UPDATE gives its reference back.
+     */
+    public StoredUpload migrate(Long id) throws IOException {
+        StoredUpload current = storedFile(id);
+        if (current != null || !hasLegacyColumn()) return current;
+
+        Path temp = Files.createTempFile(fileStorageService.tempDir(), "material-", ".part");
+        try {
+            Boolean copied = jdbcTemplate.query("SELECT file_data FROM material WHERE id = ?", rs -> {
+                if (!rs.next()) return false;
+                try (InputStream in = rs.getBinaryStream(1)) {
+                    if (in == null) return false;
+                    Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, id);
+            if (!Boolean.TRUE.equals(copied)) return storedFile(id);
+
+            StoredUpload stored = fileStorageService.storeFile(temp, "material " + id);
+            int updated = jdbcTemplate.update(
+                    "UPDATE material SET file_path = ?, file_hash = ?, file_size = ?, file_data = NULL " +
+                            "WHERE id = ? AND file_path IS NULL",
+                    stored.filePath(), stored.sha256(), stored.size(), id);
+            if (updated == 0) {
+                // Migrated by someone else meanwhile, or deleted
+                fileStorageService.release(stored.sha256());
+                return storedFile(id);
+            }
+            return stored;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private StoredUpload storedFile(Long id) {
+        List<StoredUpload> rows = jdbcTemplate.query(
+                "SELECT file_path, file_hash, file_size FROM material WHERE id = ? AND file_path IS NOT NULL",
+                (rs, rowNum) -> new StoredUpload(rs.getString(1), rs.getLong(3), rs.getString(2)), id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private boolean hasLegacyColumn() {
+        if (legacyColumn == null) {
+            legacyColumn = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.columns " +
+                            "WHERE table_schema = DATABASE() AND table_name = 'material' AND column_name = 'file_data'",
+                    Long.class) > 0;
+        }
+        return legacyColumn;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.MaterialDTO;
+import com.example.Edu_Camp.models.TeacherMaterial;
+import com.example.Edu_Camp.repository.MaterialRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Teaching materials. Files are kept in upload storage like assignment files; the table
+ * holds only metadata and the storage key.
+ *
+ * Files are stored before any transaction is opened, so a slow upload never holds a
+ * database connection; the row is then saved in a short transaction of its own.
+ */
+@Service
+public class MaterialService {
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private final MaterialRepository materialRepository;
+    private final FileStorageService fileStorageService;
+    private final UploadSessionService uploadSessionService;
+    private final MaterialBlobMigrationService materialBlobMigrationService;
+    private final TransactionTemplate required;
+
+    public MaterialService(MaterialRepository materialRepository,
+                           FileStorageService fileStorageService,
+                           UploadSessionService uploadSessionService,
+                           MaterialBlobMigrationService materialBlobMigrationService,
+                           PlatformTransactionManager transactionManager) {
+        this.materialRepository = materialRepository;
+        this.fileStorageService = fileStorageService;
+        this.uploadSessionService = uploadSessionService;
+        this.materialBlobMigrationService = materialBlobMigrationService;
+        this.required = new TransactionTemplate(transactionManager);
+    }
+
+    /** Saves a material with a multipart file, or with a completed chunked upload (uploadId). */
+    public TeacherMaterial createMaterial(MaterialDTO request, MultipartFile file, String uploadId,
+                                          Long teacherId) throws IOException {
+        TeacherMaterial material = newMaterial(request);
+
+        if (file != null && !file.isEmpty()) {
+            material.setFileName(request.getFileName() != null ? request.getFileName() : file.getOriginalFilename());
+            return save(material, fileStorageService.storeFile(file));
+        } else if (uploadId != null && !uploadId.isBlank()) {
+            // Claim and save together, so a failed save leaves the upload claimable
+            return required.execute(status -> {
+                UploadSessionService.ClaimedUpload upload = uploadSessionService.claim(uploadId, teacherId, "MATERIAL");
+                material.setFileName(request.getFileName() != null ? request.getFileName() : upload.fileName());
+                attach(material, upload.stored());
+                return materialRepository.save(material);
+            });
+        } else {
+            throw new RuntimeException("A file is required");
+        }
+    }
+
+    /** Saves a material sent the old way, Base64-encoded in a JSON body. */
+    public TeacherMaterial createMaterialFromBase64(MaterialDTO request) throws IOException {
+        TeacherMaterial material = newMaterial(request);
+
+        Path temp = Files.createTempFile(fileStorageService.tempDir(), "material-", ".part");
+        StoredUpload stored;
+        try {
+            Files.write(temp, Base64.getDecoder().decode(request.getFileData()));
+            stored = fileStorageService.storeFile(temp, request.getFileName());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return save(material, stored);
+    }
+
+    /**
+     * Material metadata, never the file, in id order. afterId is the last id of the previous
+     * page; a null limit lists everything after it.
+     */
+    public List<MaterialDTO> listMaterials(String subject, String className, Long afterId, Integer limit) {
+        boolean bySubject = subject != null && !subject.isBlank();
+        boolean byClass = className != null && !className.isBlank();
+        long after = afterId != null ? afterId : 0;
+        Pageable page = limit != null
+                ? PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)))
+                : Pageable.unpaged();
+
+        if (bySubject && byClass) {
+            return materialRepository.findListingBySubjectAndClassName(subject, className, after, page);
+        } else if (bySubject) {
+            return materialRepository.findListingBySubject(subject, after, page);
+        } else if (byClass) {
+            return materialRepository.findListingByClassName(className, after, page);
+        }
+        return materialRepository.findListing(after, page);
+    }
+
+    public Optional<TeacherMaterial> getMaterial(Long id) {
+        return materialRepository.findById(id);
+    }
+
+    /**
+     * Opens a material's file for streaming. A row still waiting for the blob migration is
+     * migrated on the spot.
+     */
+    public StoredFile openFile(TeacherMaterial material) throws IOException {
+        String filePath = material.getFilePath();
+        String fileHash = material.getFileHash();
+        if (filePath == null) {
+            StoredUpload stored = materialBlobMigrationService.migrate(material.getId());
+            if (stored == null) {
+                throw new IOException("Material has no file: " + material.getId());
+            }
+            filePath = stored.filePath();
+            fileHash = stored.sha256();
+        }
+        return fileStorageService.openFile(filePath, fileHash);
+    }
+
+    @Transactional
+    public boolean deleteMaterial(Long id) {
+        Optional<TeacherMaterial> material = materialRepository.findById(id);
+        if (material.isEmpty()) return false;
+
+        materialRepository.delete(material.get());
+        fileStorageService.release(material.get().getFileHash());
+        return true;
+    }
+
+    private static TeacherMaterial newMaterial(MaterialDTO request) {
+        return new TeacherMaterial(
+                request.getTitle(),
+                request.getDescription(),
+                request.getSubject(),
+                request.getClassName(),
+                request.getFileName());
+    }
+
+    // The stored reference committed on its own; give it back if the row is not saved
+    private TeacherMaterial save(TeacherMaterial material, StoredUpload stored) {
+        attach(material, stored);
+        try {
+            return materialRepository.save(material);
+        } catch (RuntimeException e) {
+            fileStorageService.release(stored.sha256());
+            throw e;
+        }
+    }
+
+    private static void attach(TeacherMaterial material, StoredUpload stored) {
+        material.setFilePath(stored.filePath());
+        material.setFileHash(stored.sha256());
+        material.setFileSize(stored.size());
+    }
+}
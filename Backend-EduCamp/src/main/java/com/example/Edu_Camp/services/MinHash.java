@@ -0,0 +1,114 @@
+package com.example.Edu_Camp.services;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signatures over word shingles. The fraction of positions at which two signatures
+ * agree estimates the Jaccard similarity of the two shingle sets; banding the signature
+ * (BANDS bands of ROWS values) gives LSH buckets in which pairs above roughly
+ * (1/BANDS)^(1/ROWS) = 0.42 similarity are very likely to meet at least once.
+ */
+final class MinHash {
+
+    static final int SIZE = 128;
+    static final int BANDS = 32;
+    static final int ROWS = SIZE / BANDS;
+    static final int SHINGLE_WORDS = 5;
+
+    // Fixed seeds: signatures are stored and must stay comparable across restarts
+    private static final long[] SEEDS = new SplittableRandom(0x5EED_CA3FL).longs(SIZE).toArray();
+
+    private MinHash() {}
+
+    record Signature(int[] values, int shingleCount) {}
+
+    /** Signature of the text, or null when it has fewer than minWords words. */
+    static Signature of(String text, int minWords) {
+        List<String> words = words(text);
+        if (words.size() < Math.max(minWords, SHINGLE_WORDS)) return null;
+
+        int[] values = new int[SIZE];
+        Arrays.fill(values, Integer.MAX_VALUE);
+        int shingles = 0;
+        for (int i = 0; i + SHINGLE_WORDS <= words.size(); i++) {
+            long shingle = shingleHash(words, i);
+            for (int j = 0; j < SIZE; j++) {
+                int h = (int) (mix(shingle ^ SEEDS[j]) >>> 33);
+                if (h < values[j]) values[j] = h;
+            }
+            shingles++;
+        }
+        return new Signature(values, shingles);
+    }
+
+    static double similarity(int[] a, int[] b) {
+        int same = 0;
+        for (int i = 0; i < SIZE; i++) {
+            if (a[i] == b[i]) same++;
+        }
+        return (double) same / SIZE;
+    }
+
+    /** Bucket key of one band; equal keys mean the band matched. */
+    static long bandKey(int[] values, int band) {
+        long h = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            h = mix(h * 31 + values[i]);
+        }
+        return h;
+    }
+
+    static byte[] toBytes(int[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE * 4);
+        buffer.asIntBuffer().put(values);
+        return buffer.array();
+    }
+
+    static int[] fromBytes(byte[] bytes) {
+        int[] values = new int[SIZE];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+        return values;
+    }
+
+    // Lower-cased runs of letters and digits; punctuation and layout do not count
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int c = text.codePointAt(i);
+            i += Character.charCount(c);
+            if (Character.isLetterOrDigit(c)) {
+                word.appendCodePoint(Character.toLowerCase(c));
+            } else if (!word.isEmpty()) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (!word.isEmpty()) words.add(word.toString());
+        return words;
+    }
+
+    // 64-bit FNV-1a over the shingle's words
+    private static long shingleHash(List<String> words, int start) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = start; i < start + SHINGLE_WORDS; i++) {
+            for (byte b : words.get(i).getBytes(StandardCharsets.UTF_8)) {
+                h = (h ^ (b & 0xff)) * 0x100000001b3L;
+            }
+            h = (h ^ ' ') * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.ProfileImageUrls;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Student profile pictures and teacher images. Clients send a Base64 data URL; the decoded
+ * image is stored like any upload, as a refcounted object named by its SHA-256, and the
+ * entity keeps only that hash as its reference. A few fixed JPEG variants are written next
+ * to the object and deleted with it. They are served by ProfileImageController under URLs
+ * built from the reference (see ProfileImageUrls), so they never change and can be cached
+ * for good. Plain http(s) links are kept as they are.
+ *
+ * Every row holding a reference holds one reference on the object: normalize() takes it and
+ * release() hands back the one of the value replaced.
+ *
+ * Rows still holding a data URL from before are converted in the background at startup.
+ */
+@Service
+public class ProfileImageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileImageService.class);
+
+    // Longest side of each variant, in pixels
+    public static final Map<String, Integer> VARIANTS = Map.of("small", 96, "medium", 256, "large", 640);
+
+    // Our own image URL sent back unchanged by a client saving the rest of a profile
+    private static final Pattern OWN_URL = Pattern.compile("/api/images/([0-9a-f]{64})/");
+    private static final Pattern DATA_URL = Pattern.compile("^data:image/[a-zA-Z0-9.+-]+;base64,", Pattern.CASE_INSENSITIVE);
+    private static final int MAX_IMAGE_BYTES = 10 * 1024 * 1024;
+    private static final long MAX_PIXELS = 50_000_000L;
+    private static final int MAX_LINK_LENGTH = 255;
+    private static final int MIGRATION_BATCH = 50;
+
+    // Table and column of each image reference
+    private static final List<String[]> COLUMNS = List.of(
+            new String[] {"students", "profile_picture"},
+            new String[] {"teachers", "image"});
+
+    private final FileStorageService fileStorageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService migration = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "profile-image-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ProfileImageService(FileStorageService fileStorageService, JdbcTemplate jdbcTemplate) {
+        this.fileStorageService = fileStorageService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        migration.shutdownNow();
+    }
+
+    public static boolean isReference(String value) {
+        return ProfileImageUrls.isReference(value);
+    }
+
+    // Suffix of a variant's file, after the key of the object it was made from
+    static String suffix(String variant) {
+        return "." + variant + ".jpg";
+    }
+
+    /**
+     * The value to store for an image a client sent in place of previous: null to clear it, a
+     * reference to a stored image, or a link. A reference other than previous comes with a
+     * reference taken on its object, to be handed back with release() once the row no longer
+     * holds it, or at once if the row is not saved.
+     */
+    public String normalize(String value, String previous) throws IOException {
+        if (value == null || value.isBlank()) return null;
+        value = value.trim();
+
+        Matcher own = OWN_URL.matcher(value);
+        String reference = own.find() ? own.group(1) : value;
+        if (isReference(reference)) {
+            if (reference.equals(previous)) return reference;
+            if (!fileStorageService.retain(reference)) {
+                throw new RuntimeException("Unknown image");
+            }
+            if (open(reference, "small").isEmpty()) {
+                // Some other upload, not an image stored here
+                fileStorageService.release(reference);
+                throw new RuntimeException("Unknown image");
+            }
+            return reference;
+        }
+
+        Matcher data = DATA_URL.matcher(value);
+        if (data.find()) {
+            byte[] bytes;
+            try {
+                bytes = Base64.getMimeDecoder().decode(value.substring(data.end()));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Image data is not valid Base64");
+            }
+            if (bytes.length > MAX_IMAGE_BYTES) {
+                throw new RuntimeException("Image too large. Maximum size is 10MB.");
+            }
+            String stored = store(bytes);
+            // The same picture again: the row already holds a reference on it
+            if (stored.equals(previous)) fileStorageService.release(stored);
+            return stored;
+        }
+
+        if ((value.startsWith("https://") || value.startsWith("http://")) && value.length() <= MAX_LINK_LENGTH) {
+            return value;
+        }
+        throw new RuntimeException("Unsupported image: send a data URL or an http(s) link");
+    }
+
+    /**
+     * Hands back the reference a row held on previous, unless it still holds it as current;
+     * the files go once no row references the image, after the caller commits.
+     */
+    public void release(String previous, String current) {
+        if (isReference(previous) && !previous.equals(current)) {
+            fileStorageService.release(previous);
+        }
+    }
+
+    // Stores the image with one reference on it, writes its variants unless present, and returns its reference
+    String store(byte[] bytes) throws IOException {
+        Path temp = Files.createTempFile(fileStorageService.tempDir(), "profile-", ".part");
+        Files.write(temp, bytes);
+        String reference = fileStorageService.storeFile(temp, "profile image").sha256();
+        try {
+            writeVariants(reference, bytes);
+        } catch (IOException | RuntimeException e) {
+            fileStorageService.release(reference);
+            throw e;
+        }
+        return reference;
+    }
+
+    // Our reference keeps the object, and so its variants, from being deleted meanwhile
+    private void writeVariants(String reference, byte[] bytes) throws IOException {
+        StorageBackend storage = fileStorageService.storage();
+        String key = FileStorageService.objectPath(reference);
+        if (VARIANTS.keySet().stream().allMatch(variant -> exists(storage, key + suffix(variant)))) {
+            return;
+        }
+
+        int largest = VARIANTS.values().stream().max(Integer::compare).orElseThrow();
+        BufferedImage image = ImageVariantService.decode(new ByteArrayInputStream(bytes), largest, MAX_PIXELS);
+        if (image == null) {
+            throw new RuntimeException("Unsupported or oversized image");
+        }
+        for (Map.Entry<String, Integer> variant : VARIANTS.entrySet()) {
+            Path temp = Files.createTempFile(fileStorageService.tempDir(), "profile-", ".jpg");
+            try {
+                ImageVariantService.writeJpeg(ImageVariantService.scale(image, variant.getValue()), temp);
+                storage.put(key + suffix(variant.getKey()), temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /** A stored variant, or empty for an unknown reference or variant. */
+    public Optional<StoredFile> open(String reference, String variant) throws IOException {
+        if (!isReference(reference) || !VARIANTS.containsKey(variant)) return Optional.empty();
+        return fileStorageService.findFile(FileStorageService.objectPath(reference) + suffix(variant),
+                reference + "-" + variant);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyImages() {
+        migration.execute(() -> {
+            for (String[] column : COLUMNS) {
+                try {
+                    migrate(column[0], column[1]);
+                } catch (Exception e) {
+                    logger.warn("Could not convert images in {}.{}: {}", column[0], column[1], e.getMessage());
+                }
+            }
+        });
+    }
+
+    // Converts data URLs in one column a batch of rows at a time, in id order
+    private void migrate(String table, String column) {
+        long converted = 0;
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            ids = jdbcTemplate.queryForList("SELECT user_id FROM " + table + " WHERE user_id > ? AND " + column +
+                    " LIKE 'data:%' ORDER BY user_id LIMIT " + MIGRATION_BATCH, Long.class, afterId);
+            for (Long id : ids) {
+                afterId = id;
+                String value = jdbcTemplate.queryForObject(
+                        "SELECT " + column + " FROM " + table + " WHERE user_id = ?", String.class, id);
+                try {
+                    String reference = normalize(value, null);
+                    // Only if the row was not changed meanwhile; otherwise the reference is not needed
+                    int updated = jdbcTemplate.update("UPDATE " + table + " SET " + column + " = ? WHERE user_id = ? AND " +
+                            column + " = ?", reference, id, value);
+                    if (updated == 0) release(reference, null);
+                    converted += updated;
+                } catch (Exception e) {
+                    logger.warn("Could not convert image of {} {}: {}", table, id, e.getMessage());
+                }
+            }
+        } while (ids.size() == MIGRATION_BATCH);
+        if (converted > 0) {
+            logger.info("Converted {} data URL images in {}.{} to stored files", converted, table, column);
+        }
+    }
+
+    private static boolean exists(StorageBackend storage, String key) {
+        try {
+            return storage.stat(key).isPresent();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.Edu_Camp.services;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Stores objects in any service speaking the S3 REST API (AWS S3, MinIO, Ceph, R2 ...),
+ * using path-style URLs and Signature Version 4. Only the handful of calls the upload
+ * storage needs are implemented, on top of java.net.http so no SDK is required.
+ */
+public class S3StorageBackend implements StorageBackend {
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final DateTimeFormatter AMZ_DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+    // Bodies are streamed, so the payload is not part of the signature
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private final URI endpoint;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final HttpClient client;
+
+    public S3StorageBackend(URI endpoint, String bucket, String region, String accessKey, String secretKey) {
+        this.endpoint = endpoint;
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public Optional<ObjectInfo> stat(String key) throws IOException {
+        HttpResponse<Void> response = send(signed("HEAD", key, Map.of(), Map.of())
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) return Optional.empty();
+        expect(response, 200);
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        Instant lastModified = response.headers().firstValue("Last-Modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant())
+                .orElse(Instant.EPOCH);
+        return Optional.of(new ObjectInfo(key, size, lastModified));
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        HttpResponse<Void> response = send(signed("PUT", key, Map.of(), Map.of())
+                .PUT(HttpRequest.BodyPublishers.ofFile(source)).build(), HttpResponse.BodyHandlers.discarding());
+        expect(response, 200);
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public InputStream openStream(String key, long start, long end) throws IOException {
+        if (end <= start) return InputStream.nullInputStream();
+        HttpResponse<InputStream> response = send(signed("GET", key, Map.of(),
+                        Map.of("Range", "bytes=" + start + "-" + (end - 1)))
+                .GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 206 && response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("S3 GET " + key + " failed with status " + response.statusCode());
+        }
+        InputStream body = response.body();
+        if (response.statusCode() == 200 && start > 0) {
+            // server ignored the Range header
+            body.skipNBytes(start);
+        }
+        return body;
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return null;
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        HttpResponse<Void> response = send(signed("DELETE", key, Map.of(), Map.of())
+                .DELETE().build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) return false;
+        expect(response, 204, 200);
+        return true;
+    }
+
+    @Override
+    public Stream<ObjectInfo> list() throws IOException {
+        List<ObjectInfo> objects = new ArrayList<>();
+        String continuation = null;
+        do {
+            Map<String, String> query = new TreeMap<>();
+            query.put("list-type", "2");
+            if (continuation != null) query.put("continuation-token", continuation);
+
+            HttpResponse<InputStream> response = send(signed("GET", "", query, Map.of()).GET().build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                expect(response, 200);
+                Document xml = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(body);
+                NodeList contents = xml.getElementsByTagName("Contents");
+                for (int i = 0; i < contents.getLength(); i++) {
+                    Element entry = (Element) contents.item(i);
+                    objects.add(new ObjectInfo(text(entry, "Key"), Long.parseLong(text(entry, "Size")),
+                            Instant.parse(text(entry, "LastModified"))));
+                }
+                boolean truncated = "true".equals(text(xml.getDocumentElement(), "IsTruncated"));
+                continuation = truncated ? text(xml.getDocumentElement(), "NextContinuationToken") : null;
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Could not parse S3 object listing", e);
+            }
+        } while (continuation != null);
+        return objects.stream();
+    }
+
+    // Builds a request for /bucket/key with SigV4 headers; the caller sets method and body
+    HttpRequest.Builder signed(String method, String key, Map<String, String> query, Map<String, String> headers) {
+        String canonicalUri = "/" + encode(bucket, false) + (key.isEmpty() ? "" : "/" + encode(key, true));
+        StringBuilder canonicalQuery = new StringBuilder();
+        for (var entry : new TreeMap<>(query).entrySet()) {
+            if (canonicalQuery.length() > 0) canonicalQuery.append('&');
+            canonicalQuery.append(encode(entry.getKey(), false)).append('=').append(encode(entry.getValue(), false));
+        }
+
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        String amzDate = now.format(AMZ_DATE);
+        String day = now.format(AMZ_DAY);
+        String host = endpoint.getPort() == -1 ? endpoint.getHost() : endpoint.getHost() + ":" + endpoint.getPort();
+
+        String signedHeaders = "host;x-amz-content-sha256;x-amz-date";
+        String canonicalRequest = method + "\n"
+                + canonicalUri + "\n"
+                + canonicalQuery + "\n"
+                + "host:" + host + "\n"
+                + "x-amz-content-sha256:" + UNSIGNED_PAYLOAD + "\n"
+                + "x-amz-date:" + amzDate + "\n"
+                + "\n"
+                + signedHeaders + "\n"
+                + UNSIGNED_PAYLOAD;
+
+        String scope = day + "/" + region + "/s3/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), day);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+
+        URI uri = URI.create(endpoint.toString().replaceAll("/+$", "") + canonicalUri
+                + (canonicalQuery.length() > 0 ? "?" + canonicalQuery : ""));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMinutes(5))
+                .header("x-amz-date", amzDate)
+                .header("x-amz-content-sha256", UNSIGNED_PAYLOAD)
+                .header("Authorization", "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                        + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature);
+        headers.forEach(builder::header);
+        return builder;
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return client.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling S3", e);
+        }
+    }
+
+    private static void expect(HttpResponse<?> response, int... statuses) throws IOException {
+        for (int status : statuses) {
+            if (response.statusCode() == status) return;
+        }
+        throw new IOException("S3 " + response.request().method() + " " + response.request().uri().getPath()
+                + " failed with status " + response.statusCode());
+    }
+
+    private static String text(Element parent, String tag) {
+        NodeList nodes = parent.getElementsByTagName(tag);
+        return nodes.getLength() == 0 ? null : nodes.item(0).getTextContent();
+    }
+
+    // RFC 3986 encoding as required by SigV4; '/' is kept in object keys
+    private static String encode(String value, boolean keepSlash) {
+        String encoded = URLEncoder.encode(value, StandardCharsets.UTF_8)
+                .replace("+", "%20")
+                .replace("*", "%2A")
+                .replace("%7E", "~");
+        return keepSlash ? encoded.replace("%2F", "/") : encoded;
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
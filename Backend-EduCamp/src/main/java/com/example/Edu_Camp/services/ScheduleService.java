@@ -0,0 +1,73 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.ScheduleEntryDto;
+import com.example.Edu_Camp.models.ClassEntity;
+import com.example.Edu_Camp.models.Subject;
+import com.example.Edu_Camp.repository.ClassRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class ScheduleService {
+
+    private final TimetableIndexService timetableIndexService;
+    private final ClassRepository classRepository;
+
+    public ScheduleService(TimetableIndexService timetableIndexService, ClassRepository classRepository) {
+        this.timetableIndexService = timetableIndexService;
+        this.classRepository = classRepository;
+    }
+
+    /**
+     * Schedule for a student or teacher. Scope is "now", "today" or "week".
+     * Slots come from the in-memory index; only the matching classes are loaded.
+     */
+    @Transactional(readOnly = true)
+    public List<ScheduleEntryDto> getSchedule(String role, Long userId, String scope) {
+        var slots = switch (scope == null ? "today" : scope.toLowerCase()) {
+            case "now" -> timetableIndexService.getScheduleAt(role, userId, LocalDateTime.now());
+            case "today" -> timetableIndexService.getSchedule(role, userId, LocalDate.now().getDayOfWeek());
+            case "week" -> timetableIndexService.getSchedule(role, userId, null);
+            default -> throw new IllegalArgumentException("Unknown schedule scope: " + scope);
+        };
+        if (slots.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> classIds = slots.stream()
+                .map(TimetableIndexService.ScheduledSlot::classId)
+                .collect(Collectors.toSet());
+        Map<Long, ClassEntity> classes = classRepository.findAllById(classIds).stream()
+                .collect(Collectors.toMap(ClassEntity::getClass_id, Function.identity()));
+
+        List<ScheduleEntryDto> entries = new ArrayList<>(slots.size());
+        for (var scheduled : slots) {
+            ClassEntity classEntity = classes.get(scheduled.classId());
+            if (classEntity == null) continue; // deleted since the index was updated
+
+            ScheduleEntryDto dto = new ScheduleEntryDto();
+            dto.setClassId(classEntity.getClass_id());
+            dto.setGrade(classEntity.getGrade());
+            if (classEntity.getTeacher() != null) {
+                dto.setTeacherName(classEntity.getTeacher().getFirstName() + " " + classEntity.getTeacher().getLastName());
+            }
+            dto.setSubjects(classEntity.getSubjects() == null ? List.of()
+                    : classEntity.getSubjects().stream().map(Subject::getName).toList());
+            dto.setTimetable(classEntity.getTimetable());
+            dto.setDayOfWeek(scheduled.slot().getDayOfWeek());
+            dto.setStartTime(scheduled.slot().getStartTime());
+            dto.setEndTime(scheduled.slot().getEndTime());
+            entries.add(dto);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.Edu_Camp.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Short-lived download URLs for files the caller has already been authorized for.
+ *
+ * The token names the stored file itself (storage key, hash, download name and type) and
+ * its expiry, signed with HMAC-SHA256, so a download only needs the signature and the clock
+ * to be checked: no session lookup and no enrollment query. Expiry is rounded up to a
+ * bucket of half the lifetime, so every link to the same file issued in that bucket is the
+ * same URL and a CDN or proxy cache in front can serve repeats.
+ */
+@Service
+public class SignedUrlService {
+
+    public static final String PATH_PREFIX = "/api/files/";
+
+    public record SignedUrl(String url, Instant expiresAt) {}
+
+    /** What a verified token grants: one stored file, served with these headers. */
+    public record SignedFile(String key, String sha256, String fileName, MediaType mediaType,
+                             boolean inline, Instant expiresAt) {}
+
+    private final TokenSigner signer;
+    private final long ttlSeconds;
+
+    public SignedUrlService(@Value("${file.signed-url.secret:}") String secret,
+                            @Value("${file.signed-url.ttl-seconds:600}") long ttlSeconds) {
+        this.signer = new TokenSigner(secret,
+                "file.signed-url.secret is not set; signed download URLs will stop working on restart");
+        this.ttlSeconds = Math.max(60, ttlSeconds);
+    }
+
+    public SignedUrl sign(StoredFile file, String fileName, MediaType mediaType, boolean inline) {
+        long bucket = ttlSeconds / 2;
+        long now = Instant.now().getEpochSecond();
+        // Valid for between half and the full lifetime
+        long expires = (now / bucket + 1) * bucket + (ttlSeconds - bucket);
+
+        String payload = String.join("\n",
+                file.key(),
+                file.sha256() != null ? file.sha256() : "",
+                mediaType.toString(),
+                inline ? "1" : "0",
+                Long.toString(expires),
+                fileName != null ? fileName.replaceAll("[\r\n]", "_") : "");
+        String encoded = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return new SignedUrl(PATH_PREFIX + encoded + "." + signer.signToUrl(encoded), Instant.ofEpochSecond(expires));
+    }
+
+    /** The file a token grants, if its signature holds and it has not expired. */
+    public Optional<SignedFile> verify(String token) {
+        int dot = token != null ? token.lastIndexOf('.') : -1;
+        if (dot <= 0) return Optional.empty();
+
+        String encoded = token.substring(0, dot);
+        if (!TokenSigner.matches(signer.signToUrl(encoded), token.substring(dot + 1))) {
+            return Optional.empty();
+        }
+
+        try {
+            String[] fields = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8)
+                    .split("\n", -1);
+            if (fields.length != 6) return Optional.empty();
+            Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(fields[4]));
+            if (Instant.now().isAfter(expiresAt)) return Optional.empty();
+            return Optional.of(new SignedFile(fields[0], fields[1].isEmpty() ? null : fields[1],
+                    fields[5].isEmpty() ? null : fields[5], MediaType.parseMediaType(fields[2]),
+                    "1".equals(fields[3]), expiresAt));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.Edu_Camp.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where upload bytes live. Keys are the relative paths stored in Assignment.filePath and
+ * Submission.filePath (for example "objects/{sha256}"); how a key maps to a physical
+ * location is up to the backend.
+ */
+public interface StorageBackend {
+
+    record ObjectInfo(String key, long size, Instant lastModified) {}
+
+    Optional<ObjectInfo> stat(String key) throws IOException;
+
+    /** Stores the file under key. The backend takes ownership of source and may move or delete it. */
+    void put(String key, Path source) throws IOException;
+
+    /** Bytes [start, end) of the object. */
+    InputStream openStream(String key, long start, long end) throws IOException;
+
+    /** File on local disk holding the object, for zero-copy sends; null for remote backends. */
+    Path localPath(String key) throws IOException;
+
+    boolean delete(String key) throws IOException;
+
+    /** All stored objects. The stream must be closed. */
+    Stream<ObjectInfo> list() throws IOException;
+}
@@ -0,0 +1,155 @@
+package com.example.Edu_Camp.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Moves upload files into the layout of the active storage backend while the application
+ * keeps serving: files still at their old flat location are re-sharded on local disk, or
+ * uploaded when the active backend is remote. Reads fall back to the old location until a
+ * file has been moved, and each move is a single rename (or an upload followed by removing
+ * the local copy), so no request sees a missing file.
+ *
+ * Runs from the admin endpoint or at startup with --migrate-storage.
+ */
+@Service
+public class StorageMigrationService implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageMigrationService.class);
+
+    public record MigrationStatus(boolean running, long scanned, long moved, long skipped, long failed,
+                                  Instant startedAt, Instant finishedAt) {}
+
+    private final FileStorageService fileStorageService;
+    private final int threads;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong moved = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    public StorageMigrationService(FileStorageService fileStorageService,
+                                   @Value("${file.storage.migration-threads:4}") int threads) {
+        this.fileStorageService = fileStorageService;
+        this.threads = Math.max(1, threads);
+        this.executor = Executors.newFixedThreadPool(this.threads + 1, runnable -> {
+            Thread thread = new Thread(runnable, "storage-migration");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption("migrate-storage")) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Starts a migration in the background; does nothing when one is already running. */
+    public MigrationStatus start() {
+        if (!running.compareAndSet(false, true)) {
+            return status();
+        }
+        scanned.set(0);
+        moved.set(0);
+        skipped.set(0);
+        failed.set(0);
+        startedAt = Instant.now();
+        finishedAt = null;
+
+        executor.execute(() -> {
+            try {
+                migrate();
+            } catch (Exception e) {
+                logger.error("Storage migration aborted", e);
+            } finally {
+                finishedAt = Instant.now();
+                running.set(false);
+                logger.info("Storage migration finished: {}", status());
+            }
+        });
+        return status();
+    }
+
+    public MigrationStatus status() {
+        return new MigrationStatus(running.get(), scanned.get(), moved.get(), skipped.get(), failed.get(),
+                startedAt, finishedAt);
+    }
+
+    private void migrate() throws IOException, InterruptedException {
+        LocalDiskStorageBackend local = fileStorageService.localStorage();
+        StorageBackend target = fileStorageService.storage();
+        // Bounds the queue so the walk never gets far ahead of the workers
+        Semaphore inFlight = new Semaphore(threads * 4);
+
+        try (Stream<Path> files = local.files()) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                scanned.incrementAndGet();
+                if (target == local && local.isSharded(file)) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        migrate(local, target, file);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        // Wait for the last batch
+        inFlight.acquire(threads * 4);
+        inFlight.release(threads * 4);
+    }
+
+    private void migrate(LocalDiskStorageBackend local, StorageBackend target, Path file) {
+        String key = local.keyOf(file);
+        try {
+            if (target != local) {
+                Optional<StorageBackend.ObjectInfo> existing = target.stat(key);
+                if (existing.isPresent() && existing.get().size() == Files.size(file)) {
+                    Files.deleteIfExists(file);
+                    skipped.incrementAndGet();
+                    return;
+                }
+            }
+            target.put(key, file);
+            moved.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            logger.warn("Could not migrate {}: {}", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.example.Edu_Camp.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Finds upload files that no row points at any more (rows deleted without releasing their
+ * file, transactions rolled back after the file was written) and moves them to a dated
+ * quarantine directory under tmp/, where they are kept for a while before being purged.
+ * Referenced files are re-hashed and compared with the hash on record, and leftovers of
+ * interrupted uploads in tmp/ are removed.
+ *
+ * The upload directory is walked with a fork-join task per directory and each file is
+ * looked up in a hash set of every path held by assignments, submissions, materials and
+ * stored objects. Files younger than the grace period are left alone, since the row for a
+ * file being stored right now may not be committed yet.
+ *
+ * An orphaned object is moved while holding a stored_objects row for its hash with no
+ * references, so an upload of the same content waits on that row and finds the object gone
+ * instead of taking a reference on a file about to leave.
+ */
+@Service
+public class StorageScrubService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageScrubService.class);
+
+    static final String QUARANTINE_DIR = "quarantine";
+    private static final int REPORT_LIMIT = 100;
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    // Every file path a row can hold, with the content hash on record where there is one
+    private static final String REFERENCES_SQL =
+            "SELECT file_path, file_hash FROM assignments WHERE file_path IS NOT NULL " +
+            "UNION ALL SELECT file_path, file_hash FROM submissions WHERE file_path IS NOT NULL " +
+            "UNION ALL SELECT file_path, file_hash FROM material WHERE file_path IS NOT NULL " +
+            "UNION ALL SELECT path, hash FROM stored_objects";
+    private static final String REFERENCE_COUNT_SQL =
+            "SELECT (SELECT COUNT(*) FROM assignments WHERE file_path = ?) " +
+            "+ (SELECT COUNT(*) FROM submissions WHERE file_path = ?) " +
+            "+ (SELECT COUNT(*) FROM material WHERE file_path = ?) " +
+            "+ (SELECT COUNT(*) FROM stored_objects WHERE path = ? AND ref_count > 0)";
+    // Holds the row lock FileStorageService takes references under; 0 rows when the object has a row
+    private static final String CLAIM_SQL =
+            "INSERT IGNORE INTO stored_objects (hash, path, size, ref_count, created_at) VALUES (?, ?, ?, 0, NOW())";
+    private static final String UNCLAIM_SQL = "DELETE FROM stored_objects WHERE hash = ? AND ref_count = 0";
+
+    public record ScrubReport(boolean running, boolean quarantine, Instant startedAt, Instant finishedAt,
+                              long scanned, long scannedBytes, long referenced,
+                              long orphans, long orphanBytes, long quarantined,
+                              long verified, long corrupt, long missing,
+                              long staleTempFiles, long purgedQuarantineRuns,
+                              List<String> orphanKeys, List<String> corruptKeys, List<String> missingKeys) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FileStorageService fileStorageService;
+    private final TransactionTemplate required;
+    private final ForkJoinPool pool;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "storage-scrub");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Duration grace;
+    private final Duration tempMaxAge;
+    private final Duration quarantineRetention;
+    private final boolean verifyChecksums;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Run current = new Run(false, null);
+
+    public StorageScrubService(JdbcTemplate jdbcTemplate,
+                               FileStorageService fileStorageService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${file.scrub.threads:4}") int threads,
+                               @Value("${file.scrub.grace-hours:24}") long graceHours,
+                               @Value("${file.scrub.temp-max-age-hours:48}") long tempMaxAgeHours,
+                               @Value("${file.scrub.quarantine-days:30}") long quarantineDays,
+                               @Value("${file.scrub.verify-checksums:true}") boolean verifyChecksums) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fileStorageService = fileStorageService;
+        this.required = new TransactionTemplate(transactionManager);
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.grace = Duration.ofHours(graceHours);
+        this.tempMaxAge = Duration.ofHours(tempMaxAgeHours);
+        this.quarantineRetention = Duration.ofDays(quarantineDays);
+        this.verifyChecksums = verifyChecksums;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    @Scheduled(cron = "${file.scrub.cron:0 30 4 * * SAT}")
+    public void scheduledRun() {
+        start(true);
+    }
+
+    /**
+     * Starts a scrub in the background; does nothing when one is already running. With
+     * quarantine off the orphans are only reported.
+     */
+    public ScrubReport start(boolean quarantine) {
+        if (!running.compareAndSet(false, true)) {
+            return report();
+        }
+        Run run = new Run(quarantine, Instant.now());
+        current = run;
+        coordinator.execute(() -> {
+            try {
+                scrub(run);
+            } catch (Exception e) {
+                logger.error("Storage scrub aborted", e);
+            } finally {
+                run.finishedAt = Instant.now();
+                running.set(false);
+                logger.info("Storage scrub finished: {} orphans ({} bytes), {} quarantined, {} corrupt, {} missing",
+                        run.orphans.get(), run.orphanBytes.get(), run.quarantined.get(),
+                        run.corrupt.get(), run.missing.get());
+            }
+        });
+        return report();
+    }
+
+    public ScrubReport report() {
+        Run run = current;
+        return new ScrubReport(running.get(), run.quarantine, run.startedAt, run.finishedAt,
+                run.scanned.get(), run.scannedBytes.get(), run.referenced.get(),
+                run.orphans.get(), run.orphanBytes.get(), run.quarantined.get(),
+                run.verified.get(), run.corrupt.get(), run.missing.get(),
+                run.staleTempFiles.get(), run.purgedQuarantineRuns.get(),
+                run.orphanKeys.snapshot(), run.corruptKeys.snapshot(), run.missingKeys.snapshot());
+    }
+
+    void scrub(Run run) throws IOException {
+        LocalDiskStorageBackend local = fileStorageService.localStorage();
+        StorageBackend storage = fileStorageService.storage();
+        Path tempDir = fileStorageService.tempDir();
+        Instant orphanCutoff = run.startedAt.minus(grace);
+
+        cleanTempDir(run, tempDir);
+
+        // Loaded before the walk: anything stored after this is younger than the grace period
+        Map<String, String> references = loadReferences();
+        run.referenced.set(references.size());
+        Set<String> found = ConcurrentHashMap.newKeySet();
+
+        List<Path> files = pool.invoke(new DirectoryScan(local.root(), tempDir));
+        String quarantineRun = RUN_ID.format(run.startedAt);
+        pool.submit(() -> files.parallelStream().forEach(file -> {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                Instant modified = attributes.lastModifiedTime().toInstant();
+                if (file.getFileName().toString().startsWith(".put-")) {
+                    // Left by a put that never finished its rename
+                    if (modified.isBefore(run.startedAt.minus(tempMaxAge)) && Files.deleteIfExists(file)) {
+                        run.staleTempFiles.incrementAndGet();
+                    }
+                    return;
+                }
+                run.scanned.incrementAndGet();
+                run.scannedBytes.addAndGet(attributes.size());
+                String key = logicalKey(local.keyOf(file));
+                if (references.containsKey(key)) {
+                    found.add(key);
+                } else if (modified.isBefore(orphanCutoff)) {
+                    orphan(run, key, attributes.size());
+                    if (run.quarantine && quarantine(local.root(), tempDir, quarantineRun, file, key, attributes.size())) {
+                        run.quarantined.incrementAndGet();
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("Skipping {} in storage scrub: {}", file, e.getMessage());
+            }
+        })).join();
+
+        // A remote backend cannot be moved from cheaply, so its orphans are only reported
+        if (storage != local) {
+            try (Stream<StorageBackend.ObjectInfo> objects = storage.list()) {
+                objects.forEach(info -> {
+                    run.scanned.incrementAndGet();
+                    run.scannedBytes.addAndGet(info.size());
+                    String key = logicalKey(info.key());
+                    if (references.containsKey(key)) {
+                        found.add(key);
+                    } else if (info.lastModified().isBefore(orphanCutoff)) {
+                        orphan(run, key, info.size());
+                    }
+                });
+            }
+        }
+
+        for (String key : references.keySet()) {
+            if (!found.contains(key)) {
+                run.missing.incrementAndGet();
+                run.missingKeys.add(key);
+            }
+        }
+
+        if (verifyChecksums) {
+            pool.submit(() -> found.parallelStream().forEach(key -> verify(run, key, references.get(key)))).join();
+        }
+    }
+
+    private static void orphan(Run run, String key, long size) {
+        run.orphans.incrementAndGet();
+        run.orphanBytes.addAndGet(size);
+        run.orphanKeys.add(key);
+    }
+
+    // A compressed copy or image variant of an object is kept or dropped with the object itself
+    private static String logicalKey(String key) {
+        if (key.startsWith(FileStorageService.OBJECTS_DIR + "/")) {
+            for (String suffix : FileStorageService.DERIVED_SUFFIXES) {
+                if (key.endsWith(suffix)) return key.substring(0, key.length() - suffix.length());
+            }
+        }
+        return key;
+    }
+
+    private Map<String, String> loadReferences() {
+        Map<String, String> references = new HashMap<>();
+        jdbcTemplate.query(REFERENCES_SQL, (RowCallbackHandler) rs -> {
+            String hash = rs.getString(2);
+            references.merge(rs.getString(1), hash != null ? hash : "", (a, b) -> a.isEmpty() ? b : a);
+        });
+        return references;
+    }
+
+    private boolean quarantine(Path root, Path tempDir, String quarantineRun, Path file, String key, long size) {
+        Path target = tempDir.resolve(QUARANTINE_DIR).resolve(quarantineRun).resolve(root.relativize(file));
+        String hash = key.startsWith(FileStorageService.OBJECTS_DIR + "/") ? key.substring(key.lastIndexOf('/') + 1) : null;
+        try {
+            return Boolean.TRUE.equals(required.execute(status -> {
+                // An upload of this content holds or has committed the row: it is no orphan
+                if (hash != null && jdbcTemplate.update(CLAIM_SQL, hash, key, size) == 0) return false;
+                // A row may have started pointing at the file since the references were loaded
+                Long count = jdbcTemplate.queryForObject(REFERENCE_COUNT_SQL, Long.class, key, key, key, key);
+                if (count != null && count > 0) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                try {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(file, target);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (hash != null) jdbcTemplate.update(UNCLAIM_SQL, hash);
+                logger.info("Quarantined orphaned upload {}", key);
+                return true;
+            }));
+        } catch (UncheckedIOException e) {
+            logger.warn("Could not quarantine {}: {}", key, e.getCause().getMessage());
+            return false;
+        }
+    }
+
+    private void verify(Run run, String key, String expected) {
+        String hash = expected != null && !expected.isEmpty() ? expected
+                : key.startsWith(FileStorageService.OBJECTS_DIR + "/") ? key.substring(key.lastIndexOf('/') + 1)
+                : null;
+        if (hash == null) return;
+        try {
+            String actual = fileStorageService.hashFile(key);
+            run.verified.incrementAndGet();
+            if (!hash.equalsIgnoreCase(actual)) {
+                run.corrupt.incrementAndGet();
+                run.corruptKeys.add(key);
+                logger.error("Checksum mismatch for {}: expected {}, found {}", key, hash, actual);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not verify {}: {}", key, e.getMessage());
+        }
+    }
+
+    // Uploads staged in tmp/ that were never finished, and quarantine runs past retention
+    private void cleanTempDir(Run run, Path tempDir) throws IOException {
+        Instant staleBefore = run.startedAt.minus(tempMaxAge);
+        Instant purgeBefore = run.startedAt.minus(quarantineRetention);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(tempDir)) {
+            for (Path entry : entries) {
+                if (Files.isRegularFile(entry)
+                        && Files.getLastModifiedTime(entry).toInstant().isBefore(staleBefore)
+                        && Files.deleteIfExists(entry)) {
+                    run.staleTempFiles.incrementAndGet();
+                }
+            }
+        }
+        Path quarantine = tempDir.resolve(QUARANTINE_DIR);
+        if (!Files.isDirectory(quarantine)) return;
+        try (DirectoryStream<Path> runs = Files.newDirectoryStream(quarantine)) {
+            for (Path dir : runs) {
+                if (Files.getLastModifiedTime(dir).toInstant().isBefore(purgeBefore)) {
+                    deleteRecursively(dir);
+                    run.purgedQuarantineRuns.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // Lists the regular files below a directory, forking a task per sub-directory
+    private static final class DirectoryScan extends RecursiveTask<List<Path>> {
+
+        private final Path dir;
+        private final Path excluded;
+
+        DirectoryScan(Path dir, Path excluded) {
+            this.dir = dir;
+            this.excluded = excluded;
+        }
+
+        @Override
+        protected List<Path> compute() {
+            List<Path> files = new ArrayList<>();
+            List<DirectoryScan> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry)) {
+                        if (!entry.equals(excluded)) {
+                            DirectoryScan task = new DirectoryScan(entry, excluded);
+                            task.fork();
+                            subtasks.add(task);
+                        }
+                    } else if (Files.isRegularFile(entry)) {
+                        files.add(entry);
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Could not list {}: {}", dir, e.getMessage());
+            }
+            for (DirectoryScan task : subtasks) {
+                files.addAll(task.join());
+            }
+            return files;
+        }
+    }
+
+    // Counters of one scrub, with the first few keys of each finding kept for the report
+    static final class Run {
+        final boolean quarantine;
+        final Instant startedAt;
+        volatile Instant finishedAt;
+        final AtomicLong scanned = new AtomicLong();
+        final AtomicLong scannedBytes = new AtomicLong();
+        final AtomicLong referenced = new AtomicLong();
+        final AtomicLong orphans = new AtomicLong();
+        final AtomicLong orphanBytes = new AtomicLong();
+        final AtomicLong quarantined = new AtomicLong();
+        final AtomicLong verified = new AtomicLong();
+        final AtomicLong corrupt = new AtomicLong();
+        final AtomicLong missing = new AtomicLong();
+        final AtomicLong staleTempFiles = new AtomicLong();
+        final AtomicLong purgedQuarantineRuns = new AtomicLong();
+        final KeySample orphanKeys = new KeySample();
+        final KeySample corruptKeys = new KeySample();
+        final KeySample missingKeys = new KeySample();
+
+        Run(boolean quarantine, Instant startedAt) {
+            this.quarantine = quarantine;
+            this.startedAt = startedAt;
+        }
+    }
+
+    static final class KeySample {
+        private final List<String> keys = new ArrayList<>();
+
+        synchronized void add(String key) {
+            if (keys.size() < REPORT_LIMIT) keys.add(key);
+        }
+
+        synchronized List<String> snapshot() {
+            return List.copyOf(keys);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.Edu_Camp.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * A file in upload storage, described by its metadata only. The content is never buffered;
+ * callers read it through a channel or hand the path to the container for sendfile.
+ * sha256 is the recorded content hash, or null when it is not known. path is null when the
+ * backend is remote, in which case the content is only available through openStream.
+ * codec is null for a file stored as is; for a compressed one ("deflate") size is the
+ * original length, path is null, and openStream decompresses on the fly.
+ */
+public record StoredFile(String key, long size, Instant lastModified, String sha256,
+                         Path path, StorageBackend backend, String codec) {
+
+    public StoredFile(String key, long size, Instant lastModified, String sha256,
+                      Path path, StorageBackend backend) {
+        this(key, size, lastModified, sha256, path, backend, null);
+    }
+
+    public boolean isLocal() {
+        return path != null;
+    }
+
+    public FileChannel openChannel() throws IOException {
+        if (path == null) throw new IOException("File is not on local disk: " + key);
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /** Bytes [start, end) of the file. */
+    public InputStream openStream(long start, long end) throws IOException {
+        if (DeflateCodec.NAME.equals(codec)) {
+            return DeflateCodec.decompress(
+                    backend.openStream(key + DeflateCodec.SUFFIX, DeflateCodec.HEADER_LENGTH, Long.MAX_VALUE),
+                    start, end);
+        }
+        return backend.openStream(key, start, end);
+    }
+
+    public InputStream openStream() throws IOException {
+        return openStream(0, size);
+    }
+}
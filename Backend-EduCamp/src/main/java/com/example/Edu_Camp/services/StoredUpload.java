@@ -0,0 +1,7 @@
+package com.example.Edu_Camp.services;
+
+/**
+ * Result of storing an upload: the path relative to the upload directory, the number of
+ * bytes written and the hex SHA-256 of the content.
+ */
+public record StoredUpload(String filePath, long size, String sha256) {}
@@ -1,9 +1,12 @@
 package com.example.Edu_Camp.services;
 
+import com.example.Edu_Camp.dto.ProfileImageUrls;
 import com.example.Edu_Camp.dto.StudentProfileDto;
 import com.example.Edu_Camp.dto.StudentProfileResponseDto;
+import com.example.Edu_Camp.models.ClassEntity;
 import com.example.Edu_Camp.models.Enrollment;
 import com.example.Edu_Camp.models.Student;
+import com.example.Edu_Camp.models.Subject;
 import com.example.Edu_Camp.models.User;
 import com.example.Edu_Camp.repository.ClassRepository;
 import com.example.Edu_Camp.repository.EnrollmentRepository;
@@ -12,17 +15,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
 public class StudentService {
     private final StudentRepository studentRepository;
+    private final ProfileImageService profileImageService;
 
-    public StudentService(StudentRepository studentRepository) {
+    public StudentService(StudentRepository studentRepository, ProfileImageService profileImageService) {
         this.studentRepository = studentRepository;
+        this.profileImageService = profileImageService;
     }
 
     public Student getStudentByUser(User user) {
@@ -35,7 +43,7 @@ public class StudentService {
     }
 
     @Transactional
-    public StudentProfileResponseDto updateStudentProfile(User user, StudentProfileDto dto) {
+    public StudentProfileResponseDto updateStudentProfile(User user, StudentProfileDto dto) throws IOException {
         Student student = getStudentByUser(user);
 
         // Only update editable fields - date of birth is READ-ONLY
@@ -43,9 +51,12 @@ public class StudentService {
         student.setEmergencyContact(dto.getEmergencyContact());
         student.setAddress(dto.getAddress());
         // student.setDateOfBirth(dto.getDateOfBirth()); // REMOVED - read-only
-        student.setProfilePicture(dto.getProfilePicture());
+        // Stored as a file; the row keeps only its reference
+        String previousPicture = student.getProfilePicture();
+        student.setProfilePicture(profileImageService.normalize(dto.getProfilePicture(), previousPicture));
 
         Student updatedStudent = studentRepository.save(student);
+        profileImageService.release(previousPicture, updatedStudent.getProfilePicture());
         return convertToProfileResponseDto(updatedStudent);
     }
 
@@ -55,27 +66,62 @@ public class StudentService {
     @Autowired
     private ClassRepository classRepository;
 
+    @Autowired
+    private ScheduleService scheduleService;
+
+    @Autowired
+    private TimetableIndexService timetableIndexService;
+
+    /**
+     * One entry per class taking place today, from the timetable index. "times" lists each of
+     * the day's slots in order and startTime/endTime are the first of them. A class whose
+     * timetable names today but cannot be parsed is still listed, with no times.
+     */
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getTodaysClasses(Student student) {
-        var enrollments = enrollmentRepository.findByStudentId(student.getId());
-        var today = java.time.DayOfWeek.from(java.time.LocalDate.now());
-        var result = new ArrayList<Map<String, Object>>();
+        var entries = scheduleService.getSchedule(TimetableIndexService.ROLE_STUDENT, student.getId(), "today");
+        Map<Long, Map<String, Object>> byClass = new LinkedHashMap<>();
+
+        for (var entry : entries) {
+            Map<String, Object> classInfo = byClass.computeIfAbsent(entry.getClassId(), classId -> {
+                Map<String, Object> info = new HashMap<>();
+                //info.put("className", classEntity.getName());
+                info.put("classId", classId);
+                info.put("teacher", entry.getTeacherName());
+                info.put("grade", entry.getGrade());
+                info.put("subjects", entry.getSubjects());
+                info.put("timetable", entry.getTimetable());
+                info.put("startTime", entry.getStartTime());
+                info.put("endTime", entry.getEndTime());
+                info.put("times", new ArrayList<Map<String, Object>>());
+                return info;
+            });
+            @SuppressWarnings("unchecked")
+            var times = (List<Map<String, Object>>) classInfo.get("times");
+            times.add(Map.of("startTime", entry.getStartTime(), "endTime", entry.getEndTime()));
+        }
 
-        for (Enrollment e : enrollments) {
-            var classEntity = e.getClassEntity();
-            String timetable = classEntity.getTimetable(); // e.g., "MONDAY: 8-10AM; TUESDAY: 1-3PM"
+        var unscheduled = timetableIndexService.getUnscheduledClasses(student.getId());
+        if (!unscheduled.isEmpty()) {
+            String today = LocalDate.now().getDayOfWeek().name();
+            for (ClassEntity classEntity : classRepository.findAllById(unscheduled)) {
+                String timetable = classEntity.getTimetable();
+                if (timetable == null || !timetable.toUpperCase().contains(today)) continue;
 
-            if (timetable != null && timetable.toUpperCase().contains(today.name())) {
                 Map<String, Object> classInfo = new HashMap<>();
-                //classInfo.put("className", classEntity.getName());
-                classInfo.put("teacher", classEntity.getTeacher().getFirstName() + " " + classEntity.getTeacher().getLastName());
+                classInfo.put("classId", classEntity.getClass_id());
+                classInfo.put("teacher", classEntity.getTeacher() == null ? null
+                        : classEntity.getTeacher().getFirstName() + " " + classEntity.getTeacher().getLastName());
                 classInfo.put("grade", classEntity.getGrade());
-                classInfo.put("subjects", classEntity.getSubjects().stream().map(s -> s.getName()).toList());
+                classInfo.put("subjects", classEntity.getSubjects() == null ? List.of()
+                        : classEntity.getSubjects().stream().map(Subject::getName).toList());
                 classInfo.put("timetable", timetable);
-                result.add(classInfo);
+                classInfo.put("times", List.of());
+                byClass.putIfAbsent(classEntity.getClass_id(), classInfo);
             }
         }
 
-        return result;
+        return new ArrayList<>(byClass.values());
     }
     private StudentProfileResponseDto convertToProfileResponseDto(Student student) {
         StudentProfileResponseDto dto = new StudentProfileResponseDto();
@@ -88,7 +134,7 @@ public class StudentService {
         dto.setEmergencyContact(student.getEmergencyContact());
         dto.setAddress(student.getAddress());
         dto.setDateOfBirth(student.getDateOfBirth()); // This comes from the Student entity
-        dto.setProfilePicture(student.getProfilePicture());
+        dto.setProfilePicture(ProfileImageUrls.url(student.getProfilePicture(), "medium"));
         dto.setGender(student.getGender());
         dto.setGrade(student.getGrade());
         dto.setCreatedAt(student.getCreatedAt());
@@ -0,0 +1,154 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.SubmissionDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Builds a ZIP of an assignment's submissions directly onto an output stream. Each file is
+ * read from storage and written into the archive as it goes, so neither the archive nor
+ * any single file is held in memory or spooled to disk.
+ *
+ * Formats that are already compressed (PDF, Office, images, archives) are STORED rather
+ * than deflated. A STORED entry needs its CRC up front, so those files are read twice; the
+ * CRC pass is far cheaper than deflating and the second read is served from the page cache.
+ *
+ * Submissions come in as summary rows loaded in one query before streaming starts, so
+ * writing the archive touches no entities and needs no database connection.
+ */
+@Service
+public class SubmissionArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionArchiveService.class);
+
+    static final String MANIFEST_NAME = "manifest.csv";
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "pdf", "docx", "xlsx", "pptx", "odt", "ods", "odp", "epub",
+            "jpg", "jpeg", "png", "gif", "webp", "heic",
+            "zip", "rar", "7z", "gz", "tgz", "bz2", "xz",
+            "mp3", "mp4", "m4a", "mov", "avi", "mkv", "webm");
+
+    private final FileStorageService fileStorageService;
+
+    public SubmissionArchiveService(FileStorageService fileStorageService) {
+        this.fileStorageService = fileStorageService;
+    }
+
+    /**
+     * Writes one entry per submission with a file, named by student number, plus a CSV
+     * manifest listing every submission. The stream is finished but not closed.
+     */
+    public void writeArchive(List<SubmissionDto> submissions, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        Set<String> usedNames = new HashSet<>();
+        StringBuilder manifest = new StringBuilder(
+                "student_number,student_name,archive_file,original_file,size,sha256,submitted_at,status,grade\n");
+
+        for (SubmissionDto submission : submissions) {
+            boolean hasFile = Boolean.TRUE.equals(submission.getHasFile());
+            String entryName = null;
+            if (hasFile) {
+                ZipEntry entry = null;
+                StoredFile file = null;
+                try {
+                    file = fileStorageService.openFile(submission.getFilePath(), submission.getFileHash());
+                    entry = newEntry(uniqueName(submission, usedNames), file, submission.getFileExtension());
+                } catch (IOException e) {
+                    // A missing file should not cost the teacher the rest of the archive
+                    logger.warn("Skipping submission {} in archive: {}", submission.getId(), e.getMessage());
+                }
+                if (entry != null) {
+                    // Failures from here on leave a half-written entry, so they abort the archive
+                    zip.putNextEntry(entry);
+                    try (InputStream in = file.openStream()) {
+                        in.transferTo(zip);
+                    }
+                    zip.closeEntry();
+                    entryName = entry.getName();
+                }
+            }
+
+            manifest.append(csv(submission.getStudentNumber())).append(',')
+                    .append(csv(submission.getStudentName())).append(',')
+                    .append(csv(entryName != null ? entryName : hasFile ? "(missing)" : "")).append(',')
+                    .append(csv(submission.getFileName())).append(',')
+                    .append(submission.getFileSize() != null ? submission.getFileSize() : "").append(',')
+                    .append(csv(submission.getFileHash())).append(',')
+                    .append(submission.getSubmittedAt() != null ? submission.getSubmittedAt() : "").append(',')
+                    .append(csv(submission.getStatus())).append(',')
+                    .append(submission.getGrade() != null ? submission.getGrade() : "").append('\n');
+        }
+
+        zip.putNextEntry(new ZipEntry(MANIFEST_NAME));
+        zip.write(manifest.toString().getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private static ZipEntry newEntry(String name, StoredFile file, String extension) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(file.lastModified().toEpochMilli());
+
+        if (extension != null && COMPRESSED_EXTENSIONS.contains(extension)) {
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(file.size());
+            entry.setCompressedSize(file.size());
+            entry.setCrc(crc(file));
+        }
+        return entry;
+    }
+
+    private static long crc(StoredFile file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = file.openStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    // {studentNumber}.{ext}; a second file for the same student gets the submission id appended
+    private static String uniqueName(SubmissionDto submission, Set<String> usedNames) {
+        String base = submission.getStudentNumber() != null
+                ? submission.getStudentNumber().replaceAll("[^A-Za-z0-9._-]", "_")
+                : "submission-" + submission.getId();
+        String suffix = submission.getFileExtension() != null
+                ? "." + submission.getFileExtension().replaceAll("[^A-Za-z0-9]", "_")
+                : "";
+        String name = base + suffix;
+        if (!usedNames.add(name)) {
+            name = base + "-" + submission.getId() + suffix;
+            usedNames.add(name);
+        }
+        return name;
+    }
+
+    private static String csv(String value) {
+        if (value == null) return "";
+        // Leading =, +, - or @ would be evaluated as a formula by spreadsheet apps
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.models.Submission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accepts assignment submissions under deadline bursts.
+ *
+ * The upload is streamed into storage before any transaction starts, then the submission
+ * row is written in a short transaction, so a slow copy never holds a database connection.
+ * At most max-concurrent submissions are stored at a time; others wait in FIFO order, and
+ * once max-waiting are queued (or a wait exceeds max-wait) the request is turned away with
+ * its queue position and a signed arrival token. Retrying with the token keeps the original
+ * arrival time, so submittedAt and late detection reflect when the student pressed submit,
+ * not when the server got round to it.
+ *
+ * A token is bound to the SHA-256 of the file that was turned away and expires after twice
+ * the Retry-After it came with, so it cannot carry an early arrival over to different work
+ * handed in later. The file is only hashed when a token is issued or presented.
+ */
+@Service
+public class SubmissionIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionIngestService.class);
+
+    static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
+    // Content hash signed into the token of a submission without a file
+    private static final String NO_FILE = "none";
+
+    private final AssignmentService assignmentService;
+    private final FileStorageService fileStorageService;
+    private final UploadSessionService uploadSessionService;
+    private final TransactionTemplate required;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final long maxWaitMillis;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final TokenSigner signer;
+
+    public SubmissionIngestService(AssignmentService assignmentService,
+                                   FileStorageService fileStorageService,
+                                   UploadSessionService uploadSessionService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${submission.ingest.max-concurrent:16}") int maxConcurrent,
+                                   @Value("${submission.ingest.max-waiting:256}") int maxWaiting,
+                                   @Value("${submission.ingest.max-wait-ms:20000}") long maxWaitMillis,
+                                   @Value("${submission.ingest.token-secret:}") String tokenSecret) {
+        this.assignmentService = assignmentService;
+        this.fileStorageService = fileStorageService;
+        this.uploadSessionService = uploadSessionService;
+        this.required = new TransactionTemplate(transactionManager);
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.permits = new Semaphore(this.maxConcurrent, true);
+        this.maxWaiting = maxWaiting;
+        this.maxWaitMillis = maxWaitMillis;
+        this.signer = new TokenSigner(tokenSecret,
+                "submission.ingest.token-secret is not set; arrival tokens will not survive a restart");
+    }
+
+    /**
+     * Submits either a multipart file or, with uploadId, a completed chunked upload. A chunked
+     * upload is already in storage, so it skips the queue and only writes the row.
+     */
+    public Submission submit(Long assignmentId, Long studentId, MultipartFile file, String uploadId,
+                             String comments, LocalDateTime arrivedAt, String arrivalToken) throws IOException {
+        if ((file == null || file.isEmpty()) && uploadId != null && !uploadId.isBlank()) {
+            LocalDateTime submittedAt = arrivedAt;
+            // Claim and record together, so a failed submission leaves the upload claimable
+            return required.execute(status -> {
+                UploadSessionService.ClaimedUpload upload = uploadSessionService.claim(uploadId, studentId, "SUBMISSION");
+                return assignmentService.recordSubmission(assignmentId, studentId, upload.stored(),
+                        upload.fileName(), upload.stored().size(), comments, submittedAt);
+            });
+        }
+
+        if (file != null && !file.isEmpty() && file.getSize() > MAX_FILE_SIZE) {
+            throw new RuntimeException("File size too large. Maximum size is 10MB.");
+        }
+        // Cheap checks before queueing, so rejected requests never take a slot
+        assignmentService.validateSubmission(assignmentId, studentId);
+
+        String contentHash = arrivalToken == null || arrivalToken.isBlank() ? null : contentHash(file);
+        LocalDateTime submittedAt = resolveArrival(assignmentId, studentId, contentHash, arrivedAt, arrivalToken);
+
+        int position = acquire();
+        if (position > 0) {
+            throw saturated(position, assignmentId, studentId, contentHash != null ? contentHash : contentHash(file),
+                    submittedAt);
+        }
+        try {
+            StoredUpload stored = file != null && !file.isEmpty() ? fileStorageService.storeFile(file) : null;
+            try {
+                return assignmentService.recordSubmission(assignmentId, studentId, stored,
+                        stored != null ? file.getOriginalFilename() : null,
+                        stored != null ? file.getSize() : null,
+                        comments, submittedAt);
+            } catch (RuntimeException e) {
+                // The stored reference committed on its own; give it back
+                if (stored != null) fileStorageService.release(stored.sha256());
+                throw e;
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getQueueLength() {
+        return waiting.get();
+    }
+
+    // 0 once a slot is taken, otherwise the queue position at which the request was turned away
+    private int acquire() {
+        int position = waiting.incrementAndGet();
+        try {
+            if (position > maxWaiting) return position;
+            return permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS) ? 0 : position;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return position;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private SubmissionQueueFullException saturated(int position, Long assignmentId, Long studentId,
+                                                   String contentHash, LocalDateTime submittedAt) {
+        // A couple of seconds for each full round of slots ahead of this request
+        long retryAfter = Math.min(60, 2L * (1 + position / maxConcurrent));
+        logger.info("Submission queue full at position {} for assignment {}", position, assignmentId);
+        Instant expiresAt = Instant.now().plusSeconds(2 * retryAfter);
+        return new SubmissionQueueFullException(position, retryAfter,
+                arrivalToken(assignmentId, studentId, contentHash, submittedAt, expiresAt));
+    }
+
+    // The earlier of now and the arrival time of a valid, unexpired token issued for this file
+    LocalDateTime resolveArrival(Long assignmentId, Long studentId, String contentHash,
+                                 LocalDateTime arrivedAt, String token) {
+        if (token == null || token.isBlank()) return arrivedAt;
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) return arrivedAt;
+        try {
+            long millis = Long.parseLong(parts[0]);
+            long expires = Long.parseLong(parts[1]);
+            String expected = sign(assignmentId, studentId, contentHash, millis, expires);
+            if (!TokenSigner.matches(expected, parts[2])) {
+                return arrivedAt;
+            }
+            if (Instant.ofEpochMilli(expires).isBefore(Instant.now())) return arrivedAt;
+            LocalDateTime original = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+            return original.isBefore(arrivedAt) ? original : arrivedAt;
+        } catch (NumberFormatException e) {
+            return arrivedAt;
+        }
+    }
+
+    String arrivalToken(Long assignmentId, Long studentId, String contentHash, LocalDateTime submittedAt,
+                        Instant expiresAt) {
+        long millis = submittedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long expires = expiresAt.toEpochMilli();
+        return millis + "." + expires + "." + sign(assignmentId, studentId, contentHash, millis, expires);
+    }
+
+    private String sign(Long assignmentId, Long studentId, String contentHash, long millis, long expires) {
+        return HexFormat.of().formatHex(
+                signer.sign(assignmentId + ":" + studentId + ":" + contentHash + ":" + millis + ":" + expires));
+    }
+
+    static String contentHash(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) return NO_FILE;
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (InputStream in = file.getInputStream()) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.Edu_Camp.services;
+
+/**
+ * Thrown when too many submissions are being ingested at once. The arrival token lets the
+ * client retry without losing its original arrival time.
+ */
+public class SubmissionQueueFullException extends RuntimeException {
+
+    private final int queuePosition;
+    private final long retryAfterSeconds;
+    private final String arrivalToken;
+
+    public SubmissionQueueFullException(int queuePosition, long retryAfterSeconds, String arrivalToken) {
+        super("The submission service is busy, please retry in " + retryAfterSeconds + " seconds");
+        this.queuePosition = queuePosition;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.arrivalToken = arrivalToken;
+    }
+
+    public int getQueuePosition() {
+        return queuePosition;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public String getArrivalToken() {
+        return arrivalToken;
+    }
+}
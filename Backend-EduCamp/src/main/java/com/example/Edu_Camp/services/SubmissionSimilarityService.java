@@ -0,0 +1,221 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.SubmissionDto;
+import com.example.Edu_Camp.models.Submission;
+import com.example.Edu_Camp.models.SubmissionFingerprint;
+import com.example.Edu_Camp.repository.AssignmentRepository;
+import com.example.Edu_Camp.repository.SubmissionFingerprintRepository;
+import com.example.Edu_Camp.repository.SubmissionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipException;
+
+/**
+ * Flags submissions of an assignment whose text is nearly the same. Each text or .docx
+ * submission gets a MinHash signature shortly after it is submitted; the report buckets the
+ * assignment's signatures by LSH band and only compares pairs that share a bucket, so a
+ * class of n students costs about n bucket lookups per band rather than n² comparisons.
+ *
+ * Signatures are computed off the request thread. Submissions the background pool skipped
+ * (queue full, restart) are queued again when the report is requested; the report does not
+ * wait for them and counts them as pending.
+ */
+@Service
+public class SubmissionSimilarityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionSimilarityService.class);
+
+    // Pairs returned per report, most similar first
+    static final int MAX_PAIRS = 500;
+
+    public record SimilarPair(Long submissionId, String studentName, String studentNumber,
+                              Long otherSubmissionId, String otherStudentName, String otherStudentNumber,
+                              double similarity) {}
+
+    public record SimilarityReport(Long assignmentId, int submissions, int fingerprinted, int withoutText,
+                                   int pending, double minSimilarity, List<SimilarPair> pairs) {}
+
+    private final SubmissionFingerprintRepository fingerprintRepository;
+    private final SubmissionRepository submissionRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final FileStorageService fileStorageService;
+    private final double minSimilarity;
+    private final int minWords;
+    private final ThreadPoolExecutor executor;
+    // Submissions waiting in or running on the pool, so a report never queues one twice
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    public SubmissionSimilarityService(SubmissionFingerprintRepository fingerprintRepository,
+                                       SubmissionRepository submissionRepository,
+                                       AssignmentRepository assignmentRepository,
+                                       FileStorageService fileStorageService,
+                                       @Value("${similarity.min-score:0.5}") double minSimilarity,
+                                       @Value("${similarity.min-words:50}") int minWords,
+                                       @Value("${similarity.threads:2}") int threads) {
+        this.fingerprintRepository = fingerprintRepository;
+        this.submissionRepository = submissionRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.fileStorageService = fileStorageService;
+        this.minSimilarity = minSimilarity;
+        this.minWords = minWords;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000), runnable -> {
+                    Thread thread = new Thread(runnable, "submission-similarity");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (task, pool) -> queued.remove(((Fingerprint) task).submissionId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Fingerprints a new submission in the background once the caller's transaction commits. */
+    public void fingerprintLater(Submission submission) {
+        if (!submission.hasFile()) return;
+        Long submissionId = submission.getId();
+        Long assignmentId = submission.getAssignmentId();
+        String filePath = submission.getFilePath();
+        String fileHash = submission.getFileHash();
+        String extension = submission.getFileExtension();
+        TransactionHooks.afterCommit(() -> queue(submissionId,
+                () -> fingerprint(submissionId, assignmentId, filePath, fileHash, extension)));
+    }
+
+    /** Pairs of the assignment's submissions at or above the configured similarity, for its teacher. */
+    public SimilarityReport report(Long assignmentId, Long teacherId) {
+        Long ownerId = assignmentRepository.findTeacherIdById(assignmentId)
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+
+        if (!ownerId.equals(teacherId)) {
+            throw new RuntimeException("You can only view submissions for your own assignments");
+        }
+
+        List<Long> pending = fingerprintRepository.findUnfingerprintedSubmissionIds(assignmentId);
+        for (Long submissionId : pending) {
+            queue(submissionId, () -> submissionRepository.findById(submissionId).ifPresent(s ->
+                    fingerprint(s.getId(), assignmentId, s.getFilePath(), s.getFileHash(), s.getFileExtension())));
+        }
+
+        List<SubmissionFingerprint> rows = fingerprintRepository.findByAssignmentId(assignmentId);
+        Map<Long, SubmissionDto> submissions = submissionRepository.findSummariesByAssignmentId(assignmentId).stream()
+                .collect(Collectors.toMap(SubmissionDto::getId, Function.identity()));
+
+        List<Long> ids = new ArrayList<>();
+        List<int[]> signatures = new ArrayList<>();
+        for (SubmissionFingerprint row : rows) {
+            if (row.getSignature() != null && submissions.containsKey(row.getSubmissionId())) {
+                ids.add(row.getSubmissionId());
+                signatures.add(MinHash.fromBytes(row.getSignature()));
+            }
+        }
+
+        List<SimilarPair> pairs = new ArrayList<>();
+        for (long candidate : candidatePairs(signatures)) {
+            int a = (int) (candidate >>> 32);
+            int b = (int) candidate;
+            double similarity = MinHash.similarity(signatures.get(a), signatures.get(b));
+            if (similarity >= minSimilarity) {
+                SubmissionDto first = submissions.get(ids.get(a));
+                SubmissionDto second = submissions.get(ids.get(b));
+                pairs.add(new SimilarPair(first.getId(), first.getStudentName(), first.getStudentNumber(),
+                        second.getId(), second.getStudentName(), second.getStudentNumber(), similarity));
+            }
+        }
+        pairs.sort(Comparator.comparingDouble(SimilarPair::similarity).reversed()
+                .thenComparing(SimilarPair::submissionId));
+
+        return new SimilarityReport(assignmentId, submissions.size(), ids.size(), rows.size() - ids.size(),
+                pending.size(), minSimilarity, pairs.size() > MAX_PAIRS ? List.copyOf(pairs.subList(0, MAX_PAIRS)) : pairs);
+    }
+
+    // Index pairs (i << 32 | j, i < j) that share at least one LSH bucket
+    static Set<Long> candidatePairs(List<int[]> signatures) {
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            Map<Long, List<Integer>> buckets = new HashMap<>();
+            for (int i = 0; i < signatures.size(); i++) {
+                buckets.computeIfAbsent(MinHash.bandKey(signatures.get(i), band), k -> new ArrayList<>()).add(i);
+            }
+            for (List<Integer> bucket : buckets.values()) {
+                for (int x = 0; x < bucket.size(); x++) {
+                    for (int y = x + 1; y < bucket.size(); y++) {
+                        candidates.add((long) bucket.get(x) << 32 | bucket.get(y));
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    // A full queue drops the task and the mark with it; the next report queues it again
+    private void queue(Long submissionId, Runnable work) {
+        if (queued.add(submissionId)) {
+            executor.execute(new Fingerprint(submissionId, work));
+        }
+    }
+
+    private final class Fingerprint implements Runnable {
+        private final Long submissionId;
+        private final Runnable work;
+
+        Fingerprint(Long submissionId, Runnable work) {
+            this.submissionId = submissionId;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            try {
+                work.run();
+            } finally {
+                queued.remove(submissionId);
+            }
+        }
+    }
+
+    void fingerprint(Long submissionId, Long assignmentId, String filePath, String fileHash, String extension) {
+        try {
+            MinHash.Signature signature = null;
+            if (SubmissionTextExtractor.supports(extension)) {
+                String text;
+                try (InputStream in = fileStorageService.openFile(filePath, fileHash).openStream()) {
+                    text = SubmissionTextExtractor.extract(in, extension);
+                } catch (ZipException | SubmissionTextExtractor.UnreadableDocumentException e) {
+                    // Damaged or oversized document: record it as having no text rather than retrying
+                    logger.debug("No text in submission {}: {}", submissionId, e.getMessage());
+                    text = null;
+                }
+                signature = text != null ? MinHash.of(text, minWords) : null;
+            }
+            fingerprintRepository.save(new SubmissionFingerprint(submissionId, assignmentId,
+                    signature != null ? MinHash.toBytes(signature.values()) : null,
+                    signature != null ? signature.shingleCount() : 0));
+        } catch (IOException e) {
+            // Left without a row, so the next report tries again
+            logger.warn("Could not fingerprint submission {}: {}", submissionId, e.getMessage());
+        } catch (Exception e) {
+            logger.warn("Fingerprinting submission {} failed", submissionId, e);
+        }
+    }
+}
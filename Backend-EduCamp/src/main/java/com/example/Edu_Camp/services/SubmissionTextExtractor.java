@@ -0,0 +1,125 @@
+package com.example.Edu_Camp.services;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Plain text of a submission file for similarity checks: text files as they are, and the
+ * body of a .docx (the w:t runs of word/document.xml, one line per paragraph) without
+ * pulling in a full Office library. Output is capped, which is plenty for a fingerprint.
+ */
+final class SubmissionTextExtractor {
+
+    static final Set<String> TEXT_EXTENSIONS = Set.of("txt", "md", "text");
+    static final String DOCX = "docx";
+
+    private static final int MAX_CHARS = 2 * 1024 * 1024;
+    // Guards against a document.xml that inflates to far more than any real essay
+    private static final long MAX_XML_BYTES = 64L * 1024 * 1024;
+    private static final String WORD_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private static final XMLInputFactory XML = XMLInputFactory.newFactory();
+    static {
+        XML.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private SubmissionTextExtractor() {}
+
+    static boolean supports(String extension) {
+        return extension != null && (TEXT_EXTENSIONS.contains(extension) || DOCX.equals(extension));
+    }
+
+    /** The text, or null when the format is not supported or the file holds no document. */
+    static String extract(InputStream in, String extension) throws IOException {
+        if (extension == null) return null;
+        if (TEXT_EXTENSIONS.contains(extension)) {
+            byte[] bytes = in.readNBytes(MAX_CHARS);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (DOCX.equals(extension)) {
+            ZipInputStream zip = new ZipInputStream(in);
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if ("word/document.xml".equals(entry.getName())) {
+                    return documentText(new BoundedInputStream(zip, MAX_XML_BYTES));
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String documentText(InputStream xml) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try {
+            XMLStreamReader reader = XML.createXMLStreamReader(xml);
+            boolean inText = false;
+            while (reader.hasNext() && text.length() < MAX_CHARS) {
+                switch (reader.next()) {
+                    case XMLStreamReader.START_ELEMENT -> {
+                        if (WORD_NS.equals(reader.getNamespaceURI())) {
+                            switch (reader.getLocalName()) {
+                                case "t" -> inText = true;
+                                case "tab", "br" -> text.append(' ');
+                                default -> { }
+                            }
+                        }
+                    }
+                    case XMLStreamReader.END_ELEMENT -> {
+                        if (WORD_NS.equals(reader.getNamespaceURI())) {
+                            if ("t".equals(reader.getLocalName())) inText = false;
+                            else if ("p".equals(reader.getLocalName())) text.append('\n');
+                        }
+                    }
+                    case XMLStreamReader.CHARACTERS, XMLStreamReader.CDATA -> {
+                        if (inText) text.append(reader.getText());
+                    }
+                    default -> { }
+                }
+            }
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new UnreadableDocumentException("Could not read document text: " + e.getMessage());
+        }
+        return text.toString();
+    }
+
+    static final class UnreadableDocumentException extends IOException {
+        UnreadableDocumentException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) throw new UnreadableDocumentException("Document too large");
+            int b = in.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) throw new UnreadableDocumentException("Document too large");
+            int n = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.Edu_Camp.services;
+
+import java.util.List;
+
+/**
+ * Thrown when a class timetable overlaps another class of the same student or teacher.
+ */
+public class TimetableConflictException extends RuntimeException {
+
+    private final List<Long> conflictingClassIds;
+
+    public TimetableConflictException(String message, List<Long> conflictingClassIds) {
+        super(message + " " + conflictingClassIds);
+        this.conflictingClassIds = List.copyOf(conflictingClassIds);
+    }
+
+    public List<Long> getConflictingClassIds() {
+        return conflictingClassIds;
+    }
+}
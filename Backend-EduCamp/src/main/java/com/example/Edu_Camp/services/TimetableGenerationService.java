@@ -0,0 +1,471 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.TimetableGenerationRequestDto;
+import com.example.Edu_Camp.dto.TimetableProposalDto;
+import com.example.Edu_Camp.models.ClassEntity;
+import com.example.Edu_Camp.models.TimetableParser;
+import com.example.Edu_Camp.models.TimetableSlot;
+import com.example.Edu_Camp.repository.ClassRepository;
+import com.example.Edu_Camp.repository.EnrollmentRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Proposes clash-free weekly timetables for a set of classes and applies accepted proposals.
+ *
+ * Classes outside the requested set keep their timetable and only block the cells their
+ * teacher and students already use. The search itself runs in TimetableSolver.
+ */
+@Service
+public class TimetableGenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimetableGenerationService.class);
+
+    private static final List<DayOfWeek> DEFAULT_DAYS = List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY,
+            DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+    private static final long DEFAULT_BUDGET_MILLIS = 2_000;
+    private static final long MAX_BUDGET_MILLIS = 30_000;
+    // Rows per JDBC batch when applying a proposal
+    private static final int APPLY_BATCH_SIZE = 50;
+
+    private final ClassRepository classRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final TimetableIndexService timetableIndexService;
+    private final EntityManager entityManager;
+    private final ForkJoinPool solverPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    public TimetableGenerationService(ClassRepository classRepository,
+                                      EnrollmentRepository enrollmentRepository,
+                                      TimetableIndexService timetableIndexService,
+                                      EntityManager entityManager) {
+        this.classRepository = classRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.timetableIndexService = timetableIndexService;
+        this.entityManager = entityManager;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        solverPool.shutdownNow();
+    }
+
+    public TimetableProposalDto generate(TimetableGenerationRequestDto request) {
+        long started = System.currentTimeMillis();
+        if (request == null) request = new TimetableGenerationRequestDto();
+
+        List<TimetableSlot> cells = buildCells(request);
+        long budget = request.getTimeBudgetMillis() == null ? DEFAULT_BUDGET_MILLIS
+                : Math.max(100, Math.min(MAX_BUDGET_MILLIS, request.getTimeBudgetMillis()));
+
+        Map<Long, ClassEntity> classes = new LinkedHashMap<>();
+        for (ClassEntity c : classRepository.findAllWithTimetableSlots()) {
+            classes.put(c.getClass_id(), c);
+        }
+        Set<Long> targets = new LinkedHashSet<>();
+        if (request.getClassIds() == null || request.getClassIds().isEmpty()) {
+            targets.addAll(classes.keySet());
+        } else {
+            for (Long id : request.getClassIds()) {
+                if (!classes.containsKey(id)) throw new IllegalArgumentException("Class not found: " + id);
+                targets.add(id);
+            }
+        }
+
+        Map<Long, Set<Long>> neighbours = neighbourClasses(classes, enrollmentRepository.findStudentClassPairs());
+        Map<Long, Integer> sessions = new HashMap<>();
+        for (Long id : targets) {
+            sessions.put(id, sessionsFor(classes.get(id), request, cells.size()));
+        }
+
+        // Classes whose allowed cells cannot hold all their lessons keep their current timetable,
+        // which in turn blocks cells for their neighbours - repeat until nothing else drops out
+        Map<Long, List<Integer>> domains = new LinkedHashMap<>();
+        List<Long> unschedulable = new ArrayList<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            domains.clear();
+            for (Long id : targets) {
+                List<Integer> domain = domainFor(classes.get(id), cells, classes, targets, neighbours, request);
+                if (domain.size() < sessions.get(id)) {
+                    unschedulable.add(id);
+                    changed = true;
+                } else {
+                    domains.put(id, domain);
+                }
+            }
+            targets.removeAll(unschedulable);
+        }
+
+        TimetableSolver.Problem problem = toProblem(domains, sessions, neighbours, classes, cells, request);
+        TimetableSolver.Result result = TimetableSolver.solve(problem, solverPool, budget, System.nanoTime());
+
+        TimetableProposalDto proposal = new TimetableProposalDto();
+        proposal.setHardConflicts(result.hardConflicts());
+        proposal.setSoftPenalty(result.softPenalty());
+        proposal.setClashFree(result.hardConflicts() == 0);
+        proposal.setIterations(result.iterations());
+        proposal.setWorkers(result.workers());
+        proposal.setUnschedulableClassIds(unschedulable);
+
+        // Sessions were laid out class by class, in domain order
+        Map<Long, List<TimetableSlot>> proposed = new LinkedHashMap<>();
+        int session = 0;
+        for (Long id : domains.keySet()) {
+            List<TimetableSlot> slots = new ArrayList<>();
+            for (int i = 0; i < sessions.get(id); i++) {
+                slots.add(cells.get(result.assignment()[session++]));
+            }
+            proposed.put(id, slots);
+        }
+        for (var entry : proposed.entrySet()) {
+            ClassEntity c = classes.get(entry.getKey());
+            TimetableProposalDto.ClassTimetable dto = new TimetableProposalDto.ClassTimetable();
+            dto.setClassId(c.getClass_id());
+            dto.setGrade(c.getGrade());
+            dto.setTeacherId(c.getTeacher() != null ? c.getTeacher().getId() : null);
+            dto.setCurrentTimetable(c.getTimetable());
+            dto.setTimetable(format(entry.getValue()));
+            proposal.getClasses().add(dto);
+        }
+
+        proposal.setElapsedMillis(System.currentTimeMillis() - started);
+        logger.info("Generated timetables for {} classes: {} clashes, penalty {}, {} iterations on {} workers in {} ms",
+                proposed.size(), result.hardConflicts(), result.softPenalty(), result.iterations(),
+                result.workers(), proposal.getElapsedMillis());
+        return proposal;
+    }
+
+    /**
+     * Writes the proposed timetables in one transaction. The whole batch is rejected if any
+     * class would overlap another class of the same teacher or of a shared student. The new
+     * slots are also reserved in the timetable index for the teacher and every enrolled
+     * student, as ClassController and EnrollmentService do, so a class or enrollment saved
+     * concurrently cannot land on them.
+     *
+     * JDBC batching is switched on for this session only: the flush writes every class update
+     * and then every recreated slot collection, so each kind of statement already goes out
+     * in one contiguous run.
+     */
+    @Transactional
+    public List<ClassEntity> apply(TimetableProposalDto proposal) {
+        if (proposal == null || proposal.getClasses() == null || proposal.getClasses().isEmpty()) {
+            throw new IllegalStateException("No timetables to apply");
+        }
+
+        Map<Long, ClassEntity> classes = new HashMap<>();
+        for (ClassEntity c : classRepository.findAllWithTimetableSlots()) {
+            classes.put(c.getClass_id(), c);
+        }
+
+        Map<Long, List<TimetableSlot>> slotsByClass = new HashMap<>();
+        for (ClassEntity c : classes.values()) {
+            slotsByClass.put(c.getClass_id(), c.getTimetableSlots());
+        }
+        Map<Long, String> updates = new LinkedHashMap<>();
+        for (TimetableProposalDto.ClassTimetable entry : proposal.getClasses()) {
+            if (!classes.containsKey(entry.getClassId())) {
+                throw new IllegalArgumentException("Class not found: " + entry.getClassId());
+            }
+            List<TimetableSlot> slots = TimetableParser.parse(entry.getTimetable());
+            if (slots.isEmpty()) {
+                throw new IllegalStateException("Timetable for class " + entry.getClassId() + " has no valid slots");
+            }
+            updates.put(entry.getClassId(), entry.getTimetable());
+            slotsByClass.put(entry.getClassId(), slots);
+        }
+
+        List<Object[]> enrolled = enrollmentRepository.findStudentClassPairs();
+        Map<Long, Set<Long>> neighbours = neighbourClasses(classes, enrolled);
+        Set<Long> conflicts = new TreeSet<>();
+        for (Long id : updates.keySet()) {
+            for (Long other : neighbours.getOrDefault(id, Set.of())) {
+                if (overlaps(slotsByClass.get(id), slotsByClass.get(other))) {
+                    conflicts.add(id);
+                    conflicts.add(other);
+                }
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new TimetableConflictException("Proposed timetables overlap for classes", new ArrayList<>(conflicts));
+        }
+
+        // Released when the transaction ends, after the index holds the new slots
+        List<TimetableIndexService.Reservation> reservations = new ArrayList<>();
+        try {
+            Map<Long, Set<Long>> studentsByClass = new HashMap<>();
+            for (Object[] pair : enrolled) {
+                if (pair[0] == null || pair[1] == null) continue;
+                studentsByClass.computeIfAbsent((Long) pair[1], k -> new HashSet<>()).add((Long) pair[0]);
+            }
+            for (Long id : updates.keySet()) {
+                ClassEntity c = classes.get(id);
+                List<TimetableSlot> slots = slotsByClass.get(id);
+                reservations.add(timetableIndexService.reserveSlots(TimetableIndexService.ROLE_TEACHER,
+                        c.getTeacher() != null ? c.getTeacher().getId() : null, id, slots));
+                for (Long studentId : studentsByClass.getOrDefault(id, Set.of())) {
+                    reservations.add(timetableIndexService.reserveSlots(TimetableIndexService.ROLE_STUDENT,
+                            studentId, id, slots));
+                }
+            }
+            boolean unsaved = false;
+            for (TimetableIndexService.Reservation reservation : reservations) {
+                for (Long other : reservation.conflicts()) {
+                    // A class still being created has no id yet; the index still has the old
+                    // slots of classes in this batch, which were checked above
+                    if (other == null) unsaved = true;
+                    else if (!updates.containsKey(other)) conflicts.add(other);
+                }
+            }
+            if (unsaved || !conflicts.isEmpty()) {
+                throw new TimetableConflictException("Proposed timetables overlap classes another request is saving",
+                        new ArrayList<>(conflicts));
+            }
+
+            entityManager.unwrap(Session.class).setJdbcBatchSize(APPLY_BATCH_SIZE);
+            List<ClassEntity> changed = new ArrayList<>(updates.size());
+            for (var entry : updates.entrySet()) {
+                ClassEntity c = classes.get(entry.getKey());
+                c.setTimetable(entry.getValue());
+                changed.add(c);
+            }
+            List<ClassEntity> saved = classRepository.saveAll(changed);
+            saved.forEach(timetableIndexService::upsertClass);
+            logger.info("Applied generated timetables to {} classes", saved.size());
+            return saved;
+        } catch (RuntimeException e) {
+            reservations.forEach(TimetableIndexService.Reservation::close);
+            throw e;
+        }
+    }
+
+    private List<TimetableSlot> buildCells(TimetableGenerationRequestDto request) {
+        List<DayOfWeek> days = request.getDays() == null || request.getDays().isEmpty()
+                ? DEFAULT_DAYS : List.copyOf(EnumSet.copyOf(request.getDays()));
+        int lesson = request.getLessonMinutes() == null ? 60 : request.getLessonMinutes();
+        if (lesson < 15 || lesson > 240) {
+            throw new IllegalStateException("lessonMinutes must be between 15 and 240");
+        }
+
+        int start;
+        int end;
+        try {
+            start = LocalTime.parse(request.getDayStart() == null ? "08:00" : request.getDayStart()).toSecondOfDay() / 60;
+            end = LocalTime.parse(request.getDayEnd() == null ? "18:00" : request.getDayEnd()).toSecondOfDay() / 60;
+        } catch (DateTimeParseException e) {
+            throw new IllegalStateException("dayStart and dayEnd must be HH:mm");
+        }
+
+        List<TimetableSlot> cells = new ArrayList<>();
+        for (DayOfWeek day : days) {
+            for (int t = start; t + lesson <= end; t += lesson) {
+                cells.add(new TimetableSlot(day, t, t + lesson));
+            }
+        }
+        if (cells.isEmpty()) {
+            throw new IllegalStateException("The school day is shorter than one lesson");
+        }
+        return cells;
+    }
+
+    private int sessionsFor(ClassEntity c, TimetableGenerationRequestDto request, int cellCount) {
+        Integer requested = request.getSessionsPerWeek() == null ? null : request.getSessionsPerWeek().get(c.getClass_id());
+        int sessions;
+        if (requested != null) {
+            sessions = requested;
+        } else if (!c.getTimetableSlots().isEmpty()) {
+            sessions = c.getTimetableSlots().size();
+        } else {
+            sessions = request.getDefaultSessionsPerWeek() == null ? 1 : request.getDefaultSessionsPerWeek();
+        }
+        return Math.max(1, Math.min(cellCount, sessions));
+    }
+
+    // Classes sharing a teacher or at least one student
+    private Map<Long, Set<Long>> neighbourClasses(Map<Long, ClassEntity> classes, List<Object[]> enrolled) {
+        Map<Long, Set<Long>> byTeacher = new HashMap<>();
+        for (ClassEntity c : classes.values()) {
+            if (c.getTeacher() != null) {
+                byTeacher.computeIfAbsent(c.getTeacher().getId(), k -> new HashSet<>()).add(c.getClass_id());
+            }
+        }
+        Map<Long, Set<Long>> byStudent = new HashMap<>();
+        for (Object[] pair : enrolled) {
+            if (pair[0] == null || pair[1] == null) continue;
+            byStudent.computeIfAbsent((Long) pair[0], k -> new HashSet<>()).add((Long) pair[1]);
+        }
+
+        Map<Long, Set<Long>> neighbours = new HashMap<>();
+        for (Set<Long> group : concat(byTeacher.values(), byStudent.values())) {
+            for (Long a : group) {
+                for (Long b : group) {
+                    if (!a.equals(b)) neighbours.computeIfAbsent(a, k -> new HashSet<>()).add(b);
+                }
+            }
+        }
+        return neighbours;
+    }
+
+    private static List<Set<Long>> concat(Iterable<Set<Long>> first, Iterable<Set<Long>> second) {
+        List<Set<Long>> all = new ArrayList<>();
+        first.forEach(all::add);
+        second.forEach(all::add);
+        return all;
+    }
+
+    private List<Integer> domainFor(ClassEntity c, List<TimetableSlot> cells, Map<Long, ClassEntity> classes,
+                                    Set<Long> targets, Map<Long, Set<Long>> neighbours,
+                                    TimetableGenerationRequestDto request) {
+        List<TimetableSlot> blocked = new ArrayList<>();
+        for (Long other : neighbours.getOrDefault(c.getClass_id(), Set.of())) {
+            if (!targets.contains(other)) blocked.addAll(classes.get(other).getTimetableSlots());
+        }
+
+        List<TimetableSlot> teacherHours = null;
+        if (request.getTeacherAvailability() != null && c.getTeacher() != null) {
+            String availability = request.getTeacherAvailability().get(c.getTeacher().getId());
+            if (availability != null) teacherHours = TimetableParser.parse(availability);
+        }
+        TimetableGenerationRequestDto.GradeConstraint constraint = gradeConstraint(request, c.getGrade());
+        List<TimetableSlot> gradeHours = constraint == null || constraint.getAllowedHours() == null
+                ? null : TimetableParser.parse(constraint.getAllowedHours());
+
+        List<Integer> domain = new ArrayList<>();
+        for (int i = 0; i < cells.size(); i++) {
+            TimetableSlot cell = cells.get(i);
+            if (teacherHours != null && !within(cell, teacherHours)) continue;
+            if (gradeHours != null && !within(cell, gradeHours)) continue;
+            if (blocked.stream().anyMatch(cell::overlaps)) continue;
+            domain.add(i);
+        }
+        return domain;
+    }
+
+    private TimetableSolver.Problem toProblem(Map<Long, List<Integer>> domains, Map<Long, Integer> sessions,
+                                              Map<Long, Set<Long>> neighbours, Map<Long, ClassEntity> classes,
+                                              List<TimetableSlot> cells, TimetableGenerationRequestDto request) {
+        Map<Long, Integer> classIndex = new HashMap<>();
+        for (Long id : domains.keySet()) classIndex.put(id, classIndex.size());
+
+        Map<DayOfWeek, Integer> dayIndex = new TreeMap<>();
+        for (TimetableSlot cell : cells) dayIndex.putIfAbsent(cell.getDayOfWeek(), dayIndex.size());
+        int[] cellDay = new int[cells.size()];
+        for (int i = 0; i < cells.size(); i++) cellDay[i] = dayIndex.get(cells.get(i).getDayOfWeek());
+
+        Map<String, Integer> gradeIndex = new HashMap<>();
+        List<Integer> gradeMax = new ArrayList<>();
+        int[] classGrade = new int[classIndex.size()];
+        int[][] classNeighbours = new int[classIndex.size()][];
+        int sessionCount = 0;
+
+        for (var entry : classIndex.entrySet()) {
+            ClassEntity c = classes.get(entry.getKey());
+            int k = entry.getValue();
+            String grade = c.getGrade() == null ? "" : c.getGrade();
+            classGrade[k] = gradeIndex.computeIfAbsent(grade, g -> {
+                TimetableGenerationRequestDto.GradeConstraint constraint = gradeConstraint(request, g);
+                gradeMax.add(constraint == null || constraint.getMaxSessionsPerDay() == null
+                        ? 0 : Math.max(0, constraint.getMaxSessionsPerDay()));
+                return gradeMax.size() - 1;
+            });
+
+            List<Integer> adjacent = new ArrayList<>();
+            adjacent.add(k);
+            for (Long other : neighbours.getOrDefault(entry.getKey(), Set.of())) {
+                Integer index = classIndex.get(other);
+                if (index != null) adjacent.add(index);
+            }
+            classNeighbours[k] = adjacent.stream().mapToInt(Integer::intValue).toArray();
+            sessionCount += sessions.get(entry.getKey());
+        }
+
+        int[] sessionClass = new int[sessionCount];
+        int[][] sessionDomains = new int[sessionCount][];
+        int s = 0;
+        for (var entry : domains.entrySet()) {
+            int k = classIndex.get(entry.getKey());
+            int[] domain = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            for (int i = 0; i < sessions.get(entry.getKey()); i++) {
+                sessionClass[s] = k;
+                sessionDomains[s] = domain;
+                s++;
+            }
+        }
+
+        return new TimetableSolver.Problem(cells.size(), dayIndex.size(), cellDay, classIndex.size(), classGrade,
+                gradeMax.stream().mapToInt(Integer::intValue).toArray(), classNeighbours, sessionClass, sessionDomains);
+    }
+
+    private static TimetableGenerationRequestDto.GradeConstraint gradeConstraint(TimetableGenerationRequestDto request,
+                                                                                 String grade) {
+        if (request.getGradeConstraints() == null || grade == null) return null;
+        for (var entry : request.getGradeConstraints().entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(grade.trim())) return entry.getValue();
+        }
+        return null;
+    }
+
+    private static boolean within(TimetableSlot cell, List<TimetableSlot> windows) {
+        for (TimetableSlot w : windows) {
+            if (w.getDayOfWeek() == cell.getDayOfWeek()
+                    && w.getStartMinute() <= cell.getStartMinute() && cell.getEndMinute() <= w.getEndMinute()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean overlaps(List<TimetableSlot> a, List<TimetableSlot> b) {
+        if (a == null || b == null) return false;
+        for (TimetableSlot x : a) {
+            for (TimetableSlot y : b) {
+                if (x.overlaps(y)) return true;
+            }
+        }
+        return false;
+    }
+
+    // "MONDAY: 8:00AM-9:00AM, 1:00PM-2:00PM; WEDNESDAY: 8:00AM-9:00AM" - readable by TimetableParser
+    static String format(List<TimetableSlot> slots) {
+        Map<DayOfWeek, List<TimetableSlot>> byDay = new TreeMap<>();
+        for (TimetableSlot slot : slots) {
+            byDay.computeIfAbsent(slot.getDayOfWeek(), d -> new ArrayList<>()).add(slot);
+        }
+        List<String> entries = new ArrayList<>();
+        for (var entry : byDay.entrySet()) {
+            List<String> ranges = entry.getValue().stream()
+                    .sorted((x, y) -> Integer.compare(x.getStartMinute(), y.getStartMinute()))
+                    .map(slot -> clock(slot.getStartMinute()) + "-" + clock(slot.getEndMinute()))
+                    .toList();
+            entries.add(entry.getKey() + ": " + String.join(", ", ranges));
+        }
+        return String.join("; ", entries);
+    }
+
+    private static String clock(int minuteOfDay) {
+        int hour = minuteOfDay / 60;
+        int displayHour = hour % 12 == 0 ? 12 : hour % 12;
+        return String.format("%d:%02d%s", displayHour, minuteOfDay % 60, hour < 12 ? "AM" : "PM");
+    }
+}
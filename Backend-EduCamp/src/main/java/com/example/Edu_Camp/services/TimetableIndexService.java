@@ -0,0 +1,402 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.models.ClassEntity;
+import com.example.Edu_Camp.models.TimetableSlot;
+import com.example.Edu_Camp.repository.ClassRepository;
+import com.example.Edu_Camp.repository.EnrollmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory weekly timetable index.
+ *
+ * Keeps one interval tree per student and per teacher, keyed by minute-of-week,
+ * holding the parsed slots of the classes they attend or teach. "What is on now /
+ * today / this week" then becomes a range query on a small tree instead of a scan
+ * over every enrollment and timetable string. Built at startup and updated by the
+ * class and enrollment write paths once their transaction commits.
+ *
+ * Since those updates only land after commit, a write checks for clashes and reserves its
+ * slots in one step; the reservation counts as a clash for other writes until the writer's
+ * transaction has ended and its change is in the trees.
+ */
+@Service
+public class TimetableIndexService {
+
+    public static final String ROLE_STUDENT = "STUDENT";
+    public static final String ROLE_TEACHER = "TEACHER";
+
+    private static final Logger logger = LoggerFactory.getLogger(TimetableIndexService.class);
+
+    public record ScheduledSlot(Long classId, TimetableSlot slot) {}
+
+    private final ClassRepository classRepository;
+    private final EnrollmentRepository enrollmentRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, List<TimetableSlot>> slotsByClass = new HashMap<>();
+    private final Map<Long, Long> teacherByClass = new HashMap<>();
+    private final Map<Long, Set<Long>> studentsByClass = new HashMap<>();
+    // studentId -> classId -> number of enrollments (duplicates are possible)
+    private final Map<Long, Map<Long, Integer>> enrollmentCounts = new HashMap<>();
+    private final Map<Long, IntervalTree<Long>> studentTrees = new HashMap<>();
+    private final Map<Long, IntervalTree<Long>> teacherTrees = new HashMap<>();
+    // "ROLE:userId" -> bumped whenever that user's timetable changes
+    private final Map<String, Long> revisions = new HashMap<>();
+    // "ROLE:userId" -> slots checked by writes that have not finished yet
+    private final Map<String, List<Reservation>> reservations = new HashMap<>();
+    // Distinguishes versions handed out before a rebuild from the ones after it
+    private long epoch = System.currentTimeMillis();
+
+    public TimetableIndexService(ClassRepository classRepository, EnrollmentRepository enrollmentRepository) {
+        this.classRepository = classRepository;
+        this.enrollmentRepository = enrollmentRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        List<ClassEntity> classes = classRepository.findAllWithTimetableSlots();
+        List<Object[]> pairs = enrollmentRepository.findStudentClassPairs();
+
+        lock.writeLock().lock();
+        try {
+            slotsByClass.clear();
+            teacherByClass.clear();
+            studentsByClass.clear();
+            enrollmentCounts.clear();
+            studentTrees.clear();
+            teacherTrees.clear();
+            revisions.clear();
+            epoch = System.currentTimeMillis();
+
+            int reparsed = 0;
+            for (ClassEntity c : classes) {
+                // Rows written before slots existed: parse once and let the transaction persist them
+                if (c.getTimetableSlots().isEmpty() && c.getTimetable() != null && !c.getTimetable().isBlank()) {
+                    c.setTimetable(c.getTimetable());
+                    reparsed++;
+                }
+                doUpsertClass(c.getClass_id(), teacherIdOf(c), List.copyOf(c.getTimetableSlots()));
+            }
+            for (Object[] pair : pairs) {
+                doAddEnrollment((Long) pair[0], (Long) pair[1]);
+            }
+            logger.info("Timetable index built: {} classes, {} enrollments, {} timetables parsed",
+                    classes.size(), pairs.size(), reparsed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Index changes apply only once the database change is durable
+    public void upsertClass(ClassEntity classEntity) {
+        if (classEntity == null || classEntity.getClass_id() == null) return;
+        Long classId = classEntity.getClass_id();
+        Long teacherId = teacherIdOf(classEntity);
+        List<TimetableSlot> slots = List.copyOf(classEntity.getTimetableSlots());
+        TransactionHooks.afterCommit(() -> write(() -> doUpsertClass(classId, teacherId, slots)));
+    }
+
+    public void removeClass(Long classId) {
+        if (classId == null) return;
+        TransactionHooks.afterCommit(() -> write(() -> doRemoveClass(classId)));
+    }
+
+    public void addEnrollment(Long studentId, Long classId) {
+        if (studentId == null || classId == null) return;
+        TransactionHooks.afterCommit(() -> write(() -> doAddEnrollment(studentId, classId)));
+    }
+
+    public void removeEnrollment(Long studentId, Long classId) {
+        if (studentId == null || classId == null) return;
+        TransactionHooks.afterCommit(() -> write(() -> doRemoveEnrollment(studentId, classId)));
+    }
+
+    /** Slots on the given day, or the whole week when day is null, ordered by start time. */
+    public List<ScheduledSlot> getSchedule(String role, Long userId, DayOfWeek day) {
+        int from = day == null ? 0 : (day.getValue() - 1) * TimetableSlot.MINUTES_PER_DAY;
+        int to = day == null ? TimetableSlot.MINUTES_PER_WEEK : from + TimetableSlot.MINUTES_PER_DAY;
+        return query(role, userId, from, to);
+    }
+
+    /** Slots in progress at the given moment. */
+    public List<ScheduledSlot> getScheduleAt(String role, Long userId, LocalDateTime at) {
+        int minute = (at.getDayOfWeek().getValue() - 1) * TimetableSlot.MINUTES_PER_DAY
+                + at.getHour() * 60 + at.getMinute();
+        return query(role, userId, minute, minute + 1);
+    }
+
+    /** Classes the student is enrolled in whose timetable has no slot the parser understood. */
+    public List<Long> getUnscheduledClasses(Long studentId) {
+        lock.readLock().lock();
+        try {
+            return enrollmentCounts.getOrDefault(studentId, Map.of()).keySet().stream()
+                    .filter(classId -> slotsByClass.getOrDefault(classId, List.of()).isEmpty())
+                    .sorted()
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Opaque key that changes whenever the user's enrollments or any of their classes change.
+     * Used to cache rendered schedules such as calendar feeds.
+     */
+    public String getScheduleVersion(String role, Long userId) {
+        lock.readLock().lock();
+        try {
+            return epoch + "-" + revisions.getOrDefault(ownerKey(role, userId), 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Slots held for a class write between its clash check and the index update after its
+     * commit. Released when the caller's transaction ends, or by close() when there is none.
+     */
+    public final class Reservation implements AutoCloseable {
+        private final String owner;
+        private final Long classId;
+        private final List<TimetableSlot> slots;
+        private final List<Long> conflicts;
+        private boolean released;
+
+        private Reservation(String owner, Long classId, List<TimetableSlot> slots, List<Long> conflicts) {
+            this.owner = owner;
+            this.classId = classId;
+            this.slots = slots;
+            this.conflicts = conflicts;
+        }
+
+        /** Classes on the timetable, or reserved by other writes, that overlap these slots. */
+        public List<Long> conflicts() {
+            return conflicts;
+        }
+
+        @Override
+        public void close() {
+            write(() -> {
+                if (released) return;
+                released = true;
+                List<Reservation> held = reservations.get(owner);
+                if (held != null && held.remove(this) && held.isEmpty()) {
+                    reservations.remove(owner);
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks the slots of a class against the student's or teacher's timetable and reserves
+     * them in the same step, so two concurrent writes for one person cannot both pass. Each
+     * slot is one O(log n + k) query on the owner's tree. The slots stay reserved even when
+     * there are conflicts; a caller rejecting the write should close the reservation.
+     */
+    public Reservation reserveSlots(String role, Long ownerId, Long classId, List<TimetableSlot> slots) {
+        String owner = ownerKey(role, ownerId);
+        List<TimetableSlot> copy = slots == null ? List.of() : List.copyOf(slots);
+        if (ownerId == null || copy.isEmpty()) {
+            Reservation empty = new Reservation(owner, classId, copy, List.of());
+            empty.released = true;
+            return empty;
+        }
+
+        lock.writeLock().lock();
+        Reservation reservation;
+        try {
+            // A reserved class still being created has no id and shows up as null
+            Set<Long> conflicts = new TreeSet<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+            IntervalTree<Long> tree = treesFor(role).get(ownerId);
+            List<Reservation> held = reservations.computeIfAbsent(owner, key -> new ArrayList<>());
+            for (TimetableSlot slot : copy) {
+                int start = slot.getStartOfWeek();
+                int end = slot.getEndOfWeek();
+                if (tree != null && tree.overlapsAny(start, end)) {
+                    for (IntervalTree.Interval<Long> interval : tree.findOverlapping(start, end)) {
+                        if (!interval.value().equals(classId)) {
+                            conflicts.add(interval.value());
+                        }
+                    }
+                }
+                for (Reservation other : held) {
+                    // A write for the same class is not a clash; a class not saved yet has no id
+                    if (classId != null && classId.equals(other.classId)) continue;
+                    if (other.slots.stream().anyMatch(slot::overlaps)) {
+                        conflicts.add(other.classId);
+                    }
+                }
+            }
+            reservation = new Reservation(owner, classId, copy, new ArrayList<>(conflicts));
+            held.add(reservation);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Runs after the afterCommit index updates, so the slots are never unaccounted for
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    reservation.close();
+                }
+            });
+        }
+        return reservation;
+    }
+
+    private List<ScheduledSlot> query(String role, Long userId, int from, int to) {
+        lock.readLock().lock();
+        try {
+            IntervalTree<Long> tree = treesFor(role).get(userId);
+            if (tree == null) return List.of();
+            List<ScheduledSlot> result = new ArrayList<>();
+            for (IntervalTree.Interval<Long> interval : tree.findOverlapping(from, to)) {
+                result.add(new ScheduledSlot(interval.value(), toSlot(interval)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, IntervalTree<Long>> treesFor(String role) {
+        return ROLE_TEACHER.equals(role) ? teacherTrees : studentTrees;
+    }
+
+    private void doUpsertClass(Long classId, Long teacherId, List<TimetableSlot> slots) {
+        List<TimetableSlot> oldSlots = slotsByClass.getOrDefault(classId, List.of());
+        Long oldTeacherId = teacherByClass.get(classId);
+        Set<Long> students = studentsByClass.getOrDefault(classId, Set.of());
+
+        removeSlots(teacherTrees, oldTeacherId, classId, oldSlots);
+        for (Long studentId : students) {
+            removeSlots(studentTrees, studentId, classId, oldSlots);
+        }
+
+        slotsByClass.put(classId, slots);
+        if (teacherId != null) {
+            teacherByClass.put(classId, teacherId);
+        } else {
+            teacherByClass.remove(classId);
+        }
+
+        addSlots(teacherTrees, teacherId, classId, slots);
+        for (Long studentId : students) {
+            addSlots(studentTrees, studentId, classId, slots);
+            bump(ROLE_STUDENT, studentId);
+        }
+        bump(ROLE_TEACHER, oldTeacherId);
+        bump(ROLE_TEACHER, teacherId);
+    }
+
+    private void doRemoveClass(Long classId) {
+        List<TimetableSlot> oldSlots = slotsByClass.remove(classId);
+        Long oldTeacherId = teacherByClass.remove(classId);
+        Set<Long> students = studentsByClass.remove(classId);
+        if (oldSlots == null) return;
+
+        removeSlots(teacherTrees, oldTeacherId, classId, oldSlots);
+        bump(ROLE_TEACHER, oldTeacherId);
+        if (students != null) {
+            for (Long studentId : students) {
+                removeSlots(studentTrees, studentId, classId, oldSlots);
+                bump(ROLE_STUDENT, studentId);
+                Map<Long, Integer> counts = enrollmentCounts.get(studentId);
+                if (counts != null) counts.remove(classId);
+            }
+        }
+    }
+
+    private void doAddEnrollment(Long studentId, Long classId) {
+        int count = enrollmentCounts.computeIfAbsent(studentId, id -> new HashMap<>()).merge(classId, 1, Integer::sum);
+        if (count == 1) {
+            studentsByClass.computeIfAbsent(classId, id -> new HashSet<>()).add(studentId);
+            addSlots(studentTrees, studentId, classId, slotsByClass.getOrDefault(classId, List.of()));
+            bump(ROLE_STUDENT, studentId);
+        }
+    }
+
+    private void doRemoveEnrollment(Long studentId, Long classId) {
+        Map<Long, Integer> counts = enrollmentCounts.get(studentId);
+        if (counts == null || !counts.containsKey(classId)) return;
+        int remaining = counts.merge(classId, -1, Integer::sum);
+        if (remaining > 0) return;
+
+        counts.remove(classId);
+        Set<Long> students = studentsByClass.get(classId);
+        if (students != null) students.remove(studentId);
+        removeSlots(studentTrees, studentId, classId, slotsByClass.getOrDefault(classId, List.of()));
+        bump(ROLE_STUDENT, studentId);
+    }
+
+    private void bump(String role, Long userId) {
+        if (userId != null) {
+            revisions.merge(ownerKey(role, userId), 1L, Long::sum);
+        }
+    }
+
+    private static String ownerKey(String role, Long userId) {
+        return role + ":" + userId;
+    }
+
+    private static void addSlots(Map<Long, IntervalTree<Long>> trees, Long ownerId, Long classId,
+                                 List<TimetableSlot> slots) {
+        if (ownerId == null || slots.isEmpty()) return;
+        IntervalTree<Long> tree = trees.computeIfAbsent(ownerId, id -> new IntervalTree<>());
+        for (TimetableSlot slot : slots) {
+            tree.insert(slot.getStartOfWeek(), slot.getEndOfWeek(), classId);
+        }
+    }
+
+    private static void removeSlots(Map<Long, IntervalTree<Long>> trees, Long ownerId, Long classId,
+                                    List<TimetableSlot> slots) {
+        if (ownerId == null) return;
+        IntervalTree<Long> tree = trees.get(ownerId);
+        if (tree == null) return;
+        for (TimetableSlot slot : slots) {
+            tree.remove(slot.getStartOfWeek(), slot.getEndOfWeek(), classId);
+        }
+        if (tree.isEmpty()) trees.remove(ownerId);
+    }
+
+    private static TimetableSlot toSlot(IntervalTree.Interval<Long> interval) {
+        int dayIndex = interval.start() / TimetableSlot.MINUTES_PER_DAY;
+        int dayStart = dayIndex * TimetableSlot.MINUTES_PER_DAY;
+        return new TimetableSlot(DayOfWeek.of(dayIndex + 1), interval.start() - dayStart, interval.end() - dayStart);
+    }
+
+    private static Long teacherIdOf(ClassEntity classEntity) {
+        return classEntity.getTeacher() != null ? classEntity.getTeacher().getId() : null;
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
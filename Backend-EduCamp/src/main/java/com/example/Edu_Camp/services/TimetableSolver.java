@@ -0,0 +1,355 @@
+package com.example.Edu_Camp.services;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tabu local search that places lessons ("sessions") on a grid of equal-length weekly cells.
+ *
+ * Two sessions clash when they share a cell and belong to the same class or to neighbouring
+ * classes (same teacher or a shared student). Clashes are hard constraints; a grade exceeding
+ * its lessons-per-day limit and a class meeting twice on one day are soft penalties.
+ *
+ * Independent searches are forked on a ForkJoinPool and publish into a shared best-so-far
+ * solution, which stalled searches restart from. Everything stops at the time budget or as
+ * soon as any search reaches zero cost.
+ */
+class TimetableSolver {
+
+    static final int HARD_WEIGHT = 1000;
+
+    private static final int DEADLINE_CHECK_INTERVAL = 128;
+    private static final int STALL_ITERATIONS = 20_000;
+    private static final double RANDOM_MOVE_PROBABILITY = 0.02;
+
+    /** Problem in index form; all arrays are shared read-only between searches. */
+    static final class Problem {
+        final int cellCount;
+        final int dayCount;
+        final int[] cellDay;            // day index of each cell
+        final int classCount;
+        final int[] classGrade;         // grade index of each class
+        final int[] gradeMaxPerDay;     // 0 = unlimited
+        final int[][] neighbours;       // per class, classes it may not share a cell with (itself included)
+        final int[] sessionClass;       // class index of each session
+        final int[][] domains;          // allowed cells of each session, never empty
+
+        Problem(int cellCount, int dayCount, int[] cellDay, int classCount, int[] classGrade,
+                int[] gradeMaxPerDay, int[][] neighbours, int[] sessionClass, int[][] domains) {
+            this.cellCount = cellCount;
+            this.dayCount = dayCount;
+            this.cellDay = cellDay;
+            this.classCount = classCount;
+            this.classGrade = classGrade;
+            this.gradeMaxPerDay = gradeMaxPerDay;
+            this.neighbours = neighbours;
+            this.sessionClass = sessionClass;
+            this.domains = domains;
+        }
+
+        int sessionCount() { return sessionClass.length; }
+    }
+
+    record Result(int[] assignment, int hardConflicts, int softPenalty, long iterations, int workers) {}
+
+    private TimetableSolver() {}
+
+    static Result solve(Problem problem, ForkJoinPool pool, long budgetMillis, long seed) {
+        int workers = Math.max(1, pool.getParallelism());
+        if (problem.sessionCount() == 0) {
+            return new Result(new int[0], 0, 0, 0, workers);
+        }
+
+        Shared shared = new Shared(System.nanoTime() + budgetMillis * 1_000_000L);
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[workers];
+        for (int i = 0; i < workers; i++) {
+            randoms[i] = root.split();
+        }
+
+        pool.invoke(new SearchTask(problem, shared, randoms, 0, workers));
+        return new Result(shared.bestAssignment, shared.bestHard, shared.bestSoft, shared.iterations.get(), workers);
+    }
+
+    /** Best solution found by any search so far. */
+    private static final class Shared {
+        final long deadline;
+        final AtomicLong iterations = new AtomicLong();
+        volatile int bestCost = Integer.MAX_VALUE;
+        int[] bestAssignment;
+        int bestHard;
+        int bestSoft;
+
+        Shared(long deadline) {
+            this.deadline = deadline;
+        }
+
+        synchronized void offer(int[] assignment, int hard, int soft) {
+            int cost = hard * HARD_WEIGHT + soft;
+            if (cost < bestCost) {
+                bestAssignment = assignment.clone();
+                bestHard = hard;
+                bestSoft = soft;
+                bestCost = cost;
+            }
+        }
+
+        synchronized int[] snapshot() {
+            return bestAssignment == null ? null : bestAssignment.clone();
+        }
+
+        boolean finished() {
+            return bestCost == 0 || System.nanoTime() >= deadline;
+        }
+    }
+
+    private static final class SearchTask extends RecursiveAction {
+        private final Problem problem;
+        private final Shared shared;
+        private final SplittableRandom[] randoms;
+        private final int from;
+        private final int to;
+
+        SearchTask(Problem problem, Shared shared, SplittableRandom[] randoms, int from, int to) {
+            this.problem = problem;
+            this.shared = shared;
+            this.randoms = randoms;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                new Search(problem, shared, randoms[from]).run();
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SearchTask(problem, shared, randoms, from, mid),
+                    new SearchTask(problem, shared, randoms, mid, to));
+        }
+    }
+
+    /** One single-threaded tabu search with incrementally maintained counters. */
+    private static final class Search {
+        private final Problem p;
+        private final Shared shared;
+        private final SplittableRandom random;
+
+        private final int[] assignment;
+        private final int[] cellClassCount;   // [cell * classCount + class]
+        private final int[] classDayCount;    // [class * dayCount + day]
+        private final int[] gradeDayCount;    // [grade * dayCount + day]
+        private final long[] tabuUntil;       // [session * cellCount + cell]
+        private int hard;
+        private int soft;
+
+        Search(Problem problem, Shared shared, SplittableRandom random) {
+            this.p = problem;
+            this.shared = shared;
+            this.random = random;
+            int n = problem.sessionCount();
+            this.assignment = new int[n];
+            this.cellClassCount = new int[problem.cellCount * problem.classCount];
+            this.classDayCount = new int[problem.classCount * problem.dayCount];
+            this.gradeDayCount = new int[problem.gradeMaxPerDay.length * problem.dayCount];
+            this.tabuUntil = new long[n * problem.cellCount];
+        }
+
+        void run() {
+            greedyStart();
+            shared.offer(assignment, hard, soft);
+
+            int bestLocal = cost();
+            long lastImprovement = 0;
+            long iteration = 0;
+
+            while (true) {
+                if (iteration % DEADLINE_CHECK_INTERVAL == 0 && shared.finished()) break;
+                iteration++;
+
+                int session = pickSession();
+                move(session, iteration);
+
+                int cost = cost();
+                if (cost < bestLocal) {
+                    bestLocal = cost;
+                    lastImprovement = iteration;
+                    if (cost < shared.bestCost) {
+                        shared.offer(assignment, hard, soft);
+                    }
+                } else if (iteration - lastImprovement > STALL_ITERATIONS) {
+                    restartFromBest();
+                    bestLocal = cost();
+                    lastImprovement = iteration;
+                }
+            }
+            shared.iterations.addAndGet(iteration);
+        }
+
+        private int cost() {
+            return hard * HARD_WEIGHT + soft;
+        }
+
+        // Most constrained sessions first, each on its cheapest cell
+        private void greedyStart() {
+            Integer[] order = new Integer[p.sessionCount()];
+            for (int s = 0; s < order.length; s++) order[s] = s;
+            shuffle(order);
+            Arrays.sort(order, (a, b) -> Integer.compare(p.domains[a].length, p.domains[b].length));
+
+            Arrays.fill(assignment, -1);
+            for (int s : order) {
+                place(s, cheapestCell(s));
+            }
+        }
+
+        private void restartFromBest() {
+            int[] best = shared.snapshot();
+            if (best == null) return;
+            for (int s = 0; s < assignment.length; s++) {
+                if (assignment[s] >= 0) remove(s);
+            }
+            for (int s = 0; s < best.length; s++) {
+                int cell = best[s];
+                // Perturb roughly a tenth of the sessions so searches do not converge on the same state
+                if (random.nextInt(10) == 0) {
+                    int[] domain = p.domains[s];
+                    cell = domain[random.nextInt(domain.length)];
+                }
+                place(s, cell);
+            }
+        }
+
+        private int pickSession() {
+            int n = assignment.length;
+            if (hard > 0) {
+                int offset = random.nextInt(n);
+                for (int i = 0; i < n; i++) {
+                    int s = (offset + i) % n;
+                    if (clashesAt(s, assignment[s], true) > 0) return s;
+                }
+            }
+            return random.nextInt(n);
+        }
+
+        private void move(int s, long iteration) {
+            int from = assignment[s];
+            int[] domain = p.domains[s];
+            int to;
+
+            remove(s);
+            if (random.nextDouble() < RANDOM_MOVE_PROBABILITY) {
+                to = domain[random.nextInt(domain.length)];
+            } else {
+                int bestCost = Integer.MAX_VALUE;
+                int ties = 0;
+                to = from;
+                for (int cell : domain) {
+                    if (cell == from) continue;
+                    int c = placementCost(s, cell);
+                    // Tabu moves are still allowed when they beat the best solution seen anywhere
+                    boolean tabu = tabuUntil[s * p.cellCount + cell] > iteration;
+                    if (tabu && cost() + c >= shared.bestCost) continue;
+                    if (c < bestCost) {
+                        bestCost = c;
+                        to = cell;
+                        ties = 1;
+                    } else if (c == bestCost && random.nextInt(++ties) == 0) {
+                        to = cell;
+                    }
+                }
+            }
+
+            if (to != from) {
+                tabuUntil[s * p.cellCount + from] = iteration + 7 + random.nextInt(10);
+            }
+            place(s, to);
+        }
+
+        private int cheapestCell(int s) {
+            int best = -1;
+            int bestCost = Integer.MAX_VALUE;
+            int ties = 0;
+            for (int cell : p.domains[s]) {
+                int c = placementCost(s, cell);
+                if (c < bestCost) {
+                    bestCost = c;
+                    best = cell;
+                    ties = 1;
+                } else if (c == bestCost && random.nextInt(++ties) == 0) {
+                    best = cell;
+                }
+            }
+            return best;
+        }
+
+        // Cost added by putting the (currently unplaced) session s on cell
+        private int placementCost(int s, int cell) {
+            int k = p.sessionClass[s];
+            int day = p.cellDay[cell];
+            int cost = clashesAt(s, cell, false) * HARD_WEIGHT;
+            if (classDayCount[k * p.dayCount + day] > 0) cost++;
+            int grade = p.classGrade[k];
+            int max = p.gradeMaxPerDay[grade];
+            if (max > 0 && gradeDayCount[grade * p.dayCount + day] >= max) cost++;
+            return cost;
+        }
+
+        // Sessions on cell that would clash with s; placed = whether s itself is counted on that cell
+        private int clashesAt(int s, int cell, boolean placed) {
+            int k = p.sessionClass[s];
+            int base = cell * p.classCount;
+            int clashes = placed ? -1 : 0;
+            for (int other : p.neighbours[k]) {
+                clashes += cellClassCount[base + other];
+            }
+            return clashes;
+        }
+
+        private void place(int s, int cell) {
+            int k = p.sessionClass[s];
+            int day = p.cellDay[cell];
+            int grade = p.classGrade[k];
+
+            hard += clashesAt(s, cell, false);
+            if (classDayCount[k * p.dayCount + day] > 0) soft++;
+            int max = p.gradeMaxPerDay[grade];
+            if (max > 0 && gradeDayCount[grade * p.dayCount + day] >= max) soft++;
+
+            assignment[s] = cell;
+            cellClassCount[cell * p.classCount + k]++;
+            classDayCount[k * p.dayCount + day]++;
+            gradeDayCount[grade * p.dayCount + day]++;
+        }
+
+        private void remove(int s) {
+            int cell = assignment[s];
+            int k = p.sessionClass[s];
+            int day = p.cellDay[cell];
+            int grade = p.classGrade[k];
+
+            assignment[s] = -1;
+            cellClassCount[cell * p.classCount + k]--;
+            classDayCount[k * p.dayCount + day]--;
+            gradeDayCount[grade * p.dayCount + day]--;
+
+            hard -= clashesAt(s, cell, false);
+            if (classDayCount[k * p.dayCount + day] > 0) soft--;
+            int max = p.gradeMaxPerDay[grade];
+            if (max > 0 && gradeDayCount[grade * p.dayCount + day] >= max) soft--;
+        }
+
+        private void shuffle(Integer[] values) {
+            for (int i = values.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Integer tmp = values[i];
+                values[i] = values[j];
+                values[j] = tmp;
+            }
+        }
+    }
+}
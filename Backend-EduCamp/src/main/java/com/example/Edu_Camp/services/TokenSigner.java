@@ -0,0 +1,60 @@
+package com.example.Edu_Camp.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * HMAC-SHA256 signatures for tokens handed to clients (feed URLs, download links, arrival
+ * tokens). Without a configured secret a random one is used, so tokens stop verifying when
+ * the application restarts.
+ */
+final class TokenSigner {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenSigner.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    /** warning is logged when secret is blank, e.g. which tokens break on restart. */
+    TokenSigner(String secret, String warning) {
+        byte[] bytes;
+        if (secret == null || secret.isBlank()) {
+            logger.warn(warning);
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(bytes, ALGORITHM);
+    }
+
+    byte[] sign(String value) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    /** The signature as unpadded URL-safe Base64. */
+    String signToUrl(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sign(value));
+    }
+
+    /** Compares an expected signature with one a client sent back, in constant time. */
+    static boolean matches(String expected, String presented) {
+        return presented != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                presented.getBytes(StandardCharsets.US_ASCII));
+    }
+}
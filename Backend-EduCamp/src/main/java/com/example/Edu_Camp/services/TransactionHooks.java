@@ -0,0 +1,27 @@
+package com.example.Edu_Camp.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Work tied to the outcome of the caller's transaction, such as background jobs that must
+ * only see committed rows or files that may only go once their row is gone.
+ */
+final class TransactionHooks {
+
+    private TransactionHooks() {}
+
+    /** Runs the action once the current transaction commits, or right away outside one. */
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.models.UploadSession;
+import com.example.Edu_Camp.repository.UploadChunkRepository;
+import com.example.Edu_Camp.repository.UploadSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resumable chunked uploads for files larger than a single multipart request allows.
+ *
+ * A client creates a session for a file of known size, PUTs the chunks at their offsets in
+ * any order (re-sending a chunk simply overwrites it), can ask which chunks have arrived, and
+ * finally completes the session. Each chunk is spooled to its own temp file and, once its
+ * SHA-256 matches the one the client sent, copied into its place in a file preallocated to
+ * the full size. Completing moves the file into content-addressed storage; the assignment,
+ * submission or material that then uses it claims the session.
+ *
+ * Copying a verified chunk in and recording it holds a shared lock on the session's stripe
+ * and completing or discarding it an exclusive one, so a session leaves OPEN only once no
+ * chunk is still being copied into its part file. Reading the request body happens before
+ * the lock, so a slow client never holds up other sessions. The part file lives on this
+ * instance's local disk, so an in-process lock covers every writer.
+ *
+ * Every step that hands over or gives up the stored reference is a conditional update or
+ * delete on the session's state, so a claim racing the expiry job, or a cancel racing
+ * complete(), leaves exactly one owner of the reference.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionService.class);
+
+    public static final String CHUNK_SHA256_HEADER = "X-Chunk-SHA256";
+
+    // Role allowed to upload for each purpose
+    private static final Map<String, String> ROLE_BY_PURPOSE = Map.of(
+            "ASSIGNMENT", "TEACHER",
+            "SUBMISSION", "STUDENT",
+            "MATERIAL", "TEACHER");
+
+    public record UploadStatus(String uploadId, String purpose, String fileName, long totalSize, int chunkSize,
+                               int chunkCount, List<Integer> receivedChunks, Long nextOffset, String status,
+                               String sha256, LocalDateTime expiresAt) {}
+
+    public record ClaimedUpload(StoredUpload stored, String fileName) {}
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadChunkRepository uploadChunkRepository;
+    private final FileStorageService fileStorageService;
+    private final TransactionTemplate required;
+    private final int chunkSize;
+    private final long maxSize;
+    private final long ttlHours;
+    // Striped by upload id; completing only holds its lock for the state change
+    private final ReentrantReadWriteLock[] sessionLocks = new ReentrantReadWriteLock[64];
+
+    public UploadSessionService(UploadSessionRepository uploadSessionRepository,
+                                UploadChunkRepository uploadChunkRepository,
+                                FileStorageService fileStorageService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${upload.chunked.chunk-size:8388608}") int chunkSize,
+                                @Value("${upload.chunked.max-size:2147483648}") long maxSize,
+                                @Value("${upload.chunked.ttl-hours:24}") long ttlHours) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.uploadChunkRepository = uploadChunkRepository;
+        this.fileStorageService = fileStorageService;
+        this.required = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxSize = maxSize;
+        this.ttlHours = ttlHours;
+        for (int i = 0; i < sessionLocks.length; i++) {
+            sessionLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /** The role a user needs to upload for this purpose, or null for an unknown purpose. */
+    public static String roleFor(String purpose) {
+        return purpose == null ? null : ROLE_BY_PURPOSE.get(purpose);
+    }
+
+    public UploadStatus create(Long userId, String purpose, String fileName, long totalSize) throws IOException {
+        if (roleFor(purpose) == null) {
+            throw new RuntimeException("Unknown upload purpose: " + purpose);
+        }
+        if (fileName == null || fileName.isBlank()) {
+            throw new RuntimeException("File name is required");
+        }
+        if (totalSize <= 0 || totalSize > maxSize) {
+            throw new RuntimeException("File size must be between 1 byte and " + maxSize + " bytes");
+        }
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setUserId(userId);
+        session.setPurpose(purpose);
+        session.setFileName(fileName);
+        session.setTotalSize(totalSize);
+        session.setChunkSize(chunkSize);
+        session.setStatus(UploadSession.OPEN);
+        session.setCreatedAt(LocalDateTime.now());
+        session.setExpiresAt(session.getCreatedAt().plusHours(ttlHours));
+
+        // Reserve the full length up front so chunks can land at any offset
+        Path part = partPath(session.getId());
+        try (RandomAccessFile file = new RandomAccessFile(part.toFile(), "rw")) {
+            file.setLength(totalSize);
+        }
+        try {
+            uploadSessionRepository.save(session);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        return status(session, List.of());
+    }
+
+    /**
+     * Writes one chunk at its offset. The offset must be a multiple of the chunk size and the
+     * body exactly the chunk's length; the chunk only counts as received when its SHA-256
+     * matches.
+     */
+    public UploadStatus writeChunk(String uploadId, Long userId, long offset, String sha256,
+                                   InputStream body) throws IOException {
+        UploadSession session = find(uploadId, userId);
+        if (!UploadSession.OPEN.equals(session.getStatus())) {
+            throw new RuntimeException("Upload is no longer accepting chunks");
+        }
+        if (sha256 == null || !sha256.matches("[0-9a-fA-F]{64}")) {
+            throw new RuntimeException(CHUNK_SHA256_HEADER + " header with the chunk's SHA-256 is required");
+        }
+        if (offset < 0 || offset >= session.getTotalSize() || offset % session.getChunkSize() != 0) {
+            throw new RuntimeException("Offset must be a multiple of " + session.getChunkSize()
+                    + " below " + session.getTotalSize());
+        }
+        int index = (int) (offset / session.getChunkSize());
+        long expected = session.getChunkLength(index);
+
+        // The body arrives at the client's pace, so it is received and verified outside the lock
+        Path spool = Files.createTempFile(fileStorageService.tempDir(), "chunk-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long written = 0;
+            try (OutputStream out = Files.newOutputStream(spool)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    if (written + read > expected) {
+                        throw new RuntimeException("Chunk is longer than " + expected + " bytes");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    written += read;
+                }
+            }
+            if (written != expected) {
+                throw new RuntimeException("Chunk is " + written + " bytes, expected " + expected);
+            }
+            // A corrupted chunk is never copied in, so the client can simply re-send it
+            if (!HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(sha256)) {
+                throw new RuntimeException("Chunk checksum mismatch at offset " + offset);
+            }
+
+            Lock lock = lockFor(uploadId).readLock();
+            lock.lock();
+            try {
+                // Checked again under the lock: complete() may have started since the lookup above
+                if (!UploadSession.OPEN.equals(uploadSessionRepository.findStatus(uploadId))) {
+                    throw new RuntimeException("Upload is no longer accepting chunks");
+                }
+                try (FileChannel source = FileChannel.open(spool, StandardOpenOption.READ);
+                     FileChannel part = FileChannel.open(partPath(uploadId), StandardOpenOption.WRITE)) {
+                    long copied = 0;
+                    while (copied < expected) {
+                        copied += part.transferFrom(source, offset + copied, expected - copied);
+                    }
+                }
+                required.executeWithoutResult(status ->
+                        uploadChunkRepository.recordChunk(uploadId, index, expected, sha256.toLowerCase()));
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+        return status(uploadId, userId);
+    }
+
+    public UploadStatus status(String uploadId, Long userId) {
+        UploadSession session = find(uploadId, userId);
+        List<Integer> received = UploadSession.OPEN.equals(session.getStatus())
+                ? uploadChunkRepository.findChunkIndexesBySessionId(uploadId)
+                : List.of();
+        return status(session, received);
+    }
+
+    /**
+     * Moves the assembled file into storage once every chunk has arrived. The session keeps
+     * the stored reference until {@link #claim} hands it over, or it expires.
+     */
+    public UploadStatus complete(String uploadId, Long userId) throws IOException {
+        UploadSession session = find(uploadId, userId);
+        if (UploadSession.COMPLETE.equals(session.getStatus())) {
+            return status(session, List.of());
+        }
+        // Waits for chunks still being written; later ones see the session is no longer open
+        Lock lock = lockFor(uploadId).writeLock();
+        lock.lock();
+        try {
+            if (required.execute(status -> uploadSessionRepository.transition(
+                    uploadId, UploadSession.OPEN, UploadSession.COMPLETING)) == 0) {
+                throw new RuntimeException("Upload is not open");
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        long received = uploadChunkRepository.countBySessionId(uploadId);
+        if (received < session.getChunkCount()) {
+            required.executeWithoutResult(status -> uploadSessionRepository.transition(
+                    uploadId, UploadSession.COMPLETING, UploadSession.OPEN));
+            throw new RuntimeException((session.getChunkCount() - received) + " chunk(s) still missing");
+        }
+
+        StoredUpload stored;
+        try {
+            stored = fileStorageService.storeFile(partPath(uploadId), session.getFileName());
+        } catch (IOException | RuntimeException e) {
+            // The part file is gone whatever happened, so the upload cannot be resumed
+            discard(uploadId, UploadSession.COMPLETING, null);
+            throw e;
+        }
+        Integer completed = required.execute(status -> {
+            int updated = uploadSessionRepository.complete(uploadId, UploadSession.COMPLETING, UploadSession.COMPLETE,
+                    stored.filePath(), stored.sha256());
+            if (updated > 0) uploadChunkRepository.deleteBySessionId(uploadId);
+            return updated;
+        });
+        if (completed == null || completed == 0) {
+            // Cancelled or expired while the file was being stored: nothing else holds this reference
+            fileStorageService.release(stored.sha256());
+            throw new RuntimeException("Upload was cancelled");
+        }
+        return status(uploadId, userId);
+    }
+
+    /**
+     * Hands a completed upload to the assignment, submission or material being saved; the
+     * caller now owns its stored reference. Joins the caller's transaction, so the upload can
+     * be claimed again if saving rolls back.
+     */
+    public ClaimedUpload claim(String uploadId, Long userId, String purpose) {
+        return required.execute(status -> {
+            UploadSession session = find(uploadId, userId);
+            if (!session.getPurpose().equals(purpose)) {
+                throw new RuntimeException("Upload was not created for this purpose");
+            }
+            if (!session.getExpiresAt().isAfter(LocalDateTime.now())) {
+                throw new RuntimeException("Upload has expired");
+            }
+            if (uploadSessionRepository.claim(uploadId, LocalDateTime.now()) == 0) {
+                throw new RuntimeException("Upload is not complete or has already been used");
+            }
+            return new ClaimedUpload(
+                    new StoredUpload(session.getFilePath(), session.getTotalSize(), session.getFileHash()),
+                    session.getFileName());
+        });
+    }
+
+    public void cancel(String uploadId, Long userId) throws IOException {
+        UploadSession session = find(uploadId, userId);
+        if (UploadSession.CLAIMED.equals(session.getStatus())) {
+            throw new RuntimeException("Upload has already been used");
+        }
+        if (!discard(uploadId, session.getStatus(), session.getFileHash())) {
+            throw new RuntimeException("Upload changed while cancelling; try again");
+        }
+    }
+
+    // Drops sessions nobody finished or claimed, along with their part files or stored references
+    @Scheduled(fixedDelayString = "${upload.chunked.cleanup-interval-ms:3600000}")
+    public void removeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int removed;
+        do {
+            removed = 0;
+            for (UploadSession session : uploadSessionRepository.findTop100ByExpiresAtBeforeAndStatusNot(
+                    now, UploadSession.CLAIMED)) {
+                try {
+                    // Skipped if it was claimed or moved on since the query; the next run sees its new state
+                    if (discard(session.getId(), session.getStatus(), session.getFileHash())) removed++;
+                } catch (Exception e) {
+                    logger.warn("Could not remove expired upload {}: {}", session.getId(), e.getMessage());
+                    return;
+                }
+            }
+        } while (removed > 0);
+        required.executeWithoutResult(status -> uploadSessionRepository.deleteClaimedBefore(now));
+    }
+
+    /**
+     * Deletes the session if it is still in the given state, then its part file, or its stored
+     * reference when it was COMPLETE. A COMPLETING session may go too: complete() then finds its
+     * final transition fails and releases the file it stored. False when the state had moved on.
+     */
+    private boolean discard(String uploadId, String status, String fileHash) throws IOException {
+        Lock lock = lockFor(uploadId).writeLock();
+        lock.lock();
+        try {
+            Boolean removed = required.execute(tx -> {
+                if (uploadSessionRepository.deleteInStatus(uploadId, status) == 0) return false;
+                uploadChunkRepository.deleteBySessionId(uploadId);
+                if (UploadSession.COMPLETE.equals(status)) {
+                    fileStorageService.release(fileHash);
+                }
+                return true;
+            });
+            if (!Boolean.TRUE.equals(removed)) return false;
+            Files.deleteIfExists(partPath(uploadId));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantReadWriteLock lockFor(String uploadId) {
+        return sessionLocks[Math.floorMod(uploadId.hashCode(), sessionLocks.length)];
+    }
+
+    private UploadSession find(String uploadId, Long userId) {
+        UploadSession session = uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new RuntimeException("Upload not found"));
+        if (!session.getUserId().equals(userId)) {
+            throw new RuntimeException("Upload not found");
+        }
+        return session;
+    }
+
+    private UploadStatus status(UploadSession session, List<Integer> received) {
+        Long nextOffset = null;
+        if (UploadSession.OPEN.equals(session.getStatus())) {
+            // First chunk not yet received; received is sorted
+            int next = 0;
+            for (int index : received) {
+                if (index != next) break;
+                next++;
+            }
+            nextOffset = next < session.getChunkCount() ? (long) next * session.getChunkSize() : null;
+        }
+        return new UploadStatus(session.getId(), session.getPurpose(), session.getFileName(),
+                session.getTotalSize(), session.getChunkSize(), session.getChunkCount(), received, nextOffset,
+                session.getStatus(), session.getFileHash(), session.getExpiresAt());
+    }
+
+    private Path partPath(String uploadId) throws IOException {
+        // The id is a UUID from our own table, never a client-chosen path
+        return fileStorageService.tempDir().resolve("chunked-" + UUID.fromString(uploadId) + ".part");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
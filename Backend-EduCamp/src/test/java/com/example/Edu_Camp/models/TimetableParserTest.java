@@ -0,0 +1,71 @@
+package com.example.Edu_Camp.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+import static java.time.DayOfWeek.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimetableParserTest {
+
+    @Test
+    void bareAfternoonHoursAreReadAsPm() {
+        assertEquals(List.of(slot(MONDAY, "13:00", "15:00")), TimetableParser.parse("Monday 1-3"));
+        assertEquals(List.of(slot(MONDAY, "16:30", "17:45")), TimetableParser.parse("Mon 4:30-5:45"));
+        // Morning and 24-hour ranges stay as written
+        assertEquals(List.of(slot(MONDAY, "08:00", "10:00")), TimetableParser.parse("Mon 8-10"));
+        assertEquals(List.of(slot(MONDAY, "16:00", "17:30")), TimetableParser.parse("MONDAY: 16:00-17:30"));
+        assertEquals(List.of(slot(MONDAY, "01:00", "13:00")), TimetableParser.parse("Mon 1-13"));
+    }
+
+    @Test
+    void sharedMeridiemAndRangesCrossingNoon() {
+        assertEquals(List.of(slot(TUESDAY, "08:00", "10:00")), TimetableParser.parse("TUESDAY: 8-10AM"));
+        assertEquals(List.of(slot(TUESDAY, "13:00", "15:00")), TimetableParser.parse("TUESDAY: 1-3PM"));
+        assertEquals(List.of(slot(TUESDAY, "11:00", "13:00")), TimetableParser.parse("Tue 11-1PM"));
+        assertEquals(List.of(slot(TUESDAY, "11:30", "12:30")), TimetableParser.parse("Tue 11:30-12:30PM"));
+        assertEquals(List.of(slot(TUESDAY, "08:30", "10:00")), TimetableParser.parse("Tue 8:30am - 10:00am"));
+        assertEquals(List.of(slot(TUESDAY, "00:00", "01:00")), TimetableParser.parse("Tue 12AM-1AM"));
+    }
+
+    @Test
+    void dayRangesListsAndSeveralTimes() {
+        assertEquals(List.of(slot(MONDAY, "16:00", "17:30"), slot(TUESDAY, "16:00", "17:30"),
+                        slot(WEDNESDAY, "16:00", "17:30"), slot(THURSDAY, "16:00", "17:30"),
+                        slot(FRIDAY, "16:00", "17:30")),
+                TimetableParser.parse("MONDAY-FRIDAY: 16:00-17:30"));
+        // Wraps past Sunday
+        assertEquals(List.of(slot(SATURDAY, "09:00", "10:00"), slot(SUNDAY, "09:00", "10:00"), slot(MONDAY, "09:00", "10:00")),
+                TimetableParser.parse("Sat to Mon 9-10am"));
+        assertEquals(List.of(slot(MONDAY, "08:30", "10:00"), slot(WEDNESDAY, "08:30", "10:00")),
+                TimetableParser.parse("Mon, Wed 8:30am - 10:00am"));
+        assertEquals(List.of(slot(MONDAY, "08:00", "09:00"), slot(MONDAY, "13:00", "14:00"),
+                        slot(WEDNESDAY, "08:00", "09:00")),
+                TimetableParser.parse("MONDAY: 8:00AM-9:00AM, 1:00PM-2:00PM; WEDNESDAY: 8:00AM-9:00AM"));
+        // Repeated entries are kept once
+        assertEquals(1, TimetableParser.parse("Mon 9-10am\nMonday 9:00AM-10:00AM").size());
+    }
+
+    @Test
+    void ignoresEntriesWithoutADayOrAValidRange() {
+        assertTrue(TimetableParser.parse(null).isEmpty());
+        assertTrue(TimetableParser.parse("  ").isEmpty());
+        assertTrue(TimetableParser.parse("8-10AM").isEmpty());
+        assertTrue(TimetableParser.parse("Monday evenings").isEmpty());
+        assertTrue(TimetableParser.parse("Mon 10-9").isEmpty());
+        assertTrue(TimetableParser.parse("Mon 25-26").isEmpty());
+        assertTrue(TimetableParser.parse("Mon 9:75-10").isEmpty());
+        assertEquals(List.of(slot(FRIDAY, "09:00", "10:00")), TimetableParser.parse("Mon 10-9; Fri 9-10AM"));
+    }
+
+    private static TimetableSlot slot(DayOfWeek day, String start, String end) {
+        return new TimetableSlot(day, minutes(start), minutes(end));
+    }
+
+    private static int minutes(String time) {
+        String[] parts = time.split(":");
+        return Integer.parseInt(parts[0]) * 60 + Integer.parseInt(parts[1]);
+    }
+}
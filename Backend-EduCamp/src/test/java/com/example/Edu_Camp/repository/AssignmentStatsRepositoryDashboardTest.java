@@ -0,0 +1,120 @@
+package com.example.Edu_Camp.repository;
+
+import com.example.Edu_Camp.dto.AssignmentDashboardDto;
+import com.example.Edu_Camp.models.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The dashboard reads assignment_stats as maintained by addCounts, which relies on MySQL's
+ * upsert; H2 runs in MySQL mode for it.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.datasource.url=jdbc:h2:mem:dashboard;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AssignmentStatsRepositoryDashboardTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AssignmentStatsRepository assignmentStatsRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    private Teacher teacher;
+    private Assignment graded;
+    private Assignment untouched;
+    private Submission submission;
+
+    @BeforeEach
+    void createAssignments() {
+        teacher = new Teacher("Tara", "Teacher", "teacher@example.com", "secret",
+                "T-001", "0700000000", null, LocalDate.of(1980, 1, 1), null, "Maths");
+        entityManager.persist(teacher);
+
+        ClassEntity classEntity = new ClassEntity();
+        classEntity.setGrade("10");
+        classEntity.setFee(1000);
+        classEntity.setTimetable("MONDAY: 8:00AM-9:00AM");
+        classEntity.setTeacher(teacher);
+        entityManager.persist(classEntity);
+
+        graded = assignment(classEntity, "Algebra", LocalDateTime.now().plusDays(7));
+        untouched = assignment(classEntity, "Geometry", LocalDateTime.now().plusDays(1));
+
+        Student student = new Student("Student", "One", "student@example.com", "secret",
+                "S-1", "0710000000", LocalDate.of(2010, 1, 1), "F");
+        entityManager.persist(student);
+        Enrollment enrollment = new Enrollment(student, classEntity, null, student);
+        entityManager.persist(enrollment);
+        submission = new Submission(graded, enrollment, "objects/1", "answer.pdf", 100L, null);
+        entityManager.persist(submission);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void dashboardSumsDeltasAndShowsAssignmentsWithoutStats() {
+        // Two submissions, one late; one graded 70 and then regraded to 85
+        assignmentStatsRepository.addCounts(graded.getId(), 1, 0, 0, 0);
+        assignmentStatsRepository.addCounts(graded.getId(), 1, 0, 1, 0);
+        assignmentStatsRepository.addCounts(graded.getId(), 0, 1, 0, 70);
+        assignmentStatsRepository.addCounts(graded.getId(), 0, 0, 0, 15);
+
+        List<AssignmentDashboardDto> dashboard = assignmentStatsRepository.findDashboardByTeacherId(teacher.getId());
+
+        assertEquals(List.of(graded.getId(), untouched.getId()),
+                dashboard.stream().map(AssignmentDashboardDto::getAssignmentId).toList());
+        AssignmentDashboardDto row = dashboard.get(0);
+        assertEquals(2, row.getSubmitted());
+        assertEquals(1, row.getGraded());
+        assertEquals(1, row.getLate());
+        assertEquals(1, row.getUngraded());
+        assertEquals(85.0, row.getAverageGrade());
+
+        AssignmentDashboardDto empty = dashboard.get(1);
+        assertEquals(0, empty.getSubmitted());
+        assertNull(empty.getAverageGrade());
+
+        assertTrue(assignmentStatsRepository.findDashboardByTeacherId(teacher.getId() + 1).isEmpty());
+    }
+
+    @Test
+    void gradingReadsLockRows() {
+        assertEquals(submission.getId(), submissionRepository.findByIdForUpdate(submission.getId()).orElseThrow().getId());
+
+        List<Object[]> rows = submissionRepository.findGradableByIdsAndTeacherId(
+                Set.of(submission.getId(), submission.getId() + 100), teacher.getId());
+        assertEquals(1, rows.size());
+        assertEquals(graded.getId(), rows.get(0)[2]);
+        assertTrue(submissionRepository.findGradableByIdsAndTeacherId(Set.of(submission.getId()), teacher.getId() + 1)
+                .isEmpty());
+    }
+
+    private Assignment assignment(ClassEntity classEntity, String title, LocalDateTime dueDate) {
+        Assignment assignment = new Assignment();
+        assignment.setTitle(title);
+        assignment.setDueDate(dueDate);
+        assignment.setMaxPoints(100);
+        assignment.setClassEntity(classEntity);
+        entityManager.persist(assignment);
+        return assignment;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.Edu_Camp.repository;
+
+import com.example.Edu_Camp.dto.MaterialDTO;
+import com.example.Edu_Camp.models.TeacherMaterial;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The material listing reads metadata through a projection and pages by id, so walking the
+ * pages must return every matching row exactly once and in order.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class MaterialRepositoryListingTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @BeforeEach
+    void createMaterials() {
+        for (int i = 0; i < 12; i++) {
+            TeacherMaterial material = new TeacherMaterial("Handout " + i, null,
+                    i % 2 == 0 ? "Maths" : "Science", i % 3 == 0 ? "Grade 10" : "Grade 11", "handout" + i + ".pdf");
+            material.setFileSize(1000L + i);
+            entityManager.persist(material);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void keysetPagesCoverEveryRowOnce() {
+        List<MaterialDTO> all = new ArrayList<>();
+        long afterId = 0;
+        List<MaterialDTO> page;
+        do {
+            page = materialRepository.findListing(afterId, PageRequest.of(0, 5));
+            all.addAll(page);
+            if (!page.isEmpty()) afterId = page.get(page.size() - 1).getId();
+        } while (page.size() == 5);
+
+        assertEquals(12, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i).getId() > all.get(i - 1).getId());
+        }
+        assertEquals("handout0.pdf", all.get(0).getFileName());
+        assertEquals(1000L, all.get(0).getFileSize());
+    }
+
+    @Test
+    void filtersBySubjectAndClass() {
+        assertEquals(6, materialRepository.findListingBySubject("Maths", 0, Pageable.unpaged()).size());
+        assertEquals(4, materialRepository.findListingByClassName("Grade 10", 0, Pageable.unpaged()).size());
+
+        List<MaterialDTO> both = materialRepository.findListingBySubjectAndClassName(
+                "Maths", "Grade 10", 0, Pageable.unpaged());
+        assertEquals(List.of("Handout 0", "Handout 6"), both.stream().map(MaterialDTO::getTitle).toList());
+    }
+}
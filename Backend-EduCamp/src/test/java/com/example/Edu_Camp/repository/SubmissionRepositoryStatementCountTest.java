@@ -0,0 +1,115 @@
+package com.example.Edu_Camp.repository;
+
+import com.example.Edu_Camp.dto.SubmissionDto;
+import com.example.Edu_Camp.models.*;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the submission list queries against N+1 regressions: however many rows there are,
+ * each list must cost exactly one statement.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class SubmissionRepositoryStatementCountTest {
+
+    private static final int STUDENTS = 25;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    private Teacher teacher;
+    private Assignment assignment;
+    private Student firstStudent;
+
+    @BeforeEach
+    void createSubmissions() {
+        teacher = new Teacher("Tara", "Teacher", "teacher@example.com", "secret",
+                "T-001", "0700000000", null, LocalDate.of(1980, 1, 1), null, "Maths");
+        entityManager.persist(teacher);
+
+        ClassEntity classEntity = new ClassEntity();
+        classEntity.setGrade("10");
+        classEntity.setFee(1000);
+        classEntity.setTimetable("MONDAY: 8:00AM-9:00AM");
+        classEntity.setTeacher(teacher);
+        entityManager.persist(classEntity);
+
+        assignment = new Assignment();
+        assignment.setTitle("Algebra");
+        assignment.setDueDate(LocalDateTime.now().plusDays(7));
+        assignment.setMaxPoints(100);
+        assignment.setClassEntity(classEntity);
+        entityManager.persist(assignment);
+
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student("Student", "No" + i, "student" + i + "@example.com", "secret",
+                    "S-" + i, "0710000000", LocalDate.of(2010, 1, 1), "F");
+            entityManager.persist(student);
+            if (i == 0) firstStudent = student;
+
+            Enrollment enrollment = new Enrollment(student, classEntity, null, student);
+            entityManager.persist(enrollment);
+
+            entityManager.persist(new Submission(assignment, enrollment, "objects/" + i, "answer" + i + ".pdf",
+                    100L, null));
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics().clear();
+    }
+
+    @Test
+    void teacherListIsOneStatement() {
+        List<SubmissionDto> rows = submissionRepository.findSummariesByTeacherId(teacher.getId());
+
+        assertEquals(STUDENTS, rows.size());
+        assertEquals(1, statistics().getPrepareStatementCount());
+        SubmissionDto row = rows.stream().filter(r -> "S-0".equals(r.getStudentNumber())).findFirst().orElseThrow();
+        assertEquals("Student No0", row.getStudentName());
+        assertEquals("Algebra", row.getAssignmentTitle());
+        assertEquals("pdf", row.getFileExtension());
+        assertTrue(row.getIsPreviewable());
+    }
+
+    @Test
+    void assignmentListIsTwoStatementsIncludingOwnershipCheck() {
+        assertEquals(teacher.getId(), assignmentRepository.findTeacherIdById(assignment.getId()).orElseThrow());
+        List<SubmissionDto> rows = submissionRepository.findSummariesByAssignmentId(assignment.getId());
+
+        assertEquals(STUDENTS, rows.size());
+        assertEquals(2, statistics().getPrepareStatementCount());
+    }
+
+    @Test
+    void studentListIsOneStatement() {
+        List<SubmissionDto> rows = submissionRepository.findSummariesByStudentId(firstStudent.getId());
+
+        assertEquals(1, rows.size());
+        assertEquals(1, statistics().getPrepareStatementCount());
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+}
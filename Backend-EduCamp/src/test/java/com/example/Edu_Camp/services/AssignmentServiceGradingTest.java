@@ -0,0 +1,130 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.BatchGradeDto;
+import com.example.Edu_Camp.models.Assignment;
+import com.example.Edu_Camp.models.ClassEntity;
+import com.example.Edu_Camp.models.Submission;
+import com.example.Edu_Camp.models.Teacher;
+import com.example.Edu_Camp.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Counter deltas applied to assignment_stats when grading, with the repositories mocked.
+ * Teacher 10 owns assignment 1 (max 100 points).
+ */
+class AssignmentServiceGradingTest {
+
+    private static final long TEACHER = 10L;
+    private static final long ASSIGNMENT = 1L;
+
+    private final SubmissionRepository submissionRepository = mock(SubmissionRepository.class);
+    private final AssignmentStatsRepository statsRepository = mock(AssignmentStatsRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private AssignmentService assignments;
+
+    @BeforeEach
+    void setUp() {
+        assignments = new AssignmentService(mock(AssignmentRepository.class), submissionRepository,
+                mock(ClassRepository.class), mock(EnrollmentRepository.class), mock(FileStorageService.class),
+                jdbcTemplate, statsRepository, mock(UploadSessionService.class),
+                mock(SubmissionSimilarityService.class), mock(ImageVariantService.class));
+        when(submissionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void gradingCountsOnceAndRegradingMovesOnlyTheSum() {
+        Submission submission = submission(5L, "SUBMITTED", null);
+        when(submissionRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(submission));
+
+        assignments.gradeSubmission(5L, 70, "ok", TEACHER);
+        verify(statsRepository).addCounts(ASSIGNMENT, 0, 1, 0, 70);
+
+        assignments.gradeSubmission(5L, 85, "better", TEACHER);
+        verify(statsRepository).addCounts(ASSIGNMENT, 0, 0, 0, 15);
+        assertEquals(85, submission.getGrade());
+        assertEquals("GRADED", submission.getStatus());
+        // The locking read is the only one
+        verify(submissionRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void gradingSomeoneElsesSubmissionChangesNothing() {
+        when(submissionRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(submission(5L, "SUBMITTED", null)));
+
+        assertThrows(RuntimeException.class, () -> assignments.gradeSubmission(5L, 70, null, 11L));
+        verifyNoInteractions(statsRepository);
+    }
+
+    @Test
+    void batchReportsBadEntriesAndCountsOnlyTheGoodOnes() {
+        when(submissionRepository.findGradableByIdsAndTeacherId(anyCollection(), eq(TEACHER))).thenReturn(List.of(
+                new Object[] {1L, 100, ASSIGNMENT, "SUBMITTED", null},
+                new Object[] {2L, 100, ASSIGNMENT, "GRADED", 60},
+                new Object[] {3L, 100, ASSIGNMENT, "SUBMITTED", null},
+                new Object[] {4L, 50, 2L, "SUBMITTED", null}));
+
+        List<BatchGradeDto.Result> results = assignments.gradeSubmissions(Arrays.asList(
+                entry(1L, 80),
+                entry(2L, 75),      // regrade: +15 to the sum, not counted again
+                entry(1L, 90),      // duplicate
+                entry(3L, 101),     // over max points
+                entry(4L, null),    // no grade
+                entry(9L, 10),      // not the teacher's
+                entry(null, 10),
+                null), TEACHER);
+
+        assertEquals(List.of(true, true, false, false, false, false, false, false),
+                results.stream().map(BatchGradeDto.Result::isSuccess).toList());
+        assertTrue(results.get(2).getMessage().contains("more than once"));
+
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<Object[]> updates) ->
+                updates.size() == 2 && updates.get(0)[3].equals(1L) && updates.get(1)[3].equals(2L)));
+        verify(statsRepository).addCounts(ASSIGNMENT, 0, 1, 0, 80 + 15);
+        verify(statsRepository, never()).addCounts(eq(2L), anyLong(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void batchWithNothingValidWritesNothing() {
+        when(submissionRepository.findGradableByIdsAndTeacherId(anyCollection(), eq(TEACHER))).thenReturn(new ArrayList<>());
+
+        List<BatchGradeDto.Result> results = assignments.gradeSubmissions(List.of(entry(7L, 50)), TEACHER);
+
+        assertFalse(results.get(0).isSuccess());
+        verifyNoInteractions(jdbcTemplate, statsRepository);
+        assertThrows(RuntimeException.class, () -> assignments.gradeSubmissions(List.of(), TEACHER));
+    }
+
+    private static BatchGradeDto.Entry entry(Long submissionId, Integer grade) {
+        BatchGradeDto.Entry entry = new BatchGradeDto.Entry();
+        entry.setSubmissionId(submissionId);
+        entry.setGrade(grade);
+        return entry;
+    }
+
+    private static Submission submission(Long id, String status, Integer grade) {
+        Teacher teacher = new Teacher();
+        teacher.setId(TEACHER);
+        ClassEntity classEntity = new ClassEntity();
+        classEntity.setTeacher(teacher);
+        Assignment assignment = new Assignment();
+        assignment.setId(ASSIGNMENT);
+        assignment.setClassEntity(classEntity);
+        Submission submission = new Submission();
+        submission.setId(id);
+        submission.setAssignment(assignment);
+        submission.setStatus(status);
+        submission.setGrade(grade);
+        return submission;
+    }
+}
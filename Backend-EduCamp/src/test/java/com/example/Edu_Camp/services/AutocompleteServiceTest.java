@@ -0,0 +1,105 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.AutocompleteSuggestionDto;
+import com.example.Edu_Camp.models.ClassEntity;
+import com.example.Edu_Camp.models.Subject;
+import com.example.Edu_Camp.models.Teacher;
+import com.example.Edu_Camp.repository.ClassRepository;
+import com.example.Edu_Camp.repository.SubjectRepository;
+import com.example.Edu_Camp.repository.TeacherRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prefix lookups against an index built from mocked repositories: two teachers, three
+ * subjects and one class.
+ */
+class AutocompleteServiceTest {
+
+    private final TeacherRepository teacherRepository = mock(TeacherRepository.class);
+    private final SubjectRepository subjectRepository = mock(SubjectRepository.class);
+    private final ClassRepository classRepository = mock(ClassRepository.class);
+    private final AutocompleteService autocomplete = new AutocompleteService(teacherRepository, subjectRepository,
+            classRepository);
+
+    @BeforeEach
+    void setUp() {
+        Subject maths = subject(1L, "Mathematics");
+        when(teacherRepository.findAll()).thenReturn(List.of(teacher(1L, "Nimal", "Perera"), teacher(2L, "Kamal", "Mendis")));
+        when(subjectRepository.findAll()).thenReturn(List.of(maths, subject(2L, "Music"), subject(3L, "Media Studies")));
+        when(classRepository.findAll()).thenReturn(List.of(classEntity(1L, "Grade 10", maths)));
+        autocomplete.rebuild();
+    }
+
+    @Test
+    void matchesByPrefixIgnoringCaseAndSpacing() {
+        assertEquals(List.of("TEACHER:1"), keys(autocomplete.suggest("PER", null, 10)));
+        // Full name or last name, so a teacher is found either way but listed once
+        assertEquals(List.of("TEACHER:1"), keys(autocomplete.suggest("  nimal   PE ", null, 10)));
+        assertEquals(List.of("CLASS:1"), keys(autocomplete.suggest("grade 1", null, 10)));
+        assertEquals("Grade 10 - Mathematics", autocomplete.suggest("grade", null, 10).get(0).getLabel());
+
+        assertTrue(autocomplete.suggest("erera", null, 10).isEmpty(), "only prefixes match");
+        assertTrue(autocomplete.suggest(" ", null, 10).isEmpty());
+        assertTrue(autocomplete.suggest(null, null, 10).isEmpty());
+    }
+
+    @Test
+    void ordersAlphabeticallyAndHonoursTypeAndLimit() {
+        assertEquals(List.of("SUBJECT:1", "SUBJECT:3", "TEACHER:2", "SUBJECT:2"),
+                keys(autocomplete.suggest("m", null, 10)));
+        assertEquals(List.of("SUBJECT:1", "SUBJECT:3"), keys(autocomplete.suggest("m", null, 2)));
+        assertEquals(List.of("TEACHER:2"), keys(autocomplete.suggest("M", "teacher", 10)));
+        assertTrue(autocomplete.suggest("m", null, 0).isEmpty());
+    }
+
+    @Test
+    void renamesAndRemovalsDropTheOldTerms() {
+        autocomplete.indexTeacher(teacher(1L, "Nimal", "Silva"));
+        assertTrue(autocomplete.suggest("perera", null, 10).isEmpty());
+        assertTrue(autocomplete.suggest("nimal p", null, 10).isEmpty());
+        assertEquals(List.of("TEACHER:1"), keys(autocomplete.suggest("silva", null, 10)));
+
+        autocomplete.indexClass(classEntity(1L, "Grade 11", subject(2L, "Music")));
+        assertTrue(autocomplete.suggest("grade 10", null, 10).isEmpty());
+        assertEquals("Grade 11 - Music", autocomplete.suggest("grade", null, 10).get(0).getLabel());
+
+        autocomplete.removeTeacher(1L);
+        autocomplete.removeClass(1L);
+        assertTrue(autocomplete.suggest("nimal", null, 10).isEmpty());
+        assertTrue(autocomplete.suggest("grade", null, 10).isEmpty());
+        assertEquals(List.of("TEACHER:2"), keys(autocomplete.suggest("k", null, 10)));
+    }
+
+    private static List<String> keys(List<AutocompleteSuggestionDto> suggestions) {
+        return suggestions.stream().map(s -> s.getType() + ":" + s.getId()).toList();
+    }
+
+    private static Teacher teacher(Long id, String firstName, String lastName) {
+        Teacher teacher = new Teacher();
+        teacher.setId(id);
+        teacher.setFirstName(firstName);
+        teacher.setLastName(lastName);
+        return teacher;
+    }
+
+    private static Subject subject(Long id, String name) {
+        Subject subject = new Subject();
+        subject.setId(id);
+        subject.setName(name);
+        return subject;
+    }
+
+    private static ClassEntity classEntity(Long id, String grade, Subject subject) {
+        ClassEntity classEntity = new ClassEntity();
+        classEntity.setClass_id(id);
+        classEntity.setGrade(grade);
+        classEntity.setSubjects(List.of(subject));
+        return classEntity;
+    }
+}
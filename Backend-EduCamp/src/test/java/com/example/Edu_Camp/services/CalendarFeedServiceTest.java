@@ -0,0 +1,81 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.ScheduleEntryDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CalendarFeedServiceTest {
+
+    private final ScheduleService scheduleService = mock(ScheduleService.class);
+    private final TimetableIndexService timetableIndexService = mock(TimetableIndexService.class);
+
+    @Test
+    void eventsReferToATimezoneDefinedInTheFeed() {
+        String body = feeds("Europe/London").getFeed(TimetableIndexService.ROLE_STUDENT, 5L).body();
+        List<String> lines = Arrays.asList(body.split("\r\n"));
+
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("DTSTART;TZID=Europe/London:")));
+        int timezone = lines.indexOf("BEGIN:VTIMEZONE");
+        assertTrue(timezone > 0 && timezone < lines.indexOf("BEGIN:VEVENT"));
+        assertEquals("TZID:Europe/London", lines.get(timezone + 1));
+        // Summer and winter time, over the coming years
+        assertTrue(lines.contains("BEGIN:DAYLIGHT"));
+        assertTrue(lines.contains("TZOFFSETTO:+0100"));
+        assertTrue(lines.contains("TZOFFSETTO:+0000"));
+        assertTrue(lines.stream().filter("BEGIN:DAYLIGHT"::equals).count() >= 9);
+        assertTrue(lines.stream().noneMatch(line -> line.getBytes().length > 75));
+    }
+
+    @Test
+    void zoneWithoutDaylightSavingHasOneObservance() {
+        String body = feeds("Asia/Colombo").getFeed(TimetableIndexService.ROLE_STUDENT, 5L).body();
+
+        assertFalse(body.contains("BEGIN:DAYLIGHT"));
+        assertEquals(1, body.split("BEGIN:STANDARD", -1).length - 1);
+        assertTrue(body.contains("TZOFFSETTO:+0530\r\n"));
+        assertTrue(body.contains("DTSTART;TZID=Asia/Colombo:"));
+    }
+
+    @Test
+    void cachesFeedsPerVersionAndDropsTheLeastRecentlyUsed() {
+        CalendarFeedService feeds = feeds("UTC");
+        when(timetableIndexService.getScheduleVersion(anyString(), anyLong())).thenReturn("1-0");
+
+        CalendarFeedService.Feed first = feeds.getFeed(TimetableIndexService.ROLE_STUDENT, 0L);
+        assertSame(first, feeds.getFeed(TimetableIndexService.ROLE_STUDENT, 0L));
+        assertEquals("\"1-0\"", first.etag());
+
+        when(timetableIndexService.getScheduleVersion(TimetableIndexService.ROLE_STUDENT, 0L)).thenReturn("1-1");
+        assertNotSame(first, feeds.getFeed(TimetableIndexService.ROLE_STUDENT, 0L));
+        verify(scheduleService, times(2)).getSchedule(TimetableIndexService.ROLE_STUDENT, 0L, "week");
+
+        for (long user = 1; user <= 1024; user++) {
+            feeds.getFeed(TimetableIndexService.ROLE_STUDENT, user);
+        }
+        feeds.getFeed(TimetableIndexService.ROLE_STUDENT, 0L);
+        verify(scheduleService, times(3)).getSchedule(TimetableIndexService.ROLE_STUDENT, 0L, "week");
+        feeds.getFeed(TimetableIndexService.ROLE_STUDENT, 1024L);
+        verify(scheduleService, times(1)).getSchedule(TimetableIndexService.ROLE_STUDENT, 1024L, "week");
+    }
+
+    private CalendarFeedService feeds(String zone) {
+        ScheduleEntryDto entry = new ScheduleEntryDto();
+        entry.setClassId(1L);
+        entry.setGrade("Grade 10");
+        entry.setSubjects(List.of("Maths"));
+        entry.setDayOfWeek(DayOfWeek.MONDAY);
+        entry.setStartTime("09:00");
+        entry.setEndTime("11:00");
+        when(scheduleService.getSchedule(anyString(), anyLong(), eq("week"))).thenReturn(List.of(entry));
+        when(timetableIndexService.getScheduleVersion(anyString(), anyLong())).thenReturn("1-0");
+        return new CalendarFeedService(scheduleService, timetableIndexService, "test-secret", ZoneId.of(zone));
+    }
+}
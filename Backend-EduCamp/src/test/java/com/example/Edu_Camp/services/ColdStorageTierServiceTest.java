@@ -0,0 +1,104 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.models.StoredObject;
+import com.example.Edu_Camp.repository.StoredObjectRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tiers objects on a local disk backend and reads them back through FileStorageService,
+ * with the stored_objects table mocked out.
+ */
+class ColdStorageTierServiceTest {
+
+    private static final String TEXT_HASH = "aa11000000000000000000000000000000000000000000000000000000000000";
+    private static final String RANDOM_HASH = "bb22000000000000000000000000000000000000000000000000000000000000";
+
+    @TempDir
+    Path uploadDir;
+
+    private LocalDiskStorageBackend storage;
+    private FileStorageService fileStorageService;
+    private StoredObjectRepository repository;
+    private ColdStorageTierService tier;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalDiskStorageBackend(uploadDir, "tmp");
+        repository = mock(StoredObjectRepository.class);
+        when(repository.recordCodec(anyString(), anyString(), any())).thenReturn(1);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        fileStorageService = new FileStorageService(repository, transactionManager, storage,
+                new HotFileCache(0, 0, 1), uploadDir.toString());
+        tier = new ColdStorageTierService(fileStorageService, repository, transactionManager, 180);
+    }
+
+    @Test
+    void compressesTextAndReadsItBackTransparently() throws IOException {
+        StringBuilder essay = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            essay.append("Paragraph ").append(i).append(": the mitochondria is the powerhouse of the cell.\n");
+        }
+        byte[] content = essay.toString().getBytes(StandardCharsets.UTF_8);
+        put(TEXT_HASH, content);
+
+        tier.tier(object(TEXT_HASH));
+
+        String key = FileStorageService.objectPath(TEXT_HASH);
+        assertTrue(storage.stat(key).isEmpty(), "the uncompressed original is removed");
+        long stored = storage.stat(key + DeflateCodec.SUFFIX).orElseThrow().size();
+        assertTrue(stored < content.length / 4);
+        verify(repository).recordCodec(TEXT_HASH, DeflateCodec.NAME, stored);
+
+        StoredFile file = fileStorageService.openFile(key, TEXT_HASH);
+        assertEquals(DeflateCodec.NAME, file.codec());
+        assertEquals(content.length, file.size());
+        assertFalse(file.isLocal(), "compressed files are never sent straight from disk");
+        try (InputStream in = file.openStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        try (InputStream in = file.openStream(50_000, 50_100)) {
+            assertArrayEquals(Arrays.copyOfRange(content, 50_000, 50_100), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void leavesIncompressibleFilesAsTheyAre() throws IOException {
+        byte[] content = new byte[64 * 1024];
+        new Random(46).nextBytes(content);
+        put(RANDOM_HASH, content);
+
+        tier.tier(object(RANDOM_HASH));
+
+        String key = FileStorageService.objectPath(RANDOM_HASH);
+        assertEquals(content.length, storage.stat(key).orElseThrow().size());
+        assertTrue(storage.stat(key + DeflateCodec.SUFFIX).isEmpty());
+        verify(repository).recordCodec(RANDOM_HASH, ColdStorageTierService.IDENTITY, null);
+    }
+
+    private void put(String hash, byte[] content) throws IOException {
+        Path source = Files.write(uploadDir.resolve(hash + ".part"), content);
+        storage.put(FileStorageService.objectPath(hash), source);
+    }
+
+    private static StoredObject object(String hash) {
+        StoredObject object = new StoredObject();
+        object.setHash(hash);
+        object.setPath(FileStorageService.objectPath(hash));
+        return object;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.Edu_Camp.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Delegated downloads: what FileResponseWriter leaves to the front proxy, and one round trip
+ * through a small stand-in for nginx that, like an "internal" location with an alias,
+ * replaces an X-Accel-Redirect response with the file from disk.
+ */
+class FileResponseWriterDelegationTest {
+
+    private static final String PREFIX = "/protected-uploads/";
+    private static final String HASH = "3fa9c0ffee000000000000000000000000000000000000000000000000000000";
+    private static final byte[] CONTENT = "0123456789 lecture notes".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path uploadDir;
+
+    private LocalDiskStorageBackend storage;
+    private StoredFile file;
+    private HttpServer proxy;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private volatile MockHttpServletResponse lastUpstream;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new LocalDiskStorageBackend(uploadDir, "tmp");
+        Path source = Files.write(uploadDir.resolve("source.part"), CONTENT);
+        storage.put("objects/" + HASH, source);
+        StorageBackend.ObjectInfo info = storage.stat("objects/" + HASH).orElseThrow();
+        file = new StoredFile(info.key(), info.size(), info.lastModified(), HASH,
+                storage.localPath("objects/" + HASH), storage);
+
+        FileResponseWriter writer = new FileResponseWriter(new HotFileCache(0, 0, 1), "x-accel-redirect", PREFIX);
+        proxy = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        proxy.createContext("/", exchange -> handle(exchange, writer));
+        proxy.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        proxy.stop(0);
+    }
+
+    @Test
+    void proxyServesTheFileTheApplicationPointsAt() throws Exception {
+        HttpResponse<byte[]> response = get("/download");
+
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(CONTENT, response.body());
+        assertTrue(response.headers().firstValue("Content-Disposition").orElseThrow().contains("notes.txt"));
+        assertTrue(response.headers().firstValue(FileResponseWriter.X_ACCEL_REDIRECT).isEmpty());
+
+        // The application itself sent no bytes
+        assertEquals(0, lastUpstream.getContentAsByteArray().length);
+        assertEquals(PREFIX + "objects/3f/a9/" + HASH, lastUpstream.getHeader(FileResponseWriter.X_ACCEL_REDIRECT));
+    }
+
+    @Test
+    void rangeRequestsAreLeftToTheProxy() throws IOException {
+        for (String range : new String[] {"bytes=2-5", "bytes=0-1,4-5", "bytes=500-600"}) {
+            MockHttpServletResponse response = write("GET", "Range", range);
+
+            // Full-file headers only; nginx applies the Range to the file it serves
+            assertEquals(200, response.getStatus(), range);
+            assertEquals(0, response.getContentAsByteArray().length, range);
+            assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+            assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH), range);
+            assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES), range);
+            assertEquals("\"" + HASH + "\"", response.getHeader(HttpHeaders.ETAG), range);
+            assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED), range);
+            assertEquals(MediaType.TEXT_PLAIN_VALUE, response.getContentType(), range);
+            assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("notes.txt"), range);
+            assertEquals(PREFIX + "objects/3f/a9/" + HASH, response.getHeader(FileResponseWriter.X_ACCEL_REDIRECT), range);
+        }
+    }
+
+    @Test
+    void headRequestIsDelegatedWithoutABody() throws IOException {
+        MockHttpServletResponse response = write("HEAD", "Accept", "*/*");
+
+        assertEquals(200, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(PREFIX + "objects/3f/a9/" + HASH, response.getHeader(FileResponseWriter.X_ACCEL_REDIRECT));
+    }
+
+    @Test
+    void filesWithoutALocalPathAreServedByTheApplication() throws IOException {
+        file = new StoredFile(file.key(), file.size(), file.lastModified(), HASH, null, storage);
+
+        MockHttpServletResponse response = write("GET", "Range", "bytes=2-5");
+
+        assertNull(response.getHeader(FileResponseWriter.X_ACCEL_REDIRECT));
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/" + CONTENT.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("2345", response.getContentAsString());
+    }
+
+    @Test
+    void conditionalRequestsAreStillAnsweredByTheApplication() throws IOException {
+        MockHttpServletResponse response = write("GET", "If-None-Match", "\"" + HASH + "\"");
+
+        assertEquals(304, response.getStatus());
+        assertNull(response.getHeader(FileResponseWriter.X_ACCEL_REDIRECT));
+    }
+
+    @Test
+    void xSendfileCarriesTheAbsolutePath() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new FileResponseWriter(new HotFileCache(0, 0, 1), "x-sendfile", PREFIX)
+                .write(new MockHttpServletRequest("GET", "/download"), response, file,
+                        MediaType.TEXT_PLAIN, false, "notes.txt");
+
+        assertEquals(file.path().toAbsolutePath().toString(), response.getHeader(FileResponseWriter.X_SENDFILE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    // location /protected-uploads/ { internal; alias <upload dir>/; } plus proxy_pass to the application
+    private void handle(HttpExchange exchange, FileResponseWriter writer) throws IOException {
+        MockHttpServletRequest upstreamRequest = new MockHttpServletRequest("GET", exchange.getRequestURI().getRawPath());
+        MockHttpServletResponse upstream = new MockHttpServletResponse();
+        writer.write(upstreamRequest, upstream, file, MediaType.TEXT_PLAIN, false, "notes.txt");
+        lastUpstream = upstream;
+
+        String redirect = upstream.getHeader(FileResponseWriter.X_ACCEL_REDIRECT);
+        for (String name : upstream.getHeaderNames()) {
+            if (!name.equalsIgnoreCase(FileResponseWriter.X_ACCEL_REDIRECT)) {
+                exchange.getResponseHeaders().set(name, upstream.getHeader(name));
+            }
+        }
+        if (redirect == null) {
+            respond(exchange, upstream.getStatus(), upstream.getContentAsByteArray());
+            return;
+        }
+
+        assertTrue(redirect.startsWith(PREFIX));
+        Path target = uploadDir.resolve(UriUtils.decode(redirect.substring(PREFIX.length()), StandardCharsets.UTF_8))
+                .normalize();
+        if (!target.startsWith(uploadDir) || !Files.isRegularFile(target)) {
+            respond(exchange, 404, new byte[0]);
+            return;
+        }
+        respond(exchange, 200, Files.readAllBytes(target));
+    }
+
+    private MockHttpServletResponse write(String method, String header, String value) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/download");
+        request.addHeader(header, value);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new FileResponseWriter(new HotFileCache(0, 0, 1), "x-accel-redirect", PREFIX)
+                .write(request, response, file, MediaType.TEXT_PLAIN, false, "notes.txt");
+        return response;
+    }
+
+    private HttpResponse<byte[]> get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + proxy.getAddress().getPort() + path)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            exchange.getResponseBody().write(body);
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.Edu_Camp.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Range parsing and conditional requests of FileResponseWriter, on a local file served
+ * without sendfile so the body lands in the mock response.
+ */
+class FileResponseWriterTest {
+
+    private static final String HASH = "5e1f000000000000000000000000000000000000000000000000000000000000";
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @TempDir
+    Path uploadDir;
+
+    private final FileResponseWriter writer = new FileResponseWriter(new HotFileCache(0, 0, 1), "none", "/");
+    private StoredFile file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        LocalDiskStorageBackend storage = new LocalDiskStorageBackend(uploadDir, "tmp");
+        storage.put("objects/" + HASH, Files.writeString(uploadDir.resolve("source.part"), CONTENT));
+        StorageBackend.ObjectInfo info = storage.stat("objects/" + HASH).orElseThrow();
+        file = new StoredFile(info.key(), info.size(), info.lastModified(), HASH,
+                storage.localPath("objects/" + HASH), storage);
+    }
+
+    @Test
+    void parsesMergesAndRejectsRanges() {
+        assertEquals(List.of(new FileResponseWriter.Range(0, 100)), FileResponseWriter.parseRanges("bytes=0-99", 1000));
+        assertEquals(List.of(new FileResponseWriter.Range(900, 1000)), FileResponseWriter.parseRanges("bytes=-100", 1000));
+        assertEquals(List.of(new FileResponseWriter.Range(990, 1000)), FileResponseWriter.parseRanges("bytes=990-", 1000));
+        // Clamped to the end of the file
+        assertEquals(List.of(new FileResponseWriter.Range(0, 1000)), FileResponseWriter.parseRanges("bytes=-5000", 1000));
+        assertEquals(List.of(new FileResponseWriter.Range(500, 1000)), FileResponseWriter.parseRanges("bytes=500-9999", 1000));
+        // Sorted, and overlapping or adjacent ranges merged
+        assertEquals(List.of(new FileResponseWriter.Range(0, 20), new FileResponseWriter.Range(50, 60)),
+                FileResponseWriter.parseRanges("bytes=50-59, 10-19,0-9,5-12", 1000));
+
+        // Malformed, or too many ranges: the whole file
+        assertNull(FileResponseWriter.parseRanges("items=0-1", 1000));
+        assertNull(FileResponseWriter.parseRanges("bytes=5", 1000));
+        assertNull(FileResponseWriter.parseRanges("bytes=9-3", 1000));
+        assertNull(FileResponseWriter.parseRanges("bytes=a-b", 1000));
+        assertNull(FileResponseWriter.parseRanges("bytes=0-0", 0));
+        StringBuilder many = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= 16; i++) many.append(',').append(i * 2).append('-').append(i * 2);
+        assertNull(FileResponseWriter.parseRanges(many.toString(), 1000));
+
+        // Nothing satisfiable
+        assertEquals(List.of(), FileResponseWriter.parseRanges("bytes=1000-", 1000));
+        assertEquals(List.of(), FileResponseWriter.parseRanges("bytes=-0", 1000));
+    }
+
+    @Test
+    void servesOneRangeAsPartialContent() throws IOException {
+        MockHttpServletResponse response = get("Range", "bytes=2-5");
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/20", response.getHeader("Content-Range"));
+        assertEquals("2345", response.getContentAsString());
+        assertEquals(4, response.getContentLengthLong());
+    }
+
+    @Test
+    void servesSeveralRangesAsMultipartByteranges() throws IOException {
+        MockHttpServletResponse response = get("Range", "bytes=0-1,10-11");
+
+        assertEquals(206, response.getStatus());
+        String contentType = response.getContentType();
+        assertTrue(contentType.startsWith("multipart/byteranges; boundary="), contentType);
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+        byte[] body = response.getContentAsByteArray();
+        assertEquals(body.length, response.getContentLengthLong());
+        String expected = "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 0-1/20\r\n\r\n01"
+                + "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 10-11/20\r\n\r\nab"
+                + "\r\n--" + boundary + "--\r\n";
+        assertEquals(expected, new String(body, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void unsatisfiableRangeIs416() throws IOException {
+        MockHttpServletResponse response = get("Range", "bytes=20-30");
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */20", response.getHeader("Content-Range"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void ifRangeServesTheRangeOnlyWhileUnchanged() throws IOException {
+        MockHttpServletRequest request = request("Range", "bytes=0-3");
+        request.addHeader("If-Range", "\"" + HASH + "\"");
+        assertEquals(206, write(request).getStatus());
+
+        request = request("Range", "bytes=0-3");
+        request.addHeader("If-Range", "\"something-else\"");
+        MockHttpServletResponse changed = write(request);
+        assertEquals(200, changed.getStatus());
+        assertEquals(CONTENT, changed.getContentAsString());
+
+        request = request("Range", "bytes=0-3");
+        request.addHeader("If-Range", file.lastModified().toEpochMilli());
+        assertEquals(206, write(request).getStatus());
+
+        request = request("Range", "bytes=0-3");
+        request.addHeader("If-Range", file.lastModified().toEpochMilli() - 60_000);
+        assertEquals(200, write(request).getStatus());
+    }
+
+    @Test
+    void ifNoneMatchTakesPrecedenceOverIfModifiedSince() throws IOException {
+        long now = file.lastModified().toEpochMilli() + 60_000;
+
+        // A stale ETag wins over a date that alone would give 304
+        MockHttpServletRequest request = request("If-None-Match", "\"stale\"");
+        request.addHeader("If-Modified-Since", now);
+        assertEquals(200, write(request).getStatus());
+
+        request = request("If-None-Match", "W/\"" + HASH + "\", \"other\"");
+        request.addHeader("If-Modified-Since", 0L);
+        assertEquals(304, write(request).getStatus());
+
+        assertEquals(304, write(request("If-Modified-Since", now)).getStatus());
+        assertEquals(200, write(request("If-Modified-Since", now - 120_000)).getStatus());
+
+        assertEquals(412, write(request("If-Match", "\"stale\"")).getStatus());
+        assertEquals(412, write(request("If-Match", "W/\"" + HASH + "\"")).getStatus());
+    }
+
+    @Test
+    void unhashedFileGetsWeakEtagThatNeverSatisfiesIfRange() throws IOException {
+        file = new StoredFile(file.key(), file.size(), file.lastModified(), null, file.path(), file.backend());
+        String etag = FileResponseWriter.etag(file);
+        assertTrue(etag.startsWith("W/\""), etag);
+
+        MockHttpServletResponse response = get("Range", "bytes=0-3");
+        assertEquals(etag, response.getHeader("ETag"));
+        assertEquals(206, response.getStatus());
+
+        assertEquals(304, write(request("If-None-Match", etag)).getStatus());
+        assertEquals(304, write(request("If-None-Match", etag.substring(2))).getStatus());
+        assertEquals(412, write(request("If-Match", etag)).getStatus());
+
+        MockHttpServletRequest request = request("Range", "bytes=0-3");
+        request.addHeader("If-Range", etag);
+        assertEquals(200, write(request).getStatus());
+    }
+
+    private MockHttpServletResponse get(String header, Object value) throws IOException {
+        return write(request(header, value));
+    }
+
+    private static MockHttpServletRequest request(String header, Object value) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        request.addHeader(header, value);
+        return request;
+    }
+
+    private MockHttpServletResponse write(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(request, response, file, MediaType.TEXT_PLAIN, false, null);
+        return response;
+    }
+}
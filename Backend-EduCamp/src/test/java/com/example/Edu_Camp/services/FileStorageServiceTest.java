@@ -0,0 +1,88 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.repository.StoredObjectRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Stores uploads on a local disk backend with the stored_objects table mocked; a release or
+ * scrub running concurrently is simulated from inside addReference.
+ */
+class FileStorageServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private final StoredObjectRepository repository = mock(StoredObjectRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private LocalDiskStorageBackend storage;
+    private FileStorageService files;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalDiskStorageBackend(uploadDir, "tmp");
+        files = new FileStorageService(repository, transactionManager, storage, new HotFileCache(0, 0, 1),
+                uploadDir.toString());
+    }
+
+    @Test
+    void objectIsInStorageBeforeTheTransactionStarts() throws IOException {
+        doAnswer(invocation -> {
+            assertTrue(storage.stat(invocation.getArgument(1)).isPresent());
+            return null;
+        }).when(repository).addReference(anyString(), anyString(), anyLong());
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            assertEquals(1, storage.list().count(), "the upload is already put");
+            return null;
+        });
+
+        StoredUpload stored = files.storeFile(file("lecture notes"));
+
+        assertEquals("lecture notes", read(stored));
+        verify(repository).addReference(stored.sha256(), stored.filePath(), stored.size());
+    }
+
+    @Test
+    void duplicateRemovedBeforeTheReferenceIsStoredAgain() throws IOException {
+        StoredUpload first = files.storeFile(file("lecture notes"));
+        // A release deletes the object between the dedup check and taking the row lock
+        doAnswer(invocation -> storage.delete(invocation.getArgument(1)))
+                .when(repository).addReference(anyString(), anyString(), anyLong());
+
+        StoredUpload second = files.storeFile(file("lecture notes"));
+
+        assertEquals(first.filePath(), second.filePath());
+        assertEquals("lecture notes", read(second));
+    }
+
+    @Test
+    void newObjectRemovedBeforeTheReferenceFailsTheUpload() {
+        doAnswer(invocation -> storage.delete(invocation.getArgument(1)))
+                .when(repository).addReference(anyString(), anyString(), anyLong());
+
+        IOException e = assertThrows(IOException.class, () -> files.storeFile(file("lecture notes")));
+        assertTrue(e.getMessage().contains("retry"));
+    }
+
+    private String read(StoredUpload stored) throws IOException {
+        try (InputStream in = files.openFile(stored.filePath()).openStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile("file", "notes.txt", "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
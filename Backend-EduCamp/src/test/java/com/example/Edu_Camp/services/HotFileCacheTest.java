@@ -0,0 +1,126 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.repository.StoredObjectRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Admission, eviction and invalidation of HotFileCache, with "remote" files served by a
+ * local disk backend that is spied on to count fetches.
+ */
+class HotFileCacheTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private LocalDiskStorageBackend storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = spy(new LocalDiskStorageBackend(uploadDir, "tmp"));
+    }
+
+    @Test
+    void admitsAFileOnItsSecondRequest() throws IOException {
+        HotFileCache cache = new HotFileCache(1024, 1024, 2);
+        StoredFile handout = remote("a", "week 1 handout");
+
+        assertNull(cache.content(handout), "a single request streams from the backend");
+        assertEquals("week 1 handout", text(cache.content(handout)));
+        assertEquals("week 1 handout", text(cache.content(handout)));
+
+        verify(storage, times(1)).openStream(eq(handout.key()), anyLong(), anyLong());
+        HotFileCache.CacheStats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.admissions());
+        assertEquals(14, stats.bytes());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWithinTheByteBudget() throws IOException {
+        HotFileCache cache = new HotFileCache(50, 30, 1);
+        StoredFile a = remote("a", "a".repeat(20));
+        StoredFile b = remote("b", "b".repeat(20));
+        StoredFile c = remote("c", "c".repeat(20));
+
+        assertNotNull(cache.content(a));
+        assertNotNull(cache.content(b));
+        cache.content(a);
+        assertNotNull(cache.content(c));
+
+        HotFileCache.CacheStats stats = cache.stats();
+        assertEquals(2, stats.entries());
+        assertEquals(40, stats.bytes());
+        assertEquals(1, stats.evictions());
+        long hits = stats.hits();
+        cache.content(a);
+        cache.content(c);
+        assertEquals(hits + 2, cache.stats().hits(), "a was used more recently than b");
+
+        // Larger than one entry may be: never cached
+        assertNull(cache.content(remote("d", "d".repeat(31))));
+        assertEquals(40, cache.stats().bytes());
+    }
+
+    @Test
+    void releasingTheLastReferenceDropsTheEntry() throws IOException {
+        HotFileCache cache = new HotFileCache(1024, 1024, 1);
+        StoredFile handout = remote("a", "week 1 handout");
+        StoredObjectRepository storedObjects = mock(StoredObjectRepository.class);
+        when(storedObjects.removeReference(handout.sha256())).thenReturn(1);
+        when(storedObjects.deleteIfUnreferenced(handout.sha256())).thenReturn(1);
+        FileStorageService files = new FileStorageService(storedObjects, mock(PlatformTransactionManager.class),
+                storage, cache, uploadDir.toString());
+
+        assertNotNull(cache.content(handout));
+        assertEquals(1, cache.stats().entries());
+
+        files.release(handout.sha256());
+
+        assertEquals(0, cache.stats().entries());
+        assertEquals(0, cache.stats().bytes());
+    }
+
+    @Test
+    void localFilesAreLeftToThePageCache() throws IOException {
+        HotFileCache cache = new HotFileCache(1024, 1024, 1);
+        StoredFile remote = remote("a", "week 1 handout");
+        StoredFile local = new StoredFile(remote.key(), remote.size(), remote.lastModified(), remote.sha256(),
+                storage.localPath(remote.key()), storage);
+        StoredFile unhashed = new StoredFile(remote.key(), remote.size(), remote.lastModified(), null, null, storage);
+
+        assertNull(cache.content(local));
+        assertNull(cache.content(local));
+        assertNull(cache.content(unhashed));
+
+        verify(storage, never()).openStream(anyString(), anyLong(), anyLong());
+        assertEquals(0, cache.stats().misses());
+        assertEquals(0, cache.stats().entries());
+    }
+
+    // Stored under objects/{hash}, but without a local path, as a remote backend would hand it out
+    private StoredFile remote(String seed, String content) throws IOException {
+        String hash = seed.repeat(64).substring(0, 64);
+        String key = FileStorageService.objectPath(hash);
+        storage.put(key, Files.writeString(uploadDir.resolve(seed + ".part"), content));
+        StorageBackend.ObjectInfo info = storage.stat(key).orElseThrow();
+        return new StoredFile(info.key(), info.size(), info.lastModified(), hash, null, storage);
+    }
+
+    private static String text(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.repository.StoredObjectRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ImageVariantServiceTest {
+
+    private static final String HASH = "c0ffee0000000000000000000000000000000000000000000000000000000000";
+    private static final String KEY = FileStorageService.objectPath(HASH);
+
+    @TempDir
+    Path uploadDir;
+
+    private ImageVariantService variants;
+    private LocalDiskStorageBackend storage;
+    private StoredFile original;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new LocalDiskStorageBackend(uploadDir, "tmp");
+        FileStorageService fileStorageService = new FileStorageService(mock(StoredObjectRepository.class),
+                mock(PlatformTransactionManager.class), storage, new HotFileCache(0, 0, 1), uploadDir.toString());
+        variants = new ImageVariantService(fileStorageService, 320, 1600, 100_000_000, 1, 10);
+
+        // A large scan with a transparent margin
+        BufferedImage scan = new BufferedImage(4000, 3000, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scan.createGraphics();
+        g.setColor(Color.BLUE);
+        g.fillRect(500, 500, 3000, 2000);
+        g.dispose();
+        Path source = uploadDir.resolve("scan.png");
+        ImageIO.write(scan, "png", source.toFile());
+        storage.put(KEY, source);
+        original = fileStorageService.openFile(KEY, HASH);
+    }
+
+    @AfterEach
+    void tearDown() {
+        variants.shutdown();
+    }
+
+    @Test
+    void servesDownscaledVariantsOnceRendered() throws IOException {
+        // Not rendered yet: the original goes out
+        assertSame(original, variants.select(original, "scan.png", MediaType.IMAGE_PNG, "thumbnail").file());
+
+        variants.generate(KEY, HASH);
+
+        ImageVariantService.Rendition thumbnail = variants.select(original, "scan.png", MediaType.IMAGE_PNG, "thumbnail");
+        assertEquals(MediaType.IMAGE_JPEG, thumbnail.mediaType());
+        assertEquals("scan.thumb.jpg", thumbnail.fileName());
+        assertNotEquals(original.sha256(), thumbnail.file().sha256());
+        BufferedImage image = read(thumbnail.file());
+        assertEquals(320, image.getWidth());
+        assertEquals(240, image.getHeight());
+        // Transparent areas are flattened onto white
+        assertEquals(Color.WHITE.getRGB(), image.getRGB(2, 2) | 0x0f0f0f);
+
+        ImageVariantService.Rendition preview = variants.select(original, "scan.png", MediaType.IMAGE_PNG, "preview");
+        assertEquals(1600, read(preview.file()).getWidth());
+        assertTrue(preview.file().size() < original.size());
+
+        assertSame(original, variants.select(original, "scan.png", MediaType.IMAGE_PNG, "original").file());
+    }
+
+    @Test
+    void leavesOtherFilesAlone() throws IOException {
+        ImageVariantService.Rendition rendition = variants.select(original, "notes.pdf", MediaType.APPLICATION_PDF, "preview");
+
+        assertSame(original, rendition.file());
+        assertEquals(MediaType.APPLICATION_PDF, rendition.mediaType());
+        assertEquals("notes.pdf", rendition.fileName());
+    }
+
+    @Test
+    void onlyUndecodableImagesAreNotRetried() throws IOException {
+        String textHash = "7e57000000000000000000000000000000000000000000000000000000000000";
+        String text = FileStorageService.objectPath(textHash);
+        storage.put(text, Files.writeString(uploadDir.resolve("not-an-image.png"), "just text"));
+        variants.generate(text, textHash);
+        assertTrue(variants.hasFailed(text));
+
+        // Missing from storage, which may only be a passing outage
+        String missingHash = "0000000000000000000000000000000000000000000000000000000000000001";
+        String missing = FileStorageService.objectPath(missingHash);
+        variants.generate(missing, missingHash);
+        assertFalse(variants.hasFailed(missing));
+
+        variants.generate(KEY, HASH);
+        assertFalse(variants.hasFailed(KEY));
+    }
+
+    private static BufferedImage read(StoredFile file) throws IOException {
+        try (InputStream in = file.openStream()) {
+            return ImageIO.read(in);
+        }
+    }
+}
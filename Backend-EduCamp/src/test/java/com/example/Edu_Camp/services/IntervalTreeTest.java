@@ -0,0 +1,90 @@
+package com.example.Edu_Camp.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+
+    @Test
+    void overlapIsHalfOpen() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(60, 120, "a");
+        tree.insert(120, 180, "b");
+        tree.insert(0, 300, "c");
+
+        assertEquals(List.of("c", "a"), values(tree.findOverlapping(90, 120)));
+        assertEquals(List.of("c", "a", "b"), values(tree.findOverlapping(119, 121)));
+        assertTrue(tree.overlapsAny(299, 400));
+        assertFalse(tree.overlapsAny(300, 400));
+        assertFalse(tree.overlapsAny(-10, 0));
+        assertEquals(List.of(), tree.findOverlapping(500, 600));
+    }
+
+    @Test
+    void removeTakesOneMatchingInterval() {
+        IntervalTree<Long> tree = new IntervalTree<>();
+        tree.insert(10, 20, 1L);
+        tree.insert(10, 20, 2L);
+        tree.insert(10, 20, 1L);
+
+        assertFalse(tree.remove(10, 20, 3L));
+        assertFalse(tree.remove(10, 21, 1L));
+        assertTrue(tree.remove(10, 20, 1L));
+        assertEquals(2, tree.size());
+        assertEquals(List.of(1L, 2L), tree.all().stream().map(IntervalTree.Interval::value).sorted().toList());
+
+        assertTrue(tree.remove(10, 20, 1L));
+        assertTrue(tree.remove(10, 20, 2L));
+        assertTrue(tree.isEmpty());
+        assertFalse(tree.overlapsAny(0, 100));
+    }
+
+    @Test
+    void matchesABruteForceScanUnderRandomChanges() {
+        Random random = new Random(12);
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        List<IntervalTree.Interval<Integer>> expected = new ArrayList<>();
+
+        for (int step = 0; step < 3_000; step++) {
+            if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                IntervalTree.Interval<Integer> gone = expected.remove(random.nextInt(expected.size()));
+                assertTrue(tree.remove(gone.start(), gone.end(), gone.value()));
+            } else {
+                int start = random.nextInt(1_000);
+                IntervalTree.Interval<Integer> added = new IntervalTree.Interval<>(start, start + 1 + random.nextInt(60),
+                        random.nextInt(20));
+                tree.insert(added.start(), added.end(), added.value());
+                expected.add(added);
+            }
+
+            int start = random.nextInt(1_050);
+            int end = start + 1 + random.nextInt(40);
+            List<IntervalTree.Interval<Integer>> overlapping = expected.stream()
+                    .filter(i -> i.start() < end && start < i.end()).toList();
+            List<IntervalTree.Interval<Integer>> found = tree.findOverlapping(start, end);
+            assertEquals(sorted(overlapping), sorted(found));
+            assertEquals(!overlapping.isEmpty(), tree.overlapsAny(start, end));
+            assertEquals(expected.size(), tree.size());
+            // Ordered by start
+            for (int i = 1; i < found.size(); i++) {
+                assertTrue(found.get(i - 1).start() <= found.get(i).start());
+            }
+        }
+    }
+
+    private static <T> List<T> values(List<IntervalTree.Interval<T>> intervals) {
+        return intervals.stream().map(IntervalTree.Interval::value).toList();
+    }
+
+    private static List<IntervalTree.Interval<Integer>> sorted(List<IntervalTree.Interval<Integer>> intervals) {
+        return intervals.stream().sorted(Comparator.<IntervalTree.Interval<Integer>>comparingInt(IntervalTree.Interval::start)
+                .thenComparingInt(IntervalTree.Interval::end)
+                .thenComparingInt(IntervalTree.Interval::value)).toList();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.MaterialDTO;
+import com.example.Edu_Camp.models.TeacherMaterial;
+import com.example.Edu_Camp.repository.MaterialRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Creating materials: files are stored outside any transaction and the reference is given
+ * back when the row cannot be saved.
+ */
+class MaterialServiceTest {
+
+    private static final StoredUpload STORED = new StoredUpload("objects/abc", 5, "abc");
+
+    private final MaterialRepository materialRepository = mock(MaterialRepository.class);
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final UploadSessionService uploadSessionService = mock(UploadSessionService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final MaterialService materials = new MaterialService(materialRepository, fileStorageService,
+            uploadSessionService, mock(MaterialBlobMigrationService.class), transactionManager);
+
+    @Test
+    void multipartFileIsStoredBeforeTheRowIsSaved() throws IOException {
+        MockMultipartFile file = new MockMultipartFile("file", "notes.pdf", "application/pdf", "hello".getBytes());
+        when(fileStorageService.storeFile(file)).thenReturn(STORED);
+        when(materialRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TeacherMaterial material = materials.createMaterial(request(), file, null, 1L);
+
+        assertEquals("objects/abc", material.getFilePath());
+        assertEquals("abc", material.getFileHash());
+        assertEquals("notes.pdf", material.getFileName());
+        InOrder order = inOrder(fileStorageService, materialRepository);
+        order.verify(fileStorageService).storeFile(file);
+        order.verify(materialRepository).save(material);
+        verify(fileStorageService, never()).release(anyString());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void failedSaveReleasesTheStoredFile() throws IOException {
+        MockMultipartFile file = new MockMultipartFile("file", "notes.pdf", "application/pdf", "hello".getBytes());
+        when(fileStorageService.storeFile(file)).thenReturn(STORED);
+        when(fileStorageService.tempDir()).thenReturn(Path.of(System.getProperty("java.io.tmpdir")));
+        when(fileStorageService.storeFile(any(Path.class), eq("notes.pdf"))).thenReturn(STORED);
+        when(materialRepository.save(any())).thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> materials.createMaterial(request(), file, null, 1L));
+        MaterialDTO base64 = request();
+        base64.setFileName("notes.pdf");
+        base64.setFileData(Base64.getEncoder().encodeToString("hello".getBytes()));
+        assertThrows(IllegalStateException.class, () -> materials.createMaterialFromBase64(base64));
+
+        verify(fileStorageService, times(2)).release("abc");
+    }
+
+    @Test
+    void chunkedUploadIsClaimedAndSavedInOneTransaction() {
+        when(uploadSessionService.claim("up-1", 1L, "MATERIAL"))
+                .thenReturn(new UploadSessionService.ClaimedUpload(STORED, "big.zip"));
+        when(materialRepository.save(any())).thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> materials.createMaterial(request(), null, "up-1", 1L));
+
+        // Rolled back with the claim, so the upload stays claimable and keeps its reference
+        verify(transactionManager).rollback(any());
+        verify(fileStorageService, never()).release(anyString());
+    }
+
+    private static MaterialDTO request() {
+        MaterialDTO request = new MaterialDTO();
+        request.setTitle("Week 1");
+        request.setSubject("Maths");
+        request.setClassName("Grade 10");
+        return request;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.ProfileImageUrls;
+import com.example.Edu_Camp.repository.StoredObjectRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Profile images against a local disk backend, with the stored_objects table mocked: the
+ * reference counting is checked through the calls made on it.
+ */
+class ProfileImageServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private final StoredObjectRepository storedObjects = mock(StoredObjectRepository.class);
+    private FileStorageService fileStorageService;
+    private ProfileImageService profileImages;
+
+    @BeforeEach
+    void setUp() {
+        LocalDiskStorageBackend storage = new LocalDiskStorageBackend(uploadDir, "tmp");
+        fileStorageService = new FileStorageService(storedObjects,
+                mock(PlatformTransactionManager.class), storage, new HotFileCache(0, 0, 1), uploadDir.toString());
+        profileImages = new ProfileImageService(fileStorageService, mock(JdbcTemplate.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        profileImages.shutdown();
+    }
+
+    @Test
+    void storesDataUrlAsReferencedObjectWithVariants() throws IOException {
+        String reference = profileImages.normalize(dataUrl(1200, 800), null);
+
+        assertTrue(ProfileImageService.isReference(reference));
+        verify(storedObjects).addReference(eq(reference), eq(FileStorageService.objectPath(reference)), anyLong());
+        assertEquals(96, read(profileImages.open(reference, "small").orElseThrow()).getWidth());
+        assertEquals(256, read(profileImages.open(reference, "medium").orElseThrow()).getWidth());
+        BufferedImage large = read(profileImages.open(reference, "large").orElseThrow());
+        assertEquals(640, large.getWidth());
+        assertEquals(427, large.getHeight());
+        assertTrue(profileImages.open(reference, "huge").isEmpty());
+
+        // The same picture sent again for the same row: the extra reference is handed back
+        assertEquals(reference, profileImages.normalize(dataUrl(1200, 800), reference));
+        verify(storedObjects, times(2)).addReference(eq(reference), anyString(), anyLong());
+        verify(storedObjects).removeReference(reference);
+    }
+
+    @Test
+    void takesReferenceOnlyOnAnImageNewToTheRow() throws IOException {
+        String reference = profileImages.normalize(dataUrl(300, 300), null);
+        when(storedObjects.addExistingReference(reference)).thenReturn(1);
+
+        assertEquals(reference, profileImages.normalize("https://educamp.example/api/images/" + reference + "/medium", reference));
+        assertEquals(reference, profileImages.normalize(reference, reference));
+        verify(storedObjects, never()).addExistingReference(anyString());
+
+        assertEquals(reference, profileImages.normalize(reference, null));
+        verify(storedObjects).addExistingReference(reference);
+
+        assertEquals("https://cdn.example/me.png", profileImages.normalize("https://cdn.example/me.png", reference));
+        assertNull(profileImages.normalize("  ", reference));
+        assertEquals("/api/images/" + reference + "/small", ProfileImageUrls.url(reference, "small"));
+        assertEquals("https://cdn.example/me.png", ProfileImageUrls.url("https://cdn.example/me.png", "small"));
+    }
+
+    @Test
+    void rejectsUnsupportedValues() {
+        String unknown = "ab".repeat(32);
+        assertThrows(RuntimeException.class, () -> profileImages.normalize(unknown, null));
+
+        // A stored upload that is not a profile image gets its reference back
+        String upload = "cd".repeat(32);
+        when(storedObjects.addExistingReference(upload)).thenReturn(1);
+        assertThrows(RuntimeException.class, () -> profileImages.normalize(upload, null));
+        verify(storedObjects).removeReference(upload);
+
+        assertThrows(RuntimeException.class, () -> profileImages.normalize("javascript:alert(1)", null));
+        assertThrows(RuntimeException.class, () -> profileImages.normalize("data:image/png;base64,!!!", null));
+    }
+
+    @Test
+    void undecodableImageIsNotKept() {
+        byte[] bytes = "not an image".getBytes();
+        String hash = sha256(bytes);
+        when(storedObjects.removeReference(hash)).thenReturn(1);
+        when(storedObjects.deleteIfUnreferenced(hash)).thenReturn(1);
+
+        assertThrows(RuntimeException.class, () -> profileImages.normalize(
+                "data:image/png;base64," + Base64.getEncoder().encodeToString(bytes), null));
+
+        verify(storedObjects).removeReference(hash);
+        assertFalse(fileStorageService.fileExists(FileStorageService.objectPath(hash)));
+    }
+
+    @Test
+    void releaseDeletesVariantsWithTheLastReference() throws IOException {
+        String reference = profileImages.normalize(dataUrl(300, 300), null);
+
+        profileImages.release(reference, reference);
+        profileImages.release("https://cdn.example/me.png", reference);
+        verify(storedObjects, never()).removeReference(anyString());
+
+        // Another row still references it
+        profileImages.release(reference, null);
+        assertTrue(profileImages.open(reference, "small").isPresent());
+
+        when(storedObjects.removeReference(reference)).thenReturn(1);
+        when(storedObjects.deleteIfUnreferenced(reference)).thenReturn(1);
+        profileImages.release(reference, null);
+        for (String variant : ProfileImageService.VARIANTS.keySet()) {
+            assertTrue(profileImages.open(reference, variant).isEmpty(), variant);
+        }
+        assertFalse(fileStorageService.fileExists(FileStorageService.objectPath(reference)));
+    }
+
+    private static String dataUrl(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillOval(0, 0, width, height);
+        g.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(png.toByteArray());
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static BufferedImage read(StoredFile file) throws IOException {
+        try (InputStream in = file.openStream()) {
+            return ImageIO.read(in);
+        }
+    }
+}
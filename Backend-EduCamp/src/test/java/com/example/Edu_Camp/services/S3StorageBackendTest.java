@@ -0,0 +1,197 @@
+package com.example.Edu_Camp.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the S3 backend against a small in-memory stand-in for the S3 REST API, so the test
+ * needs neither network access nor a MinIO container.
+ */
+class S3StorageBackendTest {
+
+    private static final String BUCKET = "educamp";
+
+    private final Map<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    private final List<String> authorizations = new ArrayList<>();
+    private HttpServer server;
+    private S3StorageBackend backend;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/" + BUCKET, this::handle);
+        server.start();
+        URI endpoint = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+        backend = new S3StorageBackend(endpoint, BUCKET, "us-east-1", "test-key", "test-secret");
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void putStatReadAndDelete() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("upload.txt"), "hello, object storage");
+
+        backend.put("objects/abc", source);
+
+        assertFalse(Files.exists(source), "put takes ownership of the source file");
+        StorageBackend.ObjectInfo info = backend.stat("objects/abc").orElseThrow();
+        assertEquals(21, info.size());
+        try (InputStream in = backend.openStream("objects/abc", 7, 13)) {
+            assertEquals("object", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertNull(backend.localPath("objects/abc"));
+
+        assertTrue(backend.delete("objects/abc"));
+        assertTrue(backend.stat("objects/abc").isEmpty());
+        assertFalse(backend.delete("objects/abc"));
+    }
+
+    @Test
+    void listFollowsContinuationTokens() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            objects.put("objects/" + i, new byte[i]);
+        }
+
+        List<String> keys = backend.list().map(StorageBackend.ObjectInfo::key).collect(Collectors.toList());
+
+        assertEquals(List.of("objects/0", "objects/1", "objects/2", "objects/3", "objects/4"), keys);
+    }
+
+    @Test
+    void requestsAreSigned() throws IOException {
+        backend.stat("objects/missing");
+
+        assertFalse(authorizations.isEmpty());
+        String authorization = authorizations.get(0);
+        assertTrue(authorization.startsWith("AWS4-HMAC-SHA256 Credential=test-key/"), authorization);
+        assertTrue(authorization.contains("/us-east-1/s3/aws4_request"), authorization);
+        assertTrue(authorization.contains("SignedHeaders=host;x-amz-content-sha256;x-amz-date"), authorization);
+        assertTrue(authorization.matches(".*Signature=[0-9a-f]{64}$"), authorization);
+    }
+
+    // In-memory S3: PUT, GET (with Range), HEAD, DELETE and ListObjectsV2 with two keys per page
+    private void handle(HttpExchange exchange) throws IOException {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        synchronized (authorizations) {
+            authorizations.add(authorization);
+        }
+        if (authorization == null || exchange.getRequestHeaders().getFirst("x-amz-date") == null) {
+            respond(exchange, 403, new byte[0]);
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        String key = path.length() > BUCKET.length() + 2 ? path.substring(BUCKET.length() + 2) : "";
+        byte[] object = objects.get(key);
+
+        switch (exchange.getRequestMethod()) {
+            case "PUT" -> {
+                objects.put(key, exchange.getRequestBody().readAllBytes());
+                respond(exchange, 200, new byte[0]);
+            }
+            case "HEAD" -> {
+                if (object == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else {
+                    exchange.getResponseHeaders().set("Last-Modified", "Mon, 19 Oct 2026 10:00:00 GMT");
+                    exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.length));
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                exchange.close();
+            }
+            case "DELETE" -> {
+                respond(exchange, objects.remove(key) == null ? 404 : 204, new byte[0]);
+            }
+            case "GET" -> {
+                if (key.isEmpty()) {
+                    list(exchange);
+                } else if (object == null) {
+                    respond(exchange, 404, new byte[0]);
+                } else {
+                    String range = exchange.getRequestHeaders().getFirst("Range");
+                    if (range == null) {
+                        respond(exchange, 200, object);
+                    } else {
+                        String[] bounds = range.substring("bytes=".length()).split("-");
+                        int start = Integer.parseInt(bounds[0]);
+                        int end = Math.min(object.length - 1, Integer.parseInt(bounds[1]));
+                        byte[] slice = Arrays.copyOfRange(object, start, end + 1);
+                        exchange.getResponseHeaders().set("Content-Range",
+                                "bytes " + start + "-" + end + "/" + object.length);
+                        respond(exchange, 206, slice);
+                    }
+                }
+            }
+            default -> respond(exchange, 405, new byte[0]);
+        }
+    }
+
+    private void list(HttpExchange exchange) throws IOException {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw != null) {
+            for (String pair : raw.split("&")) {
+                String[] parts = pair.split("=", 2);
+                query.put(parts[0], URLDecoder.decode(parts.length > 1 ? parts[1] : "", StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals("2", query.get("list-type"));
+
+        TreeMap<String, byte[]> sorted = new TreeMap<>(objects);
+        String after = query.get("continuation-token");
+        List<String> page = new ArrayList<>((after == null ? sorted : sorted.tailMap(after, false)).keySet());
+        boolean truncated = page.size() > 2;
+        if (truncated) page = page.subList(0, 2);
+
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?><ListBucketResult>");
+        for (String key : page) {
+            xml.append("<Contents><Key>").append(key).append("</Key>")
+                    .append("<LastModified>").append(Instant.parse("2026-10-19T10:00:00Z")).append("</LastModified>")
+                    .append("<Size>").append(objects.get(key).length).append("</Size></Contents>");
+        }
+        xml.append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (truncated) {
+            xml.append("<NextContinuationToken>").append(page.get(page.size() - 1)).append("</NextContinuationToken>");
+        }
+        xml.append("</ListBucketResult>");
+        respond(exchange, 200, xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            exchange.getResponseBody().write(body);
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.Edu_Camp.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignedUrlServiceTest {
+
+    private static final String HASH = "ab12000000000000000000000000000000000000000000000000000000000000";
+
+    private final SignedUrlService signedUrls = new SignedUrlService("test-secret", 600);
+    private final StoredFile file = new StoredFile("objects/" + HASH, 10, Instant.now(), HASH, null, null);
+
+    @Test
+    void grantsExactlyTheSignedFile() {
+        SignedUrlService.SignedUrl url = signedUrls.sign(file, "essay.pdf", MediaType.APPLICATION_PDF, true);
+
+        SignedUrlService.SignedFile granted = signedUrls.verify(token(url)).orElseThrow();
+        assertEquals("objects/" + HASH, granted.key());
+        assertEquals(HASH, granted.sha256());
+        assertEquals("essay.pdf", granted.fileName());
+        assertEquals(MediaType.APPLICATION_PDF, granted.mediaType());
+        assertTrue(granted.inline());
+        assertEquals(url.expiresAt(), granted.expiresAt());
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        String token = token(signedUrls.sign(file, "essay.pdf", MediaType.APPLICATION_PDF, false));
+        int dot = token.lastIndexOf('.');
+        String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, dot)), StandardCharsets.UTF_8);
+
+        // Another file under the original signature
+        String otherFile = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                payload.replace(HASH, HASH.replace('a', 'b')).getBytes(StandardCharsets.UTF_8));
+        assertTrue(signedUrls.verify(otherFile + token.substring(dot)).isEmpty());
+
+        String signature = token.substring(dot + 1);
+        String flipped = (signature.charAt(0) == 'A' ? 'B' : 'A') + signature.substring(1);
+        assertTrue(signedUrls.verify(token.substring(0, dot + 1) + flipped).isEmpty());
+        assertTrue(signedUrls.verify(token.substring(0, dot)).isEmpty());
+        assertTrue(signedUrls.verify(null).isEmpty());
+        assertTrue(signedUrls.verify("garbage").isEmpty());
+
+        // Signed under another secret
+        assertTrue(new SignedUrlService("other-secret", 600).verify(token).isEmpty());
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        String payload = String.join("\n", "objects/" + HASH, HASH, "application/pdf", "0",
+                Long.toString(Instant.now().minusSeconds(1).getEpochSecond()), "essay.pdf");
+        String encoded = Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        String signature = new TokenSigner("test-secret", "unused").signToUrl(encoded);
+
+        assertTrue(signedUrls.verify(encoded + "." + signature).isEmpty());
+    }
+
+    @Test
+    void linksIssuedInTheSameBucketAreTheSameUrl() {
+        String first = signedUrls.sign(file, "essay.pdf", MediaType.APPLICATION_PDF, false).url();
+        String second = signedUrls.sign(file, "essay.pdf", MediaType.APPLICATION_PDF, false).url();
+        String third = signedUrls.sign(file, "essay.pdf", MediaType.APPLICATION_PDF, false).url();
+        // Unless a bucket boundary fell in between
+        assertTrue(first.equals(second) || second.equals(third));
+
+        // Valid for between half and the full lifetime
+        long remaining = signedUrls.sign(file, "essay.pdf", MediaType.APPLICATION_PDF, false).expiresAt().getEpochSecond()
+                - Instant.now().getEpochSecond();
+        assertTrue(remaining >= 299 && remaining <= 600, String.valueOf(remaining));
+
+        assertNotEquals(first, signedUrls.sign(file, "essay.pdf", MediaType.APPLICATION_PDF, true).url());
+    }
+
+    private static String token(SignedUrlService.SignedUrl url) {
+        return url.url().substring(SignedUrlService.PATH_PREFIX.length());
+    }
+}
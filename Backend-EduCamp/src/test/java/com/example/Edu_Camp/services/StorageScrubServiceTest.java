@@ -0,0 +1,138 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.repository.StoredObjectRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Scrubs a local upload directory against a fixed set of references, with the database
+ * mocked out.
+ */
+class StorageScrubServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private LocalDiskStorageBackend storage;
+    private JdbcTemplate jdbcTemplate;
+    private StorageScrubService scrub;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalDiskStorageBackend(uploadDir, "tmp");
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class))).thenReturn(0L);
+        when(jdbcTemplate.update(startsWith("INSERT IGNORE"), any(Object[].class))).thenReturn(1);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        FileStorageService fileStorageService = new FileStorageService(mock(StoredObjectRepository.class),
+                transactionManager, storage, new HotFileCache(0, 0, 1), uploadDir.toString());
+        scrub = new StorageScrubService(jdbcTemplate, fileStorageService, transactionManager, 2, 24, 48, 30, true);
+    }
+
+    @Test
+    void quarantinesOldOrphansAndReportsDamage() throws Exception {
+        String kept = put("lecture notes", true);
+        String corrupt = put("essay draft", true);
+        Files.writeString(storage.localPath(corrupt), "essay drafT");
+        String orphan = put("deleted assignment", true);
+        String fresh = put("upload in progress", false);
+        Path staleTemp = Files.writeString(Files.createDirectories(uploadDir.resolve("tmp")).resolve("upload-1.part"), "x");
+        Files.setLastModifiedTime(staleTemp, FileTime.from(Instant.now().minus(3, ChronoUnit.DAYS)));
+        references(kept, corrupt, "submissions/missing.pdf");
+
+        StorageScrubService.Run run = new StorageScrubService.Run(true, Instant.now());
+        scrub.scrub(run);
+
+        assertEquals(4, run.scanned.get());
+        assertEquals(1, run.orphans.get());
+        assertEquals(List.of(orphan), run.orphanKeys.snapshot());
+        assertEquals(1, run.quarantined.get());
+        assertTrue(storage.stat(orphan).isEmpty());
+        String orphanHash = orphan.substring(orphan.lastIndexOf('/') + 1);
+        verify(jdbcTemplate).update(startsWith("INSERT IGNORE"), eq(orphanHash), eq(orphan), anyLong());
+        verify(jdbcTemplate).update(startsWith("DELETE"), eq(orphanHash));
+        try (var quarantined = Files.walk(uploadDir.resolve("tmp").resolve(StorageScrubService.QUARANTINE_DIR))) {
+            assertEquals(1, quarantined.filter(Files::isRegularFile).count());
+        }
+        assertTrue(storage.stat(fresh).isPresent(), "files within the grace period are left alone");
+
+        assertEquals(2, run.verified.get());
+        assertEquals(List.of(corrupt), run.corruptKeys.snapshot());
+        assertEquals(List.of("submissions/missing.pdf"), run.missingKeys.snapshot());
+        assertEquals(1, run.staleTempFiles.get());
+        assertFalse(Files.exists(staleTemp));
+    }
+
+    @Test
+    void reportOnlyRunMovesNothing() throws Exception {
+        String orphan = put("deleted assignment", true);
+        references();
+
+        StorageScrubService.Run run = new StorageScrubService.Run(false, Instant.now());
+        scrub.scrub(run);
+
+        assertEquals(1, run.orphans.get());
+        assertEquals(0, run.quarantined.get());
+        assertTrue(storage.stat(orphan).isPresent());
+    }
+
+    @Test
+    void objectClaimedByAConcurrentUploadIsLeftInPlace() throws Exception {
+        String orphan = put("resubmitted essay", true);
+        references();
+        // The upload's reference row already exists, so the placeholder insert does nothing
+        when(jdbcTemplate.update(startsWith("INSERT IGNORE"), any(Object[].class))).thenReturn(0);
+
+        StorageScrubService.Run run = new StorageScrubService.Run(true, Instant.now());
+        scrub.scrub(run);
+
+        assertEquals(1, run.orphans.get());
+        assertEquals(0, run.quarantined.get());
+        assertTrue(storage.stat(orphan).isPresent());
+        verify(jdbcTemplate, never()).update(startsWith("DELETE"), any(Object[].class));
+    }
+
+    // Stores content as objects/{sha256}, optionally backdated past the grace period
+    private String put(String content, boolean old) throws Exception {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String key = FileStorageService.objectPath(
+                HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes)));
+        storage.put(key, Files.write(Files.createTempFile(uploadDir, "src", ".part"), bytes));
+        if (old) {
+            Files.setLastModifiedTime(storage.localPath(key), FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS)));
+        }
+        return key;
+    }
+
+    private void references(String... keys) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (String key : keys) {
+                ResultSet row = mock(ResultSet.class);
+                when(row.getString(1)).thenReturn(key);
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.SubmissionDto;
+import com.example.Edu_Camp.repository.StoredObjectRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Builds archives from summary rows against a local disk backend, then reads them back.
+ */
+class SubmissionArchiveServiceTest {
+
+    private static final LocalDateTime SUBMITTED = LocalDateTime.of(2026, 3, 2, 9, 30);
+
+    @TempDir
+    Path uploadDir;
+
+    private FileStorageService files;
+    private SubmissionArchiveService archives;
+
+    @BeforeEach
+    void setUp() {
+        files = new FileStorageService(mock(StoredObjectRepository.class), mock(PlatformTransactionManager.class),
+                new LocalDiskStorageBackend(uploadDir, "tmp"), new HotFileCache(0, 0, 1), uploadDir.toString());
+        archives = new SubmissionArchiveService(files);
+    }
+
+    @Test
+    void entriesAreNamedByStudentNumber() throws IOException {
+        Map<String, Entry> entries = archive(List.of(
+                submission(1L, "S-001", "essay.pdf", "first draft"),
+                submission(2L, "S-001", "final.pdf", "second file, same student"),
+                submission(3L, "S 002/x", "notes.TXT", "odd characters"),
+                submission(4L, null, "code.zip", "no student number")));
+
+        assertEquals(List.of("S-001.pdf", "S-001-2.pdf", "S_002_x.txt", "submission-4.zip",
+                SubmissionArchiveService.MANIFEST_NAME), List.copyOf(entries.keySet()));
+        assertEquals("first draft", entries.get("S-001.pdf").text());
+        assertEquals("second file, same student", entries.get("S-001-2.pdf").text());
+    }
+
+    @Test
+    void compressedFormatsAreStoredAndTheRestDeflated() throws IOException {
+        String text = "plain text compresses well ".repeat(200);
+        Map<String, Entry> entries = archive(List.of(
+                submission(1L, "S-001", "essay.pdf", "%PDF-1.7 already compressed"),
+                submission(2L, "S-002", "notes.txt", text)));
+
+        Entry pdf = entries.get("S-001.pdf");
+        assertEquals(ZipEntry.STORED, pdf.method());
+        CRC32 crc = new CRC32();
+        crc.update("%PDF-1.7 already compressed".getBytes(StandardCharsets.UTF_8));
+        assertEquals(crc.getValue(), pdf.crc());
+        assertEquals("%PDF-1.7 already compressed", pdf.text());
+
+        Entry txt = entries.get("S-002.txt");
+        assertEquals(ZipEntry.DEFLATED, txt.method());
+        assertEquals(text, txt.text());
+    }
+
+    @Test
+    void manifestListsEverySubmission() throws IOException {
+        SubmissionDto noFile = dto(2L, "S-002", "Bob", "Jones", null, null, null, null);
+        SubmissionDto missing = dto(3L, "S-003", "=HYPERLINK(\"x\")", "Lee", "objects/" + "0".repeat(64),
+                "gone.pdf", 10L, "0".repeat(64));
+
+        Map<String, Entry> entries = archive(List.of(
+                submission(1L, "S-001", "essay.pdf", "hello"), noFile, missing));
+
+        List<String> lines = entries.get(SubmissionArchiveService.MANIFEST_NAME).text().lines().toList();
+        assertEquals("student_number,student_name,archive_file,original_file,size,sha256,submitted_at,status,grade",
+                lines.get(0));
+        assertTrue(lines.get(1).startsWith("S-001,Ann Smith,S-001.pdf,essay.pdf,5,"), lines.get(1));
+        assertTrue(lines.get(1).endsWith(",2026-03-02T09:30,GRADED,18"), lines.get(1));
+        assertEquals("S-002,Bob Jones,,,,,2026-03-02T09:30,GRADED,18", lines.get(2));
+        // Formula-looking names are defused and quoted; a file that cannot be read is marked, not fatal
+        assertTrue(lines.get(3).startsWith("S-003,\"'=HYPERLINK(\"\"x\"\") Lee\",(missing),gone.pdf,10,"), lines.get(3));
+        assertEquals(4, lines.size());
+        assertEquals(2, entries.size());
+    }
+
+    private SubmissionDto submission(Long id, String studentNumber, String fileName, String content) throws IOException {
+        StoredUpload stored = files.storeFile(new MockMultipartFile("file", fileName, null,
+                content.getBytes(StandardCharsets.UTF_8)));
+        return dto(id, studentNumber, "Ann", "Smith", stored.filePath(), fileName, stored.size(), stored.sha256());
+    }
+
+    private static SubmissionDto dto(Long id, String studentNumber, String firstName, String lastName,
+                                     String filePath, String fileName, Long fileSize, String fileHash) {
+        return new SubmissionDto(id, 10L, 20L + id, filePath, fileName, fileSize, fileHash, null, SUBMITTED, null,
+                "GRADED", 18, null, firstName, lastName, studentNumber, "Essay");
+    }
+
+    private Map<String, Entry> archive(List<SubmissionDto> submissions) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archives.writeArchive(submissions, out);
+
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()), StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String text = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                entries.put(entry.getName(), new Entry(entry.getMethod(), entry.getCrc(), text));
+            }
+        }
+        return entries;
+    }
+
+    private record Entry(int method, long crc, String text) {}
+}
@@ -0,0 +1,69 @@
+package com.example.Edu_Camp.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SubmissionIngestServiceTest {
+
+    private static final LocalDateTime BEFORE_DEADLINE = LocalDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.MILLIS);
+
+    // No room to wait, so every multipart submission is turned away with a token
+    private final SubmissionIngestService ingest = new SubmissionIngestService(mock(AssignmentService.class),
+            mock(FileStorageService.class), mock(UploadSessionService.class), mock(PlatformTransactionManager.class),
+            1, 0, 0, "test-secret");
+
+    @Test
+    void tokenKeepsArrivalTimeOnlyForTheSameFile() throws IOException {
+        MockMultipartFile essay = file("my essay");
+        SubmissionQueueFullException busy = assertThrows(SubmissionQueueFullException.class,
+                () -> ingest.submit(1L, 2L, essay, null, null, BEFORE_DEADLINE, null));
+        String token = busy.getArrivalToken();
+        LocalDateTime now = LocalDateTime.now();
+
+        assertEquals(BEFORE_DEADLINE, resolve(2L, essay, now, token));
+        assertEquals(now, resolve(2L, file("someone else's essay"), now, token));
+        assertEquals(now, resolve(3L, essay, now, token));
+        assertEquals(now, resolve(2L, essay, now, token.replaceFirst("^\\d", "9")));
+        assertEquals(now, resolve(2L, essay, now, "garbage"));
+
+        // Turned away again: the new token carries the original arrival forward
+        SubmissionQueueFullException again = assertThrows(SubmissionQueueFullException.class,
+                () -> ingest.submit(1L, 2L, essay, null, null, now, token));
+        assertEquals(BEFORE_DEADLINE, resolve(2L, essay, LocalDateTime.now(), again.getArrivalToken()));
+    }
+
+    @Test
+    void tokenExpiresAfterTwiceRetryAfter() throws IOException {
+        MockMultipartFile essay = file("my essay");
+        String hash = SubmissionIngestService.contentHash(essay);
+        LocalDateTime now = LocalDateTime.now();
+
+        SubmissionQueueFullException busy = assertThrows(SubmissionQueueFullException.class,
+                () -> ingest.submit(1L, 2L, essay, null, null, BEFORE_DEADLINE, null));
+        long expires = Long.parseLong(busy.getArrivalToken().split("\\.")[1]);
+        long validFor = expires - Instant.now().toEpochMilli();
+        assertTrue(validFor <= 2000 * busy.getRetryAfterSeconds() && validFor > 0, String.valueOf(validFor));
+
+        String expired = ingest.arrivalToken(1L, 2L, hash, BEFORE_DEADLINE, Instant.now().minusSeconds(1));
+        assertEquals(now, ingest.resolveArrival(1L, 2L, hash, now, expired));
+    }
+
+    private LocalDateTime resolve(Long studentId, MockMultipartFile file, LocalDateTime now, String token)
+            throws IOException {
+        return ingest.resolveArrival(1L, studentId, SubmissionIngestService.contentHash(file), now, token);
+    }
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile("file", "essay.txt", "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
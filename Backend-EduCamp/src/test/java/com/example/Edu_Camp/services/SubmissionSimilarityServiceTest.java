@@ -0,0 +1,129 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.models.Submission;
+import com.example.Edu_Camp.models.SubmissionFingerprint;
+import com.example.Edu_Camp.repository.AssignmentRepository;
+import com.example.Edu_Camp.repository.SubmissionFingerprintRepository;
+import com.example.Edu_Camp.repository.SubmissionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SubmissionSimilarityServiceTest {
+
+    private static final String[] VOCABULARY = (
+            "photosynthesis converts light energy into chemical energy stored in glucose while chlorophyll " +
+            "absorbs red and blue wavelengths plants release oxygen as a by product of splitting water " +
+            "molecules the calvin cycle fixes carbon dioxide inside the stroma of each chloroplast").split(" ");
+
+    @Test
+    void lightlyEditedCopyLandsInASharedBucket() {
+        String original = essay(new Random(1), 400);
+        // A copy with a few words changed near the start and the end
+        String copy = original.replaceFirst("energy", "power").replaceFirst("oxygen", "O2") + " in summary";
+
+        List<int[]> signatures = new ArrayList<>();
+        signatures.add(MinHash.of(original, 50).values());
+        for (int i = 2; i < 40; i++) {
+            signatures.add(MinHash.of(essay(new Random(i), 400), 50).values());
+        }
+        signatures.add(MinHash.of(copy, 50).values());
+
+        Set<Long> candidates = SubmissionSimilarityService.candidatePairs(signatures);
+        long copied = (long) 0 << 32 | (signatures.size() - 1);
+
+        assertTrue(candidates.contains(copied));
+        assertTrue(MinHash.similarity(signatures.get(0), signatures.get(signatures.size() - 1)) > 0.8);
+        // Far fewer comparisons than all 780 pairs, none of which is similar
+        assertTrue(candidates.size() < 100, "candidates: " + candidates.size());
+        for (long pair : candidates) {
+            if (pair != copied) {
+                assertTrue(MinHash.similarity(signatures.get((int) (pair >>> 32)), signatures.get((int) pair)) < 0.5);
+            }
+        }
+    }
+
+    @Test
+    void shortTextsGetNoSignature() {
+        assertNull(MinHash.of("Too short to say anything about.", 50));
+    }
+
+    @Test
+    void extractsParagraphTextFromDocx() throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+                "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"><w:body>" +
+                "<w:p><w:r><w:t>The Calvin </w:t></w:r><w:r><w:t>cycle</w:t></w:r></w:p>" +
+                "<w:p><w:r><w:t xml:space=\"preserve\">fixes carbon</w:t><w:tab/><w:t>dioxide</w:t></w:r></w:p>" +
+                "</w:body></w:document>";
+        ByteArrayOutputStream docx = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(docx)) {
+            zip.putNextEntry(new ZipEntry("[Content_Types].xml"));
+            zip.write("<Types/>".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("word/document.xml"));
+            zip.write(xml.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String text = SubmissionTextExtractor.extract(new ByteArrayInputStream(docx.toByteArray()), "docx");
+
+        assertEquals("The Calvin cycle\nfixes carbon dioxide\n", text);
+        assertNull(SubmissionTextExtractor.extract(new ByteArrayInputStream(new byte[0]), "pdf"));
+    }
+
+    @Test
+    void reportQueuesMissingFingerprintsInsteadOfWaiting() throws InterruptedException {
+        SubmissionFingerprintRepository fingerprints = mock(SubmissionFingerprintRepository.class);
+        SubmissionRepository submissions = mock(SubmissionRepository.class);
+        AssignmentRepository assignments = mock(AssignmentRepository.class);
+        when(assignments.findTeacherIdById(1L)).thenReturn(Optional.of(10L));
+        when(fingerprints.findUnfingerprintedSubmissionIds(1L)).thenReturn(List.of(7L));
+        Submission submission = new Submission();
+        submission.setId(7L);
+        submission.setFilePath("objects/abc");
+        submission.setFileName("essay.pdf");
+        CountDownLatch release = new CountDownLatch(1);
+        when(submissions.findById(7L)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(submission);
+        });
+        SubmissionSimilarityService similarity = new SubmissionSimilarityService(fingerprints, submissions,
+                assignments, mock(FileStorageService.class), 0.5, 50, 1);
+
+        try {
+            SubmissionSimilarityService.SimilarityReport report = similarity.report(1L, 10L);
+            assertEquals(1, report.pending());
+            assertEquals(List.of(), report.pairs());
+            // Asking again while it is still queued does not queue it twice
+            similarity.report(1L, 10L);
+            release.countDown();
+
+            verify(fingerprints, timeout(5_000)).save(any(SubmissionFingerprint.class));
+            verify(submissions, times(1)).findById(7L);
+        } finally {
+            release.countDown();
+            similarity.shutdown();
+        }
+    }
+
+    private static String essay(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(VOCABULARY[random.nextInt(VOCABULARY.length)]).append(i % 12 == 11 ? ". " : " ");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.dto.EnrollmentDTO;
+import com.example.Edu_Camp.dto.TimetableProposalDto;
+import com.example.Edu_Camp.models.ClassEntity;
+import com.example.Edu_Camp.models.Student;
+import com.example.Edu_Camp.models.Teacher;
+import com.example.Edu_Camp.models.TimetableParser;
+import com.example.Edu_Camp.models.TimetableSlot;
+import com.example.Edu_Camp.repository.ClassRepository;
+import com.example.Edu_Camp.repository.EnrollmentRepository;
+import com.example.Edu_Camp.repository.PaymentRepository;
+import com.example.Edu_Camp.repository.StudentRepository;
+import com.example.Edu_Camp.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Clash checks of the timetable index, and the enrollment paths that rely on them, with the
+ * repositories mocked. Class 1 (teacher 10) runs Monday 9-11 and student 5 attends it;
+ * class 2 (teacher 10) runs Tuesday 9-10. Also covers the student's list of today's classes,
+ * which is read from the index.
+ */
+class TimetableIndexServiceTest {
+
+    private static final long TEACHER = 10L;
+    private static final long STUDENT = 5L;
+
+    private final ClassRepository classRepository = mock(ClassRepository.class);
+    private final EnrollmentRepository enrollmentRepository = mock(EnrollmentRepository.class);
+    private TimetableIndexService index;
+
+    @BeforeEach
+    void setUp() {
+        when(classRepository.findAllWithTimetableSlots()).thenReturn(List.of(
+                classEntity(1L, TEACHER, "MONDAY: 9-11AM"),
+                classEntity(2L, TEACHER, "TUESDAY: 9-10AM")));
+        when(enrollmentRepository.findStudentClassPairs()).thenReturn(List.<Object[]>of(new Object[] {STUDENT, 1L}));
+        index = new TimetableIndexService(classRepository, enrollmentRepository);
+        index.rebuild();
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reportsOverlapsWithIndexedClasses() {
+        try (TimetableIndexService.Reservation reservation = reserve(TimetableIndexService.ROLE_STUDENT, STUDENT, 3L,
+                "MON 10:30-12:00")) {
+            assertEquals(List.of(1L), reservation.conflicts());
+        }
+        // Touching end to start is not a clash, nor is the class itself
+        try (TimetableIndexService.Reservation reservation = reserve(TimetableIndexService.ROLE_STUDENT, STUDENT, 3L,
+                "MON 11-12")) {
+            assertTrue(reservation.conflicts().isEmpty());
+        }
+        try (TimetableIndexService.Reservation reservation = reserve(TimetableIndexService.ROLE_TEACHER, TEACHER, 1L,
+                "MON 9-11AM; TUE 9:30-10:30")) {
+            assertEquals(List.of(2L), reservation.conflicts());
+        }
+        try (TimetableIndexService.Reservation reservation = reserve(TimetableIndexService.ROLE_STUDENT, 6L, 3L,
+                "MON 9-11AM")) {
+            assertTrue(reservation.conflicts().isEmpty());
+        }
+    }
+
+    @Test
+    void concurrentWritesSeeEachOthersReservations() {
+        TimetableIndexService.Reservation first = reserve(TimetableIndexService.ROLE_STUDENT, STUDENT, 3L, "WED 2-3PM");
+        assertTrue(first.conflicts().isEmpty());
+
+        TimetableIndexService.Reservation second = reserve(TimetableIndexService.ROLE_STUDENT, STUDENT, 4L, "WED 2:30-3:30PM");
+        assertEquals(List.of(3L), second.conflicts());
+        second.close();
+
+        first.close();
+        first.close();
+        try (TimetableIndexService.Reservation third = reserve(TimetableIndexService.ROLE_STUDENT, STUDENT, 4L,
+                "WED 2:30-3:30PM")) {
+            assertTrue(third.conflicts().isEmpty());
+        }
+    }
+
+    @Test
+    void classesNotSavedYetClashWithEachOther() {
+        try (TimetableIndexService.Reservation first = reserve(TimetableIndexService.ROLE_TEACHER, TEACHER, null, "FRI 8-10AM");
+             TimetableIndexService.Reservation second = reserve(TimetableIndexService.ROLE_TEACHER, TEACHER, null, "FRI 9-11AM")) {
+            assertTrue(first.conflicts().isEmpty());
+            assertEquals(Arrays.asList((Long) null), second.conflicts());
+        }
+    }
+
+    @Test
+    void reservationLastsUntilTheTransactionEnds() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(reserve(TimetableIndexService.ROLE_STUDENT, STUDENT, 2L, "TUESDAY: 9-10AM").conflicts().isEmpty());
+        index.addEnrollment(STUDENT, 2L);
+        assertEquals(List.of(2L), reserve(TimetableIndexService.ROLE_STUDENT, STUDENT, 3L, "TUE 9-10").conflicts());
+        commit();
+
+        // The enrollment is now in the tree, and the reservation is gone
+        TransactionSynchronizationManager.initSynchronization();
+        assertEquals(List.of(2L), reserve(TimetableIndexService.ROLE_STUDENT, STUDENT, 3L, "TUE 9-10").conflicts());
+        assertEquals(2L, index.getSchedule(TimetableIndexService.ROLE_STUDENT, STUDENT, DayOfWeek.TUESDAY).get(0).classId());
+        rollBack();
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(reserve(TimetableIndexService.ROLE_STUDENT, STUDENT, 4L, "THU 9-10").conflicts().isEmpty());
+        rollBack();
+        assertTrue(reserve(TimetableIndexService.ROLE_STUDENT, STUDENT, 3L, "THU 9-10").conflicts().isEmpty());
+    }
+
+    @Test
+    void enrollmentIsRejectedOnClashUnlessAlreadyPaid() {
+        StudentRepository studentRepository = mock(StudentRepository.class);
+        Student student = new Student();
+        student.setId(STUDENT);
+        when(studentRepository.findById(STUDENT)).thenReturn(Optional.of(student));
+        when(studentRepository.findByUserId(STUDENT)).thenReturn(Optional.of(student));
+        ClassEntity clashing = classEntity(3L, 11L, "MONDAY: 10-12");
+        when(classRepository.findById(3L)).thenReturn(Optional.of(clashing));
+        when(enrollmentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        EnrollmentService enrollments = new EnrollmentService(enrollmentRepository, studentRepository, classRepository,
+                mock(PaymentRepository.class), mock(UserRepository.class), index);
+
+        EnrollmentDTO dto = new EnrollmentDTO();
+        dto.setStudentId(STUDENT);
+        dto.setClassId(3L);
+        TimetableConflictException conflict = assertThrows(TimetableConflictException.class,
+                () -> enrollments.createEnrollment(dto));
+        assertEquals(List.of(1L), conflict.getConflictingClassIds());
+        verify(enrollmentRepository, never()).save(any());
+
+        // The rejected enrollment left nothing reserved
+        try (TimetableIndexService.Reservation reservation = reserve(TimetableIndexService.ROLE_STUDENT, STUDENT, 4L,
+                "MON 11-12")) {
+            assertTrue(reservation.conflicts().isEmpty());
+        }
+
+        // A paid class is enrolled anyway; the clash is only logged
+        assertNotNull(enrollments.createEnrollmentIfNotExists(STUDENT, 3L, null));
+        verify(enrollmentRepository).save(any());
+    }
+
+    @Test
+    void generatedTimetablesAreReservedBeforeTheyAreApplied() {
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.unwrap(Session.class)).thenReturn(mock(Session.class));
+        when(classRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        TimetableGenerationService generation = new TimetableGenerationService(classRepository, enrollmentRepository,
+                index, entityManager);
+
+        // A class for the same teacher is being created concurrently
+        TimetableIndexService.Reservation creating = reserve(TimetableIndexService.ROLE_TEACHER, TEACHER, null,
+                "WED 9-10AM");
+        TimetableConflictException conflict = assertThrows(TimetableConflictException.class,
+                () -> generation.apply(proposal(2L, "WEDNESDAY: 9:30-10:30AM")));
+        assertTrue(conflict.getConflictingClassIds().isEmpty(), "the clashing class has no id yet");
+        verify(classRepository, never()).saveAll(any());
+        creating.close();
+        // The rejected batch left nothing reserved
+        try (TimetableIndexService.Reservation reservation = reserve(TimetableIndexService.ROLE_TEACHER, TEACHER, 5L,
+                "WED 9:30-10:30AM")) {
+            assertTrue(reservation.conflicts().isEmpty());
+        }
+
+        // Swapping two classes is not a clash with their old slots still in the index
+        TimetableProposalDto swap = proposal(1L, "TUESDAY: 9-10AM");
+        swap.getClasses().addAll(proposal(2L, "MONDAY: 9-11AM").getClasses());
+        assertEquals(2, generation.apply(swap).size());
+        assertEquals(2L, index.getSchedule(TimetableIndexService.ROLE_TEACHER, TEACHER, DayOfWeek.MONDAY).get(0).classId());
+        assertEquals(1L, index.getSchedule(TimetableIndexService.ROLE_STUDENT, STUDENT, DayOfWeek.TUESDAY).get(0).classId());
+    }
+
+    @Test
+    void todaysClassesListEachClassOnceWithAllItsSlots() {
+        long student = 6L;
+        String today = LocalDate.now().getDayOfWeek().name();
+        Map<Long, ClassEntity> classes = new HashMap<>();
+        for (ClassEntity c : List.of(
+                classEntity(3L, 11L, today + ": 9-10AM; " + today + ": 2-3PM"),
+                classEntity(4L, 11L, today + " after lunch"),
+                classEntity(5L, 11L, LocalDate.now().getDayOfWeek().plus(1).name() + ": 9-10AM"),
+                classEntity(6L, 11L, "by arrangement"))) {
+            classes.put(c.getClass_id(), c);
+            index.upsertClass(c);
+            index.addEnrollment(student, c.getClass_id());
+        }
+        assertTrue(classes.get(4L).getTimetableSlots().isEmpty());
+        assertEquals(List.of(4L, 6L), index.getUnscheduledClasses(student));
+        when(classRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<ClassEntity> found = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) found.add(classes.get(id));
+            return found;
+        });
+        StudentService students = new StudentService(mock(StudentRepository.class), mock(ProfileImageService.class));
+        ReflectionTestUtils.setField(students, "scheduleService", new ScheduleService(index, classRepository));
+        ReflectionTestUtils.setField(students, "classRepository", classRepository);
+        ReflectionTestUtils.setField(students, "timetableIndexService", index);
+        Student attending = new Student();
+        attending.setId(student);
+
+        List<Map<String, Object>> todays = students.getTodaysClasses(attending);
+
+        assertEquals(List.of(3L, 4L), todays.stream().map(c -> c.get("classId")).toList());
+        List<?> times = (List<?>) todays.get(0).get("times");
+        assertEquals(2, times.size());
+        assertEquals(todays.get(0).get("startTime"), ((Map<?, ?>) times.get(0)).get("startTime"));
+        // Listed although its timetable could not be parsed, as before the index
+        assertEquals(today + " after lunch", todays.get(1).get("timetable"));
+        assertEquals(List.of(), todays.get(1).get("times"));
+    }
+
+    private static TimetableProposalDto proposal(Long classId, String timetable) {
+        TimetableProposalDto.ClassTimetable entry = new TimetableProposalDto.ClassTimetable();
+        entry.setClassId(classId);
+        entry.setTimetable(timetable);
+        TimetableProposalDto proposal = new TimetableProposalDto();
+        proposal.setClasses(new ArrayList<>(List.of(entry)));
+        return proposal;
+    }
+
+    private TimetableIndexService.Reservation reserve(String role, Long ownerId, Long classId, String timetable) {
+        List<TimetableSlot> slots = TimetableParser.parse(timetable);
+        assertFalse(slots.isEmpty(), timetable);
+        return index.reserveSlots(role, ownerId, classId, slots);
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    private static void rollBack() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+    }
+
+    private static ClassEntity classEntity(Long id, Long teacherId, String timetable) {
+        Teacher teacher = new Teacher();
+        teacher.setId(teacherId);
+        ClassEntity classEntity = new ClassEntity();
+        classEntity.setClass_id(id);
+        classEntity.setTeacher(teacher);
+        classEntity.setTimetable(timetable);
+        return classEntity;
+    }
+}
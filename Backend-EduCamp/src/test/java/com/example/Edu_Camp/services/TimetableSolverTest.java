@@ -0,0 +1,72 @@
+package com.example.Edu_Camp.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimetableSolverTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void feasibleInstanceReachesZeroCost() {
+        // Two days of three cells; classes 0-2 share a teacher, class 3 shares a student with class 0.
+        // Class 0 has two lessons and may only use the first day's morning cells plus day two.
+        int[] cellDay = {0, 0, 0, 1, 1, 1};
+        int[][] neighbours = {{0, 1, 2, 3}, {1, 0, 2}, {2, 0, 1}, {3, 0}};
+        int[] sessionClass = {0, 0, 1, 2, 3};
+        int[] all = {0, 1, 2, 3, 4, 5};
+        int[][] domains = {{0, 1, 3}, {0, 1, 3}, all, all, {0, 3}};
+        TimetableSolver.Problem problem = new TimetableSolver.Problem(6, 2, cellDay, 4, new int[] {0, 0, 0, 1},
+                new int[] {0, 0}, neighbours, sessionClass, domains);
+
+        TimetableSolver.Result result = TimetableSolver.solve(problem, pool, 5_000, 42);
+
+        assertEquals(0, result.hardConflicts());
+        assertEquals(0, result.softPenalty());
+        assertEquals(2, result.workers());
+        int[] cells = result.assignment();
+        for (int s = 0; s < cells.length; s++) {
+            int cell = cells[s];
+            assertTrue(Arrays.stream(domains[s]).anyMatch(allowed -> allowed == cell), "session " + s);
+        }
+        // Class 0 meets on both days, and nothing shares a cell with a neighbour
+        assertNotEquals(cellDay[cells[0]], cellDay[cells[1]]);
+        assertEquals(cells.length, Arrays.stream(cells).distinct().count());
+    }
+
+    @Test
+    void reportsTheClashesItCannotAvoid() {
+        // Two neighbouring classes and a single cell
+        TimetableSolver.Problem problem = new TimetableSolver.Problem(1, 1, new int[] {0}, 2, new int[] {0, 0},
+                new int[] {0}, new int[][] {{0, 1}, {1, 0}}, new int[] {0, 1}, new int[][] {{0}, {0}});
+
+        TimetableSolver.Result result = TimetableSolver.solve(problem, pool, 100, 7);
+
+        assertEquals(1, result.hardConflicts());
+        assertArrayEquals(new int[] {0, 0}, result.assignment());
+        assertTrue(result.iterations() > 0);
+    }
+
+    @Test
+    void emptyProblemReturnsAtOnce() {
+        TimetableSolver.Problem problem = new TimetableSolver.Problem(3, 1, new int[] {0, 0, 0}, 0, new int[0],
+                new int[0], new int[0][], new int[0], new int[0][]);
+
+        TimetableSolver.Result result = TimetableSolver.solve(problem, pool, 5_000, 1);
+
+        assertEquals(0, result.assignment().length);
+        assertEquals(0, result.hardConflicts());
+        assertEquals(0, result.softPenalty());
+        assertEquals(0, result.iterations());
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.Edu_Camp.services;
+
+import com.example.Edu_Camp.models.UploadSession;
+import com.example.Edu_Camp.repository.StoredObjectRepository;
+import com.example.Edu_Camp.repository.UploadChunkRepository;
+import com.example.Edu_Camp.repository.UploadSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives upload sessions against a local disk backend, with the session and chunk tables
+ * mocked by a single in-memory session.
+ */
+class UploadSessionServiceTest {
+
+    private static final long USER = 7L;
+    private static final int CHUNK = 1024;
+
+    @TempDir
+    Path uploadDir;
+
+    private final UploadSessionRepository sessions = mock(UploadSessionRepository.class);
+    private final UploadChunkRepository chunks = mock(UploadChunkRepository.class);
+    private final StoredObjectRepository storedObjects = mock(StoredObjectRepository.class);
+    private final TreeSet<Integer> recorded = new TreeSet<>();
+    private LocalDiskStorageBackend storage;
+    private UploadSessionService uploads;
+    private UploadSession session;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalDiskStorageBackend(uploadDir, "tmp");
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        FileStorageService fileStorageService = new FileStorageService(storedObjects, transactionManager, storage,
+                new HotFileCache(0, 0, 1), uploadDir.toString());
+        uploads = new UploadSessionService(sessions, chunks, fileStorageService, transactionManager,
+                CHUNK, 1 << 20, 24);
+
+        when(sessions.save(any())).thenAnswer(invocation -> {
+            session = invocation.getArgument(0);
+            return session;
+        });
+        when(sessions.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(session));
+        when(sessions.findStatus(anyString())).thenAnswer(invocation -> session.getStatus());
+        when(sessions.transition(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            if (!session.getStatus().equals(invocation.getArgument(1))) return 0;
+            session.setStatus(invocation.getArgument(2));
+            return 1;
+        });
+        when(sessions.complete(anyString(), anyString(), anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            if (!session.getStatus().equals(invocation.getArgument(1))) return 0;
+            session.setStatus(invocation.getArgument(2));
+            session.setFilePath(invocation.getArgument(3));
+            session.setFileHash(invocation.getArgument(4));
+            return 1;
+        });
+        when(sessions.claim(anyString(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            if (!UploadSession.COMPLETE.equals(session.getStatus())
+                    || !session.getExpiresAt().isAfter(invocation.getArgument(1))) return 0;
+            session.setStatus(UploadSession.CLAIMED);
+            return 1;
+        });
+        when(sessions.deleteInStatus(anyString(), anyString())).thenAnswer(invocation ->
+                session.getId().equals(invocation.getArgument(0))
+                        && session.getStatus().equals(invocation.getArgument(1)) ? 1 : 0);
+        doAnswer(invocation -> recorded.add(invocation.getArgument(1)))
+                .when(chunks).recordChunk(anyString(), anyInt(), anyLong(), anyString());
+        when(chunks.countBySessionId(anyString())).thenAnswer(invocation -> (long) recorded.size());
+        when(chunks.findChunkIndexesBySessionId(anyString())).thenAnswer(invocation -> List.copyOf(recorded));
+    }
+
+    @Test
+    void rejectsMisalignedOversizedAndCorruptChunks() throws IOException {
+        String id = uploads.create(USER, "SUBMISSION", "essay.pdf", 2500).uploadId();
+        byte[] chunk = bytes(CHUNK, 1);
+
+        assertThrows(RuntimeException.class, () -> write(id, 100, chunk));
+        assertThrows(RuntimeException.class, () -> write(id, 3 * CHUNK, chunk));
+        assertThrows(RuntimeException.class, () -> write(id, 0, bytes(CHUNK + 1, 1)));
+        assertThrows(RuntimeException.class, () -> write(id, 0, Arrays.copyOf(chunk, CHUNK - 1)));
+        RuntimeException mismatch = assertThrows(RuntimeException.class,
+                () -> uploads.writeChunk(id, USER, 0, sha256(bytes(CHUNK, 2)), new ByteArrayInputStream(chunk)));
+        assertTrue(mismatch.getMessage().contains("checksum"));
+        assertThrows(RuntimeException.class, () -> write(id + "x", 0, chunk));
+
+        assertTrue(recorded.isEmpty());
+        verify(chunks, never()).recordChunk(anyString(), anyInt(), anyLong(), anyString());
+    }
+
+    @Test
+    void statusPointsAtFirstMissingChunk() throws IOException {
+        byte[] content = bytes(2500, 3);
+        String id = uploads.create(USER, "SUBMISSION", "essay.pdf", content.length).uploadId();
+
+        write(id, 0, Arrays.copyOfRange(content, 0, CHUNK));
+        // The short last chunk may arrive before the middle one
+        UploadSessionService.UploadStatus status = write(id, 2 * CHUNK, Arrays.copyOfRange(content, 2 * CHUNK, 2500));
+
+        assertEquals(3, status.chunkCount());
+        assertEquals(List.of(0, 2), status.receivedChunks());
+        assertEquals(CHUNK, status.nextOffset());
+        assertThrows(RuntimeException.class, () -> uploads.complete(id, USER));
+        assertEquals(UploadSession.OPEN, session.getStatus(), "a premature complete leaves the upload resumable");
+
+        write(id, CHUNK, Arrays.copyOfRange(content, CHUNK, 2 * CHUNK));
+        UploadSessionService.UploadStatus complete = uploads.complete(id, USER);
+
+        assertEquals(UploadSession.COMPLETE, complete.status());
+        assertEquals(sha256(content), complete.sha256());
+        assertArrayEquals(content, read(complete.sha256()));
+        assertThrows(RuntimeException.class, () -> write(id, 0, Arrays.copyOfRange(content, 0, CHUNK)));
+    }
+
+    @Test
+    void slowChunkBodyDoesNotHoldUpTheSession() throws Exception {
+        byte[] content = bytes(2 * CHUNK, 4);
+        String id = uploads.create(USER, "SUBMISSION", "essay.pdf", content.length).uploadId();
+        write(id, 0, Arrays.copyOfRange(content, 0, CHUNK));
+
+        // A body that stalls halfway until released
+        CountDownLatch halfway = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        InputStream stalled = new SequenceInputStream(
+                new ByteArrayInputStream(content, CHUNK, CHUNK / 2),
+                new InputStream() {
+                    private final InputStream rest = new ByteArrayInputStream(content, CHUNK + CHUNK / 2, CHUNK / 2);
+
+                    @Override
+                    public int read() throws IOException {
+                        byte[] one = new byte[1];
+                        return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int off, int len) throws IOException {
+                        halfway.countDown();
+                        try {
+                            resume.await();
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        return rest.read(buffer, off, len);
+                    }
+                });
+        String chunkHash = sha256(Arrays.copyOfRange(content, CHUNK, 2 * CHUNK));
+        CompletableFuture<UploadSessionService.UploadStatus> writer = CompletableFuture.supplyAsync(() -> {
+            try {
+                return uploads.writeChunk(id, USER, CHUNK, chunkHash, stalled);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(halfway.await(5, TimeUnit.SECONDS));
+
+        // The stalled body holds no lock: complete answers at once that a chunk is missing
+        RuntimeException missing = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(RuntimeException.class, () -> uploads.complete(id, USER)));
+        assertTrue(missing.getMessage().contains("missing"), missing.getMessage());
+        assertEquals(UploadSession.OPEN, session.getStatus());
+
+        resume.countDown();
+        writer.get(5, TimeUnit.SECONDS);
+        UploadSessionService.UploadStatus complete = uploads.complete(id, USER);
+
+        assertEquals(sha256(content), complete.sha256());
+        assertArrayEquals(content, read(complete.sha256()));
+        try (Stream<Path> temp = Files.list(uploadDir.resolve("tmp"))) {
+            assertTrue(temp.noneMatch(path -> path.getFileName().toString().startsWith("chunk-")),
+                    "spooled chunks are removed");
+        }
+    }
+
+    @Test
+    void completedUploadIsClaimedOnceForItsPurpose() throws IOException {
+        byte[] content = bytes(500, 5);
+        String id = uploads.create(USER, "SUBMISSION", "essay.pdf", content.length).uploadId();
+        write(id, 0, content);
+        uploads.complete(id, USER);
+
+        assertThrows(RuntimeException.class, () -> uploads.claim(id, USER, "MATERIAL"));
+        assertThrows(RuntimeException.class, () -> uploads.claim(id, 8L, "SUBMISSION"));
+        UploadSessionService.ClaimedUpload claimed = uploads.claim(id, USER, "SUBMISSION");
+        assertEquals(sha256(content), claimed.stored().sha256());
+        assertEquals("essay.pdf", claimed.fileName());
+        assertThrows(RuntimeException.class, () -> uploads.claim(id, USER, "SUBMISSION"));
+        assertThrows(RuntimeException.class, () -> uploads.cancel(id, USER));
+    }
+
+    @Test
+    void claimAndExpiryNeverBothOwnTheReference() throws IOException {
+        byte[] content = bytes(500, 7);
+        String id = uploads.create(USER, "SUBMISSION", "essay.pdf", content.length).uploadId();
+        write(id, 0, content);
+        uploads.complete(id, USER);
+        String hash = sha256(content);
+
+        session.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        RuntimeException expired = assertThrows(RuntimeException.class, () -> uploads.claim(id, USER, "SUBMISSION"));
+        assertTrue(expired.getMessage().contains("expired"));
+
+        // The cleanup job read the session as COMPLETE, then the claim won
+        UploadSession snapshot = new UploadSession();
+        snapshot.setId(id);
+        snapshot.setStatus(UploadSession.COMPLETE);
+        snapshot.setFileHash(hash);
+        session.setExpiresAt(LocalDateTime.now().plusMinutes(1));
+        uploads.claim(id, USER, "SUBMISSION");
+        when(sessions.findTop100ByExpiresAtBeforeAndStatusNot(any(LocalDateTime.class), eq(UploadSession.CLAIMED)))
+                .thenReturn(List.of(snapshot));
+
+        uploads.removeExpired();
+
+        verify(sessions).deleteInStatus(id, UploadSession.COMPLETE);
+        verify(storedObjects, never()).removeReference(anyString());
+        assertArrayEquals(content, read(hash));
+    }
+
+    @Test
+    void uploadRemovedWhileCompletingReleasesWhatItStored() throws IOException {
+        byte[] content = bytes(500, 8);
+        String id = uploads.create(USER, "SUBMISSION", "essay.pdf", content.length).uploadId();
+        write(id, 0, content);
+        String hash = sha256(content);
+        when(storedObjects.removeReference(hash)).thenReturn(1);
+        // Expired and deleted between storing the file and the final transition
+        when(sessions.complete(anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn(0);
+
+        RuntimeException cancelled = assertThrows(RuntimeException.class, () -> uploads.complete(id, USER));
+
+        assertTrue(cancelled.getMessage().contains("cancelled"));
+        verify(storedObjects).removeReference(hash);
+        verify(chunks, never()).deleteBySessionId(id);
+    }
+
+    @Test
+    void expiredSessionsLoseTheirPartFileOrReference() throws IOException {
+        byte[] content = bytes(500, 6);
+        String id = uploads.create(USER, "SUBMISSION", "essay.pdf", content.length).uploadId();
+        write(id, 0, content);
+        uploads.complete(id, USER);
+        String hash = sha256(content);
+        when(storedObjects.removeReference(hash)).thenReturn(1);
+        when(storedObjects.deleteIfUnreferenced(hash)).thenReturn(1);
+
+        UploadSession open = new UploadSession();
+        open.setId(uploads.create(USER, "SUBMISSION", "draft.pdf", 100).uploadId());
+        open.setStatus(UploadSession.OPEN);
+        Path part = uploadDir.resolve("tmp").resolve("chunked-" + open.getId() + ".part");
+        assertTrue(Files.exists(part));
+
+        UploadSession completed = new UploadSession();
+        completed.setId(id);
+        completed.setStatus(UploadSession.COMPLETE);
+        completed.setFileHash(hash);
+        when(sessions.findTop100ByExpiresAtBeforeAndStatusNot(any(LocalDateTime.class), eq(UploadSession.CLAIMED)))
+                .thenReturn(List.of(open, completed), List.of());
+        when(sessions.deleteInStatus(anyString(), anyString())).thenReturn(1);
+
+        uploads.removeExpired();
+
+        assertFalse(Files.exists(part));
+        verify(sessions).deleteInStatus(open.getId(), UploadSession.OPEN);
+        verify(sessions).deleteInStatus(id, UploadSession.COMPLETE);
+        verify(storedObjects).removeReference(hash);
+        assertTrue(storage.stat(FileStorageService.objectPath(hash)).isEmpty());
+        verify(sessions).deleteClaimedBefore(any(LocalDateTime.class));
+    }
+
+    private UploadSessionService.UploadStatus write(String id, long offset, byte[] chunk) throws IOException {
+        return uploads.writeChunk(id, USER, offset, sha256(chunk), new ByteArrayInputStream(chunk));
+    }
+
+    private byte[] read(String hash) throws IOException {
+        try (InputStream in = storage.openStream(FileStorageService.objectPath(hash), 0, Long.MAX_VALUE)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] bytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}